@@ -20,6 +20,7 @@ package org.apache.ambari.server.actionmanager;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.agent.CommandReport;
@@ -86,6 +87,19 @@ public interface ActionDBAccessor {
    */
   public int getCommandsInProgressCount();
 
+  /**
+   * Gets the hosts which have at least one command in progress.
+   *
+   * @return the host names (never {@code null}).
+   */
+  public Set<String> getHostsWithCommandsInProgress();
+
+  /**
+   * Discards any state cached for the stages in progress so that the next
+   * call to {@link #getStagesInProgress()} reloads them from the database.
+   */
+  public void invalidateStagesInProgress();
+
   /**
    * Persists all tasks for a given request
    * @param request request object
@@ -17,6 +17,7 @@
  */
 package org.apache.ambari.server.actionmanager;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,6 +26,9 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.annotations.Experimental;
@@ -36,6 +40,7 @@ import org.apache.ambari.server.orm.dao.ClusterDAO;
 import org.apache.ambari.server.orm.dao.ExecutionCommandDAO;
 import org.apache.ambari.server.orm.dao.HostDAO;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.apache.ambari.server.orm.dao.HostRoleCommandOutputDAO;
 import org.apache.ambari.server.orm.dao.RequestDAO;
 import org.apache.ambari.server.orm.dao.RequestScheduleDAO;
 import org.apache.ambari.server.orm.dao.RoleSuccessCriteriaDAO;
@@ -48,6 +53,7 @@ import org.apache.ambari.server.orm.entities.RequestEntity;
 import org.apache.ambari.server.orm.entities.RequestScheduleEntity;
 import org.apache.ambari.server.orm.entities.RoleSuccessCriteriaEntity;
 import org.apache.ambari.server.orm.entities.StageEntity;
+import org.apache.ambari.server.orm.entities.StageEntityPK;
 import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.Host;
 import org.apache.ambari.server.utils.LoopBody;
@@ -69,6 +75,11 @@ import com.google.inject.persist.Transactional;
 public class ActionDBAccessorImpl implements ActionDBAccessor {
   private static final Logger LOG = LoggerFactory.getLogger(ActionDBAccessorImpl.class);
 
+  /**
+   * The charset of the stored command output.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
   private long requestId;
 
   @Inject
@@ -89,6 +100,9 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
   @Inject
   ExecutionCommandDAO executionCommandDAO;
 
+  @Inject
+  HostRoleCommandOutputDAO hostRoleCommandOutputDAO;
+
   @Inject
   RoleSuccessCriteriaDAO roleSuccessCriteriaDAO;
 
@@ -110,6 +124,16 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
   @Inject
   Configuration configuration;
 
+  @Inject
+  ActiveStageIndex activeStageIndex;
+
+  /**
+   * The stages returned by {@link #getStagesInProgress()}, reused as long as
+   * the version of the stage in the {@link ActiveStageIndex} does not change.
+   */
+  private final ConcurrentMap<StageEntityPK, CachedStage> stagesInProgressCache =
+      new ConcurrentHashMap<StageEntityPK, CachedStage>();
+
   private Cache<Long, HostRoleCommand> hostRoleCommandCache;
   private long cacheLimit; //may be exceeded to store tasks from one request
 
@@ -214,13 +238,111 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * The stages are looked up through the {@link ActiveStageIndex} instead of
+   * querying for stages with in progress commands, and only the stages with
+   * commands which changed since the previous call are rebuilt from the
+   * database.
    */
   @Override
-  @Experimental
   public List<Stage> getStagesInProgress() {
-    List<StageEntity> stageEntities = stageDAO.findByCommandStatuses(
+    reconcileActiveStageIndex();
+
+    Map<StageEntityPK, Long> activeStages = activeStageIndex.getActiveStages();
+    stagesInProgressCache.keySet().retainAll(activeStages.keySet());
+
+    List<StageEntity> changedStageEntities = new ArrayList<StageEntity>();
+    List<Long> changedStageVersions = new ArrayList<Long>();
+    for (Map.Entry<StageEntityPK, Long> entry : activeStages.entrySet()) {
+      CachedStage cachedStage = stagesInProgressCache.get(entry.getKey());
+      if (null != cachedStage && cachedStage.version == entry.getValue()) {
+        continue;
+      }
+
+      StageEntity stageEntity = stageDAO.findByPK(entry.getKey());
+      if (null == stageEntity) {
+        // the index is ahead of or out of sync with the database
+        activeStageIndex.invalidate();
+        continue;
+      }
+
+      changedStageEntities.add(stageEntity);
+      changedStageVersions.add(entry.getValue());
+    }
+
+    List<Stage> changedStages = createExistingStages(changedStageEntities);
+    for (int i = 0; i < changedStages.size(); i++) {
+      Stage stage = changedStages.get(i);
+      StageEntityPK stagePK = new StageEntityPK();
+      stagePK.setRequestId(stage.getRequestId());
+      stagePK.setStageId(stage.getStageId());
+      stagesInProgressCache.put(stagePK,
+          new CachedStage(changedStageVersions.get(i), stage));
+    }
+
+    List<Stage> stages = new ArrayList<Stage>(activeStages.size());
+    for (StageEntityPK stagePK : activeStages.keySet()) {
+      CachedStage cachedStage = stagesInProgressCache.get(stagePK);
+      if (null != cachedStage) {
+        stages.add(cachedStage.stage);
+      }
+    }
+
+    return stages;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getCommandsInProgressCount() {
+    reconcileActiveStageIndex();
+    return activeStageIndex.getActiveTaskCount();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getHostsWithCommandsInProgress() {
+    reconcileActiveStageIndex();
+    return activeStageIndex.getHostsWithActiveTasks();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void invalidateStagesInProgress() {
+    stagesInProgressCache.clear();
+    activeStageIndex.invalidate();
+  }
+
+  /**
+   * Rebuilds the {@link ActiveStageIndex} from the database if it was never
+   * built, was invalidated or is older than the configured reconcile
+   * interval.
+   */
+  private void reconcileActiveStageIndex() {
+    if (!activeStageIndex.isRebuildNeeded(configuration.getStageIndexReconcileInterval())) {
+      return;
+    }
+
+    long snapshotTime = System.currentTimeMillis();
+    List<HostRoleCommandEntity> activeTasks = hostRoleCommandDAO.findByStatus(
         HostRoleStatus.IN_PROGRESS_STATUSES);
 
+    activeStageIndex.rebuild(activeTasks, snapshotTime);
+    stagesInProgressCache.clear();
+
+    LOG.debug("Rebuilt the index of in progress stages from {} tasks", activeTasks.size());
+  }
+
+  /**
+   * Creates the stages for the given entities, preserving their order.
+   */
+  @Experimental
+  private List<Stage> createExistingStages(final List<StageEntity> stageEntities) {
     // experimentally enable parallel stage processing
     @Experimental
     boolean useConcurrentStageProcessing = configuration.isExperimentalConcurrentStageProcessingEnabled();
@@ -253,19 +375,6 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
     }
   }
 
-  /**
-   * {@inheritDoc}
-   */
-  @Override
-  public int getCommandsInProgressCount() {
-    Number count = hostRoleCommandDAO.getCountByStatus(HostRoleStatus.IN_PROGRESS_STATUSES);
-    if (null == count) {
-      return 0;
-    }
-
-    return count.intValue();
-  }
-
   @Override
   @Transactional
   public void persistActions(Request request) throws AmbariException {
@@ -450,14 +559,12 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
           break;
       }
 
-      commandEntity.setStdOut(report.getStdOut().getBytes());
-      commandEntity.setStdError(report.getStdErr().getBytes());
-      commandEntity.setStructuredOut(report.getStructuredOut() == null ? null :
-        report.getStructuredOut().getBytes());
+      updateOutput(commandEntity.getTaskId(), report);
       commandEntity.setExitcode(report.getExitCode());
 
       if (HostRoleStatus.getCompletedStates().contains(commandEntity.getStatus())) {
         commandEntity.setEndTime(now);
+        hostRoleCommandOutputDAO.release(commandEntity.getTaskId());
 
         String actionId = report.getActionId();
         long[] requestStageIds = StageUtils.getRequestStage(actionId);
@@ -506,13 +613,11 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
       }
 
       command.setStatus(status);
-      command.setStdOut(report.getStdOut().getBytes());
-      command.setStdError(report.getStdErr().getBytes());
-      command.setStructuredOut(report.getStructuredOut() == null ? null :
-        report.getStructuredOut().getBytes());
+      updateOutput(command.getTaskId(), report);
 
       if (HostRoleStatus.getCompletedStates().contains(command.getStatus())) {
         command.setEndTime(now);
+        hostRoleCommandOutputDAO.release(command.getTaskId());
         if (requestDAO.getLastStageId(requestId).equals(stageId)) {
           checkRequest = true;
         }
@@ -527,6 +632,22 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
     }
   }
 
+  /**
+   * Stores the output of a command report; only what was appended since the
+   * previous report of the task is written.
+   *
+   * @param taskId the task id
+   * @param report the report (not {@code null})
+   */
+  private void updateOutput(long taskId, CommandReport report) {
+    hostRoleCommandOutputDAO.update(taskId, CommandOutputType.STDOUT,
+        report.getStdOut().getBytes(UTF_8));
+    hostRoleCommandOutputDAO.update(taskId, CommandOutputType.STDERR,
+        report.getStdErr().getBytes(UTF_8));
+    hostRoleCommandOutputDAO.update(taskId, CommandOutputType.STRUCTURED_OUT,
+        report.getStructuredOut() == null ? null : report.getStructuredOut().getBytes(UTF_8));
+  }
+
   @Override
   public void abortHostRole(String host, long requestId, long stageId, String role) {
     String reason = String.format("On host %s role %s in invalid state.", host, role);
@@ -731,4 +852,17 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 
     hostRoleCommandDAO.mergeAll(tasks);
   }
+
+  /**
+   * A stage built for a particular version of the {@link ActiveStageIndex}.
+   */
+  private static final class CachedStage {
+    private final long version;
+    private final Stage stage;
+
+    private CachedStage(long version, Stage stage) {
+      this.version = version;
+      this.stage = stage;
+    }
+  }
 }
@@ -143,6 +143,7 @@ public class ActionManager {
     }
 
     List<CommandReport> reportsToProcess = new ArrayList<CommandReport>();
+    boolean commandCompleted = false;
     Iterator<HostRoleCommand> commandIterator = commands.iterator();
     //persist the action response into the db.
     for (CommandReport report : reports) {
@@ -163,9 +164,18 @@ public class ActionManager {
         continue;
       }
       reportsToProcess.add(report);
+
+      if (!HostRoleStatus.valueOf(report.getStatus()).isInProgress()) {
+        commandCompleted = true;
+      }
     }
 
     db.updateHostRoleStates(reportsToProcess);
+
+    // the next commands may be scheduled without waiting for the next pass
+    if (commandCompleted) {
+      scheduler.awake();
+    }
   }
 
   /**
@@ -259,6 +269,7 @@ public class ActionManager {
 
   public void resubmitTasks(List<Long> taskIds) {
     db.resubmitTasks(taskIds);
+    scheduler.awake();
   }
 
 }
@@ -58,6 +58,8 @@ import org.apache.ambari.server.state.ServiceComponentHostEvent;
 import org.apache.ambari.server.state.fsm.InvalidStateTransitionException;
 import org.apache.ambari.server.state.svccomphost.ServiceComponentHostOpFailedEvent;
 import org.apache.ambari.server.utils.StageUtils;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.apache.ambari.server.utils.TimingStatistics;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +76,10 @@ import com.google.inject.persist.UnitOfWork;
  * This class encapsulates the action scheduler thread.
  * Action schedule frequently looks at action database and determines if
  * there is an action that can be scheduled.
+ * The stages in progress are found through the {@link ActiveStageIndex}, so
+ * the database is only read for stages whose commands changed since the
+ * previous pass. The scheduler is woken up early whenever new actions are
+ * persisted or a command completes.
  */
 class ActionScheduler implements Runnable {
 
@@ -100,6 +106,16 @@ class ActionScheduler implements Runnable {
 
   private final Set<Long> requestsInProgress = new HashSet<Long>();
 
+  /**
+   * The latency of each scheduler pass.
+   */
+  private final TimingStatistics tickStatistics = new TimingStatistics("ActionScheduler.doWork");
+
+  /**
+   * Limits how often the scheduler statistics are logged.
+   */
+  private final StatisticsLogThrottle statisticsLog = new StatisticsLogThrottle();
+
   /**
    * Contains request ids that have been scheduled to be cancelled,
    * but are not cancelled yet
@@ -200,14 +216,17 @@ class ActionScheduler implements Runnable {
       } catch (Exception ex) {
         LOG.warn("Exception received", ex);
         requestsInProgress.clear();
+        db.invalidateStagesInProgress();
       } catch (Throwable t) {
         LOG.warn("ERROR", t);
         requestsInProgress.clear();
+        db.invalidateStagesInProgress();
       }
     }
   }
 
   public void doWork() throws AmbariException {
+    long start = System.nanoTime();
     try {
       unitOfWork.begin();
 
@@ -246,7 +265,7 @@ class ActionScheduler implements Runnable {
 
       int i_stage = 0;
 
-      HashSet<String> hostsWithTasks = getListOfHostsWithPendingTask(stages);
+      HashSet<String> hostsWithTasks = new HashSet<String>(db.getHostsWithCommandsInProgress());
       actionQueue.updateListOfHostsWithPendingTask(hostsWithTasks);
 
       stages = filterParallelPerHostStages(stages);
@@ -409,26 +428,15 @@ class ActionScheduler implements Runnable {
       requestsInProgress.retainAll(runningRequestIds);
 
     } finally {
-      LOG.debug("Scheduler finished work.");
       unitOfWork.end();
+      tickStatistics.recordSince(start);
+      LOG.debug("Scheduler finished work, {}", tickStatistics);
+      if (statisticsLog.isDue()) {
+        LOG.info("Scheduler statistics: {}", tickStatistics);
+      }
     }
   }
 
-  /**
-   * Returns the list of hosts that have a task assigned
-   *
-   * @param stages
-   *
-   * @return
-   */
-  private HashSet<String> getListOfHostsWithPendingTask(List<Stage> stages) {
-    HashSet<String> hostsWithTasks = new HashSet<String>();
-    for (Stage s : stages) {
-      hostsWithTasks.addAll(s.getHosts());
-    }
-    return hostsWithTasks;
-  }
-
   /**
    * Returns filtered list of stages following the rule:
    * 1) remove stages that has the same host. Leave only first stage, the rest that have same host of any operation will be filtered
@@ -0,0 +1,352 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.ambari.server.orm.TransactionCallbacks;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.apache.ambari.server.orm.entities.StageEntityPK;
+
+import com.google.inject.Singleton;
+
+/**
+ * The {@link ActiveStageIndex} is an in-memory index of the tasks which are
+ * in one of the {@link HostRoleStatus#IN_PROGRESS_STATUSES}, grouped by stage
+ * and by host. It allows the {@link ActionScheduler} to find the stages it
+ * has to look at without running the {@code StageEntity.findByCommandStatuses}
+ * subquery on every wakeup.
+ * <p/>
+ * The index is maintained incrementally by
+ * {@link org.apache.ambari.server.orm.dao.HostRoleCommandDAO} whenever a task
+ * is created, merged or removed. Changes are applied only once the surrounding
+ * transaction has committed, so the index never holds a task which the
+ * database does not have yet, and changes which are rolled back are never
+ * applied. As a safety net the index is periodically rebuilt from the database
+ * by {@link ActionDBAccessorImpl}; tasks whose changes committed after the
+ * rebuild snapshot was started keep their in-memory state.
+ * <p/>
+ * Every change to a task bumps the version of its stage, which lets callers
+ * cache the {@link Stage} objects built for a version and reuse them until one
+ * of their tasks changes.
+ */
+@Singleton
+public class ActiveStageIndex {
+
+  /**
+   * Orders stages the same way the {@code findByCommandStatuses} query does.
+   */
+  private static final Comparator<StageEntityPK> STAGE_ORDER = new Comparator<StageEntityPK>() {
+    @Override
+    public int compare(StageEntityPK o1, StageEntityPK o2) {
+      int result = o1.getRequestId().compareTo(o2.getRequestId());
+      if (result == 0) {
+        result = o1.getStageId().compareTo(o2.getStageId());
+      }
+      return result;
+    }
+  };
+
+  /**
+   * The last known state of each task, including recently finished or removed
+   * tasks which are kept until the next rebuild.
+   */
+  private Map<Long, TaskState> m_tasks = new HashMap<Long, TaskState>();
+
+  /**
+   * The stages having at least one active task, in request and stage order.
+   */
+  private TreeMap<StageEntityPK, StageState> m_stages = new TreeMap<StageEntityPK, StageState>(STAGE_ORDER);
+
+  /**
+   * The number of active tasks per host. Server-side tasks are not counted.
+   */
+  private Map<String, Integer> m_hosts = new HashMap<String, Integer>();
+
+  /**
+   * The number of active tasks.
+   */
+  private int m_activeTaskCount = 0;
+
+  /**
+   * Source of stage versions.
+   */
+  private long m_version = 0;
+
+  /**
+   * The time of the last rebuild, or {@code -1} if the index was never built.
+   */
+  private long m_lastRebuildTime = -1;
+
+  /**
+   * The time of the last call to {@link #invalidate()}, or {@code -1}.
+   */
+  private long m_invalidateTime = -1;
+
+  /**
+   * Records the current state of a task.
+   *
+   * @param entity
+   *          the task which was created or merged.
+   */
+  public void update(HostRoleCommandEntity entity) {
+    applyAfterCommit(entity, entity.getStatus());
+  }
+
+  /**
+   * Records the removal of a task.
+   *
+   * @param entity
+   *          the task which was removed.
+   */
+  public void remove(HostRoleCommandEntity entity) {
+    applyAfterCommit(entity, null);
+  }
+
+  /**
+   * Forces a rebuild on the next scheduler wakeup, for bulk changes which
+   * cannot be tracked per task.
+   */
+  public synchronized void invalidate() {
+    m_invalidateTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Determines whether the index must be rebuilt from the database.
+   *
+   * @param interval
+   *          the maximum age of the index, in milliseconds.
+   * @return {@code true} if the index was never built, was invalidated or is
+   *         older than {@code interval}.
+   */
+  public synchronized boolean isRebuildNeeded(long interval) {
+    return m_lastRebuildTime < 0 || m_invalidateTime >= m_lastRebuildTime
+        || System.currentTimeMillis() - m_lastRebuildTime > interval;
+  }
+
+  /**
+   * Replaces the contents of the index with the active tasks read from the
+   * database. Tasks whose changes committed at or after {@code snapshotTime}
+   * keep their in-memory state since the snapshot may have been read before
+   * those changes were visible.
+   *
+   * @param activeTasks
+   *          the tasks in an in-progress status, read from the database.
+   * @param snapshotTime
+   *          the time at which the snapshot was started.
+   */
+  public synchronized void rebuild(Collection<HostRoleCommandEntity> activeTasks,
+      long snapshotTime) {
+    Map<Long, TaskState> previous = m_tasks;
+
+    m_tasks = new HashMap<Long, TaskState>();
+    m_stages = new TreeMap<StageEntityPK, StageState>(STAGE_ORDER);
+    m_hosts = new HashMap<String, Integer>();
+    m_activeTaskCount = 0;
+
+    for (HostRoleCommandEntity entity : activeTasks) {
+      TaskState state = TaskState.of(entity, entity.getStatus(), 0);
+      if (null == state) {
+        continue;
+      }
+
+      TaskState recent = previous.get(entity.getTaskId());
+      if (null == recent || recent.updateTime < snapshotTime) {
+        apply(entity.getTaskId(), state);
+      }
+    }
+
+    for (Map.Entry<Long, TaskState> entry : previous.entrySet()) {
+      if (entry.getValue().updateTime >= snapshotTime) {
+        apply(entry.getKey(), entry.getValue());
+      }
+    }
+
+    m_lastRebuildTime = snapshotTime;
+  }
+
+  /**
+   * @return the number of tasks in an in-progress status.
+   */
+  public synchronized int getActiveTaskCount() {
+    return m_activeTaskCount;
+  }
+
+  /**
+   * Gets the stages which have at least one active task.
+   *
+   * @return the version of each active stage, keyed by stage and ordered by
+   *         request and stage id.
+   */
+  public synchronized Map<StageEntityPK, Long> getActiveStages() {
+    Map<StageEntityPK, Long> stages = new LinkedHashMap<StageEntityPK, Long>(m_stages.size());
+    for (Map.Entry<StageEntityPK, StageState> entry : m_stages.entrySet()) {
+      stages.put(entry.getKey(), entry.getValue().version);
+    }
+    return stages;
+  }
+
+  /**
+   * @return the hosts which have at least one active task.
+   */
+  public synchronized Set<String> getHostsWithActiveTasks() {
+    return new HashSet<String>(m_hosts.keySet());
+  }
+
+  /**
+   * Records the state of a task once the transaction of the calling thread
+   * commits. The status is captured now, while the identifiers are resolved
+   * after the commit, by which time a newly persisted task has its id.
+   *
+   * @param entity
+   *          the task.
+   * @param status
+   *          the status of the task, or {@code null} if it was removed.
+   */
+  private void applyAfterCommit(final HostRoleCommandEntity entity,
+      final HostRoleStatus status) {
+    TransactionCallbacks.afterCommit(new Runnable() {
+      @Override
+      public void run() {
+        TaskState state = TaskState.of(entity, status, System.currentTimeMillis());
+        if (null == state) {
+          return;
+        }
+
+        synchronized (ActiveStageIndex.this) {
+          apply(entity.getTaskId(), state);
+        }
+      }
+    });
+  }
+
+  /**
+   * Applies the new state of a task to the stage and host counters. Must be
+   * called while holding the monitor of this index.
+   */
+  private void apply(Long taskId, TaskState state) {
+    TaskState old = m_tasks.put(taskId, state);
+
+    if (null != old && old.isActive()) {
+      StageState stage = m_stages.get(old.stage);
+      if (null != stage && --stage.activeTasks == 0) {
+        m_stages.remove(old.stage);
+      }
+
+      if (null != old.hostName) {
+        Integer count = m_hosts.get(old.hostName);
+        if (null != count && count > 1) {
+          m_hosts.put(old.hostName, count - 1);
+        } else {
+          m_hosts.remove(old.hostName);
+        }
+      }
+
+      m_activeTaskCount--;
+    }
+
+    if (state.isActive()) {
+      StageState stage = m_stages.get(state.stage);
+      if (null == stage) {
+        stage = new StageState();
+        m_stages.put(state.stage, stage);
+      }
+      stage.activeTasks++;
+
+      if (null != state.hostName) {
+        Integer count = m_hosts.get(state.hostName);
+        m_hosts.put(state.hostName, null == count ? 1 : count + 1);
+      }
+
+      m_activeTaskCount++;
+    }
+
+    // the stage of a finished task may still be active
+    StageState stage = m_stages.get(state.stage);
+    if (null != stage) {
+      stage.version = ++m_version;
+    }
+
+    // finished tasks are only kept as long as they can override a snapshot
+    if (!state.isActive() && state.updateTime == 0) {
+      m_tasks.remove(taskId);
+    }
+  }
+
+  /**
+   * The last known state of a task.
+   */
+  private static final class TaskState {
+    private final StageEntityPK stage;
+    private final String hostName;
+    private final HostRoleStatus status;
+    private final long updateTime;
+
+    private TaskState(StageEntityPK stage, String hostName,
+        HostRoleStatus status, long updateTime) {
+      this.stage = stage;
+      this.hostName = hostName;
+      this.status = status;
+      this.updateTime = updateTime;
+    }
+
+    /**
+     * Creates the state of a task. The request and stage ids of a task which
+     * has just been persisted are only available through its stage.
+     *
+     * @return the state, or {@code null} if the task is not fully identified.
+     */
+    private static TaskState of(HostRoleCommandEntity entity,
+        HostRoleStatus status, long updateTime) {
+      Long requestId = entity.getRequestId();
+      Long stageId = entity.getStageId();
+      if ((null == requestId || null == stageId) && null != entity.getStage()) {
+        requestId = entity.getStage().getRequestId();
+        stageId = entity.getStage().getStageId();
+      }
+
+      if (null == entity.getTaskId() || null == requestId || null == stageId) {
+        return null;
+      }
+
+      StageEntityPK stage = new StageEntityPK();
+      stage.setRequestId(requestId);
+      stage.setStageId(stageId);
+      return new TaskState(stage, entity.getHostName(), status, updateTime);
+    }
+
+    private boolean isActive() {
+      return null != status && status.isInProgress();
+    }
+  }
+
+  /**
+   * The active task count and version of a stage.
+   */
+  private static final class StageState {
+    private int activeTasks;
+    private long version;
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+/**
+ * The {@link CommandOutputType} enumeration defines the outputs which are
+ * reported for a {@link HostRoleCommand} and kept in the task output store.
+ */
+public enum CommandOutputType {
+  /**
+   * The standard output of the command.
+   */
+  STDOUT,
+
+  /**
+   * The standard error of the command.
+   */
+  STDERR,
+
+  /**
+   * The JSON structured output of the command.
+   */
+  STRUCTURED_OUT
+}
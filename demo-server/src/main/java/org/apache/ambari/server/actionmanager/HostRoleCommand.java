@@ -17,10 +17,13 @@
  */
 package org.apache.ambari.server.actionmanager;
 
+import java.nio.charset.Charset;
+
 import org.apache.ambari.server.Role;
 import org.apache.ambari.server.RoleCommand;
 import org.apache.ambari.server.orm.dao.ExecutionCommandDAO;
 import org.apache.ambari.server.orm.dao.HostDAO;
+import org.apache.ambari.server.orm.dao.HostRoleCommandOutputDAO;
 import org.apache.ambari.server.orm.entities.ExecutionCommandEntity;
 import org.apache.ambari.server.orm.entities.HostEntity;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
@@ -68,12 +71,26 @@ public class HostRoleCommand {
   private String customCommandName;
   private ExecutionCommandWrapper executionCommandWrapper;
 
+  /**
+   * The charset of the stored output.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * The maximum number of bytes following the first byte of a UTF-8
+   * character.
+   */
+  private static final int MAX_CONTINUATION_BYTES = 3;
+
   @Inject
   private ExecutionCommandDAO executionCommandDAO;
 
   @Inject
   private HostDAO hostDAO;
 
+  @Inject
+  private HostRoleCommandOutputDAO hostRoleCommandOutputDAO;
+
   /**
    * Simple constructor, should be created using the Factory class.
    * @param hostName Host name
@@ -134,9 +151,11 @@ public class HostRoleCommand {
   }
 
   @AssistedInject
-  public HostRoleCommand(@Assisted HostRoleCommandEntity hostRoleCommandEntity, HostDAO hostDAO, ExecutionCommandDAO executionCommandDAO) {
+  public HostRoleCommand(@Assisted HostRoleCommandEntity hostRoleCommandEntity, HostDAO hostDAO,
+      ExecutionCommandDAO executionCommandDAO, HostRoleCommandOutputDAO hostRoleCommandOutputDAO) {
     this.hostDAO = hostDAO;
     this.executionCommandDAO = executionCommandDAO;
+    this.hostRoleCommandOutputDAO = hostRoleCommandOutputDAO;
 
     taskId = hostRoleCommandEntity.getTaskId();
     stageId = hostRoleCommandEntity.getStage().getStageId();
@@ -149,11 +168,12 @@ public class HostRoleCommand {
     hostName = hostRoleCommandEntity.getHostName();
     role = hostRoleCommandEntity.getRole();
     status = hostRoleCommandEntity.getStatus();
-    stdout = hostRoleCommandEntity.getStdOut() != null ? new String(hostRoleCommandEntity.getStdOut()) : "";
-    stderr = hostRoleCommandEntity.getStdError() != null ? new String(hostRoleCommandEntity.getStdError()) : "";
+    // the output is read from the output store when requested
+    stdout = null;
+    stderr = null;
     outputLog = hostRoleCommandEntity.getOutputLog();
     errorLog = hostRoleCommandEntity.getErrorLog();
-    structuredOut = hostRoleCommandEntity.getStructuredOut() != null ? new String(hostRoleCommandEntity.getStructuredOut()) : "";
+    structuredOut = null;
     exitCode = hostRoleCommandEntity.getExitcode();
     startTime = hostRoleCommandEntity.getStartTime();
     endTime = hostRoleCommandEntity.getEndTime() != null ? hostRoleCommandEntity.getEndTime() : -1L;
@@ -281,7 +301,10 @@ public class HostRoleCommand {
   }
 
   public String getStdout() {
-    return stdout;
+    if (stdout == null) {
+      stdout = readOutput(CommandOutputType.STDOUT);
+    }
+    return stdout != null ? stdout : "";
   }
 
   public void setStdout(String stdout) {
@@ -289,7 +312,10 @@ public class HostRoleCommand {
   }
 
   public String getStderr() {
-    return stderr;
+    if (stderr == null) {
+      stderr = readOutput(CommandOutputType.STDERR);
+    }
+    return stderr != null ? stderr : "";
   }
 
   public void setStderr(String stderr) {
@@ -345,7 +371,99 @@ public class HostRoleCommand {
   }
 
   public String getStructuredOut() {
-    return structuredOut;
+    if (structuredOut == null) {
+      structuredOut = readOutput(CommandOutputType.STRUCTURED_OUT);
+    }
+    return structuredOut != null ? structuredOut : "";
+  }
+
+  /**
+   * Gets a range of the output of this command. Output which was not set on
+   * or read into this instance is read from the output store, so only the
+   * requested bytes are loaded.
+   * <p/>
+   * Offsets and lengths are in bytes of the UTF-8 encoded output. A character
+   * which is split by the range is returned whole by the range holding its
+   * first byte, so consecutive ranges return every character exactly once.
+   *
+   * @param outputType the type of output
+   * @param offset the offset of the first byte to read
+   * @param length the maximum number of bytes to read, or a negative value to
+   *               read to the end of the output
+   * @return the output in the range (never {@code null})
+   */
+  public String getOutput(CommandOutputType outputType, long offset, int length) {
+    if (offset <= 0L && length < 0) {
+      // the entire output is kept on this instance once read
+      switch (outputType) {
+        case STDOUT:
+          return getStdout();
+        case STDERR:
+          return getStderr();
+        default:
+          return getStructuredOut();
+      }
+    }
+
+    String output;
+    switch (outputType) {
+      case STDOUT:
+        output = stdout;
+        break;
+      case STDERR:
+        output = stderr;
+        break;
+      default:
+        output = structuredOut;
+        break;
+    }
+
+    if (output == null) {
+      if (taskId == -1 || hostRoleCommandOutputDAO == null) {
+        return "";
+      }
+
+      // read the continuation bytes of a character split by the end
+      byte[] bytes = hostRoleCommandOutputDAO.read(taskId, outputType, offset,
+          length < 0 ? -1 : length + MAX_CONTINUATION_BYTES);
+      return decode(bytes, 0, length < 0 ? bytes.length : Math.min(length, bytes.length));
+    }
+
+    byte[] bytes = output.getBytes(UTF_8);
+    int from = (int) Math.min(Math.max(0L, offset), bytes.length);
+    int to = length < 0 ? bytes.length : (int) Math.min((long) from + length, bytes.length);
+    return from == 0 && to == bytes.length ? output : decode(bytes, from, to);
+  }
+
+  /**
+   * Reads the entire output of this command from the output store.
+   *
+   * @return the output, or {@code null} if this command was not stored yet
+   */
+  private String readOutput(CommandOutputType outputType) {
+    if (taskId == -1 || hostRoleCommandOutputDAO == null) {
+      return null;
+    }
+    return new String(hostRoleCommandOutputDAO.read(taskId, outputType), UTF_8);
+  }
+
+  /**
+   * Decodes the UTF-8 bytes between the given indexes, aligned to whole
+   * characters: continuation bytes at the start belong to the previous range
+   * and are skipped, those following the end are included.
+   */
+  private static String decode(byte[] bytes, int from, int to) {
+    while (to < bytes.length && isContinuationByte(bytes[to])) {
+      to++;
+    }
+    while (from < to && isContinuationByte(bytes[from])) {
+      from++;
+    }
+    return new String(bytes, from, to - from, UTF_8);
+  }
+
+  private static boolean isContinuationByte(byte b) {
+    return (b & 0xC0) == 0x80;
   }
 
   public void setStructuredOut(String structuredOut) {
@@ -362,13 +480,11 @@ public class HostRoleCommand {
 
   public ExecutionCommandWrapper getExecutionCommandWrapper() {
     if (taskId != -1 && executionCommandWrapper == null) {
-      ExecutionCommandEntity commandEntity = executionCommandDAO.findByPK(taskId);
-      if (commandEntity == null) {
+      String command = executionCommandDAO.findCommandByPK(taskId);
+      if (command == null) {
         throw new RuntimeException("Invalid DB state, broken one-to-one relation for taskId=" + taskId);
       }
-      executionCommandWrapper = new ExecutionCommandWrapper(new String(
-          commandEntity.getCommand()
-      ));
+      executionCommandWrapper = new ExecutionCommandWrapper(command);
     }
 
     return executionCommandWrapper;
@@ -32,6 +32,7 @@ import org.apache.ambari.server.Role;
 import org.apache.ambari.server.RoleCommand;
 import org.apache.ambari.server.agent.AgentCommand.AgentCommandType;
 import org.apache.ambari.server.agent.ExecutionCommand;
+import org.apache.ambari.server.orm.dao.BlobDAO;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
 import org.apache.ambari.server.orm.entities.RoleSuccessCriteriaEntity;
@@ -119,7 +120,8 @@ public class Stage {
 
   @AssistedInject
   public Stage(@Assisted StageEntity stageEntity, HostRoleCommandDAO hostRoleCommandDAO,
-               ActionDBAccessor dbAccessor, Clusters clusters, HostRoleCommandFactory hostRoleCommandFactory) {
+               ActionDBAccessor dbAccessor, Clusters clusters, HostRoleCommandFactory hostRoleCommandFactory,
+               BlobDAO blobDAO) {
     this.hostRoleCommandFactory = hostRoleCommandFactory;
 
     requestId = stageEntity.getRequestId();
@@ -138,9 +140,9 @@ public class Stage {
     }
 
     requestContext = stageEntity.getRequestContext();
-    clusterHostInfo = stageEntity.getClusterHostInfo();
-    commandParamsStage = stageEntity.getCommandParamsStage();
-    hostParamsStage = stageEntity.getHostParamsStage();
+    clusterHostInfo = blobDAO.resolve(stageEntity.getClusterHostInfo());
+    commandParamsStage = blobDAO.resolve(stageEntity.getCommandParamsStage());
+    hostParamsStage = blobDAO.resolve(stageEntity.getHostParamsStage());
 
     List<Long> taskIds = hostRoleCommandDAO.findTaskIdsByStage(requestId, stageId);
     Collection<HostRoleCommand> commands = dbAccessor.getTasks(taskIds);
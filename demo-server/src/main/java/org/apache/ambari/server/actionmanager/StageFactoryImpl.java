@@ -25,6 +25,7 @@ import com.google.inject.assistedinject.Assisted;
 import org.apache.ambari.server.Role;
 import org.apache.ambari.server.RoleCommand;
 import org.apache.ambari.server.orm.DBAccessor;
+import org.apache.ambari.server.orm.dao.BlobDAO;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 import org.apache.ambari.server.orm.entities.HostEntity;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
@@ -76,6 +77,6 @@ public class StageFactoryImpl implements StageFactory {
   public Stage createExisting(@Assisted StageEntity stageEntity) {
     return new Stage(stageEntity, injector.getInstance(HostRoleCommandDAO.class),
         injector.getInstance(ActionDBAccessor.class), injector.getInstance(Clusters.class),
-        injector.getInstance(HostRoleCommandFactory.class));
+        injector.getInstance(HostRoleCommandFactory.class), injector.getInstance(BlobDAO.class));
   }
 }
@@ -23,6 +23,7 @@ import com.google.gson.annotations.SerializedName;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
 import org.apache.ambari.server.*;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.actionmanager.HostRoleCommand;
@@ -92,6 +93,7 @@ public class HeartBeatHandler
     private final ActionQueue actionQueue;
     private final ActionManager actionManager;
     private HeartbeatMonitor heartbeatMonitor;
+    private final HeartbeatProcessor heartbeatProcessor;
 
     @Inject
     private Injector injector;
@@ -154,10 +156,20 @@ public class HeartBeatHandler
         actionManager = am;
         heartbeatMonitor = new HeartbeatMonitor(fsm, aq, am, 60000, injector);
         injector.injectMembers(this);
+        heartbeatProcessor = new HeartbeatProcessor(this, fsm, config
+                .getAgentHeartbeatProcessingThreads(), config
+                .getAgentHeartbeatProcessingBatchSize(), config
+                .getAgentHeartbeatProcessingQueueSize());
     }
 
     public void start() {
         heartbeatMonitor.start();
+        heartbeatProcessor.start();
+    }
+
+    public void stop() {
+        heartbeatProcessor.stop();
+        heartbeatMonitor.shutdown();
     }
 
     void setHeartbeatMonitor(HeartbeatMonitor heartbeatMonitor) {
@@ -263,18 +275,12 @@ public class HeartBeatHandler
             return createRegisterCommand();
         }
 
-        // Examine heartbeat for command reports
-        processCommandReports(heartbeat, hostname, clusterFsm, now);
-
-        // Examine heartbeat for component live status reports
-        processStatusReports(heartbeat, hostname, clusterFsm);
+        heartbeatMonitor.heartbeatReceived(hostname, now);
 
-        // Calculate host status
-        // NOTE: This step must be after processing command/status reports
-        processHostStatus(heartbeat, hostname);
-
-        // Example heartbeat for alerts from the host or its components
-        processAlerts(heartbeat, hostname);
+        // Command reports, live status reports, host status and alerts are
+        // processed in batches by the heartbeat processor; if its queue is
+        // full the agent thread waits for it
+        heartbeatProcessor.submit(heartbeat, now);
 
         // Send commands if node is active
         if (hostObject.getState().equals(HostState.HEALTHY))
@@ -286,6 +292,19 @@ public class HeartBeatHandler
         return response;
     }
 
+    /**
+     * Processes the reports of a batch of heartbeats in a single unit of work
+     * so that the writes of all hosts in the batch are flushed together.
+     *
+     * @param batch
+     *          the heartbeats to process.
+     */
+    @Transactional
+    protected void processHeartBeatBatch(
+            List<HeartbeatProcessor.QueuedHeartBeat> batch) {
+        heartbeatProcessor.runStages(batch);
+    }
+
     /**
      * Extracts all of the {@link Alert}s from the heartbeat and fires
      * {@link AlertEvent}s for each one. If there is a problem looking up the
@@ -1216,6 +1235,8 @@ public class HeartBeatHandler
                 .getAgentVersion()), now, register
                 .getHardwareProfile(), register.getAgentEnv()));
 
+        heartbeatMonitor.heartbeatReceived(hostname, now);
+
         RegistrationResponse response = new RegistrationResponse();
         if (cmds.isEmpty())
         {
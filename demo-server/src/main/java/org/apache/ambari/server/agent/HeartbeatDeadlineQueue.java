@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link HeartbeatDeadlineQueue} tracks the time by which each host must
+ * have sent its next heartbeat and hands out hosts as their deadlines pass.
+ * <p/>
+ * Extending the deadline of a tracked host only replaces its entry in a map.
+ * The queue holds a single entry per host which is re-queued with the latest
+ * deadline when it comes due, so a host that heartbeats regularly costs one
+ * re-queue per timeout period and hosts are never scanned.
+ */
+class HeartbeatDeadlineQueue {
+
+  /**
+   * The latest deadline of each tracked host, in milliseconds since the
+   * epoch.
+   */
+  private final ConcurrentMap<String, Long> m_deadlines = new ConcurrentHashMap<String, Long>();
+
+  /**
+   * One entry per tracked host, ordered by the deadline it was queued with.
+   */
+  private final DelayQueue<Deadline> m_queue = new DelayQueue<Deadline>();
+
+  /**
+   * Sets the deadline of a host, starting to track it if needed.
+   *
+   * @param hostname
+   *          the host.
+   * @param deadline
+   *          the time by which the host must heartbeat, in milliseconds since
+   *          the epoch.
+   */
+  void schedule(String hostname, long deadline) {
+    if (null == m_deadlines.put(hostname, deadline)) {
+      m_queue.put(new Deadline(hostname, deadline));
+    }
+  }
+
+  /**
+   * Stops tracking a host.
+   *
+   * @param hostname
+   *          the host.
+   */
+  void remove(String hostname) {
+    m_deadlines.remove(hostname);
+  }
+
+  /**
+   * Waits for the deadline of a host to pass. The host is no longer tracked
+   * once it is returned.
+   *
+   * @return the host whose deadline passed.
+   * @throws InterruptedException
+   *           if interrupted while waiting.
+   */
+  String take() throws InterruptedException {
+    while (true) {
+      Deadline due = m_queue.take();
+      Long latest = m_deadlines.get(due.m_hostname);
+      if (null == latest) {
+        // no longer tracked
+        continue;
+      }
+
+      if (latest > due.m_deadline) {
+        m_queue.put(new Deadline(due.m_hostname, latest));
+        continue;
+      }
+
+      // a concurrent schedule() either wins and re-queues the host itself or
+      // changes the deadline, in which case the entry is re-examined
+      if (m_deadlines.remove(due.m_hostname, latest)) {
+        return due.m_hostname;
+      }
+
+      m_queue.put(due);
+    }
+  }
+
+  /**
+   * @return the number of tracked hosts.
+   */
+  int size() {
+    return m_deadlines.size();
+  }
+
+  /**
+   * A queued deadline.
+   */
+  private static final class Deadline implements Delayed {
+    private final String m_hostname;
+    private final long m_deadline;
+
+    private Deadline(String hostname, long deadline) {
+      m_hostname = hostname;
+      m_deadline = deadline;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(m_deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      long otherDeadline = ((Deadline) other).m_deadline;
+      return m_deadline < otherDeadline ? -1 : (m_deadline == otherDeadline ? 0 : 1);
+    }
+  }
+}
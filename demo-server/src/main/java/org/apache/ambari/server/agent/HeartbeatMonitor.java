@@ -28,18 +28,26 @@ import static org.apache.ambari.server.agent.ExecutionCommand.KeyNames.STACK_VER
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import com.google.inject.Inject;
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.HostNotFoundException;
 import org.apache.ambari.server.RoleCommand;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.AmbariManagementController;
+import org.apache.ambari.server.events.HostRemovedEvent;
+import org.apache.ambari.server.events.ServiceEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.CommandScriptDefinition;
@@ -57,9 +65,14 @@ import org.apache.ambari.server.state.StackInfo;
 import org.apache.ambari.server.state.State;
 import org.apache.ambari.server.state.fsm.InvalidStateTransitionException;
 import org.apache.ambari.server.state.host.HostHeartbeatLostEvent;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.apache.ambari.server.utils.TimingStatistics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Injector;
 
 /**
@@ -79,29 +92,87 @@ public class HeartbeatMonitor implements Runnable {
   private final Configuration configuration;
   private final AgentRequests agentRequests;
 
+  /**
+   * The host independent part of the status commands, shared by every host
+   * which runs the same component with the same effective '*-env'
+   * configurations. Configuration changes produce new keys since the keys
+   * contain the config tags; entries of a cluster are dropped when its
+   * services change and all entries expire periodically to pick up changes of
+   * the stack definitions.
+   */
+  private final Cache<StatusCommandTemplateKey, StatusCommandTemplate> statusCommandTemplates =
+      CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
+  /**
+   * The latency of each monitor pass.
+   */
+  private final TimingStatistics tickStatistics = new TimingStatistics("HeartbeatMonitor.doWork");
+
+  /**
+   * Limits how often the monitor statistics are logged.
+   */
+  private final StatisticsLogThrottle statisticsLog = new StatisticsLogThrottle();
+
+  /**
+   * The time after its last heartbeat at which a host is considered lost.
+   */
+  private final long heartbeatTimeout;
+
+  /**
+   * The heartbeat deadline of each host, consumed by the expiry thread.
+   */
+  private final HeartbeatDeadlineQueue heartbeatDeadlines = new HeartbeatDeadlineQueue();
+  private Thread expiryThread = null;
+
   public HeartbeatMonitor(Clusters clusters, ActionQueue aq, ActionManager am,
                           int threadWakeupInterval, Injector injector) {
     this.clusters = clusters;
     actionQueue = aq;
     actionManager = am;
     this.threadWakeupInterval = threadWakeupInterval;
+    heartbeatTimeout = 2L * threadWakeupInterval;
     configHelper = injector.getInstance(ConfigHelper.class);
     ambariMetaInfo = injector.getInstance(AmbariMetaInfo.class);
     ambariManagementController = injector.getInstance(
             AmbariManagementController.class);
     configuration = injector.getInstance(Configuration.class);
     agentRequests = new AgentRequests();
+    injector.getInstance(AmbariEventPublisher.class).register(this);
   }
 
   public void shutdown() {
     shouldRun = false;
+    if (null != expiryThread) {
+      expiryThread.interrupt();
+    }
   }
 
   public void start() {
+    for (Host host : clusters.getHosts()) {
+      heartbeatDeadlines.schedule(host.getHostName(),
+          host.getLastHeartbeatTime() + heartbeatTimeout);
+    }
+
+    expiryThread = new Thread(new ExpiryWorker(), "ambari-heartbeat-expiry");
+    expiryThread.setDaemon(true);
+    expiryThread.start();
+
     monitorThread = new Thread(this, "ambari-hearbeat-monitor");
     monitorThread.start();
   }
 
+  /**
+   * Moves the deadline of a host after it registered or sent a heartbeat.
+   *
+   * @param hostname
+   *          the host.
+   * @param heartbeatTime
+   *          the time the heartbeat was received.
+   */
+  public void heartbeatReceived(String hostname, long heartbeatTime) {
+    heartbeatDeadlines.schedule(hostname, heartbeatTime + heartbeatTimeout);
+  }
+
   void join(long millis) throws InterruptedException {
     monitorThread.join(millis);
   }
@@ -114,6 +185,34 @@ public class HeartbeatMonitor implements Runnable {
     return this.agentRequests;
   }
 
+  /**
+   * Drops the status command templates of a cluster whose services or
+   * components were installed or removed.
+   *
+   * @param event
+   *          the service event.
+   */
+  @Subscribe
+  public void onServiceEvent(ServiceEvent event) {
+    Iterator<StatusCommandTemplateKey> iterator = statusCommandTemplates.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().clusterId == event.getClusterId()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Stops tracking the heartbeat deadline of a removed host.
+   *
+   * @param event
+   *          the host removed event.
+   */
+  @Subscribe
+  public void onHostRemoved(HostRemovedEvent event) {
+    heartbeatDeadlines.remove(event.getHostName());
+  }
+
   @Override
   public void run() {
     while (shouldRun) {
@@ -133,50 +232,35 @@ public class HeartbeatMonitor implements Runnable {
     }
   }
 
-  //Go through all the nodes, check for last heartbeat or any waiting state
-  //If heartbeat is lost, update node clusters state, purge the action queue
-  //notify action manager for node failure.
+  //Go through all the nodes, check for any waiting state and send the status
+  //commands. Lost heartbeats are detected by the expiry thread.
   private void doWork() throws InvalidStateTransitionException, AmbariException {
+    long start = System.nanoTime();
+    try {
+      checkHosts();
+    } finally {
+      tickStatistics.recordSince(start);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Heartbeat monitor finished work, " + tickStatistics + ", "
+            + heartbeatDeadlines.size() + " tracked hosts, "
+            + statusCommandTemplates.size() + " status command templates");
+      }
+
+      if (statisticsLog.isDue()) {
+        LOG.info("Heartbeat monitor statistics: " + tickStatistics + ", "
+            + heartbeatDeadlines.size() + " tracked hosts, "
+            + statusCommandTemplates.size() + " status command templates");
+      }
+    }
+  }
+
+  private void checkHosts() throws InvalidStateTransitionException, AmbariException {
     List<Host> allHosts = clusters.getHosts();
     long now = System.currentTimeMillis();
     for (Host hostObj : allHosts) {
-      String host = hostObj.getHostName();
       HostState hostState = hostObj.getState();
       String hostname = hostObj.getHostName();
 
-      long lastHeartbeat = 0;
-      try {
-        lastHeartbeat = clusters.getHost(host).getLastHeartbeatTime();
-      } catch (AmbariException e) {
-        LOG.warn("Exception in getting host object; Is it fatal?", e);
-      }
-      if (lastHeartbeat + 2 * threadWakeupInterval < now) {
-        LOG.warn("Heartbeat lost from host " + host);
-        //Heartbeat is expired
-        hostObj.handleEvent(new HostHeartbeatLostEvent(host));
-
-        // mark all components that are not clients with unknown status
-        for (Cluster cluster : clusters.getClustersForHost(hostObj.getHostName())) {
-          for (ServiceComponentHost sch : cluster.getServiceComponentHosts(hostObj.getHostName())) {
-            Service s = cluster.getService(sch.getServiceName());
-            ServiceComponent sc = s.getServiceComponent(sch.getServiceComponentName());
-            if (!sc.isClientComponent() &&
-              !sch.getState().equals(State.INIT) &&
-              !sch.getState().equals(State.INSTALLING) &&
-              !sch.getState().equals(State.INSTALL_FAILED) &&
-              !sch.getState().equals(State.UNINSTALLED) &&
-              !sch.getState().equals(State.DISABLED)) {
-              LOG.warn("Setting component state to UNKNOWN for component " + sc.getName() + " on " + host);
-              sch.setState(State.UNKNOWN);
-            }
-          }
-        }
-
-        //Purge action queue
-        actionQueue.dequeueAll(host);
-        //notify action manager
-        actionManager.handleLostHost(host);
-      }
       if (hostState == HostState.WAITING_FOR_HOST_STATUS_UPDATES) {
         long timeSpentInState = hostObj.getTimeInState();
         if (timeSpentInState + 5 * threadWakeupInterval < now) {
@@ -200,6 +284,56 @@ public class HeartbeatMonitor implements Runnable {
     }
   }
 
+  /**
+   * Handles a host whose heartbeat deadline passed. If the host sent a
+   * heartbeat which was not reported through
+   * {@link #heartbeatReceived(String, long)} it is rescheduled, otherwise the
+   * node clusters state is updated, the action queue purged and the action
+   * manager notified of the node failure.
+   */
+  private void handleExpiredHost(String host) throws InvalidStateTransitionException, AmbariException {
+    Host hostObj;
+    try {
+      hostObj = clusters.getHost(host);
+    } catch (HostNotFoundException e) {
+      LOG.debug("Host " + host + " was removed, no longer monitoring its heartbeat");
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    long lastHeartbeat = hostObj.getLastHeartbeatTime();
+    if (lastHeartbeat + heartbeatTimeout >= now) {
+      heartbeatDeadlines.schedule(host, lastHeartbeat + heartbeatTimeout);
+      return;
+    }
+
+    LOG.warn("Heartbeat lost from host " + host);
+    //Heartbeat is expired
+    hostObj.handleEvent(new HostHeartbeatLostEvent(host));
+
+    // mark all components that are not clients with unknown status
+    for (Cluster cluster : clusters.getClustersForHost(hostObj.getHostName())) {
+      for (ServiceComponentHost sch : cluster.getServiceComponentHosts(hostObj.getHostName())) {
+        Service s = cluster.getService(sch.getServiceName());
+        ServiceComponent sc = s.getServiceComponent(sch.getServiceComponentName());
+        if (!sc.isClientComponent() &&
+          !sch.getState().equals(State.INIT) &&
+          !sch.getState().equals(State.INSTALLING) &&
+          !sch.getState().equals(State.INSTALL_FAILED) &&
+          !sch.getState().equals(State.UNINSTALLED) &&
+          !sch.getState().equals(State.DISABLED)) {
+          LOG.warn("Setting component state to UNKNOWN for component " + sc.getName() + " on " + host);
+          sch.setState(State.UNKNOWN);
+        }
+      }
+    }
+
+    //Purge action queue
+    actionQueue.dequeueAll(host);
+    //notify action manager
+    actionManager.handleLostHost(host);
+  }
+
   /**
    * @param hostname
    * @return list of commands to get status of service components on a concrete host
@@ -208,6 +342,7 @@ public class HeartbeatMonitor implements Runnable {
     List<StatusCommand> cmds = new ArrayList<StatusCommand>();
 
     for (Cluster cl : clusters.getClustersForHost(hostname)) {
+      Map<String, Map<String, String>> envConfigTags = null;
       for (ServiceComponentHost sch : cl.getServiceComponentHosts(hostname)) {
         switch (sch.getState()) {
           case INIT:
@@ -215,7 +350,10 @@ public class HeartbeatMonitor implements Runnable {
             //don't send commands until component is installed at least
             continue;
           default:
-            StatusCommand statusCmd = createStatusCommand(hostname, cl, sch);
+            if (null == envConfigTags) {
+              envConfigTags = getEnvConfigTags(cl, hostname);
+            }
+            StatusCommand statusCmd = createStatusCommand(hostname, cl, sch, envConfigTags);
             cmds.add(statusCmd);
         }
 
@@ -225,14 +363,97 @@ public class HeartbeatMonitor implements Runnable {
   }
 
   /**
-   * Generates status command and fills all appropriate fields.
+   * Gets the effective tags of the '*-env' configurations of a host, which
+   * are the only configurations sent with status commands.
+   */
+  private Map<String, Map<String, String>> getEnvConfigTags(Cluster cluster,
+      String hostname) throws AmbariException {
+    Map<String, Map<String, String>> envConfigTags = new TreeMap<String, Map<String, String>>();
+    for (Map.Entry<String, Map<String, String>> entry : configHelper
+        .getEffectiveDesiredTags(cluster, hostname).entrySet()) {
+      if (entry.getKey().endsWith("-env")) {
+        envConfigTags.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return envConfigTags;
+  }
+
+  /**
+   * Generates status command and fills all appropriate fields. The host
+   * independent fields are copied from a cached template.
    * @throws AmbariException
    */
   private StatusCommand createStatusCommand(String hostname, Cluster cluster,
-                               ServiceComponentHost sch) throws AmbariException {
-    String serviceName = sch.getServiceName();
+      ServiceComponentHost sch, Map<String, Map<String, String>> envConfigTags)
+      throws AmbariException {
     String componentName = sch.getServiceComponentName();
-    StackId stackId = cluster.getDesiredStackVersion();
+    StatusCommandTemplate template = getStatusCommandTemplate(cluster, sch, envConfigTags);
+
+    StatusCommand statusCmd = new StatusCommand();
+    statusCmd.setClusterName(cluster.getClusterName());
+    statusCmd.setServiceName(sch.getServiceName());
+    statusCmd.setComponentName(componentName);
+    statusCmd.setConfigurations(template.configurations);
+    statusCmd.setConfigurationAttributes(template.configurationAttributes);
+    statusCmd.setHostname(hostname);
+
+    // If Agent wants the command and the States differ
+    statusCmd.setDesiredState(sch.getDesiredState());
+    statusCmd.setHasStaleConfigs(configHelper.isStaleConfigs(sch));
+    if (getAgentRequests().shouldSendExecutionDetails(hostname, componentName)) {
+      LOG.info(componentName + " is at " + sch.getState() + " adding more payload per agent ask");
+      statusCmd.setPayloadLevel(StatusCommand.StatusCommandPayload.EXECUTION_COMMAND);
+    }
+
+    statusCmd.getCommandParams().putAll(template.commandParams);
+    statusCmd.getHostLevelParams().putAll(template.hostLevelParams);
+
+    if (statusCmd.getPayloadLevel() == StatusCommand.StatusCommandPayload.EXECUTION_COMMAND) {
+      ExecutionCommand ec = ambariManagementController.getExecutionCommand(cluster, sch, RoleCommand.START);
+      statusCmd.setExecutionCommand(ec);
+      LOG.debug(componentName + " has more payload for execution command");
+    }
+
+    return statusCmd;
+  }
+
+  /**
+   * Gets the cached template for the status commands of a component,
+   * creating it if needed.
+   * @throws AmbariException
+   */
+  private StatusCommandTemplate getStatusCommandTemplate(final Cluster cluster,
+      final ServiceComponentHost sch, final Map<String, Map<String, String>> envConfigTags)
+      throws AmbariException {
+    final StackId stackId = cluster.getDesiredStackVersion();
+    StatusCommandTemplateKey key = new StatusCommandTemplateKey(cluster.getClusterId(),
+        stackId, sch.getServiceName(), sch.getServiceComponentName(), envConfigTags);
+
+    try {
+      return statusCommandTemplates.get(key, new Callable<StatusCommandTemplate>() {
+        @Override
+        public StatusCommandTemplate call() throws AmbariException {
+          return createStatusCommandTemplate(cluster, stackId, sch.getServiceName(),
+              sch.getServiceComponentName(), envConfigTags);
+        }
+      });
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AmbariException) {
+        throw (AmbariException) e.getCause();
+      }
+      throw new AmbariException("Unable to create the status command of "
+          + sch.getServiceComponentName(), e.getCause());
+    }
+  }
+
+  /**
+   * Generates the host independent fields of the status commands of a
+   * component.
+   * @throws AmbariException
+   */
+  private StatusCommandTemplate createStatusCommandTemplate(Cluster cluster,
+      StackId stackId, String serviceName, String componentName,
+      Map<String, Map<String, String>> allConfigTags) throws AmbariException {
     ServiceInfo serviceInfo = ambariMetaInfo.getService(stackId.getStackName(),
         stackId.getStackVersion(), serviceName);
     ComponentInfo componentInfo = ambariMetaInfo.getComponent(
@@ -249,10 +470,6 @@ public class HeartbeatMonitor implements Runnable {
     //Config clusterConfig = cluster.getDesiredConfigByType(GLOBAL);
     Collection<Config> clusterConfigs = cluster.getAllConfigs();
 
-    // Apply global properties for this host from all config groups
-    Map<String, Map<String, String>> allConfigTags = configHelper
-        .getEffectiveDesiredTags(cluster, hostname);
-
     for(Config clusterConfig: clusterConfigs) {
       if(!clusterConfig.getType().endsWith("-env")) {
         continue;
@@ -294,24 +511,8 @@ public class HeartbeatMonitor implements Runnable {
       }
     }
 
-    StatusCommand statusCmd = new StatusCommand();
-    statusCmd.setClusterName(cluster.getClusterName());
-    statusCmd.setServiceName(serviceName);
-    statusCmd.setComponentName(componentName);
-    statusCmd.setConfigurations(configurations);
-    statusCmd.setConfigurationAttributes(configurationAttributes);
-    statusCmd.setHostname(hostname);
-
-    // If Agent wants the command and the States differ
-    statusCmd.setDesiredState(sch.getDesiredState());
-    statusCmd.setHasStaleConfigs(configHelper.isStaleConfigs(sch));
-    if (getAgentRequests().shouldSendExecutionDetails(hostname, componentName)) {
-      LOG.info(componentName + " is at " + sch.getState() + " adding more payload per agent ask");
-      statusCmd.setPayloadLevel(StatusCommand.StatusCommandPayload.EXECUTION_COMMAND);
-    }
-
     // Fill command params
-    Map<String, String> commandParams = statusCmd.getCommandParams();
+    Map<String, String> commandParams = new HashMap<String, String>();
 
     String commandTimeout = configuration.getDefaultAgentTaskTimeout(false);
     CommandScriptDefinition script = componentInfo.getCommandScript();
@@ -333,18 +534,108 @@ public class HeartbeatMonitor implements Runnable {
        serviceInfo.getServicePackageFolder());
     commandParams.put(HOOKS_FOLDER, stackInfo.getStackHooksFolder());
     // Fill host level params
-    Map<String, String> hostLevelParams = statusCmd.getHostLevelParams();
+    Map<String, String> hostLevelParams = new HashMap<String, String>();
     hostLevelParams.put(JDK_LOCATION, ambariManagementController.getJdkResourceUrl());
     hostLevelParams.put(STACK_NAME, stackId.getStackName());
     hostLevelParams.put(STACK_VERSION, stackId.getStackVersion());
 
+    return new StatusCommandTemplate(configurations, configurationAttributes,
+        commandParams, hostLevelParams);
+  }
+
+  /**
+   * Handles hosts as soon as their heartbeat deadline passes.
+   */
+  private final class ExpiryWorker implements Runnable {
+    @Override
+    public void run() {
+      while (shouldRun) {
+        String host;
+        try {
+          host = heartbeatDeadlines.take();
+        } catch (InterruptedException e) {
+          LOG.warn("Heartbeat expiry thread is interrupted going to stop", e);
+          break;
+        }
 
-    if (statusCmd.getPayloadLevel() == StatusCommand.StatusCommandPayload.EXECUTION_COMMAND) {
-      ExecutionCommand ec = ambariManagementController.getExecutionCommand(cluster, sch, RoleCommand.START);
-      statusCmd.setExecutionCommand(ec);
-      LOG.debug(componentName + " has more payload for execution command");
+        try {
+          handleExpiredHost(host);
+        } catch (Exception e) {
+          LOG.warn("Unable to handle the lost heartbeat of host " + host, e);
+        } catch (Throwable t) {
+          LOG.warn("ERROR", t);
+        }
+      }
     }
+  }
 
-    return statusCmd;
+  /**
+   * Identifies the status command template of a component. The config tags
+   * include the config group overrides, so hosts in different config groups
+   * use different templates.
+   */
+  private static final class StatusCommandTemplateKey {
+    private final long clusterId;
+    private final StackId stackId;
+    private final String serviceName;
+    private final String componentName;
+    private final Map<String, Map<String, String>> configTags;
+
+    private StatusCommandTemplateKey(long clusterId, StackId stackId, String serviceName,
+        String componentName, Map<String, Map<String, String>> configTags) {
+      this.clusterId = clusterId;
+      this.stackId = stackId;
+      this.serviceName = serviceName;
+      this.componentName = componentName;
+      this.configTags = configTags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      StatusCommandTemplateKey that = (StatusCommandTemplateKey) o;
+      return clusterId == that.clusterId
+          && (stackId == null ? that.stackId == null : stackId.equals(that.stackId))
+          && serviceName.equals(that.serviceName)
+          && componentName.equals(that.componentName)
+          && configTags.equals(that.configTags);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (clusterId ^ (clusterId >>> 32));
+      result = 31 * result + (stackId != null ? stackId.hashCode() : 0);
+      result = 31 * result + serviceName.hashCode();
+      result = 31 * result + componentName.hashCode();
+      result = 31 * result + configTags.hashCode();
+      return result;
+    }
+  }
+
+  /**
+   * The host independent fields of a status command. The configuration maps
+   * are shared by all commands created from the template and must not be
+   * modified.
+   */
+  private static final class StatusCommandTemplate {
+    private final Map<String, Map<String, String>> configurations;
+    private final Map<String, Map<String, Map<String, String>>> configurationAttributes;
+    private final Map<String, String> commandParams;
+    private final Map<String, String> hostLevelParams;
+
+    private StatusCommandTemplate(Map<String, Map<String, String>> configurations,
+        Map<String, Map<String, Map<String, String>>> configurationAttributes,
+        Map<String, String> commandParams, Map<String, String> hostLevelParams) {
+      this.configurations = Collections.unmodifiableMap(configurations);
+      this.configurationAttributes = Collections.unmodifiableMap(configurationAttributes);
+      this.commandParams = commandParams;
+      this.hostLevelParams = hostLevelParams;
+    }
   }
 }
@@ -0,0 +1,467 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.apache.ambari.server.utils.TimingStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeartbeatProcessor} is the slow path of heartbeat handling. The
+ * agent thread only validates the response id, moves the host FSM and returns
+ * the queued commands; the reports carried by the heartbeat are handed to this
+ * class and processed by a fixed set of workers.
+ * <p/>
+ * Heartbeats are sharded across the workers by host name so that reports from
+ * the same host are always processed in the order they arrived. Each worker
+ * drains up to {@code batchSize} heartbeats from its queue and runs every stage
+ * (command reports, status reports, host status, alerts) for the whole batch
+ * inside a single unit of work, which lets the persistence layer coalesce the
+ * writes of many hosts into one flush.
+ * <p/>
+ * The queues are bounded. When a worker's queue is full, {@link #submit}
+ * blocks until the worker catches up, which slows the agents down instead of
+ * dropping reports or processing them out of order.
+ * <p/>
+ * When a stage fails for a heartbeat, the remaining stages of that heartbeat
+ * are skipped and the failure is logged; the other heartbeats of the batch are
+ * not affected. If the unit of work of a batch cannot be committed, the
+ * heartbeats of the batch are processed again one at a time, each in its own
+ * unit of work, so that only the reports of the host which cannot be committed
+ * are lost. Later heartbeats of that host are processed as usual.
+ */
+public class HeartbeatProcessor {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(HeartbeatProcessor.class);
+
+  /**
+   * How long {@link #submit} waits on a full queue before checking whether
+   * the workers are still running.
+   */
+  private static final long SUBMIT_TIMEOUT_MS = 1000L;
+
+  /**
+   * The processing stages of a heartbeat, in execution order.
+   */
+  public enum Stage {
+    /**
+     * Time spent by a heartbeat in the queue before a worker picked it up.
+     */
+    QUEUED,
+
+    /**
+     * Command reports.
+     */
+    COMMAND_REPORTS,
+
+    /**
+     * Live status reports.
+     */
+    STATUS_REPORTS,
+
+    /**
+     * Host health calculation.
+     */
+    HOST_STATUS,
+
+    /**
+     * Alert publishing.
+     */
+    ALERTS,
+
+    /**
+     * The whole unit of work, including the commit.
+     */
+    BATCH
+  }
+
+  /**
+   * The handler which owns the actual report processing logic.
+   */
+  private final HeartBeatHandler m_handler;
+
+  /**
+   * Used to look up the clusters and hosts referenced by the reports.
+   */
+  private final Clusters m_clusters;
+
+  /**
+   * The maximum number of heartbeats processed in one unit of work.
+   */
+  private final int m_batchSize;
+
+  /**
+   * One queue per worker.
+   */
+  private final List<BlockingQueue<QueuedHeartBeat>> m_queues;
+
+  /**
+   * The worker threads, created by {@link #start()}.
+   */
+  private final List<Thread> m_workers;
+
+  /**
+   * Per-stage latency statistics.
+   */
+  private final Map<Stage, TimingStatistics> m_statistics = new EnumMap<Stage, TimingStatistics>(Stage.class);
+
+  /**
+   * Limits how often the stage statistics are logged.
+   */
+  private final StatisticsLogThrottle m_statisticsLog = new StatisticsLogThrottle();
+
+  private volatile boolean m_running = false;
+
+  /**
+   * Constructor.
+   *
+   * @param handler
+   *          the handler which processes the reports.
+   * @param clusters
+   *          the clusters.
+   * @param threads
+   *          the number of workers.
+   * @param batchSize
+   *          the maximum number of heartbeats processed in one unit of work.
+   * @param queueSize
+   *          the capacity of each worker's queue.
+   */
+  public HeartbeatProcessor(HeartBeatHandler handler, Clusters clusters, int threads,
+      int batchSize, int queueSize) {
+    m_handler = handler;
+    m_clusters = clusters;
+    m_batchSize = Math.max(1, batchSize);
+
+    int workerCount = Math.max(1, threads);
+    m_queues = new ArrayList<BlockingQueue<QueuedHeartBeat>>(workerCount);
+    m_workers = new ArrayList<Thread>(workerCount);
+    for (int i = 0; i < workerCount; i++) {
+      m_queues.add(new ArrayBlockingQueue<QueuedHeartBeat>(Math.max(1, queueSize)));
+    }
+
+    for (Stage stage : Stage.values()) {
+      m_statistics.put(stage, new TimingStatistics(stage.name()));
+    }
+  }
+
+  /**
+   * Starts the workers.
+   */
+  public synchronized void start() {
+    if (m_running) {
+      return;
+    }
+
+    m_running = true;
+    for (int i = 0; i < m_queues.size(); i++) {
+      Thread worker = new Thread(new Worker(m_queues.get(i)), "ambari-heartbeat-processor-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      m_workers.add(worker);
+    }
+  }
+
+  /**
+   * Stops the workers. Heartbeats still queued are discarded; the agents
+   * report the same state again on their next heartbeat.
+   */
+  public synchronized void stop() {
+    m_running = false;
+    for (Thread worker : m_workers) {
+      worker.interrupt();
+    }
+    m_workers.clear();
+  }
+
+  /**
+   * Hands a heartbeat over to the worker which owns its host, blocking while
+   * that worker's queue is full. If the processor is not running, the
+   * heartbeat is processed on the calling thread.
+   *
+   * @param heartbeat
+   *          the heartbeat.
+   * @param receivedTime
+   *          the server time when the heartbeat was received.
+   * @throws AmbariException
+   *           if the heartbeat was processed on the calling thread and failed,
+   *           or if the calling thread was interrupted while waiting.
+   */
+  public void submit(HeartBeat heartbeat, long receivedTime) throws AmbariException {
+    String hostname = heartbeat.getHostname();
+    QueuedHeartBeat entry = new QueuedHeartBeat(heartbeat, receivedTime);
+    BlockingQueue<QueuedHeartBeat> queue = getQueue(hostname);
+
+    try {
+      while (m_running) {
+        if (queue.offer(entry, SUBMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AmbariException("Interrupted while queueing the heartbeat from host "
+          + hostname, e);
+    }
+
+    processBatch(Collections.singletonList(entry));
+    if (null != entry.failure) {
+      throw toAmbariException(hostname, entry.failure);
+    }
+  }
+
+  /**
+   * Gets the number of heartbeats waiting for a worker.
+   *
+   * @return the total queue depth.
+   */
+  public int getQueueDepth() {
+    int depth = 0;
+    for (BlockingQueue<QueuedHeartBeat> queue : m_queues) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  /**
+   * Gets the latency statistics of each stage.
+   *
+   * @return the statistics, keyed by stage.
+   */
+  public Map<Stage, TimingStatistics> getStatistics() {
+    return Collections.unmodifiableMap(m_statistics);
+  }
+
+  /**
+   * Runs every stage for the given heartbeats. This is invoked by
+   * {@link HeartBeatHandler#processHeartBeatBatch(List)} inside its unit of
+   * work. Failures are isolated per heartbeat: the heartbeat which failed is
+   * excluded from the remaining stages and the failure is recorded on it, so
+   * that one malformed report does not prevent the rest of the batch from
+   * being processed.
+   *
+   * @param batch
+   *          the heartbeats to process.
+   */
+  void runStages(List<QueuedHeartBeat> batch) {
+    long start = System.nanoTime();
+    for (QueuedHeartBeat entry : batch) {
+      if (null == entry.failure) {
+        try {
+          m_handler.processCommandReports(entry.heartbeat, entry.heartbeat.getHostname(),
+              m_clusters, entry.receivedTime);
+        } catch (Exception e) {
+          entry.fail(Stage.COMMAND_REPORTS, e);
+        }
+      }
+    }
+    m_statistics.get(Stage.COMMAND_REPORTS).recordSince(start);
+
+    start = System.nanoTime();
+    for (QueuedHeartBeat entry : batch) {
+      if (null == entry.failure) {
+        try {
+          m_handler.processStatusReports(entry.heartbeat, entry.heartbeat.getHostname(),
+              m_clusters);
+        } catch (Exception e) {
+          entry.fail(Stage.STATUS_REPORTS, e);
+        }
+      }
+    }
+    m_statistics.get(Stage.STATUS_REPORTS).recordSince(start);
+
+    // must run after the command and status reports of the host are applied
+    start = System.nanoTime();
+    for (QueuedHeartBeat entry : batch) {
+      if (null == entry.failure) {
+        try {
+          m_handler.processHostStatus(entry.heartbeat, entry.heartbeat.getHostname());
+        } catch (Exception e) {
+          entry.fail(Stage.HOST_STATUS, e);
+        }
+      }
+    }
+    m_statistics.get(Stage.HOST_STATUS).recordSince(start);
+
+    start = System.nanoTime();
+    for (QueuedHeartBeat entry : batch) {
+      if (null == entry.failure) {
+        try {
+          m_handler.processAlerts(entry.heartbeat, entry.heartbeat.getHostname());
+        } catch (Exception e) {
+          entry.fail(Stage.ALERTS, e);
+        }
+      }
+    }
+    m_statistics.get(Stage.ALERTS).recordSince(start);
+  }
+
+  /**
+   * Processes a batch in one unit of work. If the unit of work cannot be
+   * committed, none of its writes were applied, so every heartbeat of the
+   * batch which did not fail a stage is processed again in a unit of work of
+   * its own. Only the heartbeats which still cannot be committed fail.
+   *
+   * @param batch
+   *          the heartbeats to process.
+   */
+  private void processBatch(List<QueuedHeartBeat> batch) {
+    long start = System.nanoTime();
+    try {
+      if (!commit(batch) && batch.size() > 1) {
+        LOG.warn("Unable to commit the reports of {} heartbeats, processing them one at a time",
+            batch.size());
+        for (QueuedHeartBeat entry : batch) {
+          if (null == entry.failure) {
+            commit(Collections.singletonList(entry));
+          }
+        }
+      }
+    } finally {
+      m_statistics.get(Stage.BATCH).recordSince(start);
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Processed {} heartbeats, queue depth {}, stages {}", batch.size(),
+          getQueueDepth(), m_statistics.values());
+    }
+
+    if (m_statisticsLog.isDue()) {
+      LOG.info("Heartbeat processing statistics: queueDepth={}, stages={}",
+          getQueueDepth(), getStatistics().values());
+    }
+  }
+
+  /**
+   * Runs the stages of the given heartbeats in one unit of work. A single
+   * heartbeat whose unit of work cannot be committed is marked as failed.
+   *
+   * @param batch
+   *          the heartbeats to process.
+   * @return {@code true} if the unit of work was committed.
+   */
+  private boolean commit(List<QueuedHeartBeat> batch) {
+    try {
+      m_handler.processHeartBeatBatch(batch);
+      return true;
+    } catch (RuntimeException e) {
+      if (batch.size() == 1) {
+        batch.get(0).fail(Stage.BATCH, e);
+      } else {
+        LOG.debug("Unable to commit the reports of {} heartbeats", batch.size(), e);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Wraps the failure of a heartbeat so it can be thrown to the agent.
+   */
+  private static AmbariException toAmbariException(String hostname, Exception failure) {
+    if (failure instanceof AmbariException) {
+      return (AmbariException) failure;
+    }
+
+    return new AmbariException("Unable to process the heartbeat from host " + hostname,
+        failure);
+  }
+
+  /**
+   * Gets the queue of the worker which owns the given host.
+   */
+  private BlockingQueue<QueuedHeartBeat> getQueue(String hostname) {
+    int hash = null == hostname ? 0 : hostname.hashCode();
+    return m_queues.get((hash & Integer.MAX_VALUE) % m_queues.size());
+  }
+
+  /**
+   * A heartbeat waiting in a worker queue.
+   */
+  static final class QueuedHeartBeat {
+    final HeartBeat heartbeat;
+    final long receivedTime;
+    final long queuedNanos = System.nanoTime();
+
+    /**
+     * The first failure while processing the heartbeat; once set, the
+     * remaining stages are skipped.
+     */
+    Exception failure;
+
+    QueuedHeartBeat(HeartBeat heartbeat, long receivedTime) {
+      this.heartbeat = heartbeat;
+      this.receivedTime = receivedTime;
+    }
+
+    private void fail(Stage stage, Exception e) {
+      LOG.error("Unable to process the {} of the heartbeat from host {}", stage,
+          heartbeat.getHostname(), e);
+      failure = e;
+    }
+  }
+
+  /**
+   * Drains a single queue in batches.
+   */
+  private final class Worker implements Runnable {
+    private final BlockingQueue<QueuedHeartBeat> m_queue;
+
+    private Worker(BlockingQueue<QueuedHeartBeat> queue) {
+      m_queue = queue;
+    }
+
+    @Override
+    public void run() {
+      List<QueuedHeartBeat> batch = new ArrayList<QueuedHeartBeat>(m_batchSize);
+      while (m_running) {
+        try {
+          batch.add(m_queue.take());
+          m_queue.drainTo(batch, m_batchSize - 1);
+
+          TimingStatistics queued = m_statistics.get(Stage.QUEUED);
+          for (QueuedHeartBeat entry : batch) {
+            queued.recordSince(entry.queuedNanos);
+          }
+
+          processBatch(batch);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (Throwable t) {
+          LOG.error("Unexpected error while processing heartbeats", t);
+        } finally {
+          batch.clear();
+        }
+      }
+    }
+  }
+}
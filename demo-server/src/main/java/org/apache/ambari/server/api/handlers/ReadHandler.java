@@ -52,6 +52,7 @@ public class ReadHandler implements RequestHandler {
     query.setPageRequest(request.getPageRequest());
     query.setSortRequest(request.getSortRequest());
     query.setRenderer(request.getRenderer());
+    query.setRequestInfoProperties(request.getBody().getRequestInfoProperties());
 
     try {
       addFieldsToQuery(request, query);
@@ -19,14 +19,45 @@
 package org.apache.ambari.server.api.predicate;
 
 import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import java.util.Collection;
+import java.util.TreeSet;
 
 /**
  * Compiler which takes a query expression as input and produces a predicate instance as output.
+ * <p/>
+ * Compiled predicates are immutable and are cached by expression, since clients poll
+ * with the same query strings.
  */
 public class PredicateCompiler {
 
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(PredicateCompiler.class);
+
+  /**
+   * Maximum number of cached predicates.
+   */
+  private static final int PREDICATE_CACHE_SIZE = 1000;
+
+  /**
+   * Compiled predicates keyed by expression and ignored property names.
+   */
+  private static final Cache<String, Predicate> PREDICATE_CACHE =
+      CacheBuilder.newBuilder().maximumSize(PREDICATE_CACHE_SIZE).recordStats().build();
+
+  /**
+   * Limits how often the cache statistics are logged.
+   */
+  private static final StatisticsLogThrottle STATISTICS_LOG = new StatisticsLogThrottle();
+
   /**
    * Lexer instance used to translate expressions into stream of tokens.
    */
@@ -46,7 +77,13 @@ public class PredicateCompiler {
    * @throws InvalidQueryException if unable to compile the expression
    */
   public Predicate compile(String exp) throws InvalidQueryException {
-    return parser.parse(lexer.tokens(exp));
+    Predicate predicate = PREDICATE_CACHE.getIfPresent(exp);
+    if (predicate == null) {
+      predicate = parser.parse(lexer.tokens(exp));
+      cache(exp, predicate);
+    }
+    logStatistics();
+    return predicate;
   }
 
   /**
@@ -59,6 +96,44 @@ public class PredicateCompiler {
    * @throws InvalidQueryException if unable to compile the expression
    */
   public Predicate compile(String exp, Collection<String> ignoredProperties) throws InvalidQueryException {
-    return parser.parse(lexer.tokens(exp, ignoredProperties));
+    String key = getCacheKey(exp, ignoredProperties);
+
+    Predicate predicate = PREDICATE_CACHE.getIfPresent(key);
+    if (predicate == null) {
+      predicate = parser.parse(lexer.tokens(exp, ignoredProperties));
+      cache(key, predicate);
+    }
+    logStatistics();
+    return predicate;
+  }
+
+  /**
+   * Periodically log the statistics of the predicate cache.
+   */
+  private static void logStatistics() {
+    if (STATISTICS_LOG.isDue()) {
+      LOG.info("Predicate cache statistics: size={}, {}", PREDICATE_CACHE.size(),
+          PREDICATE_CACHE.stats());
+    }
+  }
+
+  /**
+   * Cache a compiled predicate.  Expressions without predicates, such as those
+   * only holding directives, compile to null and are not cached.
+   */
+  private static void cache(String key, Predicate predicate) {
+    if (predicate != null) {
+      PREDICATE_CACHE.put(key, predicate);
+    }
+  }
+
+  /**
+   * Get the cache key of an expression compiled with ignored properties.
+   */
+  private static String getCacheKey(String exp, Collection<String> ignoredProperties) {
+    if (ignoredProperties == null || ignoredProperties.isEmpty()) {
+      return exp;
+    }
+    return exp + '\u0000' + new TreeSet<String>(ignoredProperties);
   }
 }
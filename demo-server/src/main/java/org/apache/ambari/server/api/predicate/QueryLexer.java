@@ -51,11 +51,32 @@ public class QueryLexer {
   private static final String[] ALL_DELIMS =
       {".matches\\(",".in\\(",".isEmpty\\(","<=",">=","!=","=","<",">","&","|","!","(", ")"};
 
+  /**
+   * Pattern which splits a query expression on the deliminators.
+   */
+  private static final Pattern DELIMS_PATTERN = generatePattern();
+
+  /**
+   * Characters which may not appear in a property operand.
+   */
+  private static final String PROPERTY_OPERAND_INVALID_CHARS = "!&|<=>()";
+
+  /**
+   * Characters which may not appear in a value operand.
+   */
+  private static final String VALUE_OPERAND_INVALID_CHARS = "!&|<=>";
+
+  /**
+   * Valid relational operators.
+   */
+  private static final Set<String> RELATIONAL_OPERATORS =
+      new HashSet<String>(Arrays.asList("<=", ">=", "!=", "=", "<", ">"));
+
   /**
    * Map of token type to list of valid handlers for next token.
    */
-  private static final Map<Token.TYPE, List<TokenHandler>> TOKEN_HANDLERS =
-      new HashMap<Token.TYPE, List<TokenHandler>>();
+  private final Map<Token.TYPE, List<TokenHandler>> tokenHandlers =
+      new EnumMap<Token.TYPE, List<TokenHandler>>(Token.TYPE.class);
 
   /**
    * Static set of property names to ignore.
@@ -74,33 +95,33 @@ public class QueryLexer {
     listHandlers.add(new OpenBracketTokenHandler());
     listHandlers.add(new PropertyOperandTokenHandler());
 
-    TOKEN_HANDLERS.put(Token.TYPE.BRACKET_OPEN, listHandlers);
-    TOKEN_HANDLERS.put(Token.TYPE.LOGICAL_OPERATOR, listHandlers);
-    TOKEN_HANDLERS.put(Token.TYPE.LOGICAL_UNARY_OPERATOR, listHandlers);
+    tokenHandlers.put(Token.TYPE.BRACKET_OPEN, listHandlers);
+    tokenHandlers.put(Token.TYPE.LOGICAL_OPERATOR, listHandlers);
+    tokenHandlers.put(Token.TYPE.LOGICAL_UNARY_OPERATOR, listHandlers);
 
     listHandlers= new ArrayList<TokenHandler>();
     listHandlers.add(new RelationalOperatorTokenHandler());
     listHandlers.add(new RelationalOperatorFuncTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.PROPERTY_OPERAND, listHandlers);
+    tokenHandlers.put(Token.TYPE.PROPERTY_OPERAND, listHandlers);
 
     listHandlers = new ArrayList<TokenHandler>();
     listHandlers.add(new ValueOperandTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.RELATIONAL_OPERATOR, listHandlers);
+    tokenHandlers.put(Token.TYPE.RELATIONAL_OPERATOR, listHandlers);
 
     listHandlers = new ArrayList<TokenHandler>();
     listHandlers.add(new CloseBracketTokenHandler());
     listHandlers.add(new ComplexValueOperandTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.RELATIONAL_OPERATOR_FUNC, listHandlers);
+    tokenHandlers.put(Token.TYPE.RELATIONAL_OPERATOR_FUNC, listHandlers);
 
     listHandlers = new ArrayList<TokenHandler>();
     listHandlers.add(new CloseBracketTokenHandler());
     listHandlers.add(new LogicalOperatorTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.BRACKET_CLOSE, listHandlers);
+    tokenHandlers.put(Token.TYPE.BRACKET_CLOSE, listHandlers);
 
     listHandlers = new ArrayList<TokenHandler>(listHandlers);
     // complex value operands can span multiple tokens
     listHandlers.add(0, new ComplexValueOperandTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.VALUE_OPERAND, listHandlers);
+    tokenHandlers.put(Token.TYPE.VALUE_OPERAND, listHandlers);
   }
 
 
@@ -131,7 +152,7 @@ public class QueryLexer {
     ctx.addPropertiesToIgnore(ignoreProperties);
 
     for (String tok : parseStringTokens(exp)) {
-      List<TokenHandler> listHandlers = TOKEN_HANDLERS.get(ctx.getLastTokenType());
+      List<TokenHandler> listHandlers = tokenHandlers.get(ctx.getLastTokenType());
       boolean            processed    = false;
       int                idx          = 0;
 
@@ -159,8 +180,7 @@ public class QueryLexer {
    * @return list of string tokens from the query expression
    */
   private List<String> parseStringTokens(String exp) {
-    Pattern      pattern       = generatePattern();
-    Matcher      matcher       = pattern.matcher(exp);
+    Matcher      matcher       = DELIMS_PATTERN.matcher(exp);
     List<String> listStrTokens = new ArrayList<String>();
     int pos = 0;
 
@@ -184,7 +204,7 @@ public class QueryLexer {
    *
    * @return the regex pattern
    */
-  private Pattern generatePattern() {
+  private static Pattern generatePattern() {
     StringBuilder sb = new StringBuilder();
     sb.append('(');
     for (String delim : ALL_DELIMS) { // For each delimiter
@@ -197,6 +217,47 @@ public class QueryLexer {
     return Pattern.compile(sb.toString());
   }
 
+  /**
+   * Determine whether a token is non-empty and contains none of the given characters.
+   *
+   * @param token         the token
+   * @param invalidChars  the characters which may not appear in the token
+   *
+   * @return true if the token is non-empty and contains none of the characters
+   */
+  private static boolean containsNone(String token, String invalidChars) {
+    if (token.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      if (invalidChars.indexOf(token.charAt(i)) != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determine whether a token is a relational operator function such as ".in(".
+   *
+   * @param token  the token
+   *
+   * @return true if the token is a '.' followed by letters and a '('
+   */
+  private static boolean isRelationalOperatorFunc(String token) {
+    int last = token.length() - 1;
+    if (last < 2 || token.charAt(0) != '.' || token.charAt(last) != '(') {
+      return false;
+    }
+    for (int i = 1; i < last; i++) {
+      char c = token.charAt(i);
+      if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Add property names that the lexer should ignore.
    */
@@ -430,7 +491,7 @@ public class QueryLexer {
      * @throws InvalidQueryException  if the context is determined to in an invalid end state
      */
     public void validateEndState() throws InvalidQueryException {
-      for (TokenHandler handler : TOKEN_HANDLERS.get(getLastTokenType())) {
+      for (TokenHandler handler : tokenHandlers.get(getLastTokenType())) {
         handler.validateEndState(this);
       }
     }
@@ -523,7 +584,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("[^!&\\|<=|>=|!=|=|<|>\\(\\)]+");
+      return containsNone(token, PROPERTY_OPERAND_INVALID_CHARS);
     }
   }
 
@@ -543,7 +604,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("[^!&\\|<=|>=|!=|=|<|>]+");
+      return containsNone(token, VALUE_OPERAND_INVALID_CHARS);
     }
   }
 
@@ -563,7 +624,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("\\(");
+      return "(".equals(token);
     }
   }
 
@@ -583,7 +644,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("\\)");
+      return ")".equals(token);
     }
   }
 
@@ -604,7 +665,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("<=|>=|!=|=|<|>");
+      return RELATIONAL_OPERATORS.contains(token);
     }
   }
 
@@ -626,7 +687,7 @@ public class QueryLexer {
     //todo: add a unary relational operator func
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("\\.[a-zA-Z]+\\(");
+      return isRelationalOperatorFunc(token);
     }
   }
 
@@ -703,7 +764,7 @@ public class QueryLexer {
 
     @Override
     public boolean handles(String token, ScanContext ctx) {
-      return token.matches("[!&\\|]");
+      return token.length() == 1 && "!&|".indexOf(token.charAt(0)) != -1;
     }
   }
 
@@ -35,8 +35,8 @@ public class QueryParser {
   /**
    * Map of token type to token handlers.
    */
-  private static final Map<Token.TYPE, TokenHandler> TOKEN_HANDLERS =
-      new HashMap<Token.TYPE, TokenHandler>();
+  private final Map<Token.TYPE, TokenHandler> tokenHandlers =
+      new EnumMap<Token.TYPE, TokenHandler>(Token.TYPE.class);
 
   /**
    * Constructor.
@@ -44,14 +44,14 @@ public class QueryParser {
    *
    */
   public QueryParser() {
-    TOKEN_HANDLERS.put(Token.TYPE.BRACKET_OPEN, new BracketOpenTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.BRACKET_CLOSE, new BracketCloseTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.RELATIONAL_OPERATOR, new RelationalOperatorTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.LOGICAL_OPERATOR, new LogicalOperatorTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.LOGICAL_UNARY_OPERATOR, new LogicalUnaryOperatorTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.PROPERTY_OPERAND, new PropertyOperandTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.VALUE_OPERAND, new ValueOperandTokenHandler());
-    TOKEN_HANDLERS.put(Token.TYPE.RELATIONAL_OPERATOR_FUNC, new RelationalOperatorFuncTokenHandler());
+    tokenHandlers.put(Token.TYPE.BRACKET_OPEN, new BracketOpenTokenHandler());
+    tokenHandlers.put(Token.TYPE.BRACKET_CLOSE, new BracketCloseTokenHandler());
+    tokenHandlers.put(Token.TYPE.RELATIONAL_OPERATOR, new RelationalOperatorTokenHandler());
+    tokenHandlers.put(Token.TYPE.LOGICAL_OPERATOR, new LogicalOperatorTokenHandler());
+    tokenHandlers.put(Token.TYPE.LOGICAL_UNARY_OPERATOR, new LogicalUnaryOperatorTokenHandler());
+    tokenHandlers.put(Token.TYPE.PROPERTY_OPERAND, new PropertyOperandTokenHandler());
+    tokenHandlers.put(Token.TYPE.VALUE_OPERAND, new ValueOperandTokenHandler());
+    tokenHandlers.put(Token.TYPE.RELATIONAL_OPERATOR_FUNC, new RelationalOperatorFuncTokenHandler());
   }
 
   /**
@@ -97,7 +97,7 @@ public class QueryParser {
     ParseContext ctx = new ParseContext(tokens);
 
     while (ctx.getCurrentTokensIndex() < tokens.length) {
-      TOKEN_HANDLERS.get(tokens[ctx.getCurrentTokensIndex()].getType()).handleToken(ctx);
+      tokenHandlers.get(tokens[ctx.getCurrentTokensIndex()].getType()).handleToken(ctx);
     }
 
     if (ctx.getPrecedenceLevel() != 0) {
@@ -32,6 +32,7 @@ import org.apache.ambari.server.controller.predicate.AlwaysPredicate;
 import org.apache.ambari.server.controller.predicate.ArrayPredicate;
 import org.apache.ambari.server.controller.predicate.CategoryPredicate;
 import org.apache.ambari.server.controller.predicate.ComparisonPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
 import org.apache.ambari.server.controller.predicate.PredicateVisitor;
 import org.apache.ambari.server.controller.predicate.UnaryPredicate;
 import org.apache.ambari.server.controller.spi.Predicate;
@@ -40,6 +41,12 @@ import org.apache.ambari.server.controller.utilities.PredicateHelper;
 /**
  * The {@link JpaPredicateVisitor} is used to convert an Ambari
  * {@link Predicate} into a JPA {@link javax.persistence.criteria.Predicate}.
+ * <p/>
+ * Parts of the Ambari predicate which cannot be converted, such as properties
+ * without a mapping or unsupported operators, are left out of the JPA
+ * predicate. Callers which rely on the database to return exactly the
+ * matching entities, for example to page the results, must check
+ * {@link #isTranslated()}.
  */
 public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
   /**
@@ -67,6 +74,12 @@ public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
    */
   private javax.persistence.criteria.Predicate m_lastPredicate = null;
 
+  /**
+   * {@code false} if any part of the visited predicates could not be
+   * converted.
+   */
+  private boolean m_translated = true;
+
   /**
    * A queue of lists of {@link javax.persistence.criteria.Predicate}. Every
    * time an {@code OR} or {@code AND} is encountered, a new chain (list) is
@@ -139,72 +152,120 @@ public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
   }
 
   /**
-   * {@inheritDoc}
+   * Gets the root which the predicates are built on.
+   *
+   * @return the root (never {@code null}).
    */
-  @Override
-  @SuppressWarnings({ "unchecked", "rawtypes" })
-  public void acceptComparisonPredicate(ComparisonPredicate predicate) {
-    String propertyId = predicate.getPropertyId();
-
-    List<? extends SingularAttribute<?, ?>> singularAttributes = getPredicateMapping(propertyId);
-
-    if (null == singularAttributes || singularAttributes.size() == 0) {
-      return;
-    }
+  public Root<T> getRoot() {
+    return m_root;
+  }
 
-    SingularAttribute<?, ?> lastSingularAttribute = null;
-    Path<Comparable> path = null;
+  /**
+   * Determines whether every predicate visited so far was converted. If not,
+   * {@link #getJpaPredicate()} may match entities which the Ambari predicate
+   * would reject, or miss entities it would accept.
+   *
+   * @return {@code true} if the JPA predicate is equivalent to the Ambari
+   *         predicate.
+   */
+  public boolean isTranslated() {
+    return m_translated;
+  }
 
-    for (SingularAttribute<?, ?> singularAttribute : singularAttributes) {
-      lastSingularAttribute = singularAttribute;
+  /**
+   * Gets the path of the entity attribute mapped to the specified Ambari-style
+   * property.
+   *
+   * @param propertyId
+   *          the Ambari-style property (not {@code null}).
+   * @return the path, or {@code null} if the property has no mapping.
+   */
+  public Path<?> getPath(String propertyId) {
+    return getPath(getPredicateMapping(propertyId));
+  }
 
-      if (singularAttribute != null) {
-        if (null == path) {
-          path = m_root.get(singularAttribute.getName());
-        } else {
-          path = path.get(singularAttribute.getName());
-        }
+  /**
+   * Creates a query which counts the entities matching the given predicate.
+   * JPA predicates cannot be shared between queries, so the predicate is
+   * converted again against the root of the new query.
+   *
+   * @param predicate
+   *          the Ambari predicate, or {@code null} to count all entities.
+   * @return the count query (never {@code null}).
+   */
+  public CriteriaQuery<Long> createCountQuery(Predicate predicate) {
+    CriteriaQuery<Long> countQuery = m_builder.createQuery(Long.class);
+    Root<T> countRoot = countQuery.from(getEntityClass());
+    countQuery.select(m_builder.count(countRoot));
+
+    Root<T> root = m_root;
+    javax.persistence.criteria.Predicate lastPredicate = m_lastPredicate;
+    boolean translated = m_translated;
+
+    m_root = countRoot;
+    m_lastPredicate = null;
+    try {
+      PredicateHelper.visit(predicate, this);
+      if (null != m_lastPredicate) {
+        countQuery.where(m_lastPredicate);
       }
+    } finally {
+      m_root = root;
+      m_lastPredicate = lastPredicate;
+      m_translated = translated;
+      m_queue.clear();
     }
 
-    if (null == path) {
-      return;
-    }
-
-    String operator = predicate.getOperator();
-    Comparable<?> value = predicate.getValue();
+    return countQuery;
+  }
 
-    // convert string to enum for proper JPA comparisons
-    if (lastSingularAttribute != null) {
-      Class<?> clazz = lastSingularAttribute.getJavaType();
-      if (clazz.isEnum()) {
-        Class<? extends Enum> enumClass = (Class<? extends Enum>) clazz;
-        value = Enum.valueOf(enumClass, value.toString());
-      }
-    }
+  /**
+   * Converts a comparison on a property which has no attribute mapping, for
+   * example a name which must be resolved to an id before it can be compared.
+   * Implementations should build the predicate on {@link #getRoot()}.
+   *
+   * @param propertyId
+   *          the Ambari-style property (not {@code null}).
+   * @param operator
+   *          the comparison operator.
+   * @param value
+   *          the value being compared to.
+   * @return the predicate, or {@code null} if the comparison cannot be
+   *         converted.
+   */
+  protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+      String propertyId, String operator, Object value) {
+    return null;
+  }
 
-    javax.persistence.criteria.Predicate jpaPredicate = null;
-    if ("=".equals(operator)) {
-      jpaPredicate = m_builder.equal(path, value);
-    } else if ("<".equals(operator)) {
-      jpaPredicate = m_builder.lessThan(path, value);
-    } else if ("<=".equals(operator)) {
-      jpaPredicate = m_builder.lessThanOrEqualTo(path, value);
-    } else if (">".equals(operator)) {
-      jpaPredicate = m_builder.greaterThan(path, value);
-    } else if (">=".equals(operator)) {
-      jpaPredicate = m_builder.greaterThanOrEqualTo(path, value);
-    }
+  /**
+   * Determines whether comparisons of an attribute of the given type can be
+   * evaluated by the database with the same semantics as the Ambari
+   * predicate. Implementations can return {@code false} to keep such
+   * comparisons in memory.
+   *
+   * @param propertyId
+   *          the Ambari-style property (not {@code null}).
+   * @param attributeType
+   *          the Java type of the mapped attribute.
+   * @return {@code true} if the comparison can be converted (by default).
+   */
+  protected boolean isComparisonSupported(String propertyId, Class<?> attributeType) {
+    return true;
+  }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acceptComparisonPredicate(ComparisonPredicate predicate) {
+    javax.persistence.criteria.Predicate jpaPredicate = createPredicate(predicate);
     if (null == jpaPredicate) {
+      m_translated = false;
       return;
     }
 
-    if (null == m_queue.peekLast()) {
-      m_lastPredicate = jpaPredicate;
-    } else {
-      m_queue.peekLast().add(jpaPredicate);
-    }
+    addPredicate(jpaPredicate);
   }
 
   /**
@@ -240,19 +301,38 @@ public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
         jpaPredicate = m_builder.or(array);
       }
 
-      if (null == m_queue.peekLast()) {
-        m_lastPredicate = jpaPredicate;
-      } else {
-        m_queue.peekLast().add(jpaPredicate);
-      }
+      addPredicate(jpaPredicate);
     }
   }
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * Only the negation of a single comparison is supported. Since the Ambari
+   * predicate is also satisfied by resources which do not have the property
+   * at all, the negation includes {@code NULL} values.
    */
   @Override
   public void acceptUnaryPredicate(UnaryPredicate predicate) {
+    if (!(predicate instanceof NotPredicate)
+        || !(predicate.getPredicate() instanceof ComparisonPredicate)) {
+      m_translated = false;
+      return;
+    }
+
+    ComparisonPredicate comparison = (ComparisonPredicate) predicate.getPredicate();
+    javax.persistence.criteria.Predicate jpaPredicate = createPredicate(comparison);
+    if (null == jpaPredicate) {
+      m_translated = false;
+      return;
+    }
+
+    Path<?> path = getPath(comparison.getPropertyId());
+    if (null == path || null == comparison.getValue()) {
+      addPredicate(m_builder.not(jpaPredicate));
+    } else {
+      addPredicate(m_builder.or(m_builder.not(jpaPredicate), m_builder.isNull(path)));
+    }
   }
 
   /**
@@ -260,6 +340,10 @@ public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
    */
   @Override
   public void acceptAlwaysPredicate(AlwaysPredicate predicate) {
+    // only matters inside of a chain, where it must not be dropped from an OR
+    if (null != m_queue.peekLast()) {
+      m_queue.peekLast().add(m_builder.conjunction());
+    }
   }
 
   /**
@@ -267,5 +351,136 @@ public abstract class JpaPredicateVisitor<T> implements PredicateVisitor {
    */
   @Override
   public void acceptCategoryPredicate(CategoryPredicate predicate) {
+    m_translated = false;
+  }
+
+  /**
+   * Adds a converted predicate to the current chain, or makes it the final
+   * predicate if there is no chain.
+   */
+  private void addPredicate(javax.persistence.criteria.Predicate jpaPredicate) {
+    if (null == m_queue.peekLast()) {
+      m_lastPredicate = jpaPredicate;
+    } else {
+      m_queue.peekLast().add(jpaPredicate);
+    }
+  }
+
+  /**
+   * Converts a single comparison.
+   *
+   * @return the predicate, or {@code null} if the comparison cannot be
+   *         converted.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private javax.persistence.criteria.Predicate createPredicate(
+      ComparisonPredicate predicate) {
+    String propertyId = predicate.getPropertyId();
+    String operator = predicate.getOperator();
+
+    List<? extends SingularAttribute<?, ?>> singularAttributes = getPredicateMapping(propertyId);
+    Path<Comparable> path = getPath(singularAttributes);
+    if (null == path) {
+      return createUnmappedPredicate(propertyId, operator, predicate.getValue());
+    }
+
+    SingularAttribute<?, ?> lastSingularAttribute = singularAttributes.get(singularAttributes.size() - 1);
+    if (null == lastSingularAttribute) {
+      return null;
+    }
+
+    Class<?> clazz = lastSingularAttribute.getJavaType();
+    if (!isComparisonSupported(propertyId, clazz)) {
+      return null;
+    }
+
+    Comparable value = predicate.getValue();
+    if (null == value) {
+      return "=".equals(operator) ? m_builder.isNull(path) : null;
+    }
+
+    // convert strings to the attribute type for proper JPA comparisons
+    value = convertValue(clazz, value);
+    if (null == value) {
+      return null;
+    }
+
+    // enums are stored by name, so only equality matches the Ambari semantics
+    if (clazz.isEnum() && !"=".equals(operator)) {
+      return null;
+    }
+
+    if ("=".equals(operator)) {
+      return m_builder.equal(path, value);
+    } else if ("<".equals(operator)) {
+      return m_builder.lessThan(path, value);
+    } else if ("<=".equals(operator)) {
+      return m_builder.lessThanOrEqualTo(path, value);
+    } else if (">".equals(operator)) {
+      return m_builder.greaterThan(path, value);
+    } else if (">=".equals(operator)) {
+      return m_builder.greaterThanOrEqualTo(path, value);
+    }
+
+    return null;
+  }
+
+  /**
+   * Builds the path of a chain of attributes, starting at the current root.
+   *
+   * @return the path, or {@code null} if there are no attributes.
+   */
+  @SuppressWarnings("rawtypes")
+  private Path<Comparable> getPath(List<? extends SingularAttribute<?, ?>> singularAttributes) {
+    if (null == singularAttributes) {
+      return null;
+    }
+
+    Path<Comparable> path = null;
+    for (SingularAttribute<?, ?> singularAttribute : singularAttributes) {
+      if (singularAttribute != null) {
+        if (null == path) {
+          path = m_root.get(singularAttribute.getName());
+        } else {
+          path = path.get(singularAttribute.getName());
+        }
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * Converts a predicate value, which usually is a string, into the type of
+   * the attribute it is compared to.
+   *
+   * @return the converted value, or {@code null} if it cannot be converted.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private Comparable convertValue(Class<?> clazz, Comparable value) {
+    if (clazz.isInstance(value)) {
+      return value;
+    }
+
+    String stringValue = value.toString();
+    try {
+      if (clazz.isEnum()) {
+        return Enum.valueOf((Class<? extends Enum>) clazz, stringValue);
+      } else if (String.class == clazz) {
+        return stringValue;
+      } else if (Long.class == clazz || long.class == clazz) {
+        return Long.valueOf(stringValue);
+      } else if (Integer.class == clazz || int.class == clazz) {
+        return Integer.valueOf(stringValue);
+      } else if (Short.class == clazz || short.class == clazz) {
+        return Short.valueOf(stringValue);
+      } else if (Double.class == clazz || double.class == clazz) {
+        return Double.valueOf(stringValue);
+      }
+    } catch (IllegalArgumentException e) {
+      // not a valid value for the attribute
+    }
+
+    return null;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,291 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+
+import org.apache.ambari.server.controller.internal.SortRequestImpl;
+import org.apache.ambari.server.controller.predicate.PredicateVisitorAcceptor;
+import org.apache.ambari.server.controller.spi.PageRequest;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.SortRequest;
+import org.apache.ambari.server.controller.spi.SortRequestProperty;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
+
+/**
+ * The {@link JpaQueryTranslator} pushes the predicate, the sort request and
+ * the page request of a resource query down into a single JPA query, so that
+ * the database only returns the requested page instead of every entity which
+ * the cluster controller would otherwise filter, sort and page in memory.
+ * <p/>
+ * The query is only executed if it is equivalent to the in-memory processing:
+ * every part of the predicate and every sort property must be mapped by the
+ * {@link JpaPredicateVisitor} and the page must be defined by an offset.
+ * Otherwise {@link #execute} returns {@code null} and the resource provider
+ * must fall back to returning all of its resources.
+ * <p/>
+ * Results are always ordered, first by the requested sort properties and then
+ * by the key properties of the resource type in the same order as the cluster
+ * controller uses, which keeps the pages stable.
+ */
+public class JpaQueryTranslator<T> {
+
+  /**
+   * Used to create the queries.
+   */
+  private final EntityManager m_entityManager;
+
+  /**
+   * Converts the predicate and provides the select query.
+   */
+  private final JpaPredicateVisitor<T> m_visitor;
+
+  /**
+   * Query hints to set on the select and count queries.
+   */
+  private final Map<String, Object> m_hints = new HashMap<String, Object>();
+
+  /**
+   * Constructor.
+   *
+   * @param entityManager
+   *          the entity manager used to create the queries.
+   * @param visitor
+   *          a new visitor for the entity being queried; a visitor can only
+   *          be used for a single query.
+   */
+  public JpaQueryTranslator(EntityManager entityManager,
+      JpaPredicateVisitor<T> visitor) {
+    m_entityManager = entityManager;
+    m_visitor = visitor;
+  }
+
+  /**
+   * Sets a hint on the queries created by this translator.
+   *
+   * @param name
+   *          the hint name.
+   * @param value
+   *          the hint value.
+   */
+  public void setHint(String name, Object value) {
+    m_hints.put(name, value);
+  }
+
+  /**
+   * Determines whether a page request can be translated into a JPA offset and
+   * limit.
+   *
+   * @param pageRequest
+   *          the page request, or {@code null} for none.
+   * @return {@code true} if there is no page request or it is defined by an
+   *         offset.
+   */
+  public static boolean isTranslatable(PageRequest pageRequest) {
+    if (null == pageRequest) {
+      return true;
+    }
+
+    switch (pageRequest.getStartingPoint()) {
+      case Beginning:
+      case End:
+      case OffsetStart:
+      case OffsetEnd:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Executes the query.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all entities.
+   * @param keyPropertyIds
+   *          the key property ids of the resource type, used to order
+   *          entities which are equal for the requested sort properties.
+   * @return the matching entities, or {@code null} if the query cannot be
+   *         translated completely.
+   */
+  public Page<T> execute(Request request, Predicate predicate,
+      Map<Resource.Type, String> keyPropertyIds) {
+
+    SortRequest sortRequest = request.getSortRequest();
+    PageRequest pageRequest = request.getPageRequest();
+    JpaSortBuilder<T> sortBuilder = new JpaSortBuilder<T>();
+
+    if (!isTranslatable(pageRequest)
+        || !sortBuilder.isTranslatable(sortRequest, m_visitor)) {
+      return null;
+    }
+
+    if (null != predicate) {
+      if (!(predicate instanceof PredicateVisitorAcceptor)) {
+        return null;
+      }
+
+      PredicateHelper.visit(predicate, m_visitor);
+      if (!m_visitor.isTranslated()) {
+        return null;
+      }
+    }
+
+    CriteriaQuery<T> query = m_visitor.getCriteriaQuery();
+    if (null != m_visitor.getJpaPredicate()) {
+      query.where(m_visitor.getJpaPredicate());
+    }
+
+    List<Order> sortOrders = new ArrayList<Order>();
+    sortOrders.addAll(sortBuilder.buildSortOrders(sortRequest, m_visitor));
+    sortOrders.addAll(sortBuilder.buildSortOrders(
+        getKeySortRequest(sortRequest, keyPropertyIds), m_visitor));
+    query.orderBy(sortOrders);
+
+    TypedQuery<T> typedQuery = m_entityManager.createQuery(query);
+    applyHints(typedQuery);
+
+    if (null == pageRequest) {
+      List<T> entities = typedQuery.getResultList();
+      return new Page<T>(entities, entities.size(), false);
+    }
+
+    TypedQuery<Long> countQuery = m_entityManager.createQuery(
+        m_visitor.createCountQuery(predicate));
+    applyHints(countQuery);
+
+    int totalCount = countQuery.getSingleResult().intValue();
+    int pageSize = pageRequest.getPageSize();
+    int offset = pageRequest.getOffset();
+
+    int first;
+    int last;
+    switch (pageRequest.getStartingPoint()) {
+      case Beginning:
+        first = 0;
+        last = pageSize - 1;
+        break;
+      case OffsetStart:
+        first = Math.max(0, offset);
+        last = first + pageSize - 1;
+        break;
+      case End:
+        last = totalCount - 1;
+        first = Math.max(0, last - pageSize + 1);
+        break;
+      default:
+        // OffsetEnd, the page ends at the offset (inclusive)
+        last = Math.min(offset, totalCount - 1);
+        first = Math.max(0, last - pageSize + 1);
+        break;
+    }
+
+    last = Math.min(last, totalCount - 1);
+
+    List<T> entities;
+    if (last < first) {
+      entities = Collections.emptyList();
+    } else {
+      typedQuery.setFirstResult(first);
+      typedQuery.setMaxResults(last - first + 1);
+      entities = typedQuery.getResultList();
+    }
+
+    return new Page<T>(entities, totalCount, true);
+  }
+
+  /**
+   * Creates an ascending sort request for the key properties which are not
+   * already part of the requested sort, in the order of the resource types.
+   */
+  private SortRequest getKeySortRequest(SortRequest sortRequest,
+      Map<Resource.Type, String> keyPropertyIds) {
+    Set<String> sortedPropertyIds = new HashSet<String>();
+    if (null != sortRequest && null != sortRequest.getProperties()) {
+      sortedPropertyIds.addAll(sortRequest.getPropertyIds());
+    }
+
+    List<SortRequestProperty> properties = new ArrayList<SortRequestProperty>();
+    for (Resource.Type type : Resource.Type.values()) {
+      String propertyId = keyPropertyIds.get(type);
+      if (null != propertyId && sortedPropertyIds.add(propertyId)) {
+        properties.add(new SortRequestProperty(propertyId, SortRequest.Order.ASC));
+      }
+    }
+
+    return new SortRequestImpl(properties);
+  }
+
+  private void applyHints(TypedQuery<?> query) {
+    for (Map.Entry<String, Object> hint : m_hints.entrySet()) {
+      query.setHint(hint.getKey(), hint.getValue());
+    }
+  }
+
+  /**
+   * The entities returned by a translated query.
+   */
+  public static final class Page<T> {
+    private final List<T> m_entities;
+    private final int m_totalCount;
+    private final boolean m_paged;
+
+    private Page(List<T> entities, int totalCount, boolean paged) {
+      m_entities = entities;
+      m_totalCount = totalCount;
+      m_paged = paged;
+    }
+
+    /**
+     * @return the entities, in the requested order (never {@code null}).
+     */
+    public List<T> getEntities() {
+      return m_entities;
+    }
+
+    /**
+     * @return the number of entities matching the predicate, which is larger
+     *         than the number of returned entities for a paged query.
+     */
+    public int getTotalCount() {
+      return m_totalCount;
+    }
+
+    /**
+     * @return {@code true} if the page request was applied.
+     */
+    public boolean isPaged() {
+      return m_paged;
+    }
+  }
+}
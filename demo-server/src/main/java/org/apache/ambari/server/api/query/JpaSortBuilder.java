@@ -22,7 +22,6 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
 import javax.persistence.metamodel.SingularAttribute;
@@ -37,7 +36,8 @@ import org.apache.ambari.server.controller.spi.SortRequestProperty;
  * provide sorting in the JPA layer during a query.
  * <p/>
  * This classes uses the {@link JpaPredicateVisitor} for the entity being
- * queried in order to convert the entity fields into {@link Path} expressions.
+ * queried in order to convert the entity fields into {@link Path} expressions
+ * on the same root as the predicate.
  */
 public class JpaSortBuilder<T> {
 
@@ -73,25 +73,11 @@ public class JpaSortBuilder<T> {
     List<Order> sortOrders = new ArrayList<Order>(sortProperties.size());
 
     for (SortRequestProperty sort : sortProperties) {
-      String propertyId = sort.getPropertyId();
-
-      List<? extends SingularAttribute<?, ?>> singularAttributes = visitor.getPredicateMapping(propertyId);
-
-      if (null == singularAttributes || singularAttributes.size() == 0) {
+      Path<?> path = visitor.getPath(sort.getPropertyId());
+      if (null == path) {
         continue;
       }
 
-      Path<?> path = null;
-      for (SingularAttribute<?, ?> singularAttribute : singularAttributes) {
-        if (null == path) {
-          CriteriaQuery<T> query = visitor.getCriteriaQuery();
-          path = query.from(visitor.getEntityClass()).get(
-              singularAttribute.getName());
-        } else {
-          path = path.get(singularAttribute.getName());
-        }
-      }
-
       Order sortOrder = null;
       if (sort.getOrder() == org.apache.ambari.server.controller.spi.SortRequest.Order.ASC) {
         sortOrder = builder.asc(path);
@@ -104,4 +90,32 @@ public class JpaSortBuilder<T> {
 
     return sortOrders;
   }
+
+  /**
+   * Determines whether every property of the sort request can be converted
+   * into a JPA {@link Order}. If not, {@link #buildSortOrders} silently skips
+   * some of the properties and the database order does not match the
+   * requested order.
+   *
+   * @param sortRequest
+   *          the Ambari sort request, or {@code null} for none.
+   * @param visitor
+   *          a visitor that knows how to convert the Ambari properties into
+   *          {@link SingularAttribute} (not {@code null}).
+   * @return {@code true} if every sort property is mapped.
+   */
+  public boolean isTranslatable(SortRequest sortRequest,
+      JpaPredicateVisitor<T> visitor) {
+    if (null == sortRequest || null == sortRequest.getProperties()) {
+      return true;
+    }
+
+    for (SortRequestProperty sort : sortRequest.getProperties()) {
+      if (null == visitor.getPath(sort.getPropertyId())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
 }
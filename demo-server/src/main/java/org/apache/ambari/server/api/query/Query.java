@@ -29,6 +29,7 @@ import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.TemporalInfo;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
 
+import java.util.Map;
 import java.util.Set;
 
 
@@ -115,4 +116,12 @@ public interface Query {
    * @param renderer  renderer for the query
    */
   public void setRenderer(Renderer renderer);
+
+  /**
+   * Set the request info properties, such as read directives, which are
+   * passed to the resource provider along with the read request.
+   *
+   * @param requestInfoProperties  the request info properties
+   */
+  public void setRequestInfoProperties(Map<String, String> requestInfoProperties);
 }
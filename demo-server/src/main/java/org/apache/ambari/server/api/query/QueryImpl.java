@@ -18,13 +18,20 @@
 
 package org.apache.ambari.server.api.query;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.apache.ambari.server.StaticallyInject;
 
 import org.apache.ambari.server.api.query.render.DefaultRenderer;
 import org.apache.ambari.server.api.query.render.Renderer;
@@ -35,9 +42,11 @@ import org.apache.ambari.server.api.resources.SubResourceDefinition;
 import org.apache.ambari.server.api.services.BaseRequest;
 import org.apache.ambari.server.api.services.Result;
 import org.apache.ambari.server.api.services.ResultImpl;
+import org.apache.ambari.server.api.util.LazyTreeNode;
 import org.apache.ambari.server.api.util.TreeNode;
 import org.apache.ambari.server.api.util.TreeNodeImpl;
 import org.apache.ambari.server.controller.internal.QueryResponseImpl;
+import org.apache.ambari.server.controller.internal.QueryResultCache;
 import org.apache.ambari.server.controller.predicate.AndPredicate;
 import org.apache.ambari.server.controller.predicate.EqualsPredicate;
 import org.apache.ambari.server.controller.spi.ClusterController;
@@ -61,11 +70,26 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.Inject;
+
 /**
  * Default read query.
  */
+@StaticallyInject
 public class QueryImpl implements Query, ResourceInstance {
 
+  /**
+   * The number of resources of a lazy result whose sub-resources are queried
+   * at once.
+   */
+  private static final int LAZY_RESULT_BATCH_SIZE = 100;
+
+  /**
+   * Cache of the resource provider query results; null if not injected.
+   */
+  @Inject
+  private static QueryResultCache queryResultCache;
+
   /**
    * Definition for the resource type.  The definition contains all information specific to the
    * resource type.
@@ -147,6 +171,11 @@ public class QueryImpl implements Query, ResourceInstance {
    */
   private Renderer renderer;
 
+  /**
+   * Request info properties, such as read directives, passed to the provider.
+   */
+  private final Map<String, String> requestInfoProperties = new HashMap<String, String>();
+
   /**
    * Sub-resource predicate.
    */
@@ -157,6 +186,12 @@ public class QueryImpl implements Query, ResourceInstance {
    */
   private Predicate processedPredicate;
 
+  /**
+   * Indicates that the sub-resources are queried while the result is
+   * serialized, a batch of resources at a time.
+   */
+  private boolean lazyResult = false;
+
   /**
    * The logger.
    */
@@ -248,6 +283,14 @@ public class QueryImpl implements Query, ResourceInstance {
     renderer.init(clusterController);
   }
 
+  @Override
+  public void setRequestInfoProperties(Map<String, String> requestInfoProperties) {
+    this.requestInfoProperties.clear();
+    if (requestInfoProperties != null) {
+      this.requestInfoProperties.putAll(requestInfoProperties);
+    }
+  }
+
 
 // ----- ResourceInstance --------------------------------------------------
 
@@ -369,7 +412,9 @@ public class QueryImpl implements Query, ResourceInstance {
     // must occur after processing user predicate and prior to creating request
     finalizeProperties();
 
-    Request request = createRequest();
+    // the provider may only apply the page request itself if the resources
+    // it returns are not filtered any further by this query
+    Request request = createRequest(!populateResourceRequired(resourceType));
 
     // use linked hash sets so that we maintain insertion and traversal order
     // in the event that the resource provider already gave us a sorted set
@@ -433,7 +478,24 @@ public class QueryImpl implements Query, ResourceInstance {
       populatedQueryResults.put(null, new QueryResult(request, queryPredicate, userPredicate, getKeyValueMap(), new QueryResponseImpl(newResourceSet)));
     }
 
-    queryForSubResources();
+    // the sub-resources of a lazy result are queried while it is serialized
+    lazyResult = isLazyResultSupported();
+    if (!lazyResult) {
+      queryForSubResources();
+    }
+  }
+
+  /**
+   * Determines whether the sub-resources of this query can be queried while
+   * the result is serialized.  This is only worthwhile for collections with
+   * sub-resources and only possible if the sub-resources do not take part in
+   * selecting the resources and the renderer does not need the whole result.
+   *
+   * @return true if the result of this query can be created lazily
+   */
+  private boolean isLazyResultSupported() {
+    return renderer.supportsLazyResult() && isCollectionResource() &&
+        !requestedSubResources.isEmpty() && !hasSubResourcePredicate();
   }
 
   /**
@@ -445,6 +507,20 @@ public class QueryImpl implements Query, ResourceInstance {
       SystemException,
       NoSuchResourceException,
       NoSuchParentResourceException {
+    queryForSubResources(populatedQueryResults.values());
+  }
+
+  /**
+   * Query the cluster controller for the sub-resources of the resources of
+   * the given query results.
+   *
+   * @param parentResults  the query results holding the parent resources
+   */
+  private void queryForSubResources(Collection<QueryResult> parentResults)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
 
     for (Map.Entry<String, QueryImpl> entry : requestedSubResources.entrySet()) {
       QueryImpl     subResource         = entry.getValue();
@@ -452,7 +528,7 @@ public class QueryImpl implements Query, ResourceInstance {
       Request       request             = subResource.createRequest();
       Set<Resource> providerResourceSet = new HashSet<Resource>();
 
-      for (QueryResult queryResult : populatedQueryResults.values()) {
+      for (QueryResult queryResult : parentResults) {
         for (Resource resource : queryResult.getQueryResponse().getResources()) {
           Map<Resource.Type, String> map = getKeyValueMap(resource, queryResult.getKeyValueMap());
 
@@ -505,7 +581,7 @@ public class QueryImpl implements Query, ResourceInstance {
       LOG.debug("Executing resource query: " + request + " where " + predicate);
     }
 
-    QueryResponse queryResponse = clusterController.getResources(type, request, predicate);
+    QueryResponse queryResponse = getResources(type, request, predicate);
 
     if (checkEmptyResponse && queryResponse.getResources().isEmpty()) {
 
@@ -519,6 +595,48 @@ public class QueryImpl implements Query, ResourceInstance {
     return queryResponse;
   }
 
+  /**
+   * Query the cluster controller for resources, answering identical reads
+   * from the query result cache.
+   *
+   * @param type       the resource type
+   * @param request    the request
+   * @param predicate  the predicate
+   *
+   * @return the query response
+   */
+  private QueryResponse getResources(final Resource.Type type, final Request request, final Predicate predicate)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
+
+    if (queryResultCache == null) {
+      return clusterController.getResources(type, request, predicate);
+    }
+
+    try {
+      return queryResultCache.getResources(type, request, predicate, new Callable<QueryResponse>() {
+        @Override
+        public QueryResponse call() throws Exception {
+          return clusterController.getResources(type, request, predicate);
+        }
+      });
+    } catch (UnsupportedPropertyException e) {
+      throw e;
+    } catch (NoSuchResourceException e) {
+      throw e;
+    } catch (NoSuchParentResourceException e) {
+      throw e;
+    } catch (SystemException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SystemException("Unable to query " + type + " resources", e);
+    }
+  }
+
   /**
    * Get a map of property sets keyed by the resources associated with this
    * query. The property sets should contain the joined sets of all of the
@@ -760,7 +878,10 @@ public class QueryImpl implements Query, ResourceInstance {
   private Result getResult(Resource parentResource)
       throws UnsupportedPropertyException, SystemException, NoSuchResourceException, NoSuchParentResourceException {
 
-    Result result = new ResultImpl(true);
+    boolean lazy = lazyResult && parentResource == null;
+    Result result = lazy ?
+        new ResultImpl(true, new LazyTreeNode<Resource>(null, null, null)) :
+        new ResultImpl(true);
     Resource.Type resourceType = getResourceDefinition().getType();
     TreeNode<Resource> tree = result.getResultTree();
 
@@ -797,27 +918,51 @@ public class QueryImpl implements Query, ResourceInstance {
         tree.setProperty("count", pageResponse.getTotalResourceCount().toString());
       }
 
-      int count = 1;
-      for (Resource resource : iterResource) {
-
-        // add a child node for the resource and provide a unique name.  The name is never used.
-        TreeNode<Resource> node = tree.addChild(
-            resource, resource.getType() + ":" + count++);
+      if (lazy) {
+        List<Resource> resources = new ArrayList<Resource>();
+        for (Resource resource : iterResource) {
+          resources.add(resource);
+        }
+        ((LazyTreeNode<Resource>) tree).setChildSource(new LazyResultSource(resources, queryResult));
+      } else {
+        int count = 1;
+        for (Resource resource : iterResource) {
 
-        for (Map.Entry<String, QueryImpl> entry : requestedSubResources.entrySet()) {
-          String    subResCategory = entry.getKey();
-          QueryImpl subResource    = entry.getValue();
+          // add a child node for the resource and provide a unique name.  The name is never used.
+          TreeNode<Resource> node = tree.addChild(
+              resource, resource.getType() + ":" + count++);
 
-          TreeNode<Resource> childResult = subResource.getResult(resource).getResultTree();
-          childResult.setName(subResCategory);
-          childResult.setProperty("isCollection", "false");
-          node.addChild(childResult);
+          addSubResourceResults(node, resource);
         }
       }
     }
     return renderer.finalizeResult(result);
   }
 
+  // Add the results of the sub-resource queries to the node of a resource.
+  private void addSubResourceResults(TreeNode<Resource> node, Resource resource)
+      throws UnsupportedPropertyException, SystemException, NoSuchResourceException, NoSuchParentResourceException {
+
+    for (Map.Entry<String, QueryImpl> entry : requestedSubResources.entrySet()) {
+      String    subResCategory = entry.getKey();
+      QueryImpl subResource    = entry.getValue();
+
+      TreeNode<Resource> childResult = subResource.getResult(resource).getResultTree();
+      childResult.setName(subResCategory);
+      childResult.setProperty("isCollection", "false");
+      node.addChild(childResult);
+    }
+  }
+
+  // Drop the sub-resource query results so that the resources can be released.
+  private void clearSubResourceResults() {
+    for (QueryImpl subResource : requestedSubResources.values()) {
+      subResource.queryResults.clear();
+      subResource.populatedQueryResults.clear();
+      subResource.clearSubResourceResults();
+    }
+  }
+
   // Indicates whether or not this query has sub-resource elements
   // in its predicate.
   private boolean hasSubResourcePredicate() {
@@ -953,7 +1098,20 @@ public class QueryImpl implements Query, ResourceInstance {
   }
 
   private Request createRequest() {
-    Map<String, String> requestInfoProperties = new HashMap<String, String>();
+    return createRequest(true);
+  }
+
+  /**
+   * Creates the read request for the resource provider.
+   *
+   * @param includePageRequest  whether the page request should be passed to the
+   *                            provider
+   *
+   * @return the read request
+   */
+  private Request createRequest(boolean includePageRequest) {
+    PageRequest providerPageRequest = includePageRequest ? pageRequest : null;
+    Map<String, String> requestInfoProperties = new HashMap<String, String>(this.requestInfoProperties);
 
     if (pageRequest != null) {
       requestInfoProperties.put(BaseRequest.PAGE_SIZE_PROPERTY_KEY,
@@ -967,7 +1125,7 @@ public class QueryImpl implements Query, ResourceInstance {
 
     if (allProperties) {
       return PropertyHelper.getReadRequest(Collections.<String> emptySet(),
-          requestInfoProperties, null, pageRequest, sortRequest);
+          requestInfoProperties, null, providerPageRequest, sortRequest);
     }
 
     Map<String, TemporalInfo> mapTemporalInfo    = new HashMap<String, TemporalInfo>();
@@ -985,7 +1143,7 @@ public class QueryImpl implements Query, ResourceInstance {
     }
 
     return PropertyHelper.getReadRequest(setProperties, requestInfoProperties,
-        mapTemporalInfo, pageRequest, sortRequest);
+        mapTemporalInfo, providerPageRequest, sortRequest);
   }
 
 
@@ -1045,6 +1203,88 @@ public class QueryImpl implements Query, ResourceInstance {
         resource.getSingularName();
   }
 
+  // ----- inner class : LazyResultSource ------------------------------------
+
+  /**
+   * Creates the resource nodes of a lazy result.  The sub-resources are
+   * queried and populated for a batch of resources at a time, and the results
+   * of the previous batch are dropped first, so only the sub-resources of one
+   * batch are held in memory while the result is serialized.
+   */
+  private class LazyResultSource implements LazyTreeNode.ChildSource<Resource> {
+    private final List<Resource> resources;
+    private final QueryResult queryResult;
+
+    // ----- Constructor -----------------------------------------------------
+
+    private LazyResultSource(List<Resource> resources, QueryResult queryResult) {
+      this.resources   = resources;
+      this.queryResult = queryResult;
+    }
+
+    // ----- ChildSource -----------------------------------------------------
+
+    @Override
+    public int size() {
+      return resources.size();
+    }
+
+    @Override
+    public Iterator<TreeNode<Resource>> iterator() {
+      return new Iterator<TreeNode<Resource>>() {
+        private int index = 0;
+        private Iterator<TreeNode<Resource>> batch = Collections.<TreeNode<Resource>>emptyList().iterator();
+
+        @Override
+        public boolean hasNext() {
+          return batch.hasNext() || index < resources.size();
+        }
+
+        @Override
+        public TreeNode<Resource> next() {
+          if (!batch.hasNext()) {
+            batch = nextBatch();
+          }
+          return batch.next();
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+
+        // Query the sub-resources of the next batch of resources and create their nodes.
+        private Iterator<TreeNode<Resource>> nextBatch() {
+          List<Resource> batchResources =
+              resources.subList(index, Math.min(index + LAZY_RESULT_BATCH_SIZE, resources.size()));
+
+          List<TreeNode<Resource>> nodes = new ArrayList<TreeNode<Resource>>(batchResources.size());
+          try {
+            clearSubResourceResults();
+            queryForSubResources(Collections.singleton(new QueryResult(
+                queryResult.getRequest(), queryResult.getPredicate(), queryResult.getUserPredicate(),
+                queryResult.getKeyValueMap(), new QueryResponseImpl(new LinkedHashSet<Resource>(batchResources)))));
+
+            for (Resource resource : batchResources) {
+              // provide a unique name.  The name is never used.
+              TreeNode<Resource> node = new TreeNodeImpl<Resource>(
+                  null, resource, resource.getType() + ":" + ++index);
+
+              addSubResourceResults(node, resource);
+              nodes.add(node);
+            }
+          } catch (RuntimeException e) {
+            throw e;
+          } catch (Exception e) {
+            // the result is already being serialized, so the failure can only abort it
+            throw new RuntimeException("Unable to query the sub-resources: " + e, e);
+          }
+          return nodes.iterator();
+        }
+      };
+    }
+  }
+
   // ----- inner class : QueryResult -----------------------------------------
 
   /**
@@ -52,6 +52,12 @@ public abstract class BaseRenderer implements Renderer {
     return true;
   }
 
+  @Override
+  public boolean supportsLazyResult() {
+    // most renderers restructure the complete result
+    return false;
+  }
+
   /**
    * Obtain a schema instance based on resource type.
    *
@@ -65,4 +65,10 @@ public class DefaultRenderer extends BaseRenderer implements Renderer {
   public Result finalizeResult(Result queryResult) {
     return queryResult;
   }
+
+  @Override
+  public boolean supportsLazyResult() {
+    // the native rendering only adds hrefs, which is done node by node
+    return true;
+  }
 }
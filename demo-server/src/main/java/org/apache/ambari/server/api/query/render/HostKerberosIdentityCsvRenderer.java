@@ -80,4 +80,10 @@ public class HostKerberosIdentityCsvRenderer extends DefaultRenderer {
 
     return queryResult;
   }
+
+  @Override
+  public boolean supportsLazyResult() {
+    // the CSV serializer walks the records more than once
+    return false;
+  }
 }
@@ -90,4 +90,14 @@ public interface Renderer {
    *         false if property provider support is not required
    */
   public boolean requiresPropertyProviderInput();
+
+  /**
+   * Determines whether the sub-resources of a collection may be queried while
+   * the result is serialized rather than before the result is returned.  This
+   * requires that neither {@link #finalizeResult(Result)} nor the associated
+   * post processor need the complete result tree at once.
+   *
+   * @return true if the result may be created lazily
+   */
+  public boolean supportsLazyResult();
 }
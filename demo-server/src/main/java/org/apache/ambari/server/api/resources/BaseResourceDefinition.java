@@ -217,4 +217,9 @@ public abstract class BaseResourceDefinition implements ResourceDefinition {
   public Collection<String> getUpdateDirectives() {
     return new HashSet<String>();
   }
+
+  @Override
+  public Collection<String> getReadDirectives() {
+    return new HashSet<String>();
+  }
 }
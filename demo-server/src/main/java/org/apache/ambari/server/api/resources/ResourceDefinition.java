@@ -112,4 +112,12 @@ public interface ResourceDefinition {
    * Retrieves directives from the URI
    */
   public Collection<String> getUpdateDirectives();
+
+  /**
+   * Obtain the set of read directives for the resource.  A read directive is
+   * information that can be provided in the query string of a GET operation
+   * for the resource.  These directives are not predicates but are put into
+   * the map of request info properties of the read request.
+   */
+  public Collection<String> getReadDirectives();
 }
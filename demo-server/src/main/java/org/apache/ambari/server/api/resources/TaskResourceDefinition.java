@@ -18,6 +18,11 @@
 
 package org.apache.ambari.server.api.resources;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import org.apache.ambari.server.controller.internal.TaskResourceProvider;
 import org.apache.ambari.server.controller.spi.Resource;
 
 
@@ -42,4 +47,11 @@ public class TaskResourceDefinition extends BaseResourceDefinition {
   public String getSingularName() {
     return "task";
   }
+
+  @Override
+  public Collection<String> getReadDirectives() {
+    return new HashSet<String>(Arrays.asList(
+        TaskResourceProvider.OUTPUT_OFFSET_DIRECTIVE,
+        TaskResourceProvider.OUTPUT_LENGTH_DIRECTIVE));
+  }
 }
\ No newline at end of file
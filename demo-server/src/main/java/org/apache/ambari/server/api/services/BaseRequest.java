@@ -319,6 +319,9 @@ public abstract class BaseRequest implements Request {
           case POST:
             ignoredProperties = m_resource.getResourceDefinition().getCreateDirectives();
             break;
+          case GET:
+            ignoredProperties = m_resource.getResourceDefinition().getReadDirectives();
+            break;
           default:
             break;
         }
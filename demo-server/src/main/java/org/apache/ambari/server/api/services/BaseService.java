@@ -27,13 +27,17 @@ import org.apache.ambari.server.api.services.parsers.RequestBodyParser;
 import org.apache.ambari.server.api.services.serializers.CsvSerializer;
 import org.apache.ambari.server.api.services.serializers.JsonSerializer;
 import org.apache.ambari.server.api.services.serializers.ResultSerializer;
+import org.apache.ambari.server.api.services.serializers.StreamingResultSerializer;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.eclipse.jetty.util.ajax.JSON;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -94,6 +98,15 @@ public abstract class BaseService
                                      MediaType mediaType,
                                      ResourceInstance resource) {
 
+        // the tag is computed before the resources are read so that a
+        // concurrent change results in a stale tag rather than a stale body
+        String eTag = ETagGenerator.getETag(requestType, uriInfo, resource);
+        if (ETagGenerator.isNotModified(headers, eTag))
+        {
+            return Response.status(ResultStatus.STATUS.NOT_MODIFIED.getStatus())
+                    .header(HttpHeaders.ETAG, eTag).build();
+        }
+
         Result result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.OK));
         try
         {
@@ -123,16 +136,60 @@ public abstract class BaseService
 
         Response.ResponseBuilder builder = Response
                 .status(result.getStatus().getStatusCode())
-                .entity(serializer.serialize(result));
+                .entity(getEntity(serializer, result));
 
         if (mediaType != null)
         {
             builder.type(mediaType);
         }
 
+        if (eTag != null && result.getStatus().getStatus() == ResultStatus.STATUS.OK)
+        {
+            builder.header(HttpHeaders.ETAG, eTag);
+        }
+
         return builder.build();
     }
 
+    /**
+     * Get the response entity for a result.  Successful results of a streaming
+     * serializer are written directly to the response output stream instead of
+     * being buffered as a String first, which bounds the memory used by large
+     * collection responses and lets the client receive the first bytes early.
+     *
+     * @param serializer the result serializer
+     * @param result     the result
+     * @return the response entity
+     */
+    private Object getEntity(final ResultSerializer serializer,
+                             final Result result) {
+        if (isStreamingEnabled() &&
+                serializer instanceof StreamingResultSerializer &&
+                !result.getStatus().isErrorState())
+        {
+            return new StreamingOutput()
+            {
+                @Override
+                public void write(OutputStream output) throws IOException {
+                    ((StreamingResultSerializer) serializer).serialize(result, output);
+                }
+            };
+        }
+
+        return serializer.serialize(result);
+    }
+
+    /**
+     * Determine whether successful results may be streamed to the client.
+     * Services which read the entity of their own responses must disable
+     * streaming since the entity is then not a String.
+     *
+     * @return true if results may be streamed
+     */
+    protected boolean isStreamingEnabled() {
+        return true;
+    }
+
     /**
      * Obtain the factory from which to create Request instances.
      *
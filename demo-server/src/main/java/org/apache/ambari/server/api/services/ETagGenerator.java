@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.services;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.ambari.server.StaticallyInject;
+import org.apache.ambari.server.api.predicate.QueryLexer;
+import org.apache.ambari.server.api.resources.ResourceInstance;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.security.authorization.AuthorizationHelper;
+import org.apache.ambari.server.state.ResourceVersionTracker;
+
+import com.google.inject.Inject;
+
+/**
+ * The {@link ETagGenerator} computes version based entity tags for the reads
+ * of collection resources whose state is tracked by the
+ * {@link ResourceVersionTracker}. The tag is derived from the change counters
+ * only, so it is known before any resource provider is queried and a matching
+ * {@code If-None-Match} header can be answered without reading the resources.
+ * Only the counters of the resource types the read returns go into the tag,
+ * so changes of unrelated resources do not invalidate it.
+ * <p/>
+ * Reads which may return properties that change without going through the
+ * tracked state objects, such as metrics, alerts or temporal data, do not get
+ * a tag.
+ */
+@StaticallyInject
+public final class ETagGenerator {
+
+  /**
+   * Field fragments of properties whose values are not tracked. The last
+   * heartbeat time of a host changes with every heartbeat and is not counted.
+   */
+  private static final String[] UNTRACKED_FIELDS = { "metrics", "alerts", "ha_state",
+      "last_heartbeat_time", "[", "*" };
+
+  /**
+   * Tracks the changes of the cluster state.
+   */
+  @Inject
+  private static ResourceVersionTracker versionTracker;
+
+  /**
+   * Constructor.
+   */
+  private ETagGenerator() {
+  }
+
+  /**
+   * Gets the entity tag of a read.
+   *
+   * @param requestType the request type
+   * @param uriInfo     uri information
+   * @param resource    resource instance that is being read
+   * @return the quoted entity tag or {@code null} if the result of the read
+   *         can not be tagged
+   */
+  public static String getETag(Request.Type requestType, UriInfo uriInfo,
+                               ResourceInstance resource) {
+    if (versionTracker == null || requestType != Request.Type.GET ||
+        resource == null || !resource.isCollectionResource() || !isTracked(resource)) {
+      return null;
+    }
+
+    Set<Resource.Type> types = new HashSet<Resource.Type>();
+    types.add(resource.getResourceDefinition().getType());
+
+    String fields = uriInfo.getQueryParameters().getFirst(QueryLexer.QUERY_FIELDS);
+    if (fields != null) {
+      for (String field : fields.split(",")) {
+        if (!isTracked(resource, field.trim(), types)) {
+          return null;
+        }
+      }
+    }
+
+    // the tag depends on the user since the result depends on its authorization
+    String key = uriInfo.getRequestUri().toString() + '\u0000' +
+        AuthorizationHelper.getAuthenticatedName();
+
+    return '"' + versionTracker.getVersion(types) + '-' + Integer.toHexString(key.hashCode()) + '"';
+  }
+
+  /**
+   * Determines whether the given entity tag matches one of the tags of the
+   * {@code If-None-Match} request header.
+   *
+   * @param headers http headers
+   * @param eTag    the entity tag of the read; may be null
+   * @return true if the client already has the current representation
+   */
+  public static boolean isNotModified(HttpHeaders headers, String eTag) {
+    if (eTag == null || headers == null) {
+      return false;
+    }
+
+    List<String> values = headers.getRequestHeader("If-None-Match");
+    if (values == null) {
+      return false;
+    }
+
+    for (String value : values) {
+      for (String tag : value.split(",")) {
+        tag = tag.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals(eTag)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether the given field only selects tracked properties of
+   * the resource or of its tracked sub-resources.
+   *
+   * @param resource the resource instance
+   * @param field    the requested field
+   * @param types    the resource types of the read; the types of the
+   *                 sub-resources selected by the field are added
+   * @return true if the value of the field is tracked
+   */
+  private static boolean isTracked(ResourceInstance resource, String field,
+                                   Set<Resource.Type> types) {
+    for (String untracked : UNTRACKED_FIELDS) {
+      if (field.contains(untracked)) {
+        return false;
+      }
+    }
+
+    ResourceInstance current = resource;
+    for (String segment : field.split("/")) {
+      ResourceInstance subResource = current.getSubResources().get(segment);
+      if (subResource == null) {
+        // the remaining segments name a property of the current resource
+        return true;
+      }
+      if (!isTracked(subResource)) {
+        return false;
+      }
+      types.add(subResource.getResourceDefinition().getType());
+      current = subResource;
+    }
+    return true;
+  }
+
+  /**
+   * Determines whether the changes of the given resource are tracked.
+   *
+   * @param resource the resource instance
+   * @return true if the resource type is tracked
+   */
+  private static boolean isTracked(ResourceInstance resource) {
+    return versionTracker.isTracked(resource.getResourceDefinition().getType());
+  }
+}
@@ -46,6 +46,7 @@ public class RequestFactory {
                                ResourceInstance resource) {
     switch (requestType) {
       case GET:
+        applyDirectives(Request.Type.GET, body, uriInfo, resource);
         return new GetRequest(headers, body, uriInfo, resource);
       case PUT:
         return createPutRequest(headers, body, uriInfo, resource);
@@ -118,9 +119,10 @@ public class RequestFactory {
    * <ul>
    * <li><code>POST</code> - {@link org.apache.ambari.server.api.resources.ResourceDefinition#getCreateDirectives()}</li>
    * <li><code>PUT</code> - {@link org.apache.ambari.server.api.resources.ResourceDefinition#getUpdateDirectives()}</li>
+   * <li><code>GET</code> - {@link org.apache.ambari.server.api.resources.ResourceDefinition#getReadDirectives()}</li>
    * </ul>
    * <p/>
-   * Note: Only <code>POST</code> and <code>PUT</code> are supported.
+   * Note: Only <code>POST</code>, <code>PUT</code> and <code>GET</code> are supported.
    * <p/>
    * Iterates through the query parameters adding those that are known to be directives to the map
    * of request info properties from {@link RequestBody#getRequestInfoProperties()}.
@@ -145,6 +147,9 @@ public class RequestFactory {
         case POST:
           directives = resourceDefinition.getCreateDirectives();
           break;
+        case GET:
+          directives = resourceDefinition.getReadDirectives();
+          break;
         default:
           // not yet implemented for other types
           return false;
@@ -54,6 +54,17 @@ public class ResultImpl implements Result {
     m_synchronous = synchronous;
   }
 
+  /**
+   * Constructor.
+   *
+   * @param synchronous true if request was handled synchronously, false otherwise
+   * @param tree        tree structure which holds the results
+   */
+  public ResultImpl(boolean synchronous, TreeNode<Resource> tree) {
+    m_synchronous = synchronous;
+    m_tree = tree;
+  }
+
   /**
    * Constructor.
    *
@@ -22,6 +22,7 @@ import org.apache.ambari.server.api.resources.RequestResourceDefinition;
 import org.apache.ambari.server.api.resources.ResourceDefinition;
 import org.apache.ambari.server.api.resources.ResourceInstance;
 import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.api.util.LazyTreeNode;
 import org.apache.ambari.server.api.util.TreeNode;
 
 import java.io.UnsupportedEncodingException;
@@ -105,8 +106,19 @@ public class ResultPostProcessorImpl implements ResultPostProcessor {
         node.setProperty("href", href);
       }
     }
-    for (TreeNode<Resource> child : node.getChildren()) {
-      processNode(child, href);
+    if (node instanceof LazyTreeNode) {
+      // the children are created while the result is serialized
+      final String parentHref = href;
+      ((LazyTreeNode<Resource>) node).addChildVisitor(new LazyTreeNode.ChildVisitor<Resource>() {
+        @Override
+        public void visit(TreeNode<Resource> child) {
+          processNode(child, parentHref);
+        }
+      });
+    } else {
+      for (TreeNode<Resource> child : node.getChildren()) {
+        processNode(child, href);
+      }
     }
 
     finalizeNode(node);
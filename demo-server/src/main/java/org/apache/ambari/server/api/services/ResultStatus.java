@@ -27,6 +27,7 @@ public class ResultStatus {
    * STATUS enum. Maps a status to a status code.
    */
   public static enum STATUS { OK(200, "OK", false), CREATED(201, "Created", false), ACCEPTED(202, "Accepted", false),
+    NOT_MODIFIED(304, "Not Modified", false),
     CONFLICT(409, "Resource Conflict", true), NOT_FOUND(404, "Not Found", true), BAD_REQUEST(400, "Bad Request", true),
     UNAUTHORIZED(401, "Unauthorized", true), FORBIDDEN(403, "Forbidden", true),
     SERVER_ERROR(500, "Internal Server Error", true);
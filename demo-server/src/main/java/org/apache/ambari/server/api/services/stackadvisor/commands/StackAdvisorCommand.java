@@ -119,6 +119,15 @@ public abstract class StackAdvisorCommand<T extends StackAdvisorResponse> extend
 
   protected abstract StackAdvisorCommandType getCommandType();
 
+  /**
+   * The hosts and services information is read back from the responses as a
+   * String, so it must not be streamed.
+   */
+  @Override
+  protected boolean isStreamingEnabled() {
+    return false;
+  }
+
   /**
    * Simple holder for 'hosts.json' and 'services.json' data.
    */
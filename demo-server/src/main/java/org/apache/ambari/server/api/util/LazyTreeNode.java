@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.api.util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A tree node whose children are not held by the node but created by a
+ * {@link ChildSource} while they are iterated. Once a child has been handed
+ * out the node no longer references it, so the children can be processed one
+ * after the other without the whole tree being in memory at once.
+ * <p/>
+ * Processing which would otherwise walk the children as soon as the tree is
+ * built registers a {@link ChildVisitor} instead, which is called for every
+ * child before it is handed out. Iterating the children more than once asks
+ * the source for them again.
+ * <p/>
+ * Children added through {@link #addChild} are not returned by
+ * {@link #getChildren()} once a source is set.
+ */
+public class LazyTreeNode<T> extends TreeNodeImpl<T> {
+
+  /**
+   * Creates the children of a lazy node.
+   */
+  public interface ChildSource<T> {
+    /**
+     * @return the number of children
+     */
+    int size();
+
+    /**
+     * @return an iterator which creates the children in order
+     */
+    Iterator<TreeNode<T>> iterator();
+  }
+
+  /**
+   * Processes the children of a lazy node as they are created.
+   */
+  public interface ChildVisitor<T> {
+    /**
+     * Process a child.
+     *
+     * @param child  the child; its parent is already set
+     */
+    void visit(TreeNode<T> child);
+  }
+
+  /**
+   * source of the children
+   */
+  private ChildSource<T> m_source;
+
+  /**
+   * visitors called for every child
+   */
+  private final List<ChildVisitor<T>> m_visitors = new ArrayList<ChildVisitor<T>>();
+
+  /**
+   * Constructor.
+   *
+   * @param parent  parent node
+   * @param object  object associated with the node
+   * @param name    node name
+   */
+  public LazyTreeNode(TreeNode<T> parent, T object, String name) {
+    super(parent, object, name);
+  }
+
+  /**
+   * Set the source of the children.
+   *
+   * @param source  the source of the children
+   */
+  public void setChildSource(ChildSource<T> source) {
+    m_source = source;
+  }
+
+  /**
+   * Register a visitor which is called for every child as it is created.
+   *
+   * @param visitor  the visitor
+   */
+  public void addChildVisitor(ChildVisitor<T> visitor) {
+    m_visitors.add(visitor);
+  }
+
+  @Override
+  public Collection<TreeNode<T>> getChildren() {
+    if (m_source == null) {
+      return super.getChildren();
+    }
+
+    return new AbstractCollection<TreeNode<T>>() {
+      @Override
+      public int size() {
+        return m_source.size();
+      }
+
+      @Override
+      public Iterator<TreeNode<T>> iterator() {
+        final Iterator<TreeNode<T>> iterator = m_source.iterator();
+
+        return new Iterator<TreeNode<T>>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public TreeNode<T> next() {
+            TreeNode<T> child = iterator.next();
+            child.setParent(LazyTreeNode.this);
+            for (ChildVisitor<T> visitor : m_visitors) {
+              visitor.visit(child);
+            }
+            return child;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException("The children of a lazy node can not be removed");
+          }
+        };
+      }
+    };
+  }
+}
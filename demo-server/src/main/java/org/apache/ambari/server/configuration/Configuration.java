@@ -404,6 +404,85 @@ public class Configuration
     private static final String AGENT_THREADPOOL_SIZE_KEY = "agent.threadpool.size.max";
     private static final int AGENT_THREADPOOL_SIZE_DEFAULT = 25;
 
+    /**
+     * Heartbeat processing pipeline: the number of worker threads, the
+     * maximum number of heartbeats processed in a single unit of work and the
+     * number of heartbeats each worker may have queued before the agent thread
+     * processes the heartbeat itself.
+     */
+    private static final String AGENT_HEARTBEAT_PROCESSING_THREADS_KEY = "agent.heartbeat.processing.threads";
+    private static final int AGENT_HEARTBEAT_PROCESSING_THREADS_DEFAULT = 4;
+    private static final String AGENT_HEARTBEAT_PROCESSING_BATCH_SIZE_KEY = "agent.heartbeat.processing.batch.size";
+    private static final int AGENT_HEARTBEAT_PROCESSING_BATCH_SIZE_DEFAULT = 50;
+    private static final String AGENT_HEARTBEAT_PROCESSING_QUEUE_SIZE_KEY = "agent.heartbeat.processing.queue.size";
+    private static final int AGENT_HEARTBEAT_PROCESSING_QUEUE_SIZE_DEFAULT = 1000;
+    private static final String STAGE_INDEX_RECONCILE_INTERVAL_KEY = "server.stages.index.reconcile.interval";
+    private static final long STAGE_INDEX_RECONCILE_INTERVAL_DEFAULT = 60000L;
+    private static final String ALERTS_CURRENT_FLUSH_INTERVAL_KEY = "alerts.current.flush.interval";
+    private static final long ALERTS_CURRENT_FLUSH_INTERVAL_DEFAULT = 10000L;
+    private static final String BLOB_STORE_CLEANUP_INTERVAL_KEY = "server.blob.store.cleanup.interval";
+    private static final long BLOB_STORE_CLEANUP_INTERVAL_DEFAULT = 3600000L;
+
+    /**
+     * Ambari event bus: the number of threads delivering events and the number
+     * of events queued for a thread above which a backlog warning is logged.
+     */
+    private static final String EVENT_PUBLISHER_THREADS_KEY = "server.events.publisher.threads";
+    private static final int EVENT_PUBLISHER_THREADS_DEFAULT = 4;
+    private static final String EVENT_PUBLISHER_QUEUE_SIZE_KEY = "server.events.publisher.queue.size";
+    private static final int EVENT_PUBLISHER_QUEUE_SIZE_DEFAULT = 1000;
+
+    /**
+     * REST query result cache: the time a result is reused by identical
+     * queries (0 disables the cache) and the maximum number of cached results.
+     */
+    private static final String QUERY_CACHE_TTL_KEY = "server.query.cache.ttl";
+    private static final long QUERY_CACHE_TTL_DEFAULT = 3000L;
+    private static final String QUERY_CACHE_SIZE_KEY = "server.query.cache.size";
+    private static final int QUERY_CACHE_SIZE_DEFAULT = 500;
+
+    /**
+     * Kerberos identity processing: the number of identities processed
+     * concurrently, each with its own KDC session, and the maximum number of
+     * identities processed per second against a single KDC (0 is unlimited).
+     */
+    private static final String KERBEROS_OPERATION_THREADS_KEY = "kerberos.operation.threads";
+    private static final int KERBEROS_OPERATION_THREADS_DEFAULT = 4;
+    private static final String KERBEROS_OPERATION_RATE_KEY = "kerberos.operation.rate";
+    private static final double KERBEROS_OPERATION_RATE_DEFAULT = 0;
+
+    /**
+     * MIT KDC: whether each operation handler keeps a single interactive kadmin
+     * process open, and the time in milliseconds to wait for its responses.
+     */
+    private static final String KERBEROS_KADMIN_SESSION_ENABLED_KEY = "kerberos.kadmin.session.enabled";
+    private static final boolean KERBEROS_KADMIN_SESSION_ENABLED_DEFAULT = false;
+    private static final String KERBEROS_KADMIN_SESSION_TIMEOUT_KEY = "kerberos.kadmin.session.timeout";
+    private static final long KERBEROS_KADMIN_SESSION_TIMEOUT_DEFAULT = 30000L;
+
+    /**
+     * Server action executor: the number of server actions of different
+     * requests executed concurrently.
+     */
+    private static final String SERVER_ACTION_EXECUTOR_THREADS_KEY = "server.action.executor.threads";
+    private static final int SERVER_ACTION_EXECUTOR_THREADS_DEFAULT = 4;
+
+    /**
+     * LDAP sync: the number of principals or memberships read and written per
+     * database round trip. Kept below the Oracle IN list limit.
+     */
+    private static final String LDAP_SYNC_BATCH_SIZE_KEY = "authentication.ldap.sync.batchSize";
+    private static final int LDAP_SYNC_BATCH_SIZE_DEFAULT = 500;
+
+    /**
+     * Authorization cache: how long the permissions of a principal are kept
+     * before they are read again, and how many principals are kept.
+     */
+    private static final String AUTHORIZATION_CACHE_TTL_KEY = "server.authorization.cache.ttl";
+    private static final long AUTHORIZATION_CACHE_TTL_DEFAULT = 60000L;
+    private static final String AUTHORIZATION_CACHE_SIZE_KEY = "server.authorization.cache.size";
+    private static final int AUTHORIZATION_CACHE_SIZE_DEFAULT = 1000;
+
     private static final String VIEW_EXTRACTION_THREADPOOL_MAX_SIZE_KEY = "view.extraction.threadpool.size.max";
     private static final int VIEW_EXTRACTION_THREADPOOL_MAX_SIZE_DEFAULT = 20;
     private static final String VIEW_EXTRACTION_THREADPOOL_CORE_SIZE_KEY = "view.extraction.threadpool.size.core";
@@ -1934,6 +2013,103 @@ public class Configuration
                         .valueOf(AGENT_THREADPOOL_SIZE_DEFAULT)));
     }
 
+    /**
+     * @return the number of threads processing heartbeat reports, default 4
+     */
+    public int getAgentHeartbeatProcessingThreads() {
+        return Integer.parseInt(properties
+                .getProperty(AGENT_HEARTBEAT_PROCESSING_THREADS_KEY, String
+                        .valueOf(AGENT_HEARTBEAT_PROCESSING_THREADS_DEFAULT)));
+    }
+
+    /**
+     * @return the maximum number of heartbeats processed in one unit of work,
+     * default 50
+     */
+    public int getAgentHeartbeatProcessingBatchSize() {
+        return Integer.parseInt(properties
+                .getProperty(AGENT_HEARTBEAT_PROCESSING_BATCH_SIZE_KEY, String
+                        .valueOf(AGENT_HEARTBEAT_PROCESSING_BATCH_SIZE_DEFAULT)));
+    }
+
+    /**
+     * @return the number of heartbeats that may wait for processing per
+     * thread, default 1000
+     */
+    public int getAgentHeartbeatProcessingQueueSize() {
+        return Integer.parseInt(properties
+                .getProperty(AGENT_HEARTBEAT_PROCESSING_QUEUE_SIZE_KEY, String
+                        .valueOf(AGENT_HEARTBEAT_PROCESSING_QUEUE_SIZE_DEFAULT)));
+    }
+
+    /**
+     * @return the interval in milliseconds after which the in-memory index of
+     * in progress stages is rebuilt from the database, default 60000
+     */
+    public long getStageIndexReconcileInterval() {
+        return Long.parseLong(properties
+                .getProperty(STAGE_INDEX_RECONCILE_INTERVAL_KEY, String
+                        .valueOf(STAGE_INDEX_RECONCILE_INTERVAL_DEFAULT)));
+    }
+
+    /**
+     * @return the interval in milliseconds at which the latest timestamps of
+     * unchanged current alerts are written to the database, default 10000
+     */
+    public long getAlertsCurrentFlushInterval() {
+        return Long.parseLong(properties
+                .getProperty(ALERTS_CURRENT_FLUSH_INTERVAL_KEY, String
+                        .valueOf(ALERTS_CURRENT_FLUSH_INTERVAL_DEFAULT)));
+    }
+
+    /**
+     * @return the interval in milliseconds at which blobs no longer referenced
+     * by stages or execution commands are looked for, default 3600000
+     */
+    public long getBlobStoreCleanupInterval() {
+        return Long.parseLong(properties
+                .getProperty(BLOB_STORE_CLEANUP_INTERVAL_KEY, String
+                        .valueOf(BLOB_STORE_CLEANUP_INTERVAL_DEFAULT)));
+    }
+
+    /**
+     * @return the number of threads delivering Ambari events, default 4
+     */
+    public int getEventPublisherThreads() {
+        return Integer.parseInt(properties
+                .getProperty(EVENT_PUBLISHER_THREADS_KEY, String
+                        .valueOf(EVENT_PUBLISHER_THREADS_DEFAULT)));
+    }
+
+    /**
+     * @return the number of Ambari events queued for a delivery thread above
+     * which a backlog warning is logged, default 1000
+     */
+    public int getEventPublisherQueueSize() {
+        return Integer.parseInt(properties
+                .getProperty(EVENT_PUBLISHER_QUEUE_SIZE_KEY, String
+                        .valueOf(EVENT_PUBLISHER_QUEUE_SIZE_DEFAULT)));
+    }
+
+    /**
+     * @return the time in milliseconds a query result is reused by identical
+     * queries, default 3000; 0 disables the query result cache
+     */
+    public long getQueryCacheTTL() {
+        return Long.parseLong(properties
+                .getProperty(QUERY_CACHE_TTL_KEY, String
+                        .valueOf(QUERY_CACHE_TTL_DEFAULT)));
+    }
+
+    /**
+     * @return the maximum number of cached query results, default 500
+     */
+    public int getQueryCacheSize() {
+        return Integer.parseInt(properties
+                .getProperty(QUERY_CACHE_SIZE_KEY, String
+                        .valueOf(QUERY_CACHE_SIZE_DEFAULT)));
+    }
+
     /**
      * Get the view extraction thread pool max size.
      *
@@ -2082,6 +2258,86 @@ public class Configuration
         return new File(fileName);
     }
 
+    /**
+     * @return the number of Kerberos identities processed concurrently,
+     * default 4
+     */
+    public int getKerberosOperationThreads() {
+        return Integer.parseInt(properties
+                .getProperty(KERBEROS_OPERATION_THREADS_KEY, String
+                        .valueOf(KERBEROS_OPERATION_THREADS_DEFAULT)));
+    }
+
+    /**
+     * @return the maximum number of Kerberos identities processed per second
+     * against a single KDC, default 0 (unlimited)
+     */
+    public double getKerberosOperationRate() {
+        return Double.parseDouble(properties
+                .getProperty(KERBEROS_OPERATION_RATE_KEY, String
+                        .valueOf(KERBEROS_OPERATION_RATE_DEFAULT)));
+    }
+
+    /**
+     * @return true if MIT KDC operations are sent to a long-lived kadmin
+     * session instead of a new kadmin process each, default false
+     */
+    public boolean isKerberosKadminSessionEnabled() {
+        return Boolean.parseBoolean(properties
+                .getProperty(KERBEROS_KADMIN_SESSION_ENABLED_KEY, String
+                        .valueOf(KERBEROS_KADMIN_SESSION_ENABLED_DEFAULT)));
+    }
+
+    /**
+     * @return the time in milliseconds to wait for the response of a kadmin
+     * session, default 30000
+     */
+    public long getKerberosKadminSessionTimeout() {
+        return Long.parseLong(properties
+                .getProperty(KERBEROS_KADMIN_SESSION_TIMEOUT_KEY, String
+                        .valueOf(KERBEROS_KADMIN_SESSION_TIMEOUT_DEFAULT)));
+    }
+
+    /**
+     * @return the number of server actions of different requests executed
+     * concurrently, default 4
+     */
+    public int getServerActionExecutorThreads() {
+        return Integer.parseInt(properties
+                .getProperty(SERVER_ACTION_EXECUTOR_THREADS_KEY, String
+                        .valueOf(SERVER_ACTION_EXECUTOR_THREADS_DEFAULT)));
+    }
+
+    /**
+     * @return the number of principals or memberships written per chunk during
+     * LDAP sync, default 500
+     */
+    public int getLdapSyncBatchSize() {
+        return Integer.parseInt(properties
+                .getProperty(LDAP_SYNC_BATCH_SIZE_KEY, String
+                        .valueOf(LDAP_SYNC_BATCH_SIZE_DEFAULT)));
+    }
+
+    /**
+     * @return the time in milliseconds the permissions of a principal are
+     * cached, default 60000; 0 disables the cache
+     */
+    public long getAuthorizationCacheTTL() {
+        return Long.parseLong(properties
+                .getProperty(AUTHORIZATION_CACHE_TTL_KEY, String
+                        .valueOf(AUTHORIZATION_CACHE_TTL_DEFAULT)));
+    }
+
+    /**
+     * @return the maximum number of principals whose permissions are cached,
+     * default 1000
+     */
+    public int getAuthorizationCacheSize() {
+        return Integer.parseInt(properties
+                .getProperty(AUTHORIZATION_CACHE_SIZE_KEY, String
+                        .valueOf(AUTHORIZATION_CACHE_SIZE_DEFAULT)));
+    }
+
     /**
      * Gets the type of database by examining the {@link #getDatabaseUrl()} JDBC
      * URL.
@@ -732,6 +732,22 @@ public interface AmbariManagementController
             LdapSyncRequest userRequest,
             LdapSyncRequest groupRequest) throws AmbariException;
 
+    /**
+     * Synchronizes local users and groups with given data, collecting the
+     * changes into the given batch so that its progress listener is notified
+     * while the sync runs.
+     *
+     * @param userRequest  users to be synchronized
+     * @param groupRequest groups to be synchronized
+     * @param batchInfo    the batch to collect the changes into
+     * @return the results of the LDAP synchronization
+     * @throws AmbariException if synchronization data was invalid
+     */
+    public LdapBatchDto synchronizeLdapUsersAndGroups(
+            LdapSyncRequest userRequest,
+            LdapSyncRequest groupRequest,
+            LdapBatchDto batchInfo) throws AmbariException;
+
     /**
      * Checks if LDAP sync process is running.
      *
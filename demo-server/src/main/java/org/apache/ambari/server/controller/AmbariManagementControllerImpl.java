@@ -163,6 +163,8 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     private ClusterDAO clusterDAO;
     @Inject
     private CredentialStoreService credentialStoreService;
+    @Inject
+    private MutationLockManager mutationLockManager;
     
     private MaintenanceStateHelper maintenanceStateHelper;
     
@@ -191,7 +193,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     final private String serverDB;
     final private String mysqljdbcUrl;
     
-    private boolean ldapSyncInProgress;
+    private volatile boolean ldapSyncInProgress;
     
     private Cache<ClusterRequest, ClusterResponse> clusterUpdateCache = CacheBuilder
             .newBuilder().expireAfterWrite(5, TimeUnit.MINUTES).build();
@@ -289,6 +291,32 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
         return rco;
     }
     
+    /**
+     * Resolves the ids of the named clusters for {@link MutationLockManager}.
+     * Clusters which do not exist are skipped; the entry point reports them
+     * while validating its requests.
+     */
+    private Set<Long> getClusterIds(Collection<String> clusterNames) {
+        Set<Long> clusterIds = new HashSet<Long>();
+        for (String clusterName : clusterNames)
+        {
+            if (StringUtils.isEmpty(clusterName))
+            {
+                continue;
+            }
+            
+            try
+            {
+                clusterIds.add(clusters.getCluster(clusterName).getClusterId());
+            }
+            catch (AmbariException e)
+            {
+                LOG.debug("Not locking unknown cluster {}", clusterName);
+            }
+        }
+        return clusterIds;
+    }
+    
     @Override
     public void createCluster(
             ClusterRequest request) throws AmbariException {
@@ -371,7 +399,27 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized void createHostComponents(
+    public void createHostComponents(
+            Set<ServiceComponentHostRequest> requests) throws AmbariException {
+        Set<String> clusterNames = new HashSet<String>();
+        for (ServiceComponentHostRequest request : requests)
+        {
+            clusterNames.add(request.getClusterName());
+        }
+        
+        MutationLockManager.Locks locks = mutationLockManager
+                .lockClusters("createHostComponents", getClusterIds(clusterNames));
+        try
+        {
+            doCreateHostComponents(requests);
+        }
+        finally
+        {
+            locks.release();
+        }
+    }
+    
+    private void doCreateHostComponents(
             Set<ServiceComponentHostRequest> requests) throws AmbariException {
         
         if (requests.isEmpty())
@@ -736,7 +784,22 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized ConfigurationResponse createConfiguration(
+    public ConfigurationResponse createConfiguration(
+            ConfigurationRequest request) throws AmbariException {
+        MutationLockManager.Locks locks = mutationLockManager.lockClusters(
+                "createConfiguration",
+                getClusterIds(Collections.singleton(request.getClusterName())));
+        try
+        {
+            return doCreateConfiguration(request);
+        }
+        finally
+        {
+            locks.release();
+        }
+    }
+    
+    private ConfigurationResponse doCreateConfiguration(
             ConfigurationRequest request) throws AmbariException {
         if (null == request.getClusterName() ||
                 request.getClusterName().isEmpty() ||
@@ -943,8 +1006,22 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
+    public void updateMembers(
+            Set<MemberRequest> requests) throws AmbariException {
+        MutationLockManager.Locks locks = mutationLockManager.lockDomains(
+                "updateMembers", MutationLockManager.Domain.GROUPS);
+        try
+        {
+            doUpdateMembers(requests);
+        }
+        finally
+        {
+            locks.release();
+        }
+    }
+    
     @SuppressWarnings("unchecked")
-    public synchronized void updateMembers(
+    private void doUpdateMembers(
             Set<MemberRequest> requests) throws AmbariException {
         // validate
         String groupName = null;
@@ -1452,7 +1529,36 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized RequestStatusResponse updateClusters(
+    public RequestStatusResponse updateClusters(
+            Set<ClusterRequest> requests,
+            Map<String, String> requestProperties) throws AmbariException {
+        // lock by id since a request may rename the cluster
+        Set<Long> clusterIds = new HashSet<Long>();
+        for (ClusterRequest request : requests)
+        {
+            if (request.getClusterId() == null)
+            {
+                clusterIds.addAll(getClusterIds(Collections.singleton(request.getClusterName())));
+            }
+            else
+            {
+                clusterIds.add(request.getClusterId());
+            }
+        }
+        
+        MutationLockManager.Locks locks = mutationLockManager
+                .lockClusters("updateClusters", clusterIds);
+        try
+        {
+            return doUpdateClusters(requests, requestProperties);
+        }
+        finally
+        {
+            locks.release();
+        }
+    }
+    
+    private RequestStatusResponse doUpdateClusters(
             Set<ClusterRequest> requests,
             Map<String, String> requestProperties) throws AmbariException {
         
@@ -1546,7 +1652,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
         return response;
     }
     
-    private synchronized RequestStatusResponse updateCluster(
+    private RequestStatusResponse updateCluster(
             ClusterRequest request,
             Map<String, String> requestProperties) throws AmbariException {
         
@@ -3407,7 +3513,21 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
      *                                  the requested properties
      */
     @Override
-    public synchronized void updateUsers(
+    public void updateUsers(
+            Set<UserRequest> requests) throws AmbariException {
+        MutationLockManager.Locks locks = mutationLockManager.lockDomains(
+                "updateUsers", MutationLockManager.Domain.USERS);
+        try
+        {
+            doUpdateUsers(requests);
+        }
+        finally
+        {
+            locks.release();
+        }
+    }
+    
+    private void doUpdateUsers(
             Set<UserRequest> requests) throws AmbariException {
         for (UserRequest request : requests)
         {
@@ -3451,7 +3571,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized void deleteCluster(
+    public void deleteCluster(
             ClusterRequest request) throws AmbariException {
         
         if (request.getClusterName() == null ||
@@ -3469,7 +3589,17 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
         else
         {
             // deleting whole cluster
-            clusters.deleteCluster(request.getClusterName());
+            MutationLockManager.Locks locks = mutationLockManager.lockClusters(
+                    "deleteCluster",
+                    getClusterIds(Collections.singleton(request.getClusterName())));
+            try
+            {
+                clusters.deleteCluster(request.getClusterName());
+            }
+            finally
+            {
+                locks.release();
+            }
         }
     }
     
@@ -4343,8 +4473,10 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized RequestStatusResponse updateStacks() throws AmbariException {
+    public RequestStatusResponse updateStacks() throws AmbariException {
         
+        MutationLockManager.Locks locks = mutationLockManager
+                .lockStacks("updateStacks");
         try
         {
             ambariMetaInfo.init();
@@ -4357,6 +4489,10 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
         {
             throw new AmbariException("Ambari Meta Information can't be read from the stack root directory");
         }
+        finally
+        {
+            locks.release();
+        }
         
         return null;
     }
@@ -5204,15 +5340,25 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
     }
     
     @Override
-    public synchronized LdapBatchDto synchronizeLdapUsersAndGroups(
+    public LdapBatchDto synchronizeLdapUsersAndGroups(
             LdapSyncRequest userRequest,
             LdapSyncRequest groupRequest) throws AmbariException {
+        return synchronizeLdapUsersAndGroups(userRequest, groupRequest,
+                new LdapBatchDto());
+    }
+    
+    @Override
+    public LdapBatchDto synchronizeLdapUsersAndGroups(
+            LdapSyncRequest userRequest,
+            LdapSyncRequest groupRequest,
+            LdapBatchDto batchInfo) throws AmbariException {
+        MutationLockManager.Locks locks = mutationLockManager.lockDomains(
+                "synchronizeLdapUsersAndGroups",
+                MutationLockManager.Domain.USERS, MutationLockManager.Domain.GROUPS);
         ldapSyncInProgress = true;
         try
         {
             
-            final LdapBatchDto batchInfo = new LdapBatchDto();
-            
             if (userRequest != null)
             {
                 switch (userRequest.getType())
@@ -5257,6 +5403,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
         finally
         {
             ldapSyncInProgress = false;
+            locks.release();
         }
     }
     
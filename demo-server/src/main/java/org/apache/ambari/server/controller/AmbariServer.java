@@ -676,6 +676,12 @@ public class AmbariServer {
     }
 
     public void stop() throws Exception {
+        try {
+            injector.getInstance(HeartBeatHandler.class).stop();
+        } catch (Exception e) {
+            LOG.error("Error stopping the heartbeat handler", e);
+        }
+
         try {
             server.stop();
         } catch (Exception e) {
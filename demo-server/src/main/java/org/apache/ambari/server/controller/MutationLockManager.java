@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.apache.ambari.server.utils.TimingStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Singleton;
+
+/**
+ * The {@link MutationLockManager} serializes the mutating entry points of
+ * {@link AmbariManagementControllerImpl}. Instead of a single monitor on the
+ * controller, mutations are serialized per cluster and per principal domain so
+ * that, for example, enabling Kerberos on one cluster does not block a
+ * configuration change on another cluster or a user update.
+ * <p/>
+ * Cluster locks are fair, which keeps mutations of the same cluster in arrival
+ * order. Stack updates affect every cluster and therefore exclude all cluster
+ * mutations. Locks are always acquired in the order stacks, clusters (by id),
+ * principal domains (by ordinal), which prevents deadlocks when an entry point
+ * needs more than one of them.
+ */
+@Singleton
+public class MutationLockManager {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(MutationLockManager.class);
+
+  /**
+   * Principal domains whose mutations are serialized independently of the
+   * clusters.
+   */
+  public enum Domain {
+    /**
+     * Users and their privileges.
+     */
+    USERS,
+
+    /**
+     * Groups and their members.
+     */
+    GROUPS
+  }
+
+  /**
+   * Held for reading by cluster mutations and for writing by stack updates.
+   */
+  private final ReadWriteLock m_stackLock = new ReentrantReadWriteLock();
+
+  /**
+   * One fair lock per cluster id.
+   */
+  private final ConcurrentMap<Long, ReentrantLock> m_clusterLocks = new ConcurrentHashMap<Long, ReentrantLock>();
+
+  /**
+   * One fair lock per principal domain.
+   */
+  private final Map<Domain, ReentrantLock> m_domainLocks = new EnumMap<Domain, ReentrantLock>(Domain.class);
+
+  /**
+   * Lock wait time per entry point.
+   */
+  private final ConcurrentMap<String, TimingStatistics> m_waitStatistics = new ConcurrentHashMap<String, TimingStatistics>();
+
+  /**
+   * Limits how often the lock wait statistics are logged.
+   */
+  private final StatisticsLogThrottle m_statisticsLog = new StatisticsLogThrottle();
+
+  /**
+   * Constructor.
+   */
+  public MutationLockManager() {
+    for (Domain domain : Domain.values()) {
+      m_domainLocks.put(domain, new ReentrantLock(true));
+    }
+  }
+
+  /**
+   * Acquires the locks of the given clusters.
+   *
+   * @param entryPoint
+   *          the name of the calling entry point, used for the wait metrics.
+   * @param clusterIds
+   *          the ids of the clusters being mutated; clusters which do not
+   *          exist should simply be omitted.
+   * @return the acquired locks, which must be released in a {@code finally}
+   *         block.
+   */
+  public Locks lockClusters(String entryPoint, Collection<Long> clusterIds) {
+    List<Lock> locks = new ArrayList<Lock>(clusterIds.size() + 1);
+    locks.add(m_stackLock.readLock());
+
+    for (Long clusterId : new TreeSet<Long>(clusterIds)) {
+      locks.add(getClusterLock(clusterId));
+    }
+
+    return acquire(entryPoint, locks);
+  }
+
+  /**
+   * Acquires the lock of a single cluster.
+   *
+   * @param entryPoint
+   *          the name of the calling entry point, used for the wait metrics.
+   * @param clusterId
+   *          the id of the cluster being mutated.
+   * @return the acquired locks, which must be released in a {@code finally}
+   *         block.
+   */
+  public Locks lockCluster(String entryPoint, long clusterId) {
+    return lockClusters(entryPoint, Collections.singleton(clusterId));
+  }
+
+  /**
+   * Acquires the locks of the given principal domains.
+   *
+   * @param entryPoint
+   *          the name of the calling entry point, used for the wait metrics.
+   * @param domains
+   *          the domains being mutated.
+   * @return the acquired locks, which must be released in a {@code finally}
+   *         block.
+   */
+  public Locks lockDomains(String entryPoint, Domain... domains) {
+    List<Lock> locks = new ArrayList<Lock>(domains.length);
+    for (Domain domain : new TreeSet<Domain>(Arrays.asList(domains))) {
+      locks.add(m_domainLocks.get(domain));
+    }
+
+    return acquire(entryPoint, locks);
+  }
+
+  /**
+   * Acquires the stack lock exclusively, waiting for all cluster mutations to
+   * finish and preventing new ones from starting.
+   *
+   * @param entryPoint
+   *          the name of the calling entry point, used for the wait metrics.
+   * @return the acquired locks, which must be released in a {@code finally}
+   *         block.
+   */
+  public Locks lockStacks(String entryPoint) {
+    return acquire(entryPoint, Collections.singletonList(m_stackLock.writeLock()));
+  }
+
+  private ReentrantLock getClusterLock(Long clusterId) {
+    ReentrantLock lock = m_clusterLocks.get(clusterId);
+    if (null == lock) {
+      ReentrantLock newLock = new ReentrantLock(true);
+      lock = m_clusterLocks.putIfAbsent(clusterId, newLock);
+      if (null == lock) {
+        lock = newLock;
+      }
+    }
+
+    return lock;
+  }
+
+  private Locks acquire(String entryPoint, List<Lock> locks) {
+    long start = System.nanoTime();
+
+    List<Lock> acquired = new ArrayList<Lock>(locks.size());
+    try {
+      for (Lock lock : locks) {
+        lock.lock();
+        acquired.add(lock);
+      }
+    } catch (RuntimeException e) {
+      new Locks(acquired).release();
+      throw e;
+    }
+
+    getWaitStatistics(entryPoint).recordSince(start);
+    if (m_statisticsLog.isDue()) {
+      LOG.info("Mutation lock wait statistics: {}", m_waitStatistics.values());
+    }
+
+    return new Locks(acquired);
+  }
+
+  private TimingStatistics getWaitStatistics(String entryPoint) {
+    TimingStatistics statistics = m_waitStatistics.get(entryPoint);
+    if (null == statistics) {
+      TimingStatistics newStatistics = new TimingStatistics(entryPoint);
+      statistics = m_waitStatistics.putIfAbsent(entryPoint, newStatistics);
+      if (null == statistics) {
+        statistics = newStatistics;
+      }
+    }
+
+    return statistics;
+  }
+
+  /**
+   * A set of acquired locks.
+   */
+  public static final class Locks {
+    private final List<Lock> m_locks;
+
+    private Locks(List<Lock> locks) {
+      m_locks = locks;
+    }
+
+    /**
+     * Releases the locks in the reverse order of acquisition.
+     */
+    public void release() {
+      for (int i = m_locks.size() - 1; i >= 0; i--) {
+        m_locks.get(i).unlock();
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.ambari.server.controller;
 
+import org.apache.ambari.server.actionmanager.CommandOutputType;
 import org.apache.ambari.server.actionmanager.HostRoleCommand;
 
 public class TaskStatusResponse extends ShortTaskStatus {
@@ -31,6 +32,12 @@ public class TaskStatusResponse extends ShortTaskStatus {
   private Long endTime;
   private short attemptCount;
 
+  /**
+   * The command the output is read from when it was not set explicitly, so
+   * that it is only loaded when requested.
+   */
+  private HostRoleCommand hostRoleCommand;
+
   public TaskStatusResponse() {
   }
 
@@ -52,11 +59,9 @@ public class TaskStatusResponse extends ShortTaskStatus {
     super(hostRoleCommand);
     this.requestId = hostRoleCommand.getRequestId();
     this.exitCode = hostRoleCommand.getExitCode();
-    this.stderr = hostRoleCommand.getStderr();
-    this.stdout = hostRoleCommand.getStdout();
     this.startTime = hostRoleCommand.getStartTime();
     this.attemptCount = hostRoleCommand.getAttemptCount();
-    this.structuredOut = hostRoleCommand.getStructuredOut();
+    this.hostRoleCommand = hostRoleCommand;
     this.endTime = hostRoleCommand.getEndTime();
     this.commandDetail = hostRoleCommand.getCommandDetail();
   }
@@ -78,7 +83,7 @@ public class TaskStatusResponse extends ShortTaskStatus {
   }
 
   public String getStderr() {
-    return stderr;
+    return stderr != null ? stderr : getOutput(CommandOutputType.STDERR, 0L, -1);
   }
 
   public void setStderr(String stderr) {
@@ -86,7 +91,7 @@ public class TaskStatusResponse extends ShortTaskStatus {
   }
 
   public String getStdout() {
-    return stdout;
+    return stdout != null ? stdout : getOutput(CommandOutputType.STDOUT, 0L, -1);
   }
 
   public void setStdout(String stdout) {
@@ -110,7 +115,31 @@ public class TaskStatusResponse extends ShortTaskStatus {
   }
 
   public String getStructuredOut() {
-    return structuredOut;
+    return structuredOut != null ? structuredOut : getOutput(CommandOutputType.STRUCTURED_OUT, 0L, -1);
+  }
+
+  /**
+   * Gets a range of the output of the task.
+   *
+   * @param outputType the type of output
+   * @param offset the offset of the first byte to read
+   * @param length the maximum number of bytes to read, or a negative value to
+   *               read to the end of the output
+   * @return the output in the range, or {@code null} if unknown
+   */
+  public String getOutput(CommandOutputType outputType, long offset, int length) {
+    if (hostRoleCommand != null) {
+      return hostRoleCommand.getOutput(outputType, offset, length);
+    }
+
+    switch (outputType) {
+      case STDOUT:
+        return stdout;
+      case STDERR:
+        return stderr;
+      default:
+        return structuredOut;
+    }
   }
 
   public void setStructuredOut(String structuredOut) {
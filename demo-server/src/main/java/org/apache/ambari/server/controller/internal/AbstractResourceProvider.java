@@ -41,6 +41,9 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Abstract resource provider implementation that maps to an Ambari management controller.
  */
@@ -56,6 +59,13 @@ public abstract class AbstractResourceProvider extends BaseProvider implements R
    */
   private final Set<ResourceProviderObserver> observers = new HashSet<ResourceProviderObserver>();
 
+  /**
+   * Simplified predicates keyed by the identity of the given predicate.  Compiled query
+   * predicates are cached and immutable, so polling requests simplify them only once.
+   */
+  private final Cache<Predicate, List<Predicate>> simplifiedPredicates =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(1000).build();
+
   protected final static Logger LOG = LoggerFactory.getLogger(AbstractResourceProvider.class);
   protected final static String PROPERTIES_ATTRIBUTES_REGEX = "properties_attributes/[a-zA-Z][a-zA-Z._-]*$";
   public static Pattern propertiesAttributesPattern = Pattern.compile(".*/" + PROPERTIES_ATTRIBUTES_REGEX);
@@ -152,9 +162,7 @@ public abstract class AbstractResourceProvider extends BaseProvider implements R
    */
   protected Set<Map<String, Object>> getPropertyMaps(Predicate givenPredicate) {
 
-    SimplifyingPredicateVisitor visitor = new SimplifyingPredicateVisitor(this);
-    PredicateHelper.visit(givenPredicate, visitor);
-    List<Predicate> predicates = visitor.getSimplifiedPredicates();
+    List<Predicate> predicates = getSimplifiedPredicates(givenPredicate);
 
     Set<Map<String, Object>> propertyMaps = new HashSet<Map<String, Object>>();
 
@@ -432,14 +440,29 @@ public abstract class AbstractResourceProvider extends BaseProvider implements R
 
   // determine whether or not the given predicate specifies a unique resource for this provider.
   private boolean specifiesUniqueResource(Predicate predicate) {
-    SimplifyingPredicateVisitor visitor = new SimplifyingPredicateVisitor(this);
-    PredicateHelper.visit(predicate, visitor);
-    List<Predicate> predicates = visitor.getSimplifiedPredicates();
+    List<Predicate> predicates = getSimplifiedPredicates(predicate);
 
     return predicates.size() == 1 && PredicateHelper.getPropertyIds(predicate).containsAll(getPKPropertyIds());
   }
 
 
+  // simplify the given predicate with a SimplifyingPredicateVisitor, reusing earlier results.
+  private List<Predicate> getSimplifiedPredicates(Predicate predicate) {
+    List<Predicate> predicates = predicate == null ? null : simplifiedPredicates.getIfPresent(predicate);
+
+    if (predicates == null) {
+      SimplifyingPredicateVisitor visitor = new SimplifyingPredicateVisitor(this);
+      PredicateHelper.visit(predicate, visitor);
+      predicates = visitor.getSimplifiedPredicates();
+
+      if (predicate != null) {
+        simplifiedPredicates.put(predicate, predicates);
+      }
+    }
+    return predicates;
+  }
+
+
   // ----- Inner interface ---------------------------------------------------
 
   /**
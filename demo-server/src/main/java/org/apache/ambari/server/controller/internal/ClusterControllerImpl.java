@@ -31,6 +31,8 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.apache.ambari.server.StaticallyInject;
+
 import org.apache.ambari.server.controller.spi.ClusterController;
 import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
@@ -59,9 +61,12 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.Inject;
+
 /**
  * Default cluster controller implementation.
  */
+@StaticallyInject
 public class ClusterControllerImpl implements ClusterController {
   private final static Logger LOG =
       LoggerFactory.getLogger(ClusterControllerImpl.class);
@@ -101,6 +106,13 @@ public class ClusterControllerImpl implements ClusterController {
     DEFAULT_RESOURCE_PREDICATE_EVALUATOR =
     new DefaultResourcePredicateEvaluator();
 
+  /**
+   * Cache of the query results of REST reads, dropped after modifications;
+   * null if not injected.
+   */
+  @Inject
+  private static QueryResultCache queryResultCache;
+
   // ----- Constructors ------------------------------------------------------
 
   public ClusterControllerImpl(ProviderModule providerModule) {
@@ -222,11 +234,15 @@ public class ClusterControllerImpl implements ClusterController {
           default:
             break;
         }
-      } else if (providerAlreadyPaged) {
-        totalCount = queryResponse.getTotalResourceCount();
       }
     }
 
+    // a provider which paged the results knows the total count, even when
+    // the requested page is empty
+    if (queryResponse.isPagedResponse()) {
+      totalCount = queryResponse.getTotalResourceCount();
+    }
+
     return new PageResponseImpl(new ResourceIterable(resources, predicate,
         provider), 0, null, null, totalCount);
   }
@@ -286,7 +302,11 @@ public class ClusterControllerImpl implements ClusterController {
 
       checkProperties(type, request, null);
 
-      return provider.createResources(request);
+      try {
+        return provider.createResources(request);
+      } finally {
+        invalidateQueryResults();
+      }
     }
     return null;
   }
@@ -307,7 +327,11 @@ public class ClusterControllerImpl implements ClusterController {
           return null;
         }
       }
-      return provider.updateResources(request, predicate);
+      try {
+        return provider.updateResources(request, predicate);
+      } finally {
+        invalidateQueryResults();
+      }
     }
     return null;
   }
@@ -327,11 +351,25 @@ public class ClusterControllerImpl implements ClusterController {
           return null;
         }
       }
+      try {
         return provider.deleteResources(predicate);
+      } finally {
+        invalidateQueryResults();
+      }
     }
     return null;
   }
 
+  /**
+   * Drop cached query results after a modification since it may affect
+   * resources of any type.
+   */
+  private void invalidateQueryResults() {
+    if (queryResultCache != null) {
+      queryResultCache.invalidateAll();
+    }
+  }
+
 
   /**
    * Provides a non-wrapped resource provider..
@@ -0,0 +1,604 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.internal.ResourcePropertySchema.Slot;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Resource implementation which stores its property values in an array
+ * indexed by the {@link ResourcePropertySchema} of its type. Property ids are
+ * split into category and name only once per type and no maps are allocated
+ * per resource. Properties which do not fit into the schema of the type are
+ * kept in a map.
+ * <p/>
+ * Unlike {@link ResourceImpl} this class does not lock. A resource must be
+ * populated by one thread at a time, which is how the cluster controller and
+ * the property providers populate resources.
+ */
+public class CompactResourceImpl implements Resource {
+
+  /**
+   * Marks a property explicitly set to null.
+   */
+  private static final Object NULL_VALUE = new Object();
+
+  private static final Object[] EMPTY_VALUES = new Object[0];
+
+  /**
+   * The resource type.
+   */
+  private final Type type;
+
+  /**
+   * The property schema of the resource type.
+   */
+  private final ResourcePropertySchema schema;
+
+  /**
+   * The property values indexed by slot; null for properties which are not set.
+   */
+  private Object[] values;
+
+  /**
+   * The indexes of the categories added without properties; null if none.
+   */
+  private BitSet addedCategories;
+
+  /**
+   * The properties which have no slot in the full schema, keyed by category
+   * key and name; null if none.
+   */
+  private Map<String, Map<String, Object>> overflow;
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Create a resource of the given type.
+   *
+   * @param type the resource type
+   */
+  public CompactResourceImpl(Type type) {
+    this.type = type;
+    this.schema = ResourcePropertySchema.getSchema(type);
+
+    int size = schema.size();
+    this.values = size == 0 ? EMPTY_VALUES : new Object[size];
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param resource the resource to copy
+   */
+  public CompactResourceImpl(Resource resource) {
+    this(resource, null);
+  }
+
+  /**
+   * Construct a resource from the given resource, setting only the properties
+   * that are found in the given set of property and category ids.
+   *
+   * @param resource    the resource to copy
+   * @param propertyIds the set of requested property and category ids
+   */
+  public CompactResourceImpl(Resource resource, Set<String> propertyIds) {
+    this(resource.getType());
+
+    boolean copyAll = propertyIds == null || propertyIds.isEmpty();
+
+    if (copyAll && resource instanceof CompactResourceImpl) {
+      CompactResourceImpl compactResource = (CompactResourceImpl) resource;
+      values = Arrays.copyOf(compactResource.values, Math.max(values.length, compactResource.values.length));
+      if (compactResource.addedCategories != null) {
+        addedCategories = (BitSet) compactResource.addedCategories.clone();
+      }
+      if (compactResource.overflow != null) {
+        overflow = new HashMap<String, Map<String, Object>>();
+        for (Map.Entry<String, Map<String, Object>> entry : compactResource.overflow.entrySet()) {
+          overflow.put(entry.getKey(), new HashMap<String, Object>(entry.getValue()));
+        }
+      }
+      return;
+    }
+
+    for (Map.Entry<String, Map<String, Object>> categoryEntry :
+        resource.getPropertiesMap().entrySet()) {
+      String category = categoryEntry.getKey();
+      Map<String, Object> propertyMap = categoryEntry.getValue();
+      if (propertyMap != null) {
+        for (Map.Entry<String, Object> propertyEntry : propertyMap.entrySet()) {
+          String propertyId = PropertyHelper.getPropertyId(category, propertyEntry.getKey());
+          if (copyAll || PropertyHelper.containsProperty(propertyIds, propertyId)) {
+            setProperty(propertyId, propertyEntry.getValue());
+          }
+        }
+      }
+    }
+  }
+
+
+  // ----- Resource ----------------------------------------------------------
+
+  @Override
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The returned map is a sorted view of the properties. Removing categories
+   * or properties from it, also through its iterators, and putting properties
+   * into it changes the resource. Properties set on the resource after the
+   * view was created are not visible through it.
+   */
+  @Override
+  public Map<String, Map<String, Object>> getPropertiesMap() {
+    Map<String, TreeMap<String, Slot>> slotsByCategory = new HashMap<String, TreeMap<String, Slot>>();
+
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        Slot slot = schema.getSlot(i);
+
+        TreeMap<String, Slot> slots = slotsByCategory.get(slot.category);
+        if (slots == null) {
+          slots = new TreeMap<String, Slot>();
+          slotsByCategory.put(slot.category, slots);
+        }
+        slots.put(slot.name, slot);
+      }
+    }
+
+    if (addedCategories != null) {
+      for (int i = addedCategories.nextSetBit(0); i >= 0; i = addedCategories.nextSetBit(i + 1)) {
+        String category = schema.getCategory(i);
+        if (!slotsByCategory.containsKey(category)) {
+          slotsByCategory.put(category, new TreeMap<String, Slot>());
+        }
+      }
+    }
+
+    if (overflow != null) {
+      for (String category : overflow.keySet()) {
+        if (!slotsByCategory.containsKey(category)) {
+          slotsByCategory.put(category, new TreeMap<String, Slot>());
+        }
+      }
+    }
+
+    PropertiesMap propertiesMap = new PropertiesMap();
+    for (Map.Entry<String, TreeMap<String, Slot>> entry : slotsByCategory.entrySet()) {
+      propertiesMap.categories.put(entry.getKey(), new CategoryMap(entry.getKey(), entry.getValue()));
+    }
+    return propertiesMap;
+  }
+
+  @Override
+  public void setProperty(String id, Object value) {
+    Slot slot = schema.getSlot(id);
+
+    if (slot == null) {
+      getOverflowCategory(PropertyHelper.getPropertyCategory(id), true)
+          .put(PropertyHelper.getPropertyName(id), value);
+      return;
+    }
+
+    if (slot.index >= values.length) {
+      values = Arrays.copyOf(values, Math.max(slot.index + 1, schema.size()));
+    }
+    values[slot.index] = value == null ? NULL_VALUE : value;
+  }
+
+  @Override
+  public void addCategory(String id) {
+    int index = schema.getCategoryIndex(id);
+
+    if (index < 0) {
+      getOverflowCategory(id, true);
+      return;
+    }
+
+    if (addedCategories == null) {
+      addedCategories = new BitSet();
+    }
+    addedCategories.set(index);
+  }
+
+  @Override
+  public Object getPropertyValue(String id) {
+    Slot slot = schema.findSlot(id);
+
+    if (slot == null) {
+      Map<String, Object> properties = getOverflowCategory(PropertyHelper.getPropertyCategory(id), false);
+      return properties == null ? null : properties.get(PropertyHelper.getPropertyName(id));
+    }
+
+    if (slot.index >= values.length) {
+      return null;
+    }
+    Object value = values[slot.index];
+    return value == NULL_VALUE ? null : value;
+  }
+
+
+  // ----- Object overrides --------------------------------------------------
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("Resource : ").append(type).append("\n");
+    sb.append("Properties:\n");
+    sb.append(getPropertiesMap());
+
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    CompactResourceImpl resource = (CompactResourceImpl) o;
+
+    if (!type.equals(resource.type)) {
+      return false;
+    }
+
+    int length = Math.max(values.length, resource.values.length);
+    for (int i = 0; i < length; i++) {
+      Object value = i < values.length ? values[i] : null;
+      Object otherValue = i < resource.values.length ? resource.values[i] : null;
+      if (value == null ? otherValue != null : !value.equals(otherValue)) {
+        return false;
+      }
+    }
+
+    Map<String, Map<String, Object>> emptyOverflow = Collections.emptyMap();
+    if (!(overflow == null ? emptyOverflow : overflow).equals(
+        resource.overflow == null ? emptyOverflow : resource.overflow)) {
+      return false;
+    }
+    return getCategories().equals(resource.getCategories());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Computes the hash code of {@link #getPropertiesMap()} without creating
+   * the maps, unless some properties did not fit into the schema.
+   */
+  @Override
+  public int hashCode() {
+    if (overflow != null) {
+      return 31 * type.hashCode() + getPropertiesMap().hashCode();
+    }
+
+    BitSet categories = getCategories();
+    int[] categoryHashes = new int[schema.getCategoryCount()];
+
+    for (int i = 0; i < values.length; i++) {
+      Object value = values[i];
+      if (value != null) {
+        Slot slot = schema.getSlot(i);
+        categoryHashes[slot.categoryIndex] += slot.name.hashCode() ^
+            (value == NULL_VALUE ? 0 : value.hashCode());
+      }
+    }
+
+    int propertiesHash = 0;
+    for (int i = categories.nextSetBit(0); i >= 0; i = categories.nextSetBit(i + 1)) {
+      propertiesHash += schema.getCategory(i).hashCode() ^ categoryHashes[i];
+    }
+    return 31 * type.hashCode() + propertiesHash;
+  }
+
+
+  // ----- utility methods ---------------------------------------------------
+
+  /**
+   * Get the indexes of the categories holding properties or added without
+   * properties.
+   */
+  private BitSet getCategories() {
+    BitSet categories = addedCategories == null ? new BitSet() : (BitSet) addedCategories.clone();
+
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        categories.set(schema.getSlot(i).categoryIndex);
+      }
+    }
+    return categories;
+  }
+
+  /**
+   * Get the properties of the given category which did not fit into the
+   * schema.
+   *
+   * @param category  the category id; may be null
+   * @param create    whether to create the category if it does not exist
+   *
+   * @return the properties; null if there are none and create is false
+   */
+  private Map<String, Object> getOverflowCategory(String category, boolean create) {
+    String categoryKey = category == null ? "" : category;
+
+    Map<String, Object> properties = overflow == null ? null : overflow.get(categoryKey);
+    if (properties == null && create) {
+      if (overflow == null) {
+        overflow = new HashMap<String, Map<String, Object>>();
+      }
+      properties = new HashMap<String, Object>();
+      overflow.put(categoryKey, properties);
+    }
+    return properties;
+  }
+
+  /**
+   * Get the value of a slot as exposed by the properties map.
+   */
+  private Object getSlotValue(Slot slot) {
+    Object value = slot.index < values.length ? values[slot.index] : null;
+    return value == NULL_VALUE ? null : value;
+  }
+
+
+  // ----- inner class : PropertiesMap ---------------------------------------
+
+  /**
+   * The view returned by {@link #getPropertiesMap()}, keyed by category.
+   */
+  private final class PropertiesMap extends AbstractMap<String, Map<String, Object>> {
+
+    /**
+     * The categories of the resource when the view was created.
+     */
+    private final TreeMap<String, CategoryMap> categories = new TreeMap<String, CategoryMap>();
+
+    @Override
+    public Map<String, Object> get(Object key) {
+      return categories.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return categories.containsKey(key);
+    }
+
+    @Override
+    public Map<String, Object> put(String category, Map<String, Object> properties) {
+      CategoryMap categoryMap = categories.get(category);
+      Map<String, Object> previous = categoryMap == null ? null : new TreeMap<String, Object>(categoryMap);
+
+      if (categoryMap == null) {
+        addCategory(category);
+        categoryMap = new CategoryMap(category, new TreeMap<String, Slot>());
+        categories.put(category, categoryMap);
+      }
+      categoryMap.putAll(properties);
+      return previous;
+    }
+
+    @Override
+    public Map<String, Object> remove(Object key) {
+      CategoryMap categoryMap = categories.remove(key);
+      if (categoryMap == null) {
+        return null;
+      }
+
+      Map<String, Object> previous = new TreeMap<String, Object>(categoryMap);
+      categoryMap.clear();
+
+      int index = schema.findCategoryIndex(categoryMap.category);
+      if (index >= 0 && addedCategories != null) {
+        addedCategories.clear(index);
+      }
+      if (overflow != null) {
+        overflow.remove(categoryMap.category);
+      }
+      return previous;
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Object>>> entrySet() {
+      return new AbstractSet<Entry<String, Map<String, Object>>>() {
+        @Override
+        public Iterator<Entry<String, Map<String, Object>>> iterator() {
+          final Iterator<String> keys = new ArrayList<String>(categories.keySet()).iterator();
+
+          return new Iterator<Entry<String, Map<String, Object>>>() {
+            private String current;
+
+            @Override
+            public boolean hasNext() {
+              return keys.hasNext();
+            }
+
+            @Override
+            public Entry<String, Map<String, Object>> next() {
+              current = keys.next();
+              return new SimpleImmutableEntry<String, Map<String, Object>>(current,
+                  categories.get(current));
+            }
+
+            @Override
+            public void remove() {
+              if (current == null) {
+                throw new IllegalStateException();
+              }
+              PropertiesMap.this.remove(current);
+              current = null;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return categories.size();
+        }
+      };
+    }
+  }
+
+
+  // ----- inner class : CategoryMap -----------------------------------------
+
+  /**
+   * The properties of a single category, keyed by property name.
+   */
+  private final class CategoryMap extends AbstractMap<String, Object> {
+
+    /**
+     * The category key; "" for properties without a category.
+     */
+    private final String category;
+
+    /**
+     * The slots of the properties of the category which are set.
+     */
+    private final TreeMap<String, Slot> slots;
+
+    private CategoryMap(String category, TreeMap<String, Slot> slots) {
+      this.category = category;
+      this.slots = slots;
+    }
+
+    @Override
+    public Object get(Object key) {
+      Slot slot = slots.get(key);
+      if (slot != null) {
+        return getSlotValue(slot);
+      }
+
+      Map<String, Object> properties = getOverflowCategory(category, false);
+      return properties == null ? null : properties.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      if (slots.containsKey(key)) {
+        return true;
+      }
+
+      Map<String, Object> properties = getOverflowCategory(category, false);
+      return properties != null && properties.containsKey(key);
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+      Object previous = get(name);
+
+      String propertyId = PropertyHelper.getPropertyId(category, name);
+      setProperty(propertyId, value);
+
+      Slot slot = schema.findSlot(propertyId);
+      if (slot != null) {
+        slots.put(name, slot);
+      }
+      return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+      Slot slot = slots.remove(key);
+      if (slot != null) {
+        Object previous = getSlotValue(slot);
+        if (slot.index < values.length) {
+          values[slot.index] = null;
+        }
+        return previous;
+      }
+
+      Map<String, Object> properties = getOverflowCategory(category, false);
+      return properties == null ? null : properties.remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          Set<String> names = new TreeSet<String>(slots.keySet());
+          Map<String, Object> properties = getOverflowCategory(category, false);
+          if (properties != null) {
+            names.addAll(properties.keySet());
+          }
+          final List<String> keys = new ArrayList<String>(names);
+
+          return new Iterator<Entry<String, Object>>() {
+            private int next = 0;
+            private String current;
+
+            @Override
+            public boolean hasNext() {
+              return next < keys.size();
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              current = keys.get(next++);
+              return new SimpleEntry<String, Object>(current, get(current)) {
+                @Override
+                public Object setValue(Object value) {
+                  put(getKey(), value);
+                  return super.setValue(value);
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              if (current == null) {
+                throw new IllegalStateException();
+              }
+              CategoryMap.this.remove(current);
+              current = null;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          Map<String, Object> properties = getOverflowCategory(category, false);
+          return slots.size() + (properties == null ? 0 : properties.size());
+        }
+      };
+    }
+  }
+}
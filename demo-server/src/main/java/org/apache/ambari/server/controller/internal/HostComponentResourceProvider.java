@@ -25,11 +25,13 @@ import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.configuration.ComponentSSLConfiguration;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.MaintenanceStateHelper;
@@ -39,10 +41,12 @@ import org.apache.ambari.server.controller.ServiceComponentHostResponse;
 import org.apache.ambari.server.controller.predicate.AndPredicate;
 import org.apache.ambari.server.controller.predicate.EqualsPredicate;
 import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
 import org.apache.ambari.server.controller.spi.NoSuchResourceException;
 import org.apache.ambari.server.controller.spi.Predicate;
 import org.apache.ambari.server.controller.spi.PropertyProvider;
+import org.apache.ambari.server.controller.spi.QueryResponse;
 import org.apache.ambari.server.controller.spi.Request;
 import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
@@ -50,7 +54,9 @@ import org.apache.ambari.server.controller.spi.ResourceAlreadyExistsException;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
 import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.apache.ambari.server.orm.dao.HostComponentStateDAO;
 import org.apache.ambari.server.orm.dao.HostVersionDAO;
+import org.apache.ambari.server.orm.entities.HostComponentStateEntity;
 import org.apache.ambari.server.orm.entities.HostVersionEntity;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
@@ -72,20 +78,21 @@ import com.google.inject.assistedinject.AssistedInject;
 /**
  * Resource provider for host component resources.
  */
-public class HostComponentResourceProvider extends AbstractControllerResourceProvider {
+public class HostComponentResourceProvider extends AbstractControllerResourceProvider
+    implements ExtendedResourceProvider {
 
   // ----- Property ID constants ---------------------------------------------
 
   // Host Components
-  protected static final String HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID
+  public static final String HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "cluster_name");
-  protected static final String HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID
+  public static final String HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "service_name");
-  protected static final String HOST_COMPONENT_COMPONENT_NAME_PROPERTY_ID
+  public static final String HOST_COMPONENT_COMPONENT_NAME_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "component_name");
-  protected static final String HOST_COMPONENT_HOST_NAME_PROPERTY_ID
+  public static final String HOST_COMPONENT_HOST_NAME_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "host_name");
-  protected static final String HOST_COMPONENT_STATE_PROPERTY_ID
+  public static final String HOST_COMPONENT_STATE_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "state");
   protected static final String HOST_COMPONENT_DESIRED_STATE_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "desired_state");
@@ -103,7 +110,7 @@ public class HostComponentResourceProvider extends AbstractControllerResourcePro
       = "HostRoles/maintenance_state";
   protected static final String HOST_COMPONENT_HDP_VERSION_PROPERTY_ID
       = PropertyHelper.getPropertyId("HostRoles", "hdp_version");
-  protected static final String HOST_COMPONENT_UPGRADE_STATE_PROPERTY_ID = "HostRoles/upgrade_state";
+  public static final String HOST_COMPONENT_UPGRADE_STATE_PROPERTY_ID = "HostRoles/upgrade_state";
 
   //Component name mappings
   private final Map<String, PropertyProvider> HOST_COMPONENT_PROPERTIES_PROVIDER = new HashMap<String, PropertyProvider>();
@@ -129,6 +136,9 @@ public class HostComponentResourceProvider extends AbstractControllerResourcePro
   @Inject
   private HostVersionDAO hostVersionDAO;
 
+  @Inject
+  private HostComponentStateDAO hostComponentStateDAO;
+
   // ----- Constructors ----------------------------------------------------
 
   /**
@@ -199,6 +209,68 @@ public class HostComponentResourceProvider extends AbstractControllerResourcePro
     return findResources(request, predicate, requests);
   }
 
+  // ----- ExtendedResourceProvider ------------------------------------------
+
+  @Override
+  public QueryResponse queryForResources(Request request, Predicate predicate)
+      throws SystemException, UnsupportedPropertyException,
+      NoSuchResourceException, NoSuchParentResourceException {
+
+    // the host components of a single cluster are paged in the database, but
+    // the resources are still built from the in-memory host components
+    Set<String> clusterNames = new HashSet<String>();
+    for (Map<String, Object> propertyMap : getPropertyMaps(predicate)) {
+      clusterNames.add((String) propertyMap.get(HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID));
+    }
+
+    if (clusterNames.size() != 1 || clusterNames.contains(null)) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    String clusterName = clusterNames.iterator().next();
+    try {
+      getManagementController().getClusters().getCluster(clusterName);
+    } catch (AmbariException e) {
+      throw new NoSuchParentResourceException(e.getMessage(), e);
+    }
+
+    JpaQueryTranslator.Page<HostComponentStateEntity> page = hostComponentStateDAO.findPage(
+        request, predicate, getKeyPropertyIds());
+
+    if (null == page) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    Set<Resource> resources = new LinkedHashSet<Resource>();
+    if (!page.getEntities().isEmpty()) {
+      Set<ServiceComponentHostRequest> requests = new HashSet<ServiceComponentHostRequest>();
+      for (HostComponentStateEntity entity : page.getEntities()) {
+        requests.add(new ServiceComponentHostRequest(clusterName,
+            entity.getServiceName(), entity.getComponentName(),
+            entity.getHostName(), null));
+      }
+
+      // restore the order of the page
+      Map<List<Object>, Resource> resourceMap = new HashMap<List<Object>, Resource>();
+      for (Resource resource : findResources(request, predicate, requests)) {
+        resourceMap.put(Arrays.asList(
+            resource.getPropertyValue(HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID),
+            resource.getPropertyValue(HOST_COMPONENT_COMPONENT_NAME_PROPERTY_ID),
+            resource.getPropertyValue(HOST_COMPONENT_HOST_NAME_PROPERTY_ID)), resource);
+      }
+
+      for (HostComponentStateEntity entity : page.getEntities()) {
+        Resource resource = resourceMap.get(Arrays.<Object>asList(
+            entity.getServiceName(), entity.getComponentName(), entity.getHostName()));
+        if (null != resource) {
+          resources.add(resource);
+        }
+      }
+    }
+
+    return new QueryResponseImpl(resources, true, page.isPaged(), page.getTotalCount());
+  }
+
   private Set<Resource> getResourcesForUpdate(Request request, Predicate predicate)
     throws SystemException, UnsupportedPropertyException, NoSuchResourceException, NoSuchParentResourceException {
 
@@ -228,7 +300,7 @@ public class HostComponentResourceProvider extends AbstractControllerResourcePro
     });
 
     for (ServiceComponentHostResponse response : responses) {
-      Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+      Resource resource = new CompactResourceImpl(Resource.Type.HostComponent);
       setResourceProperty(resource, HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID,
               response.getClusterName(), requestedIds);
       setResourceProperty(resource, HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID,
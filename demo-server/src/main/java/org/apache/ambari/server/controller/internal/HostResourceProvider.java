@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,15 +34,18 @@ import org.apache.ambari.server.DuplicateResourceException;
 import org.apache.ambari.server.HostNotFoundException;
 import org.apache.ambari.server.ObjectNotFoundException;
 import org.apache.ambari.server.ParentObjectNotFoundException;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.ConfigurationRequest;
 import org.apache.ambari.server.controller.HostRequest;
 import org.apache.ambari.server.controller.HostResponse;
 import org.apache.ambari.server.controller.MaintenanceStateHelper;
 import org.apache.ambari.server.controller.RequestStatusResponse;
+import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
 import org.apache.ambari.server.controller.spi.NoSuchResourceException;
 import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.QueryResponse;
 import org.apache.ambari.server.controller.spi.Request;
 import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
@@ -49,6 +53,8 @@ import org.apache.ambari.server.controller.spi.ResourceAlreadyExistsException;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
 import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.apache.ambari.server.orm.dao.HostDAO;
+import org.apache.ambari.server.orm.entities.HostEntity;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.Config;
@@ -75,7 +81,8 @@ import com.google.inject.assistedinject.AssistedInject;
 /**
  * Resource provider for host resources.
  */
-public class HostResourceProvider extends AbstractControllerResourceProvider {
+public class HostResourceProvider extends AbstractControllerResourceProvider
+    implements ExtendedResourceProvider {
 
   // ----- Property ID constants ---------------------------------------------
 
@@ -150,6 +157,9 @@ public class HostResourceProvider extends AbstractControllerResourceProvider {
   @Inject
   private OsFamily osFamily;
 
+  @Inject
+  private HostDAO hostDAO;
+
   @Inject
   private static TopologyManager topologyManager;
 
@@ -221,71 +231,150 @@ public class HostResourceProvider extends AbstractControllerResourceProvider {
     Set<Resource> resources    = new HashSet<Resource>();
 
     for (HostResponse response : responses) {
-      Resource resource = new ResourceImpl(Resource.Type.Host);
+      resources.add(toResource(response, requestedIds));
+    }
+    return resources;
+  }
 
-      // TODO : properly handle more than one cluster
-      if (response.getClusterName() != null
-          && !response.getClusterName().isEmpty()) {
-        setResourceProperty(resource, HOST_CLUSTER_NAME_PROPERTY_ID,
-            response.getClusterName(), requestedIds);
+  // ----- ExtendedResourceProvider ------------------------------------------
+
+  @Override
+  public QueryResponse queryForResources(Request request, Predicate predicate)
+      throws SystemException, UnsupportedPropertyException,
+      NoSuchResourceException, NoSuchParentResourceException {
+
+    // the hosts are paged in the database, but the state of each host is
+    // still read from the in-memory host objects
+    Set<String> clusterNames = new HashSet<String>();
+    if (null == predicate) {
+      clusterNames.add(null);
+    } else {
+      for (Map<String, Object> propertyMap : getPropertyMaps(predicate)) {
+        clusterNames.add((String) propertyMap.get(HOST_CLUSTER_NAME_PROPERTY_ID));
       }
-      setResourceProperty(resource, HOST_NAME_PROPERTY_ID,
-          response.getHostname(), requestedIds);
-      setResourceProperty(resource, HOST_PUBLIC_NAME_PROPERTY_ID,
-          response.getPublicHostName(), requestedIds);
-      setResourceProperty(resource, HOST_IP_PROPERTY_ID,
-          response.getIpv4(), requestedIds);
-      setResourceProperty(resource, HOST_TOTAL_MEM_PROPERTY_ID,
-          response.getTotalMemBytes(), requestedIds);
-      setResourceProperty(resource, HOST_CPU_COUNT_PROPERTY_ID,
-          (long) response.getCpuCount(), requestedIds);
-      setResourceProperty(resource, HOST_PHYSICAL_CPU_COUNT_PROPERTY_ID,
-          (long) response.getPhCpuCount(), requestedIds);      
-      setResourceProperty(resource, HOST_OS_ARCH_PROPERTY_ID,
-          response.getOsArch(), requestedIds);
-      setResourceProperty(resource, HOST_OS_TYPE_PROPERTY_ID,
-          response.getOsType(), requestedIds);
-
-      String hostOsFamily = osFamily.find(response.getOsType());
-      if (hostOsFamily == null) {
-        LOG.error("Can not find host OS family. For OS type = '{}' and host name = '{}'",
-            response.getOsType(), response.getHostname());
+    }
+
+    if (clusterNames.size() != 1) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    final String clusterName = clusterNames.iterator().next();
+    if (null != clusterName) {
+      try {
+        getManagementController().getClusters().getCluster(clusterName);
+      } catch (AmbariException e) {
+        throw new NoSuchParentResourceException("Parent Cluster resource doesn't exist", e);
       }
-      setResourceProperty(resource, HOST_OS_FAMILY_PROPERTY_ID,
-          hostOsFamily, requestedIds);
-
-      setResourceProperty(resource, HOST_RACK_INFO_PROPERTY_ID,
-          response.getRackInfo(), requestedIds);
-      setResourceProperty(resource, HOST_LAST_HEARTBEAT_TIME_PROPERTY_ID,
-          response.getLastHeartbeatTime(), requestedIds);
-      setResourceProperty(resource, HOST_LAST_AGENT_ENV_PROPERTY_ID,
-          response.getLastAgentEnv(), requestedIds);
-      setResourceProperty(resource, HOST_LAST_REGISTRATION_TIME_PROPERTY_ID,
-          response.getLastRegistrationTime(), requestedIds);
-      setResourceProperty(resource, HOST_HOST_STATUS_PROPERTY_ID,
-          response.getStatus(),requestedIds);
-      setResourceProperty(resource, HOST_HOST_HEALTH_REPORT_PROPERTY_ID,
-          response.getHealthStatus().getHealthReport(), requestedIds);
-      setResourceProperty(resource, HOST_RECOVERY_REPORT_PROPERTY_ID,
-          response.getRecoveryReport(), requestedIds);
-      setResourceProperty(resource, HOST_RECOVERY_SUMMARY_PROPERTY_ID,
-          response.getRecoverySummary(), requestedIds);
-      setResourceProperty(resource, HOST_DISK_INFO_PROPERTY_ID,
-          response.getDisksInfo(), requestedIds);
-      setResourceProperty(resource, HOST_STATE_PROPERTY_ID,
-          response.getHostState(), requestedIds);
-      setResourceProperty(resource, HOST_DESIRED_CONFIGS_PROPERTY_ID,
-          response.getDesiredHostConfigs(), requestedIds);
-      
-      // only when a cluster request
-      if (null != response.getMaintenanceState()) {
-        setResourceProperty(resource, HOST_MAINTENANCE_STATE_PROPERTY_ID,
-            response.getMaintenanceState(), requestedIds);
+    }
+
+    final JpaQueryTranslator.Page<HostEntity> page = hostDAO.findPage(request,
+        predicate, getKeyPropertyIds());
+
+    if (null == page) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    List<HostResponse> responses = getResources(new Command<List<HostResponse>>() {
+      @Override
+      public List<HostResponse> invoke() throws AmbariException {
+        AmbariManagementController controller = getManagementController();
+        List<HostResponse> responses = new ArrayList<HostResponse>();
+
+        for (HostEntity entity : page.getEntities()) {
+          try {
+            responses.addAll(getHosts(controller,
+                new HostRequest(entity.getHostName(), clusterName, null)));
+          } catch (HostNotFoundException e) {
+            // the host was removed after the page was read
+            LOG.debug("Skipping removed host {}", entity.getHostName());
+          }
+        }
+        return responses;
       }
-      
-      resources.add(resource);
+    });
+
+    Set<String>   requestedIds = getRequestPropertyIds(request, predicate);
+    Set<Resource> resources    = new LinkedHashSet<Resource>();
+
+    for (HostResponse response : responses) {
+      resources.add(toResource(response, requestedIds));
     }
-    return resources;
+
+    return new QueryResponseImpl(resources, true, page.isPaged(), page.getTotalCount());
+  }
+
+  /**
+   * Converts a {@link HostResponse} to a {@link Resource}.
+   *
+   * @param response      the host to convert (not {@code null})
+   * @param requestedIds  the properties requested (not {@code null})
+   *
+   * @return the new resource
+   */
+  private Resource toResource(HostResponse response, Set<String> requestedIds) {
+    Resource resource = new ResourceImpl(Resource.Type.Host);
+
+    // TODO : properly handle more than one cluster
+    if (response.getClusterName() != null
+        && !response.getClusterName().isEmpty()) {
+      setResourceProperty(resource, HOST_CLUSTER_NAME_PROPERTY_ID,
+          response.getClusterName(), requestedIds);
+    }
+    setResourceProperty(resource, HOST_NAME_PROPERTY_ID,
+        response.getHostname(), requestedIds);
+    setResourceProperty(resource, HOST_PUBLIC_NAME_PROPERTY_ID,
+        response.getPublicHostName(), requestedIds);
+    setResourceProperty(resource, HOST_IP_PROPERTY_ID,
+        response.getIpv4(), requestedIds);
+    setResourceProperty(resource, HOST_TOTAL_MEM_PROPERTY_ID,
+        response.getTotalMemBytes(), requestedIds);
+    setResourceProperty(resource, HOST_CPU_COUNT_PROPERTY_ID,
+        (long) response.getCpuCount(), requestedIds);
+    setResourceProperty(resource, HOST_PHYSICAL_CPU_COUNT_PROPERTY_ID,
+        (long) response.getPhCpuCount(), requestedIds);      
+    setResourceProperty(resource, HOST_OS_ARCH_PROPERTY_ID,
+        response.getOsArch(), requestedIds);
+    setResourceProperty(resource, HOST_OS_TYPE_PROPERTY_ID,
+        response.getOsType(), requestedIds);
+
+    String hostOsFamily = osFamily.find(response.getOsType());
+    if (hostOsFamily == null) {
+      LOG.error("Can not find host OS family. For OS type = '{}' and host name = '{}'",
+          response.getOsType(), response.getHostname());
+    }
+    setResourceProperty(resource, HOST_OS_FAMILY_PROPERTY_ID,
+        hostOsFamily, requestedIds);
+
+    setResourceProperty(resource, HOST_RACK_INFO_PROPERTY_ID,
+        response.getRackInfo(), requestedIds);
+    setResourceProperty(resource, HOST_LAST_HEARTBEAT_TIME_PROPERTY_ID,
+        response.getLastHeartbeatTime(), requestedIds);
+    setResourceProperty(resource, HOST_LAST_AGENT_ENV_PROPERTY_ID,
+        response.getLastAgentEnv(), requestedIds);
+    setResourceProperty(resource, HOST_LAST_REGISTRATION_TIME_PROPERTY_ID,
+        response.getLastRegistrationTime(), requestedIds);
+    setResourceProperty(resource, HOST_HOST_STATUS_PROPERTY_ID,
+        response.getStatus(),requestedIds);
+    setResourceProperty(resource, HOST_HOST_HEALTH_REPORT_PROPERTY_ID,
+        response.getHealthStatus().getHealthReport(), requestedIds);
+    setResourceProperty(resource, HOST_RECOVERY_REPORT_PROPERTY_ID,
+        response.getRecoveryReport(), requestedIds);
+    setResourceProperty(resource, HOST_RECOVERY_SUMMARY_PROPERTY_ID,
+        response.getRecoverySummary(), requestedIds);
+    setResourceProperty(resource, HOST_DISK_INFO_PROPERTY_ID,
+        response.getDisksInfo(), requestedIds);
+    setResourceProperty(resource, HOST_STATE_PROPERTY_ID,
+        response.getHostState(), requestedIds);
+    setResourceProperty(resource, HOST_DESIRED_CONFIGS_PROPERTY_ID,
+        response.getDesiredHostConfigs(), requestedIds);
+    
+    // only when a cluster request
+    if (null != response.getMaintenanceState()) {
+      setResourceProperty(resource, HOST_MAINTENANCE_STATE_PROPERTY_ID,
+          response.getMaintenanceState(), requestedIds);
+    }
+    
+    return resource;
   }
 
   @Override
@@ -22,8 +22,18 @@ import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.gson.JsonSyntaxException;
 import com.google.inject.Injector;
@@ -42,11 +52,21 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Futures;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 /**
  * Property provider that is used to read HTTP data from another server.
+ * <p/>
+ * The URLs of a request are fetched in parallel by a shared, bounded pool of
+ * threads. Each request waits at most {@link #REQUEST_DEADLINE_MS} for the
+ * responses; properties of servers which did not answer in time are set to
+ * {@code null}. Responses, including failures, are cached for a few seconds
+ * so that repeated requests do not contact the same servers again.
  */
 public class HttpProxyPropertyProvider extends BaseProvider implements PropertyProvider {
 
@@ -65,6 +85,43 @@ public class HttpProxyPropertyProvider extends BaseProvider implements PropertyP
   private static final String PROPERTY_YARN_HTTP_POLICY_VALUE_HTTPS_ONLY = "HTTPS_ONLY";
   private static final String PROPERTY_HADOOP_SSL_ENABLED_VALUE_TRUE = "true";
 
+  /**
+   * The maximum time a request waits for all of its responses.
+   */
+  private static final long REQUEST_DEADLINE_MS = 5000L;
+
+  /**
+   * The maximum number of concurrent HTTP requests across all providers.
+   */
+  private static final int FETCH_THREADS = 20;
+
+  /**
+   * The number of fetches which may wait for a thread before the requesting
+   * thread fetches itself.
+   */
+  private static final int FETCH_QUEUE_SIZE = 1000;
+
+  /**
+   * The time a response is cached.
+   */
+  private static final long RESPONSE_CACHE_TTL_SECONDS = 10L;
+
+  private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>(){}.getType();
+
+  private static final Gson GSON = new Gson();
+
+  /**
+   * The threads fetching the URLs.
+   */
+  private static final ThreadPoolExecutor FETCH_EXECUTOR = createFetchExecutor();
+
+  /**
+   * The parsed responses by URL; absent if the server could not be read.
+   */
+  private static final Cache<String, Optional<Map<String, Object>>> RESPONSE_CACHE =
+      CacheBuilder.newBuilder().expireAfterWrite(RESPONSE_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+          .maximumSize(10000).build();
+
   static {
     URL_TEMPLATES.put(COMPONENT_RESOURCEMANAGER, "http://%s:8088/ws/v1/cluster/info");
     
@@ -115,6 +172,11 @@ public class HttpProxyPropertyProvider extends BaseProvider implements PropertyP
     if (0 == ids.size())
       return resources;
 
+    // the URL of every resource, each fetched only once
+    Map<Resource, String> resourceUrls = new LinkedHashMap<Resource, String>();
+    Map<String, Future<Optional<Map<String, Object>>>> responses =
+        new HashMap<String, Future<Optional<Map<String, Object>>>>();
+
     for (Resource resource : resources) {
       
       Object hostName = resource.getPropertyValue(hostNamePropertyId);
@@ -126,10 +188,27 @@ public class HttpProxyPropertyProvider extends BaseProvider implements PropertyP
           URL_TEMPLATES.containsKey(componentName.toString())) {
         
         String template = getTemplate(componentName.toString(), clusterName.toString());
-        String propertyId = MAPPINGS.get(componentName.toString());
         String url = String.format(template, hostName);
-        
-        getHttpResponse(resource, url, propertyId);
+
+        resourceUrls.put(resource, url);
+        if (!responses.containsKey(url)) {
+          responses.put(url, fetch(url));
+        }
+      }
+    }
+
+    long deadline = System.currentTimeMillis() + REQUEST_DEADLINE_MS;
+    for (Map.Entry<Resource, String> entry : resourceUrls.entrySet()) {
+      Resource resource = entry.getKey();
+      String url = entry.getValue();
+      String propertyId = MAPPINGS.get(resource.getPropertyValue(componentNamePropertyId).toString());
+
+      Map<String, Object> propertyValueFromJson = getResponse(url, responses.get(url), deadline);
+      if (null == propertyValueFromJson) {
+        resource.setProperty(propertyId, null);
+      } else {
+        resource.setProperty(propertyId, getPropertyValueToSet(propertyValueFromJson,
+            resource.getPropertyValue(componentNamePropertyId)));
       }
     }
     
@@ -176,22 +255,65 @@ public class HttpProxyPropertyProvider extends BaseProvider implements PropertyP
     return result;
   }
 
-  private void getHttpResponse(Resource r, String url, String propertyIdToSet) throws SystemException {
+  /**
+   * Starts fetching a URL unless its response is cached.
+   */
+  private Future<Optional<Map<String, Object>>> fetch(final String url) {
+    Optional<Map<String, Object>> cached = RESPONSE_CACHE.getIfPresent(url);
+    if (null != cached) {
+      return Futures.immediateFuture(cached);
+    }
+
+    return FETCH_EXECUTOR.submit(new Callable<Optional<Map<String, Object>>>() {
+      @Override
+      public Optional<Map<String, Object>> call() {
+        Optional<Map<String, Object>> response = Optional.fromNullable(getHttpResponse(url));
+        RESPONSE_CACHE.put(url, response);
+        return response;
+      }
+    });
+  }
+
+  /**
+   * Waits for the response of a URL until the deadline of the request.
+   *
+   * @return the parsed response, or {@code null} if the server could not be
+   *         read in time.
+   */
+  private Map<String, Object> getResponse(String url, Future<Optional<Map<String, Object>>> future,
+      long deadline) {
+    try {
+      long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+      return future.get(remaining, TimeUnit.MILLISECONDS).orNull();
+    } catch (TimeoutException e) {
+      LOG.debug("Timed out waiting for the HTTP response from " + url);
+      future.cancel(true);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+    } catch (ExecutionException e) {
+      LOG.debug("Error reading HTTP response from " + url, e.getCause());
+    }
+    return null;
+  }
+
+  /**
+   * Reads and parses the JSON response of a URL. The response is read
+   * completely so that the connection can be kept alive and reused.
+   *
+   * @return the parsed response, or {@code null} if the server could not be
+   *         read.
+   */
+  private Map<String, Object> getHttpResponse(String url) {
     InputStream in = null;
     try {
       in = streamProvider.readFrom(url);
-      Type mapType = new TypeToken<Map<String, Object>>(){}.getType();
-      Map<String, Object> propertyValueFromJson = new Gson().fromJson(IOUtils.toString(in, "UTF-8"), mapType);
-      Object propertyValueToSet = getPropertyValueToSet(propertyValueFromJson,
-              r.getPropertyValue(componentNamePropertyId));
-      r.setProperty(propertyIdToSet, propertyValueToSet);
+      return GSON.fromJson(IOUtils.toString(in, "UTF-8"), MAP_TYPE);
     }
     catch (IOException ioe) {
       LOG.debug("Error reading HTTP response from " + url);
-      r.setProperty(propertyIdToSet, null);
     } catch (JsonSyntaxException jse) {
       LOG.error("Error parsing HTTP response from " + url);
-      r.setProperty(propertyIdToSet, null);
     } finally {
       if (in != null) {
         try {
@@ -202,7 +324,28 @@ public class HttpProxyPropertyProvider extends BaseProvider implements PropertyP
         }
       }
     }
-    
+    return null;
   }
 
+  /**
+   * Creates the pool fetching URLs. When its queue is full the requesting
+   * thread fetches the URL itself.
+   */
+  private static ThreadPoolExecutor createFetchExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS,
+        60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(FETCH_QUEUE_SIZE),
+        new ThreadFactory() {
+          private final AtomicInteger threadId = new AtomicInteger(1);
+
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ambari-http-proxy-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
 }
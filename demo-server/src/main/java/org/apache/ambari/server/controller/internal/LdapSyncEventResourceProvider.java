@@ -34,6 +34,7 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.apache.ambari.server.orm.entities.LdapSyncEventEntity;
 import org.apache.ambari.server.orm.entities.LdapSyncSpecEntity;
 import org.apache.ambari.server.security.ldap.LdapBatchDto;
+import org.apache.ambari.server.security.ldap.LdapSyncProgressListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -447,7 +448,7 @@ public class LdapSyncEventResourceProvider extends AbstractControllerResourcePro
    *
    * @throws AmbariException if the sync could not be completed
    */
-  private LdapBatchDto syncLdap(LdapSyncEventEntity event) throws AmbariException {
+  private LdapBatchDto syncLdap(final LdapSyncEventEntity event) throws AmbariException {
     LdapSyncRequest userRequest  = null;
     LdapSyncRequest groupRequest = null;
 
@@ -461,7 +462,15 @@ public class LdapSyncEventResourceProvider extends AbstractControllerResourcePro
           break;
       }
     }
-    return getManagementController().synchronizeLdapUsersAndGroups(userRequest, groupRequest);
+
+    // surface the progress of long running syncs through the event status detail
+    LdapBatchDto batchInfo = new LdapBatchDto(new LdapSyncProgressListener() {
+      @Override
+      public void onProgress(String message) {
+        event.setStatusDetail("Running LDAP sync. " + message);
+      }
+    });
+    return getManagementController().synchronizeLdapUsersAndGroups(userRequest, groupRequest, batchInfo);
   }
 
   /**
@@ -0,0 +1,381 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ambari.server.EagerSingleton;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.spi.PageRequest;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.QueryResponse;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.SortRequest;
+import org.apache.ambari.server.controller.spi.SortRequestProperty;
+import org.apache.ambari.server.events.AlertStateChangeEvent;
+import org.apache.ambari.server.events.AmbariEvent;
+import org.apache.ambari.server.events.HostComponentVersionEvent;
+import org.apache.ambari.server.events.publishers.AlertEventPublisher;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.apache.ambari.server.events.publishers.VersionEventPublisher;
+import org.apache.ambari.server.security.authorization.AuthorizationHelper;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The {@link QueryResultCache} holds the results of the resource provider
+ * queries of REST reads for a short time so that identical reads, such as
+ * those of several browsers polling the same page, are answered by a single
+ * query. Internal queries, such as those selecting the targets of an update,
+ * always go to the resource providers directly.
+ * <p/>
+ * Results are keyed by resource type, predicate, requested properties, page
+ * and sort requests, request info properties and the authenticated user. Concurrent identical queries
+ * wait for the first one. Results are dropped when they expire, when the
+ * cluster controller modifies resources and when Ambari, alert state or
+ * version events are published.
+ * <p/>
+ * Callers always receive copies of the cached resources since the resources
+ * of a query response are populated and rendered in place.
+ */
+@Singleton
+@EagerSingleton
+public class QueryResultCache {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+
+  /**
+   * The cached query responses; null if the cache is disabled.
+   */
+  private final Cache<QueryKey, CachedResponse> m_cache;
+
+  /**
+   * Incremented on every invalidation so that a query running while its
+   * result is invalidated does not stay cached.
+   */
+  private final AtomicLong m_generation = new AtomicLong();
+
+  /**
+   * Limits how often the cache statistics are logged.
+   */
+  private final StatisticsLogThrottle m_statisticsLog = new StatisticsLogThrottle();
+
+  /**
+   * Constructor.
+   *
+   * @param configuration
+   *          used to determine the time to live and size of the cache
+   * @param ambariEventPublisher
+   *          the publisher of cluster, service and host changes
+   * @param alertEventPublisher
+   *          the publisher of alert state changes
+   * @param versionEventPublisher
+   *          the publisher of component version changes
+   */
+  @Inject
+  public QueryResultCache(Configuration configuration,
+      AmbariEventPublisher ambariEventPublisher,
+      AlertEventPublisher alertEventPublisher,
+      VersionEventPublisher versionEventPublisher) {
+
+    long ttl = configuration.getQueryCacheTTL();
+    if (ttl > 0) {
+      m_cache = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+          .maximumSize(configuration.getQueryCacheSize()).recordStats().build();
+
+      ambariEventPublisher.register(this);
+      alertEventPublisher.register(this);
+      versionEventPublisher.register(this);
+    } else {
+      m_cache = null;
+    }
+  }
+
+  /**
+   * Get the response of a query, running the query only if no identical query
+   * has been answered recently.
+   *
+   * @param type
+   *          the resource type
+   * @param request
+   *          the request
+   * @param predicate
+   *          the predicate; may be null
+   * @param query
+   *          runs the query
+   *
+   * @return a response holding copies of the cached resources
+   * @throws Exception
+   *           the exception thrown by the query
+   */
+  public QueryResponse getResources(Resource.Type type, Request request,
+      Predicate predicate, final Callable<QueryResponse> query) throws Exception {
+
+    if (m_cache == null || !isCacheable(request)) {
+      return query.call();
+    }
+
+    QueryKey key = new QueryKey(type, predicate, request.getPropertyIds(),
+        getPageKey(request.getPageRequest()), getSortKey(request.getSortRequest()),
+        request.getRequestInfoProperties(), AuthorizationHelper.getAuthenticatedName());
+
+    final long generation = m_generation.get();
+    CachedResponse cached;
+    try {
+      cached = m_cache.get(key, new Callable<CachedResponse>() {
+        @Override
+        public CachedResponse call() throws Exception {
+          return new CachedResponse(copy(query.call()), generation);
+        }
+      });
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause(), e);
+    } catch (UncheckedExecutionException e) {
+      throw unwrap(e.getCause(), e);
+    }
+
+    if (cached.generation != m_generation.get()) {
+      // invalidated while the query ran; keep the result for this caller only
+      m_cache.asMap().remove(key, cached);
+    }
+
+    if (m_statisticsLog.isDue()) {
+      LOG.info("Query result cache statistics: size={}, {}", m_cache.size(), m_cache.stats());
+    }
+    return copy(cached.response);
+  }
+
+  /**
+   * Drop the cached results of the given resource type.
+   *
+   * @param type
+   *          the resource type
+   */
+  public void invalidate(Resource.Type type) {
+    if (m_cache != null) {
+      m_generation.incrementAndGet();
+      for (QueryKey key : m_cache.asMap().keySet()) {
+        if (key.type.equals(type)) {
+          m_cache.invalidate(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drop all cached results.
+   */
+  public void invalidateAll() {
+    if (m_cache != null) {
+      m_generation.incrementAndGet();
+      m_cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Cluster, service, host and maintenance mode changes may affect the
+   * results of any resource type.
+   *
+   * @param event
+   *          the event
+   */
+  @Subscribe
+  public void onAmbariEvent(AmbariEvent event) {
+    invalidateAll();
+  }
+
+  /**
+   * Component version changes affect the version resources and the host
+   * components.
+   *
+   * @param event
+   *          the event
+   */
+  @Subscribe
+  public void onHostComponentVersionEvent(HostComponentVersionEvent event) {
+    invalidateAll();
+  }
+
+  /**
+   * Alert state changes affect the alert resources. Alerts received without a
+   * state change only refresh timestamps and expire with the cache.
+   *
+   * @param event
+   *          the event
+   */
+  @Subscribe
+  public void onAlertStateChangeEvent(AlertStateChangeEvent event) {
+    invalidate(Resource.Type.Alert);
+    invalidate(Resource.Type.AlertHistory);
+    invalidate(Resource.Type.AlertNotice);
+  }
+
+  /**
+   * Queries for metrics over time are not cached.
+   */
+  private static boolean isCacheable(Request request) {
+    for (String propertyId : request.getPropertyIds()) {
+      if (request.getTemporalInfo(propertyId) != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the identity of a page request; page requests do not implement
+   * equality.
+   */
+  private static List<Object> getPageKey(PageRequest pageRequest) {
+    if (pageRequest == null) {
+      return Collections.emptyList();
+    }
+    return Arrays.<Object>asList(pageRequest.getStartingPoint(), pageRequest.getPageSize(),
+        pageRequest.getOffset(), pageRequest.getPredicate());
+  }
+
+  /**
+   * Get the identity of a sort request; sort requests do not implement
+   * equality.
+   */
+  private static List<String> getSortKey(SortRequest sortRequest) {
+    if (sortRequest == null) {
+      return Collections.emptyList();
+    }
+    List<String> sortKey = new ArrayList<String>();
+    for (SortRequestProperty property : sortRequest.getProperties()) {
+      sortKey.add(property.getPropertyId() + ' ' + property.getOrder());
+    }
+    return sortKey;
+  }
+
+  /**
+   * Copy the resources of a query response.
+   */
+  private static QueryResponse copy(QueryResponse response) {
+    Set<Resource> resources = new LinkedHashSet<Resource>();
+    for (Resource resource : response.getResources()) {
+      resources.add(resource instanceof CompactResourceImpl ?
+          new CompactResourceImpl(resource) : new ResourceImpl(resource));
+    }
+    return new QueryResponseImpl(resources, response.isSortedResponse(),
+        response.isPagedResponse(), response.getTotalResourceCount());
+  }
+
+  private static Exception unwrap(Throwable cause, Exception e) {
+    if (cause instanceof Exception) {
+      return (Exception) cause;
+    }
+    LOG.error("Unexpected error running a resource query", cause);
+    return e;
+  }
+
+  /**
+   * A cached response and the generation of the cache it was queried in.
+   */
+  private static final class CachedResponse {
+    private final QueryResponse response;
+    private final long generation;
+
+    private CachedResponse(QueryResponse response, long generation) {
+      this.response = response;
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * The identity of a query.
+   */
+  private static final class QueryKey {
+    private final Resource.Type type;
+    private final Predicate predicate;
+    private final Set<String> propertyIds;
+    private final List<Object> pageKey;
+    private final List<String> sortKey;
+    private final Map<String, String> requestInfoProperties;
+    private final String userName;
+
+    private QueryKey(Resource.Type type, Predicate predicate,
+        Set<String> propertyIds, List<Object> pageKey, List<String> sortKey,
+        Map<String, String> requestInfoProperties, String userName) {
+      this.type = type;
+      this.predicate = predicate;
+      this.propertyIds = propertyIds == null ? Collections.<String>emptySet()
+          : new LinkedHashSet<String>(propertyIds);
+      this.pageKey = pageKey;
+      this.sortKey = sortKey;
+      this.requestInfoProperties = requestInfoProperties == null ? Collections.<String, String>emptyMap()
+          : Collections.unmodifiableMap(new HashMap<String, String>(requestInfoProperties));
+      this.userName = userName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      QueryKey that = (QueryKey) o;
+      return type.equals(that.type)
+          && (predicate == null ? that.predicate == null : predicate.equals(that.predicate))
+          && propertyIds.equals(that.propertyIds)
+          && pageKey.equals(that.pageKey)
+          && sortKey.equals(that.sortKey)
+          && requestInfoProperties.equals(that.requestInfoProperties)
+          && (userName == null ? that.userName == null : userName.equals(that.userName));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = type.hashCode();
+      result = 31 * result + (predicate == null ? 0 : predicate.hashCode());
+      result = 31 * result + propertyIds.hashCode();
+      result = 31 * result + pageKey.hashCode();
+      result = 31 * result + sortKey.hashCode();
+      result = 31 * result + requestInfoProperties.hashCode();
+      result = 31 * result + (userName == null ? 0 : userName.hashCode());
+      return result;
+    }
+  }
+}
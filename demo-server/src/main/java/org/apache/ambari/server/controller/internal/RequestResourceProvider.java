@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,14 +33,17 @@ import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.StaticallyInject;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.api.services.BaseRequest;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.ExecuteActionRequest;
 import org.apache.ambari.server.controller.RequestRequest;
 import org.apache.ambari.server.controller.RequestStatusResponse;
+import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
 import org.apache.ambari.server.controller.spi.NoSuchResourceException;
 import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.QueryResponse;
 import org.apache.ambari.server.controller.spi.Request;
 import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
@@ -60,7 +64,8 @@ import org.apache.ambari.server.topology.TopologyManager;
  * Resource provider for request resources.
  */
 @StaticallyInject
-public class RequestResourceProvider extends AbstractControllerResourceProvider {
+public class RequestResourceProvider extends AbstractControllerResourceProvider
+    implements ExtendedResourceProvider {
 
   @Inject
   private static RequestDAO s_requestDAO = null;
@@ -77,17 +82,17 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
   public static final String REQUEST_ID_PROPERTY_ID = "Requests/id";
   protected static final String REQUEST_STATUS_PROPERTY_ID = "Requests/request_status";
   protected static final String REQUEST_ABORT_REASON_PROPERTY_ID = "Requests/abort_reason";
-  protected static final String REQUEST_CONTEXT_ID = "Requests/request_context";
+  public static final String REQUEST_CONTEXT_ID = "Requests/request_context";
   public static final String REQUEST_SOURCE_SCHEDULE = "Requests/request_schedule";
   public static final String REQUEST_SOURCE_SCHEDULE_ID = "Requests/request_schedule/schedule_id";
   public static final String REQUEST_SOURCE_SCHEDULE_HREF = "Requests/request_schedule/href";
-  protected static final String REQUEST_TYPE_ID = "Requests/type";
+  public static final String REQUEST_TYPE_ID = "Requests/type";
   protected static final String REQUEST_INPUTS_ID = "Requests/inputs";
   protected static final String REQUEST_RESOURCE_FILTER_ID = "Requests/resource_filters";
   protected static final String REQUEST_OPERATION_LEVEL_ID = "Requests/operation_level";
-  protected static final String REQUEST_CREATE_TIME_ID = "Requests/create_time";
-  protected static final String REQUEST_START_TIME_ID = "Requests/start_time";
-  protected static final String REQUEST_END_TIME_ID = "Requests/end_time";
+  public static final String REQUEST_CREATE_TIME_ID = "Requests/create_time";
+  public static final String REQUEST_START_TIME_ID = "Requests/start_time";
+  public static final String REQUEST_END_TIME_ID = "Requests/end_time";
   protected static final String REQUEST_EXCLUSIVE_ID = "Requests/exclusive";
   protected static final String REQUEST_TASK_CNT_ID = "Requests/task_count";
   protected static final String REQUEST_FAILED_TASK_CNT_ID = "Requests/failed_task_count";
@@ -205,6 +210,58 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
     return resources;
   }
 
+  // ----- ExtendedResourceProvider ------------------------------------------
+
+  @Override
+  public QueryResponse queryForResources(Request request, Predicate predicate)
+      throws SystemException, UnsupportedPropertyException,
+      NoSuchResourceException, NoSuchParentResourceException {
+
+    // only explicitly paged reads of the requests of a single cluster are
+    // pushed down; other reads keep the request id based lookups and the
+    // default page size, and logical requests only exist in memory
+    String clusterName = null;
+    boolean translatable = null != predicate && null != request.getPageRequest()
+        && topologyManager.getRequests(Collections.<Long>emptyList()).isEmpty();
+
+    if (translatable) {
+      Set<String> clusterNames = new HashSet<String>();
+      for (Map<String, Object> properties : getPropertyMaps(predicate)) {
+        clusterNames.add((String) properties.get(REQUEST_CLUSTER_NAME_PROPERTY_ID));
+        translatable &= null == properties.get(REQUEST_ID_PROPERTY_ID);
+      }
+
+      translatable &= clusterNames.size() == 1 && !clusterNames.contains(null);
+      if (translatable) {
+        clusterName = clusterNames.iterator().next();
+      }
+    }
+
+    JpaQueryTranslator.Page<RequestEntity> page = null;
+    if (translatable) {
+      try {
+        // validate that the cluster exists, as the lookups do
+        getManagementController().getClusters().getCluster(clusterName);
+      } catch (AmbariException e) {
+        throw new NoSuchParentResourceException(e.getMessage(), e);
+      }
+
+      page = s_requestDAO.findPage(request, predicate, getKeyPropertyIds());
+    }
+
+    if (null == page) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    Set<String> requestedIds = getRequestPropertyIds(request, predicate);
+    Set<Resource> resources = new LinkedHashSet<Resource>();
+    for (RequestEntity entity : page.getEntities()) {
+      resources.add(getRequestResource(entity, clusterName, requestedIds));
+    }
+
+    return new QueryResponseImpl(resources, true, page.isPaged(), page.getTotalCount());
+  }
+
   @Override
   public RequestStatus updateResources(Request requestInfo, Predicate predicate)
           throws SystemException, UnsupportedPropertyException,
@@ -0,0 +1,333 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The interned property ids of a resource type. Each distinct property is
+ * assigned a slot holding its pre-split category and name so that
+ * {@link CompactResourceImpl} can store property values in an array instead
+ * of nested maps.
+ * <p/>
+ * Slots are only ever added; the index of a slot never changes. The number of
+ * slots and categories of a type is capped since some property ids, such as
+ * those of metrics, are generated dynamically; resources keep the properties
+ * which do not fit into the schema in a map instead.
+ */
+public final class ResourcePropertySchema {
+
+  /**
+   * The schemas keyed by resource type.
+   */
+  private static final ConcurrentMap<Resource.Type, ResourcePropertySchema> SCHEMAS =
+      new ConcurrentHashMap<Resource.Type, ResourcePropertySchema>();
+
+  /**
+   * The maximum number of slots, and of categories, of a resource type.
+   */
+  static final int MAX_SIZE = 1024;
+
+  /**
+   * Recorded for the property ids which did not fit into a full schema, so
+   * that they are rejected without taking the lock again.
+   */
+  private static final Slot OVERFLOW = new Slot(-1, "", "", -1);
+
+  /**
+   * The resource type.
+   */
+  private final Resource.Type type;
+
+  /**
+   * The slots keyed by the property id as given by the callers;
+   * {@link #OVERFLOW} for the ids which did not fit.
+   */
+  private final ConcurrentMap<String, Slot> slotsById = new ConcurrentHashMap<String, Slot>();
+
+  /**
+   * The slots keyed by category and name.
+   */
+  private final ConcurrentMap<String, Slot> slotsByKey = new ConcurrentHashMap<String, Slot>();
+
+  /**
+   * The slots ordered by index.
+   */
+  private volatile Slot[] slots = new Slot[0];
+
+  /**
+   * The category keys ordered by index.
+   */
+  private final List<String> categories = new ArrayList<String>();
+
+  /**
+   * The category indexes keyed by category key.
+   */
+  private final ConcurrentMap<String, Integer> categoryIndexes = new ConcurrentHashMap<String, Integer>();
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Create a schema for the given resource type.
+   *
+   * @param type  the resource type
+   */
+  private ResourcePropertySchema(Resource.Type type) {
+    this.type = type;
+  }
+
+
+  // ----- ResourcePropertySchema --------------------------------------------
+
+  /**
+   * Get the schema of the given resource type.
+   *
+   * @param type  the resource type
+   *
+   * @return the schema shared by all resources of the type
+   */
+  public static ResourcePropertySchema getSchema(Resource.Type type) {
+    ResourcePropertySchema schema = SCHEMAS.get(type);
+    if (schema == null) {
+      schema = new ResourcePropertySchema(type);
+      ResourcePropertySchema existing = SCHEMAS.putIfAbsent(type, schema);
+      if (existing != null) {
+        schema = existing;
+      }
+    }
+    return schema;
+  }
+
+  /**
+   * Get the resource type.
+   *
+   * @return the resource type
+   */
+  public Resource.Type getType() {
+    return type;
+  }
+
+  /**
+   * Get the number of slots.
+   *
+   * @return the number of slots
+   */
+  public int size() {
+    return slots.length;
+  }
+
+  /**
+   * Get the slot with the given index.
+   *
+   * @param index  the slot index
+   *
+   * @return the slot
+   */
+  Slot getSlot(int index) {
+    return slots[index];
+  }
+
+  /**
+   * Get the number of categories.
+   *
+   * @return the number of categories
+   */
+  int getCategoryCount() {
+    return categoryIndexes.size();
+  }
+
+  /**
+   * Get the category key with the given index.
+   *
+   * @param index  the category index
+   *
+   * @return the category key; "" for properties without a category
+   */
+  synchronized String getCategory(int index) {
+    return categories.get(index);
+  }
+
+  /**
+   * Get the index of the given category, adding it if required.
+   *
+   * @param category  the category id; may be null
+   *
+   * @return the category index; -1 if the schema is full
+   */
+  int getCategoryIndex(String category) {
+    String categoryKey = getCategoryKey(category);
+    Integer index = categoryIndexes.get(categoryKey);
+    return index == null ? addCategory(categoryKey) : index;
+  }
+
+  /**
+   * Find the index of the given category without adding it.
+   *
+   * @param category  the category id; may be null
+   *
+   * @return the category index; -1 if the category is not part of the schema
+   */
+  int findCategoryIndex(String category) {
+    Integer index = categoryIndexes.get(getCategoryKey(category));
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Get the slot of the given property id, adding it if required.
+   *
+   * @param propertyId  the property id
+   *
+   * @return the slot; null if the property is not part of the schema and the
+   *         schema is full
+   */
+  Slot getSlot(String propertyId) {
+    Slot slot = slotsById.get(propertyId);
+    if (slot == null) {
+      slot = addSlot(propertyId);
+    }
+    return slot == OVERFLOW ? null : slot;
+  }
+
+  /**
+   * Find the slot of the given property id without adding it.
+   *
+   * @param propertyId  the property id
+   *
+   * @return the slot; null if no resource of the type has set the property
+   */
+  Slot findSlot(String propertyId) {
+    Slot slot = slotsById.get(propertyId);
+    if (slot == OVERFLOW) {
+      return null;
+    }
+    if (slot == null) {
+      String categoryKey = getCategoryKey(PropertyHelper.getPropertyCategory(propertyId));
+      slot = slotsByKey.get(getSlotKey(categoryKey, PropertyHelper.getPropertyName(propertyId)));
+      if (slot != null) {
+        slotsById.putIfAbsent(propertyId, slot);
+      }
+    }
+    return slot;
+  }
+
+
+  // ----- helper methods ----------------------------------------------------
+
+  /**
+   * Add the slot of the given property id. Property ids with the same
+   * category and name share a slot.
+   *
+   * @return the slot; {@link #OVERFLOW} if the schema is full
+   */
+  private synchronized Slot addSlot(String propertyId) {
+    Slot slot = slotsById.get(propertyId);
+    if (slot != null) {
+      return slot;
+    }
+
+    String categoryKey = getCategoryKey(PropertyHelper.getPropertyCategory(propertyId));
+    String name = PropertyHelper.getPropertyName(propertyId);
+    String slotKey = getSlotKey(categoryKey, name);
+
+    slot = slotsByKey.get(slotKey);
+    if (slot == null) {
+      int categoryIndex = getCategoryIndex(categoryKey);
+      if (slots.length >= MAX_SIZE || categoryIndex < 0) {
+        slotsById.put(propertyId, OVERFLOW);
+        return OVERFLOW;
+      }
+
+      Slot[] current = slots;
+      Slot[] updated = new Slot[current.length + 1];
+      System.arraycopy(current, 0, updated, 0, current.length);
+
+      slot = new Slot(current.length, categoryKey, name, categoryIndex);
+      updated[current.length] = slot;
+
+      // publish the slot array before the slot may be found by its key
+      slots = updated;
+      slotsByKey.put(slotKey, slot);
+    }
+    slotsById.put(propertyId, slot);
+    return slot;
+  }
+
+  private synchronized int addCategory(String categoryKey) {
+    Integer index = categoryIndexes.get(categoryKey);
+    if (index == null) {
+      if (categories.size() >= MAX_SIZE) {
+        return -1;
+      }
+      index = categories.size();
+      categories.add(categoryKey);
+      categoryIndexes.put(categoryKey, index);
+    }
+    return index;
+  }
+
+  private static String getCategoryKey(String category) {
+    return category == null ? "" : category;
+  }
+
+  private static String getSlotKey(String categoryKey, String name) {
+    return categoryKey + '\u0000' + name;
+  }
+
+
+  // ----- inner class : Slot ------------------------------------------------
+
+  /**
+   * A property of the resource type.
+   */
+  static final class Slot {
+
+    /**
+     * The index of the value in the resources.
+     */
+    final int index;
+
+    /**
+     * The category key; "" for properties without a category.
+     */
+    final String category;
+
+    /**
+     * The property name.
+     */
+    final String name;
+
+    /**
+     * The index of the category.
+     */
+    final int categoryIndex;
+
+    private Slot(int index, String category, String name, int categoryIndex) {
+      this.index = index;
+      this.category = category;
+      this.name = name;
+      this.categoryIndex = categoryIndex;
+    }
+  }
+}
@@ -32,6 +32,7 @@ import javax.inject.Provider;
 
 import org.apache.ambari.server.StaticallyInject;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
@@ -44,6 +45,7 @@ import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.ResourceAlreadyExistsException;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
+import org.apache.ambari.server.orm.dao.BlobDAO;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 import org.apache.ambari.server.orm.dao.HostRoleCommandStatusSummaryDTO;
 import org.apache.ambari.server.orm.dao.StageDAO;
@@ -70,6 +72,12 @@ public class StageResourceProvider extends AbstractControllerResourceProvider im
   @Inject
   private static HostRoleCommandDAO hostRoleCommandDAO = null;
 
+  /**
+   * Used for resolving stage parameters kept in the blob store.
+   */
+  @Inject
+  private static BlobDAO blobDAO = null;
+
   @Inject
   private static Provider<Clusters> clustersProvider = null;
 
@@ -226,6 +234,27 @@ public class StageResourceProvider extends AbstractControllerResourceProvider im
       throws SystemException, UnsupportedPropertyException,
       NoSuchResourceException, NoSuchParentResourceException {
 
+    // stages of logical requests only exist in memory, so they can only be
+    // merged into a query which is processed by the cluster controller
+    if (topologyManager.getStages().isEmpty()) {
+      JpaQueryTranslator.Page<StageEntity> page = dao.findPage(request,
+          predicate, getKeyPropertyIds());
+
+      if (null != page) {
+        Set<Resource> results = new LinkedHashSet<Resource>();
+        Set<String> propertyIds = getRequestPropertyIds(request, predicate);
+
+        Map<Long, Map<Long, HostRoleCommandStatusSummaryDTO>> cache =
+            new HashMap<Long, Map<Long, HostRoleCommandStatusSummaryDTO>>();
+
+        for (StageEntity entity : page.getEntities()) {
+          results.add(toResource(cache, entity, propertyIds));
+        }
+
+        return new QueryResponseImpl(results, true, page.isPaged(), page.getTotalCount());
+      }
+    }
+
     Set<Resource> results = getResources(request, predicate);
 
     return new QueryResponseImpl(results, request.getSortRequest() != null, false, results.size());
@@ -269,17 +298,17 @@ public class StageResourceProvider extends AbstractControllerResourceProvider im
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_CLUSTER_HOST_INFO, requestedIds)) {
-      resource.setProperty(STAGE_CLUSTER_HOST_INFO, entity.getClusterHostInfo());
+      resource.setProperty(STAGE_CLUSTER_HOST_INFO, blobDAO.resolve(entity.getClusterHostInfo()));
     }
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_COMMAND_PARAMS, requestedIds)) {
-      resource.setProperty(STAGE_COMMAND_PARAMS, entity.getCommandParamsStage());
+      resource.setProperty(STAGE_COMMAND_PARAMS, blobDAO.resolve(entity.getCommandParamsStage()));
     }
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_HOST_PARAMS, requestedIds)) {
-      resource.setProperty(STAGE_HOST_PARAMS, entity.getHostParamsStage());
+      resource.setProperty(STAGE_HOST_PARAMS, blobDAO.resolve(entity.getHostParamsStage()));
     }
 
     setResourceProperty(resource, STAGE_SKIPPABLE, entity.isSkippable(), requestedIds);
@@ -336,17 +365,17 @@ public class StageResourceProvider extends AbstractControllerResourceProvider im
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_CLUSTER_HOST_INFO, requestedIds)) {
-      resource.setProperty(STAGE_CLUSTER_HOST_INFO, entity.getClusterHostInfo());
+      resource.setProperty(STAGE_CLUSTER_HOST_INFO, blobDAO.resolve(entity.getClusterHostInfo()));
     }
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_COMMAND_PARAMS, requestedIds)) {
-      resource.setProperty(STAGE_COMMAND_PARAMS, entity.getCommandParamsStage());
+      resource.setProperty(STAGE_COMMAND_PARAMS, blobDAO.resolve(entity.getCommandParamsStage()));
     }
 
     // this property is lazy loaded in JPA; don't use it unless requested
     if (isPropertyRequested(STAGE_HOST_PARAMS, requestedIds)) {
-      resource.setProperty(STAGE_HOST_PARAMS, entity.getHostParamsStage());
+      resource.setProperty(STAGE_HOST_PARAMS, blobDAO.resolve(entity.getHostParamsStage()));
     }
 
     setResourceProperty(resource, STAGE_SKIPPABLE, entity.isSkippable(), requestedIds);
@@ -20,51 +20,73 @@ package org.apache.ambari.server.controller.internal;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.inject.Inject;
+
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.StaticallyInject;
+import org.apache.ambari.server.actionmanager.CommandOutputType;
+import org.apache.ambari.server.actionmanager.HostRoleCommandFactory;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.TaskStatusRequest;
 import org.apache.ambari.server.controller.TaskStatusResponse;
+import org.apache.ambari.server.controller.spi.ExtendedResourceProvider;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
 import org.apache.ambari.server.controller.spi.NoSuchResourceException;
 import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.QueryResponse;
 import org.apache.ambari.server.controller.spi.Request;
 import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
 import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.apache.ambari.server.topology.TopologyManager;
 import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * Resource provider for task resources.
  */
-class TaskResourceProvider extends AbstractControllerResourceProvider {
+@StaticallyInject
+public class TaskResourceProvider extends AbstractControllerResourceProvider
+    implements ExtendedResourceProvider {
 
   // ----- Property ID constants ---------------------------------------------
 
   // Tasks
-  protected static final String TASK_CLUSTER_NAME_PROPERTY_ID = PropertyHelper.getPropertyId("Tasks", "cluster_name");
-  protected static final String TASK_REQUEST_ID_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "request_id");
-  protected static final String TASK_ID_PROPERTY_ID           = PropertyHelper.getPropertyId("Tasks", "id");
-  protected static final String TASK_STAGE_ID_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "stage_id");
-  protected static final String TASK_HOST_NAME_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "host_name");
-  protected static final String TASK_ROLE_PROPERTY_ID         = PropertyHelper.getPropertyId("Tasks", "role");
-  protected static final String TASK_COMMAND_PROPERTY_ID      = PropertyHelper.getPropertyId("Tasks", "command");
-  protected static final String TASK_STATUS_PROPERTY_ID       = PropertyHelper.getPropertyId("Tasks", "status");
-  protected static final String TASK_EXIT_CODE_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "exit_code");
-  protected static final String TASK_STDERR_PROPERTY_ID       = PropertyHelper.getPropertyId("Tasks", "stderr");
-  protected static final String TASK_STOUT_PROPERTY_ID        = PropertyHelper.getPropertyId("Tasks", "stdout");
-  protected static final String TASK_OUTPUTLOG_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "output_log");
-  protected static final String TASK_ERRORLOG_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "error_log");
-  protected static final String TASK_STRUCT_OUT_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "structured_out");
-  protected static final String TASK_START_TIME_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "start_time");
-  protected static final String TASK_END_TIME_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "end_time");
-  protected static final String TASK_ATTEMPT_CNT_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "attempt_cnt");
-  protected static final String TASK_COMMAND_DET_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "command_detail");
-  protected static final String TASK_CUST_CMD_NAME_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "custom_command_name");
+  public static final String TASK_CLUSTER_NAME_PROPERTY_ID = PropertyHelper.getPropertyId("Tasks", "cluster_name");
+  public static final String TASK_REQUEST_ID_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "request_id");
+  public static final String TASK_ID_PROPERTY_ID           = PropertyHelper.getPropertyId("Tasks", "id");
+  public static final String TASK_STAGE_ID_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "stage_id");
+  public static final String TASK_HOST_NAME_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "host_name");
+  public static final String TASK_ROLE_PROPERTY_ID         = PropertyHelper.getPropertyId("Tasks", "role");
+  public static final String TASK_COMMAND_PROPERTY_ID      = PropertyHelper.getPropertyId("Tasks", "command");
+  public static final String TASK_STATUS_PROPERTY_ID       = PropertyHelper.getPropertyId("Tasks", "status");
+  public static final String TASK_EXIT_CODE_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "exit_code");
+  public static final String TASK_STDERR_PROPERTY_ID       = PropertyHelper.getPropertyId("Tasks", "stderr");
+  public static final String TASK_STOUT_PROPERTY_ID        = PropertyHelper.getPropertyId("Tasks", "stdout");
+  public static final String TASK_OUTPUTLOG_PROPERTY_ID    = PropertyHelper.getPropertyId("Tasks", "output_log");
+  public static final String TASK_ERRORLOG_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "error_log");
+  public static final String TASK_STRUCT_OUT_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "structured_out");
+  public static final String TASK_START_TIME_PROPERTY_ID   = PropertyHelper.getPropertyId("Tasks", "start_time");
+  public static final String TASK_END_TIME_PROPERTY_ID     = PropertyHelper.getPropertyId("Tasks", "end_time");
+  public static final String TASK_ATTEMPT_CNT_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "attempt_cnt");
+  public static final String TASK_COMMAND_DET_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "command_detail");
+  public static final String TASK_CUST_CMD_NAME_PROPERTY_ID  = PropertyHelper.getPropertyId("Tasks", "custom_command_name");
+
+  /**
+   * Read directives selecting the range of the stdout and stderr to return.
+   * The offset and length are in bytes; by default the entire output is
+   * returned.
+   */
+  public static final String OUTPUT_OFFSET_DIRECTIVE = "offset";
+  public static final String OUTPUT_LENGTH_DIRECTIVE = "length";
 
   private static Set<String> pkPropertyIds =
       new HashSet<String>(Arrays.asList(new String[]{
@@ -75,6 +97,21 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
    */
   private static final ObjectMapper mapper = new ObjectMapper();
 
+  /**
+   * Used to query tasks directly when a query can be pushed down into JPA.
+   */
+  @Inject
+  private static HostRoleCommandDAO hostRoleCommandDAO;
+
+  @Inject
+  private static HostRoleCommandFactory hostRoleCommandFactory;
+
+  /**
+   * Holds the logical tasks of topology requests, which are not persisted.
+   */
+  @Inject
+  private static TopologyManager topologyManager;
+
   // ----- Constructors ----------------------------------------------------
 
   /**
@@ -139,44 +176,138 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 
       resources = new HashSet<Resource>();
       for (TaskStatusResponse response : responses) {
-        Resource resource = new ResourceImpl(Resource.Type.Task);
-
-        // !!! shocked this isn't broken.  the key can be null for non-cluster tasks
-        if (null != entry.getKey())
-          setResourceProperty(resource, TASK_CLUSTER_NAME_PROPERTY_ID, entry.getKey(), requestedIds);  
-        
-        setResourceProperty(resource, TASK_REQUEST_ID_PROPERTY_ID, response.getRequestId(), requestedIds);
-        setResourceProperty(resource, TASK_ID_PROPERTY_ID, response.getTaskId(), requestedIds);
-        setResourceProperty(resource, TASK_STAGE_ID_PROPERTY_ID, response.getStageId(), requestedIds);
-        setResourceProperty(resource, TASK_HOST_NAME_PROPERTY_ID, response.getHostName(), requestedIds);
-        setResourceProperty(resource, TASK_ROLE_PROPERTY_ID, response.getRole(), requestedIds);
-        setResourceProperty(resource, TASK_COMMAND_PROPERTY_ID, response.getCommand(), requestedIds);
-        setResourceProperty(resource, TASK_STATUS_PROPERTY_ID, response.getStatus(), requestedIds);
-        setResourceProperty(resource, TASK_EXIT_CODE_PROPERTY_ID, response.getExitCode(), requestedIds);
-        setResourceProperty(resource, TASK_STDERR_PROPERTY_ID, response.getStderr(), requestedIds);
-        setResourceProperty(resource, TASK_STOUT_PROPERTY_ID, response.getStdout(), requestedIds);
-        setResourceProperty(resource, TASK_OUTPUTLOG_PROPERTY_ID, response.getOutputLog(), requestedIds);
-        setResourceProperty(resource, TASK_ERRORLOG_PROPERTY_ID, response.getErrorLog(), requestedIds);
-        setResourceProperty(resource, TASK_STRUCT_OUT_PROPERTY_ID, parseStructuredOutput(response.getStructuredOut()), requestedIds);
-        setResourceProperty(resource, TASK_START_TIME_PROPERTY_ID, response.getStartTime(), requestedIds);
-        setResourceProperty(resource, TASK_END_TIME_PROPERTY_ID, response.getEndTime(), requestedIds);
-        setResourceProperty(resource, TASK_ATTEMPT_CNT_PROPERTY_ID, response.getAttemptCount(), requestedIds);
-
-        if (response.getCustomCommandName() != null) {
-          setResourceProperty(resource, TASK_CUST_CMD_NAME_PROPERTY_ID, response.getCustomCommandName(), requestedIds);
-        }
+        resources.add(toResource(entry.getKey(), response, requestedIds, request));
+      }
+    }
+    return resources;
+  }
 
-        if (response.getCommandDetail() == null) {
-          setResourceProperty(resource, TASK_COMMAND_DET_PROPERTY_ID,
-              String.format("%s %s", response.getRole(), response.getCommand()), requestedIds);
-        } else {
-          setResourceProperty(resource, TASK_COMMAND_DET_PROPERTY_ID, response.getCommandDetail(), requestedIds);
-        }
+  // ----- ExtendedResourceProvider ------------------------------------------
 
-        resources.add(resource);
+  @Override
+  public QueryResponse queryForResources(Request request, Predicate predicate)
+      throws SystemException, UnsupportedPropertyException,
+      NoSuchResourceException, NoSuchParentResourceException {
+
+    // the cluster name of a task is taken from the query, so the query can
+    // only be pushed down if it targets tasks of a single cluster and request
+    Set<Map<String, Object>> propertyMaps = getPropertyMaps(predicate);
+    Set<String> clusterNames = new HashSet<String>();
+    Set<Long> requestIds = new HashSet<Long>();
+    boolean requestIdsPresent = true;
+
+    for (Map<String, Object> propertyMap : propertyMaps) {
+      clusterNames.add((String) propertyMap.get(TASK_CLUSTER_NAME_PROPERTY_ID));
+
+      Object requestId = propertyMap.get(TASK_REQUEST_ID_PROPERTY_ID);
+      requestIdsPresent &= null != requestId;
+      if (null != requestId) {
+        requestIds.add(Long.valueOf(requestId.toString()));
       }
     }
-    return resources;
+
+    if (propertyMaps.isEmpty() || !requestIdsPresent || clusterNames.size() != 1) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    // the tasks of requests which are still being provisioned by the
+    // topology manager only exist in memory
+    if (!topologyManager.getTasks(requestIds).isEmpty()) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    JpaQueryTranslator.Page<HostRoleCommandEntity> page = hostRoleCommandDAO.findPage(
+        request, predicate, getKeyPropertyIds());
+
+    if (null == page) {
+      return new QueryResponseImpl(getResources(request, predicate));
+    }
+
+    if (page.getTotalCount() == 0) {
+      throw new NoSuchResourceException("Task resource doesn't exist.");
+    }
+
+    String clusterName = clusterNames.iterator().next();
+    Set<String> requestedIds = getRequestPropertyIds(request, predicate);
+    Set<Resource> resources = new LinkedHashSet<Resource>();
+
+    for (HostRoleCommandEntity entity : page.getEntities()) {
+      TaskStatusResponse response = new TaskStatusResponse(
+          hostRoleCommandFactory.createExisting(entity));
+
+      resources.add(toResource(clusterName, response, requestedIds, request));
+    }
+
+    return new QueryResponseImpl(resources, true, page.isPaged(), page.getTotalCount());
+  }
+
+  /**
+   * Converts a {@link TaskStatusResponse} to a {@link Resource}.
+   *
+   * @param clusterName   the cluster name of the query, or {@code null}
+   * @param response      the task to convert (not {@code null})
+   * @param requestedIds  the properties requested (not {@code null})
+   * @param request       the read request, holding the output range
+   *
+   * @return the new resource
+   */
+  private Resource toResource(String clusterName, TaskStatusResponse response,
+      Set<String> requestedIds, Request request) {
+    Resource resource = new ResourceImpl(Resource.Type.Task);
+
+    // !!! shocked this isn't broken.  the key can be null for non-cluster tasks
+    if (null != clusterName)
+      setResourceProperty(resource, TASK_CLUSTER_NAME_PROPERTY_ID, clusterName, requestedIds);  
+    
+    setResourceProperty(resource, TASK_REQUEST_ID_PROPERTY_ID, response.getRequestId(), requestedIds);
+    setResourceProperty(resource, TASK_ID_PROPERTY_ID, response.getTaskId(), requestedIds);
+    setResourceProperty(resource, TASK_STAGE_ID_PROPERTY_ID, response.getStageId(), requestedIds);
+    setResourceProperty(resource, TASK_HOST_NAME_PROPERTY_ID, response.getHostName(), requestedIds);
+    setResourceProperty(resource, TASK_ROLE_PROPERTY_ID, response.getRole(), requestedIds);
+    setResourceProperty(resource, TASK_COMMAND_PROPERTY_ID, response.getCommand(), requestedIds);
+    setResourceProperty(resource, TASK_STATUS_PROPERTY_ID, response.getStatus(), requestedIds);
+    setResourceProperty(resource, TASK_EXIT_CODE_PROPERTY_ID, response.getExitCode(), requestedIds);
+    setResourceProperty(resource, TASK_OUTPUTLOG_PROPERTY_ID, response.getOutputLog(), requestedIds);
+    setResourceProperty(resource, TASK_ERRORLOG_PROPERTY_ID, response.getErrorLog(), requestedIds);
+
+    // the output is kept in a separate store; only read it when requested
+    if (isPropertyRequested(TASK_STDERR_PROPERTY_ID, requestedIds)
+        || isPropertyRequested(TASK_STOUT_PROPERTY_ID, requestedIds)) {
+      long offset = getOutputDirective(request, OUTPUT_OFFSET_DIRECTIVE, 0L);
+      int length = (int) getOutputDirective(request, OUTPUT_LENGTH_DIRECTIVE, -1L);
+
+      if (isPropertyRequested(TASK_STDERR_PROPERTY_ID, requestedIds)) {
+        resource.setProperty(TASK_STDERR_PROPERTY_ID,
+            response.getOutput(CommandOutputType.STDERR, offset, length));
+      }
+
+      if (isPropertyRequested(TASK_STOUT_PROPERTY_ID, requestedIds)) {
+        resource.setProperty(TASK_STOUT_PROPERTY_ID,
+            response.getOutput(CommandOutputType.STDOUT, offset, length));
+      }
+    }
+
+    if (isPropertyRequested(TASK_STRUCT_OUT_PROPERTY_ID, requestedIds)) {
+      resource.setProperty(TASK_STRUCT_OUT_PROPERTY_ID,
+          parseStructuredOutput(response.getStructuredOut()));
+    }
+
+    setResourceProperty(resource, TASK_START_TIME_PROPERTY_ID, response.getStartTime(), requestedIds);
+    setResourceProperty(resource, TASK_END_TIME_PROPERTY_ID, response.getEndTime(), requestedIds);
+    setResourceProperty(resource, TASK_ATTEMPT_CNT_PROPERTY_ID, response.getAttemptCount(), requestedIds);
+
+    if (response.getCustomCommandName() != null) {
+      setResourceProperty(resource, TASK_CUST_CMD_NAME_PROPERTY_ID, response.getCustomCommandName(), requestedIds);
+    }
+
+    if (response.getCommandDetail() == null) {
+      setResourceProperty(resource, TASK_COMMAND_DET_PROPERTY_ID,
+          String.format("%s %s", response.getRole(), response.getCommand()), requestedIds);
+    } else {
+      setResourceProperty(resource, TASK_COMMAND_DET_PROPERTY_ID, response.getCommandDetail(), requestedIds);
+    }
+
+    return resource;
   }
 
   /**
@@ -217,6 +348,35 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 
   // ----- utility methods -------------------------------------------------
 
+  /**
+   * Gets the value of an output range directive of the request.
+   *
+   * @param request       the read request
+   * @param directive     the directive name
+   * @param defaultValue  the value if the directive is not present
+   *
+   * @return the value of the directive
+   *
+   * @throws IllegalArgumentException if the value is not a valid number
+   */
+  private long getOutputDirective(Request request, String directive, long defaultValue) {
+    Map<String, String> requestInfoProperties = request.getRequestInfoProperties();
+    String value = requestInfoProperties == null ? null : requestInfoProperties.get(directive);
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+
+    try {
+      long result = Long.parseLong(value);
+      if (result < 0 || (OUTPUT_LENGTH_DIRECTIVE.equals(directive) && result > Integer.MAX_VALUE)) {
+        throw new IllegalArgumentException("Invalid value for " + directive + ": " + value);
+      }
+      return result;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value for " + directive + ": " + value, e);
+    }
+  }
+
   @Override
   protected Set<String> getPKPropertyIds() {
     return pkPropertyIds;
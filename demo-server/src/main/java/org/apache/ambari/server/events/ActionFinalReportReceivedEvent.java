@@ -63,6 +63,11 @@ public final class ActionFinalReportReceivedEvent extends AmbariEvent {
     return clusterId;
   }
 
+  @Override
+  public Object getPartitionKey() {
+    return clusterId != null ? clusterId : hostname;
+  }
+
   public String getHostname() {
     return hostname;
   }
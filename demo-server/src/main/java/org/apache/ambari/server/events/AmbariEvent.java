@@ -126,4 +126,16 @@ public abstract class AmbariEvent {
   public AmbariEventType getType() {
     return m_eventType;
   }
+
+  /**
+   * Gets the key of the entity that the event is about. Events with the same
+   * key are delivered to listeners in the order in which they were published;
+   * events with different keys may be delivered concurrently. Events about a
+   * host are keyed by its host name, whichever cluster they belong to.
+   *
+   * @return the key, or {@code null} if the event is not scoped to an entity.
+   */
+  public Object getPartitionKey() {
+    return null;
+  }
 }
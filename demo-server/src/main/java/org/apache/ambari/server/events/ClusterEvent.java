@@ -47,4 +47,12 @@ public class ClusterEvent extends AmbariEvent {
     return m_clusterId;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getPartitionKey() {
+    return m_clusterId;
+  }
+
 }
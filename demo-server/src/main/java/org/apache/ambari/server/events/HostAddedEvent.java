@@ -48,4 +48,15 @@ public class HostAddedEvent extends ClusterEvent {
   public String getHostName() {
     return m_hostName;
   }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Keyed by host name like the other host events, so that it is delivered
+   * after the registration of the host.
+   */
+  @Override
+  public Object getPartitionKey() {
+    return m_hostName;
+  }
 }
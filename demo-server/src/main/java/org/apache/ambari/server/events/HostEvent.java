@@ -46,4 +46,12 @@ public abstract class HostEvent extends AmbariEvent {
   public String getHostName() {
     return m_hostName;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getPartitionKey() {
+    return m_hostName;
+  }
 }
@@ -151,6 +151,30 @@ public class MaintenanceModeEvent extends AmbariEvent {
     return m_state;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Host and host component events are keyed by host name, so the changes of
+   * a host and of its components are delivered in order. Service events are
+   * keyed by the cluster they belong to.
+   */
+  @Override
+  public Object getPartitionKey() {
+    if (null != m_host) {
+      return m_host.getHostName();
+    }
+
+    if (null != m_serviceComponentHost) {
+      return m_serviceComponentHost.getHostName();
+    }
+
+    if (null != m_service) {
+      return m_service.getClusterId();
+    }
+
+    return null;
+  }
+
   /**
    * {@inheritDoc}
    */
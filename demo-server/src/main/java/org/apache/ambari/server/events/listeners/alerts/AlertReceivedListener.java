@@ -41,6 +41,7 @@ import org.apache.ambari.server.state.AlertState;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.MaintenanceState;
+import org.apache.ambari.server.state.alert.AlertCurrentStateCache;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +56,8 @@ import com.google.inject.Singleton;
  * The {@link AlertReceivedListener} class handles {@link AlertReceivedEvent}
  * and updates the appropriate DAOs. It may also fire new
  * {@link AlertStateChangeEvent} when an {@link AlertState} change is detected.
+ * Alerts whose state did not change are absorbed by the
+ * {@link AlertCurrentStateCache}, which writes them behind in batches.
  */
 @Singleton
 @EagerSingleton
@@ -70,6 +73,12 @@ public class AlertReceivedListener {
   @Inject
   AlertDefinitionDAO m_definitionDao;
 
+  /**
+   * Absorbs alerts whose state did not change.
+   */
+  @Inject
+  AlertCurrentStateCache m_currentCache;
+
   /**
    * Used for looking up whether an alert has a valid service/component/host
    */
@@ -113,6 +122,7 @@ public class AlertReceivedListener {
     Map<Alert, AlertCurrentEntity> toMerge = new HashMap<Alert, AlertCurrentEntity>();
     Map<Alert, AlertCurrentEntity> toCreateHistoryAndMerge = new HashMap<Alert, AlertCurrentEntity>();
     Map<Alert, AlertState> oldStates = new HashMap<Alert, AlertState>();
+    Map<Alert, AlertDefinitionEntity> definitions = new HashMap<Alert, AlertDefinitionEntity>();
 
     for (Alert alert : alerts) {
       // jobs that were running when a service/component/host was changed
@@ -127,6 +137,12 @@ public class AlertReceivedListener {
         clusterId = event.getClusterId();
       }
 
+      // an alert whose state did not change only advances the latest
+      // timestamp and text, which are written behind by the cache
+      if (m_currentCache.update(clusterId, alert)) {
+        continue;
+      }
+
       AlertDefinitionEntity definition = m_definitionDao.findByName(clusterId,
         alert.getName());
 
@@ -148,6 +164,8 @@ public class AlertReceivedListener {
         continue;
       }
 
+      definitions.put(alert, definition);
+
       AlertCurrentEntity current;
 
       if (StringUtils.isBlank(alert.getHostName()) || definition.isHostIgnored()) {
@@ -203,6 +221,11 @@ public class AlertReceivedListener {
 
     saveEntities(toCreate, toMerge, toCreateHistoryAndMerge);
 
+    // subsequent alerts with the same state can now be absorbed
+    cacheEntities(toCreate, definitions);
+    cacheEntities(toMerge, definitions);
+    cacheEntities(toCreateHistoryAndMerge, definitions);
+
     //broadcast events
     for (Map.Entry<Alert, AlertCurrentEntity> entry : toCreate.entrySet()) {
       Alert alert = entry.getKey();
@@ -250,6 +273,23 @@ public class AlertReceivedListener {
     }
   }
 
+  /**
+   * Records the persisted current alerts in the {@link AlertCurrentStateCache}.
+   *
+   * @param entities
+   *          the persisted current alerts, keyed by the received alert.
+   * @param definitions
+   *          the definitions of the received alerts.
+   */
+  private void cacheEntities(Map<Alert, AlertCurrentEntity> entities,
+      Map<Alert, AlertDefinitionEntity> definitions) {
+    for (Map.Entry<Alert, AlertCurrentEntity> entry : entities.entrySet()) {
+      AlertCurrentEntity current = entry.getValue();
+      m_currentCache.put(current.getAlertHistory().getClusterId(),
+          definitions.get(entry.getKey()), entry.getKey(), current);
+    }
+  }
+
   /**
    * Saves alert and alert history entities in single transaction
    * @param toCreate - new alerts, create alert and history
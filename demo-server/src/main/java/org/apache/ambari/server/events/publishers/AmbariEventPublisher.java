@@ -17,34 +17,139 @@
  */
 package org.apache.ambari.server.events.publishers;
 
-import java.util.concurrent.Executors;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.AmbariEvent;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
+import org.apache.ambari.server.utils.TimingStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
  * The {@link AmbariEventPublisher} is used to publish instances of
- * {@link AmbariEvent} to any {@link Subscribe} methods interested. It uses a
- * single-threaded {@link AsyncEventBus}.
+ * {@link AmbariEvent} to any {@link Subscribe} methods interested.
+ * <p/>
+ * Events are delivered by a fixed number of threads, each owning a queue. An event is queued on the thread selected by its
+ * {@link AmbariEvent#getPartitionKey()}, so events about the same cluster or
+ * host are delivered in the order in which they were published while events
+ * about different entities are delivered in parallel. A subscriber method that
+ * is not annotated with {@link AllowConcurrentEvents} is still never invoked
+ * by two threads at once.
+ * <p/>
+ * Publishing never blocks and events are always delivered by the thread owning
+ * their queue, so the queues are not bounded. A warning is logged while a
+ * queue holds more events than the configured queue size.
  */
 @Singleton
 public class AmbariEventPublisher {
 
   /**
-   * A single threaded event bus for processing Ambari events in serial.
+   * Logger.
    */
-  private final EventBus m_eventBus;
+  private static final Logger LOG = LoggerFactory.getLogger(AmbariEventPublisher.class);
+
+  /**
+   * Deliveries to a single listener which take longer than this are logged.
+   */
+  private static final long SLOW_LISTENER_THRESHOLD_MS = 5000L;
+
+  /**
+   * One queue per delivery thread.
+   */
+  private final List<BlockingQueue<QueuedEvent>> m_queues;
+
+  /**
+   * The queue depth above which a backlog warning is logged.
+   */
+  private final int m_queueWarningDepth;
+
+  /**
+   * The highest depth each queue has reached.
+   */
+  private final AtomicIntegerArray m_maxQueueDepths;
+
+  /**
+   * The registered listeners, in the order of registration.
+   */
+  private final List<Listener> m_listeners = new CopyOnWriteArrayList<Listener>();
+
+  /**
+   * The listeners interested in each event class. Cleared whenever a listener
+   * is registered.
+   */
+  private final ConcurrentMap<Class<?>, List<Listener>> m_listenersByEventType = new ConcurrentHashMap<Class<?>, List<Listener>>();
+
+  /**
+   * The time events spend queued before delivery.
+   */
+  private final TimingStatistics m_queuedStatistics = new TimingStatistics("queued");
+
+  /**
+   * Limits how often the delivery statistics are logged.
+   */
+  private final StatisticsLogThrottle m_statisticsLog = new StatisticsLogThrottle();
+
+  /**
+   * Limits how often a backlog warning is logged.
+   */
+  private final StatisticsLogThrottle m_backlogLog = new StatisticsLogThrottle(1, TimeUnit.MINUTES);
+
+  /**
+   * Constructor.
+   *
+   * @param configuration
+   *          used to size the delivery threads and their queues.
+   */
+  @Inject
+  public AmbariEventPublisher(Configuration configuration) {
+    this(configuration.getEventPublisherThreads(),
+        configuration.getEventPublisherQueueSize());
+  }
 
   /**
    * Constructor.
+   *
+   * @param threads
+   *          the number of delivery threads.
+   * @param queueSize
+   *          the depth of a thread's queue above which a backlog warning is
+   *          logged.
    */
-  public AmbariEventPublisher() {
-    m_eventBus = new AsyncEventBus("ambari-event-bus",
-        Executors.newSingleThreadExecutor());
+  public AmbariEventPublisher(int threads, int queueSize) {
+    int threadCount = Math.max(1, threads);
+    m_queues = new ArrayList<BlockingQueue<QueuedEvent>>(threadCount);
+    m_queueWarningDepth = Math.max(1, queueSize);
+    m_maxQueueDepths = new AtomicIntegerArray(threadCount);
+
+    for (int i = 0; i < threadCount; i++) {
+      BlockingQueue<QueuedEvent> queue = new LinkedBlockingQueue<QueuedEvent>();
+      m_queues.add(queue);
+
+      Thread thread = new Thread(new Worker(queue), "ambari-event-bus-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
   }
 
   /**
@@ -54,7 +159,20 @@ public class AmbariEventPublisher {
    * @param event
    */
   public void publish(AmbariEvent event) {
-    m_eventBus.post(event);
+    int index = getQueueIndex(event);
+    BlockingQueue<QueuedEvent> queue = m_queues.get(index);
+    queue.add(new QueuedEvent(event));
+
+    int depth = queue.size();
+    int maxDepth = m_maxQueueDepths.get(index);
+    while (depth > maxDepth && !m_maxQueueDepths.compareAndSet(index, maxDepth, depth)) {
+      maxDepth = m_maxQueueDepths.get(index);
+    }
+
+    if (depth > m_queueWarningDepth && m_backlogLog.isDue()) {
+      LOG.warn("The event queue {} holds {} events, more than the configured size of {}",
+          index, depth, m_queueWarningDepth);
+    }
   }
 
   /**
@@ -65,6 +183,199 @@ public class AmbariEventPublisher {
    *          the listener to receive events.
    */
   public void register(Object object) {
-    m_eventBus.register(object);
+    m_listeners.add(new Listener(object));
+    m_listenersByEventType.clear();
+  }
+
+  /**
+   * Gets the number of events waiting for delivery.
+   *
+   * @return the total queue depth.
+   */
+  public int getQueueDepth() {
+    int depth = 0;
+    for (BlockingQueue<QueuedEvent> queue : m_queues) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  /**
+   * Gets the highest number of events that were waiting in any single queue.
+   *
+   * @return the maximum queue depth.
+   */
+  public int getMaxQueueDepth() {
+    int max = 0;
+    for (int i = 0; i < m_maxQueueDepths.length(); i++) {
+      max = Math.max(max, m_maxQueueDepths.get(i));
+    }
+    return max;
+  }
+
+  /**
+   * Gets the time events spend queued before they are delivered.
+   *
+   * @return the statistics.
+   */
+  public TimingStatistics getQueuedStatistics() {
+    return m_queuedStatistics;
+  }
+
+  /**
+   * Gets the delivery latency of each registered listener.
+   *
+   * @return the statistics, keyed by listener class name.
+   */
+  public Map<String, TimingStatistics> getListenerStatistics() {
+    Map<String, TimingStatistics> statistics = new LinkedHashMap<String, TimingStatistics>();
+    for (Listener listener : m_listeners) {
+      statistics.put(listener.m_statistics.getName(), listener.m_statistics);
+    }
+    return statistics;
+  }
+
+  /**
+   * Delivers an event to each interested listener.
+   *
+   * @param queuedEvent
+   *          the event to deliver.
+   */
+  private void deliver(QueuedEvent queuedEvent) {
+    AmbariEvent event = queuedEvent.m_event;
+    m_queuedStatistics.recordSince(queuedEvent.m_queuedNanos);
+
+    for (Listener listener : getListeners(event.getClass())) {
+      long start = System.nanoTime();
+      listener.m_eventBus.post(event);
+      long elapsed = listener.m_statistics.recordSince(start);
+
+      if (TimeUnit.NANOSECONDS.toMillis(elapsed) > SLOW_LISTENER_THRESHOLD_MS) {
+        LOG.warn("{} took {}ms to handle {}", listener.m_statistics.getName(),
+            TimeUnit.NANOSECONDS.toMillis(elapsed), event.getType());
+      }
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Delivered {}, queue depth {}, listeners {}", event.getType(),
+          getQueueDepth(), m_listeners);
+    }
+
+    if (m_statisticsLog.isDue()) {
+      LOG.info("Event delivery statistics: queueDepth={}, maxQueueDepth={}, {}, listeners={}",
+          getQueueDepth(), getMaxQueueDepth(), getQueuedStatistics(),
+          getListenerStatistics().values());
+    }
+  }
+
+  /**
+   * Gets the listeners subscribing to the given event class or any of its
+   * super types.
+   */
+  private List<Listener> getListeners(Class<?> eventType) {
+    List<Listener> listeners = m_listenersByEventType.get(eventType);
+    if (null == listeners) {
+      listeners = new ArrayList<Listener>();
+      for (Listener listener : m_listeners) {
+        if (listener.isSubscribedTo(eventType)) {
+          listeners.add(listener);
+        }
+      }
+
+      listeners = Collections.unmodifiableList(listeners);
+      m_listenersByEventType.put(eventType, listeners);
+    }
+
+    return listeners;
+  }
+
+  /**
+   * Gets the index of the queue which owns the entity of the given event.
+   */
+  private int getQueueIndex(AmbariEvent event) {
+    Object key = event.getPartitionKey();
+    int hash = null == key ? 0 : key.hashCode();
+    return (hash & Integer.MAX_VALUE) % m_queues.size();
+  }
+
+  /**
+   * A registered listener. Every listener is given its own synchronous
+   * {@link EventBus} so that the time spent in each can be measured while
+   * keeping the {@link Subscribe} semantics of Guava.
+   */
+  private static final class Listener {
+    private final EventBus m_eventBus;
+    private final TimingStatistics m_statistics;
+    private final Set<Class<?>> m_eventTypes = new HashSet<Class<?>>();
+
+    private Listener(Object object) {
+      String name = object.getClass().getSimpleName();
+      m_statistics = new TimingStatistics(name);
+      m_eventBus = new EventBus("ambari-event-bus-" + name);
+      m_eventBus.register(object);
+
+      for (Class<?> clazz = object.getClass(); null != clazz; clazz = clazz.getSuperclass()) {
+        for (Method method : clazz.getDeclaredMethods()) {
+          Class<?>[] parameterTypes = method.getParameterTypes();
+          if (method.isAnnotationPresent(Subscribe.class) && parameterTypes.length == 1) {
+            m_eventTypes.add(parameterTypes[0]);
+          }
+        }
+      }
+    }
+
+    private boolean isSubscribedTo(Class<?> eventType) {
+      for (Class<?> subscribedType : m_eventTypes) {
+        if (subscribedType.isAssignableFrom(eventType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return m_statistics.toString();
+    }
+  }
+
+  /**
+   * An event waiting in a queue.
+   */
+  private static final class QueuedEvent {
+    private final AmbariEvent m_event;
+    private final long m_queuedNanos = System.nanoTime();
+
+    private QueuedEvent(AmbariEvent event) {
+      m_event = event;
+    }
+  }
+
+  /**
+   * Delivers the events of a single queue.
+   */
+  private final class Worker implements Runnable {
+    private final BlockingQueue<QueuedEvent> m_queue;
+
+    private Worker(BlockingQueue<QueuedEvent> queue) {
+      m_queue = queue;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        try {
+          deliver(m_queue.take());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (Throwable t) {
+          LOG.error("Unexpected error while delivering an event", t);
+        }
+      }
+    }
   }
 }
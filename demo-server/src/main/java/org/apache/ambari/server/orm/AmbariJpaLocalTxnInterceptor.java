@@ -62,6 +62,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
 
     final EntityTransaction txn = em.getTransaction();
     txn.begin();
+    TransactionCallbacks.begin();
 
     Object result;
     try {
@@ -70,7 +71,9 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     } catch (Exception e) {
       //commit transaction only if rollback didn't occur
       if (rollbackIfNecessary(transactional, e, txn)) {
-        txn.commit();
+        commit(txn);
+      } else {
+        TransactionCallbacks.discard();
       }
 
       detailedLogForPersistenceError(e);
@@ -88,7 +91,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     //everything was normal so commit the txn (do not move into try block above as it
     //  interferes with the advised method's throwing semantics)
     try {
-      txn.commit();
+      commit(txn);
     } catch (Exception e) {
       detailedLogForPersistenceError(e);
       throw e;
@@ -104,6 +107,21 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     return result;
   }
 
+  /**
+   * Commits the transaction and runs the {@link TransactionCallbacks}
+   * registered while it was active.
+   */
+  private void commit(EntityTransaction txn) {
+    try {
+      txn.commit();
+    } catch (RuntimeException e) {
+      TransactionCallbacks.discard();
+      throw e;
+    }
+
+    TransactionCallbacks.committed();
+  }
+
   private void detailedLogForPersistenceError(Exception e) {
     if (e instanceof PersistenceException) {
       PersistenceException rbe = (PersistenceException) e;
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link TransactionCallbacks} class defers work until the transaction of
+ * the calling thread has committed. It is used to keep in-memory state, such
+ * as indexes and caches derived from the database, from observing writes which
+ * may still be rolled back.
+ * <p/>
+ * The outermost transaction is tracked by {@link AmbariJpaLocalTxnInterceptor}.
+ * Callbacks registered while it is active run, in registration order, right
+ * after it commits and are discarded if it rolls back. Callbacks registered
+ * outside of a transaction run immediately.
+ */
+public final class TransactionCallbacks {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(TransactionCallbacks.class);
+
+  /**
+   * The callbacks waiting for the transaction of the current thread; not set
+   * while the thread is not in a transaction.
+   */
+  private static final ThreadLocal<List<Runnable>> s_callbacks = new ThreadLocal<List<Runnable>>();
+
+  /**
+   * Utility class.
+   */
+  private TransactionCallbacks() {
+  }
+
+  /**
+   * Runs the callback after the transaction of the current thread commits, or
+   * immediately if there is none.
+   *
+   * @param callback
+   *          the callback (not {@code null}).
+   */
+  public static void afterCommit(Runnable callback) {
+    List<Runnable> callbacks = s_callbacks.get();
+    if (null == callbacks) {
+      callback.run();
+    } else {
+      callbacks.add(callback);
+    }
+  }
+
+  /**
+   * Marks the start of the outermost transaction of the current thread.
+   */
+  static void begin() {
+    s_callbacks.set(new ArrayList<Runnable>());
+  }
+
+  /**
+   * Runs the callbacks of the transaction which just committed. A failing
+   * callback is logged and does not prevent the others from running.
+   */
+  static void committed() {
+    List<Runnable> callbacks = s_callbacks.get();
+    s_callbacks.remove();
+    if (null == callbacks) {
+      return;
+    }
+
+    for (Runnable callback : callbacks) {
+      try {
+        callback.run();
+      } catch (RuntimeException e) {
+        LOG.error("Unable to run a transaction commit callback", e);
+      }
+    }
+  }
+
+  /**
+   * Drops the callbacks of a transaction which was rolled back or failed to
+   * commit.
+   */
+  static void discard() {
+    s_callbacks.remove();
+  }
+}
@@ -21,8 +21,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -43,6 +45,7 @@ import org.apache.ambari.server.orm.entities.AlertCurrentEntity;
 import org.apache.ambari.server.orm.entities.AlertCurrentEntity_;
 import org.apache.ambari.server.orm.entities.AlertHistoryEntity;
 import org.apache.ambari.server.orm.entities.AlertHistoryEntity_;
+import org.apache.ambari.server.state.Alert;
 import org.apache.ambari.server.state.AlertState;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
@@ -803,6 +806,41 @@ public class AlertsDAO {
     return m_entityManagerProvider.get().merge(alert);
   }
 
+  /**
+   * Sets the latest timestamp and text of the specified current alerts in a
+   * single transaction, allowing the updates to be written as one JDBC batch.
+   * Alerts which already have a newer timestamp are left unchanged.
+   *
+   * @param alerts
+   *          the most recently received alert data, keyed by the ID of the
+   *          current alert to update (not {@code null}).
+   * @return the IDs of the current alerts which no longer exist (never
+   *         {@code null}).
+   */
+  @Transactional
+  public Set<Long> updateLatest(Map<Long, Alert> alerts) {
+    EntityManager entityManager = m_entityManagerProvider.get();
+    Set<Long> missing = new HashSet<Long>();
+
+    for (Map.Entry<Long, Alert> entry : alerts.entrySet()) {
+      AlertCurrentEntity current = entityManager.find(AlertCurrentEntity.class,
+          entry.getKey());
+
+      if (null == current) {
+        missing.add(entry.getKey());
+        continue;
+      }
+
+      Alert alert = entry.getValue();
+      if (alert.getTimestamp() > current.getLatestTimestamp()) {
+        current.setLatestTimestamp(alert.getTimestamp());
+        current.setLatestText(alert.getText());
+      }
+    }
+
+    return missing;
+  }
+
   /**
    * Merge the specified current alert with the history and
    * the existing alert in the database in a single transaction.
@@ -0,0 +1,542 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.BlobEntity;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * The {@link BlobDAO} is used to store large, frequently repeated payloads
+ * (such as the cluster host info of a stage or the JSON of an execution
+ * command) in the {@code blob_store} table. Each distinct payload is
+ * compressed and written exactly once, keyed by the SHA-256 of its content;
+ * the owning row only keeps a short reference.
+ * <p/>
+ * Values which are not references are returned unchanged by
+ * {@link #resolve(byte[])}, so rows written before the blob store existed (or
+ * values smaller than {@link #MINIMUM_BLOB_SIZE}) continue to be read inline.
+ * <p/>
+ * Blobs which are no longer referenced by any stage or execution command are
+ * deleted by {@link #removeUnreferenced()}.
+ */
+@Singleton
+public class BlobDAO {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(BlobDAO.class);
+
+  /**
+   * The prefix of a value which references a blob; it can never start a JSON
+   * document.
+   */
+  public static final String REFERENCE_PREFIX = "blob:sha256:";
+
+  /**
+   * Values smaller than this are not worth a separate row and are stored
+   * inline.
+   */
+  public static final int MINIMUM_BLOB_SIZE = 1024;
+
+  /**
+   * The maximum number of hashes remembered as already stored.
+   */
+  private static final int STORED_HASHES_SIZE = 10000;
+
+  /**
+   * The maximum number of uncompressed bytes kept in memory.
+   */
+  private static final int CONTENT_CACHE_WEIGHT = 64 * 1024 * 1024;
+
+  /**
+   * The number of owning rows read at once while looking for references.
+   */
+  private static final int REFERENCE_SCAN_PAGE_SIZE = 500;
+
+  /**
+   * The charset of the reference and of the {@link String} convenience
+   * methods.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * The reference prefix as bytes.
+   */
+  private static final byte[] REFERENCE_PREFIX_BYTES = REFERENCE_PREFIX.getBytes(UTF_8);
+
+  @Inject
+  Provider<EntityManager> entityManagerProvider;
+
+  /**
+   * The hashes which are known to exist in the database, used to skip the
+   * lookup when the same content is stored again.
+   */
+  private final Cache<String, Boolean> m_storedHashes = CacheBuilder.newBuilder().maximumSize(
+      STORED_HASHES_SIZE).build();
+
+  /**
+   * The uncompressed content of recently stored or resolved blobs, bounded by
+   * size.
+   */
+  private final Cache<String, byte[]> m_contents = CacheBuilder.newBuilder().maximumWeight(
+      CONTENT_CACHE_WEIGHT).weigher(new Weigher<String, byte[]>() {
+        @Override
+        public int weigh(String key, byte[] value) {
+          return value.length;
+        }
+      }).build();
+
+  /**
+   * Held while storing so that a blob is not deleted between the check for
+   * its existence and the return of its reference; the sweep holds the write
+   * lock while it deletes.
+   */
+  private final ReadWriteLock m_sweepLock = new ReentrantReadWriteLock();
+
+  /**
+   * The hashes stored since the last sweep. Their owning rows may not be
+   * committed yet, so they are not deleted by the next sweep.
+   */
+  private final Set<String> m_storedSinceSweep = Collections.newSetFromMap(
+      new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * The hashes found unreferenced by the last sweep; guarded by the write lock
+   * of {@link #m_sweepLock}.
+   */
+  private Set<String> m_unreferenced = Collections.emptySet();
+
+  /**
+   * Gets the blob with the specified hash.
+   *
+   * @param blobHash
+   *          the SHA-256 of the uncompressed content.
+   * @return the blob or {@code null} if none.
+   */
+  @RequiresSession
+  public BlobEntity findByHash(String blobHash) {
+    return entityManagerProvider.get().find(BlobEntity.class, blobHash);
+  }
+
+  /**
+   * Stores the specified content if it is large enough and returns the value
+   * that the owning row should persist instead.
+   *
+   * @param content
+   *          the content (may be {@code null}).
+   * @return a reference to the blob, or the content itself if it is stored
+   *         inline.
+   * @see #store(byte[])
+   */
+  public String store(String content) {
+    if (null == content) {
+      return null;
+    }
+
+    byte[] bytes = content.getBytes(UTF_8);
+    byte[] stored = store(bytes);
+    return stored == bytes ? content : new String(stored, UTF_8);
+  }
+
+  /**
+   * Stores the specified content if it is large enough and returns the value
+   * that the owning row should persist instead. Content which is already a
+   * reference is returned unchanged.
+   * <p/>
+   * The blob is committed in its own transaction. Blobs are immutable and
+   * shared, so a rolled back caller leaves at most an unreferenced row, which
+   * is deleted by a later {@link #removeUnreferenced()}, and concurrent callers
+   * storing identical content cannot collide within their own transactions.
+   *
+   * @param content
+   *          the content (may be {@code null}).
+   * @return a reference to the blob, or the content itself if it is stored
+   *         inline.
+   */
+  public byte[] store(byte[] content) {
+    if (null == content || content.length < MINIMUM_BLOB_SIZE || isReference(content)) {
+      return content;
+    }
+
+    String blobHash = DigestUtils.sha256Hex(content);
+    m_sweepLock.readLock().lock();
+    try {
+      m_storedSinceSweep.add(blobHash);
+      if (null == m_storedHashes.getIfPresent(blobHash)) {
+        persist(blobHash, content);
+        m_storedHashes.put(blobHash, Boolean.TRUE);
+      }
+    } finally {
+      m_sweepLock.readLock().unlock();
+    }
+
+    m_contents.put(blobHash, Arrays.copyOf(content, content.length));
+    return (REFERENCE_PREFIX + blobHash).getBytes(UTF_8);
+  }
+
+  /**
+   * Resolves the specified value to the content it references.
+   *
+   * @param value
+   *          the value read from the owning row (may be {@code null}).
+   * @return the uncompressed content, or the value itself if it is not a
+   *         reference.
+   * @see #resolve(byte[])
+   */
+  @RequiresSession
+  public String resolve(String value) {
+    if (null == value || !value.startsWith(REFERENCE_PREFIX)) {
+      return value;
+    }
+
+    return new String(resolve(value.getBytes(UTF_8)), UTF_8);
+  }
+
+  /**
+   * Resolves the specified value to the content it references.
+   *
+   * @param value
+   *          the value read from the owning row (may be {@code null}).
+   * @return the uncompressed content, or the value itself if it is not a
+   *         reference. The content is a copy which the caller may modify.
+   * @throws IllegalStateException
+   *           if the referenced blob does not exist.
+   */
+  @RequiresSession
+  public byte[] resolve(byte[] value) {
+    if (null == value || !isReference(value)) {
+      return value;
+    }
+
+    String blobHash = new String(value, REFERENCE_PREFIX_BYTES.length,
+        value.length - REFERENCE_PREFIX_BYTES.length, UTF_8);
+
+    byte[] content = m_contents.getIfPresent(blobHash);
+    if (null != content) {
+      return Arrays.copyOf(content, content.length);
+    }
+
+    BlobEntity blobEntity = findByHash(blobHash);
+    if (null == blobEntity) {
+      throw new IllegalStateException("Invalid DB state, missing blob " + blobHash);
+    }
+
+    content = decompress(blobEntity.getBlobContent());
+    m_storedHashes.put(blobHash, Boolean.TRUE);
+    m_contents.put(blobHash, Arrays.copyOf(content, content.length));
+    return content;
+  }
+
+  /**
+   * Deletes the blobs which are not referenced by any stage or execution
+   * command. The owning row of a blob is written after the blob, in the
+   * transaction of the caller of {@link #store(byte[])}, so a blob is only
+   * deleted once two consecutive sweeps found it unreferenced and it was not
+   * stored again in between. The interval between two sweeps must therefore
+   * be longer than any transaction which stores blobs.
+   *
+   * @return the number of deleted blobs.
+   */
+  public int removeUnreferenced() {
+    EntityManager entityManager = entityManagerProvider.get().getEntityManagerFactory().createEntityManager();
+    try {
+      Set<String> unreferenced = new HashSet<String>(entityManager.createQuery(
+          "SELECT blob.blobHash FROM BlobEntity blob", String.class).getResultList());
+
+      if (!unreferenced.isEmpty()) {
+        removeStageReferences(entityManager, unreferenced);
+      }
+
+      if (!unreferenced.isEmpty()) {
+        removeExecutionCommandReferences(entityManager, unreferenced);
+      }
+
+      List<String> removable = new ArrayList<String>();
+      m_sweepLock.writeLock().lock();
+      try {
+        unreferenced.removeAll(m_storedSinceSweep);
+        m_storedSinceSweep.clear();
+
+        for (String blobHash : unreferenced) {
+          if (m_unreferenced.contains(blobHash)) {
+            removable.add(blobHash);
+          }
+        }
+
+        m_unreferenced = unreferenced;
+        m_unreferenced.removeAll(removable);
+
+        if (!removable.isEmpty()) {
+          delete(entityManager, removable);
+          m_storedHashes.invalidateAll(removable);
+          m_contents.invalidateAll(removable);
+        }
+      } finally {
+        m_sweepLock.writeLock().unlock();
+      }
+
+      return removable.size();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Gets whether the specified value is a reference to a blob.
+   *
+   * @param value
+   *          the value (not {@code null}).
+   * @return {@code true} if the value is a reference.
+   */
+  private boolean isReference(byte[] value) {
+    return value.length > REFERENCE_PREFIX_BYTES.length
+        && Arrays.equals(REFERENCE_PREFIX_BYTES,
+            Arrays.copyOf(value, REFERENCE_PREFIX_BYTES.length));
+  }
+
+  /**
+   * Removes the hashes referenced by the parameters of any stage from the
+   * given set. Stages are read in pages ordered by their key.
+   *
+   * @param entityManager
+   *          the entity manager of the sweep.
+   * @param unreferenced
+   *          the hashes which are not known to be referenced.
+   */
+  private void removeStageReferences(EntityManager entityManager, Set<String> unreferenced) {
+    TypedQuery<Object[]> query = entityManager.createQuery(
+        "SELECT stage.requestId, stage.stageId, stage.clusterHostInfo, "
+            + "stage.commandParamsStage, stage.hostParamsStage FROM StageEntity stage "
+            + "WHERE stage.requestId > :requestId "
+            + "OR (stage.requestId = :requestId AND stage.stageId > :stageId) "
+            + "ORDER BY stage.requestId, stage.stageId", Object[].class);
+
+    Long requestId = -1L;
+    Long stageId = -1L;
+    List<Object[]> rows;
+    do {
+      rows = query.setParameter("requestId", requestId).setParameter("stageId", stageId)
+          .setMaxResults(REFERENCE_SCAN_PAGE_SIZE).getResultList();
+
+      for (Object[] row : rows) {
+        requestId = (Long) row[0];
+        stageId = (Long) row[1];
+        for (int i = 2; i < row.length; i++) {
+          removeReference(unreferenced, (byte[]) row[i]);
+        }
+      }
+    } while (rows.size() == REFERENCE_SCAN_PAGE_SIZE);
+  }
+
+  /**
+   * Removes the hashes referenced by any execution command from the given
+   * set. Commands are read in pages ordered by task id.
+   *
+   * @param entityManager
+   *          the entity manager of the sweep.
+   * @param unreferenced
+   *          the hashes which are not known to be referenced.
+   */
+  private void removeExecutionCommandReferences(EntityManager entityManager,
+      Set<String> unreferenced) {
+    TypedQuery<Object[]> query = entityManager.createQuery(
+        "SELECT command.taskId, command.command FROM ExecutionCommandEntity command "
+            + "WHERE command.taskId > :taskId ORDER BY command.taskId", Object[].class);
+
+    Long taskId = -1L;
+    List<Object[]> rows;
+    do {
+      rows = query.setParameter("taskId", taskId).setMaxResults(REFERENCE_SCAN_PAGE_SIZE)
+          .getResultList();
+
+      for (Object[] row : rows) {
+        taskId = (Long) row[0];
+        removeReference(unreferenced, (byte[]) row[1]);
+      }
+    } while (rows.size() == REFERENCE_SCAN_PAGE_SIZE);
+  }
+
+  /**
+   * Removes the hash the given value references, if any, from the set.
+   */
+  private void removeReference(Set<String> unreferenced, byte[] value) {
+    if (null != value && isReference(value)) {
+      unreferenced.remove(new String(value, REFERENCE_PREFIX_BYTES.length,
+          value.length - REFERENCE_PREFIX_BYTES.length, UTF_8));
+    }
+  }
+
+  /**
+   * Deletes the given blobs in a separate transaction.
+   *
+   * @param entityManager
+   *          the entity manager of the sweep.
+   * @param blobHashes
+   *          the hashes of the blobs to delete.
+   */
+  private void delete(EntityManager entityManager, List<String> blobHashes) {
+    EntityTransaction transaction = entityManager.getTransaction();
+    try {
+      transaction.begin();
+      Query query = entityManager.createQuery(
+          "DELETE FROM BlobEntity blob WHERE blob.blobHash = :blobHash");
+      for (String blobHash : blobHashes) {
+        query.setParameter("blobHash", blobHash).executeUpdate();
+      }
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  /**
+   * Writes the blob in a separate transaction unless it already exists.
+   *
+   * @param blobHash
+   *          the SHA-256 of the content.
+   * @param content
+   *          the uncompressed content.
+   */
+  private void persist(String blobHash, byte[] content) {
+    EntityManager entityManager = entityManagerProvider.get().getEntityManagerFactory().createEntityManager();
+    EntityTransaction transaction = entityManager.getTransaction();
+    try {
+      if (null != entityManager.find(BlobEntity.class, blobHash)) {
+        return;
+      }
+
+      BlobEntity blobEntity = new BlobEntity();
+      blobEntity.setBlobHash(blobHash);
+      blobEntity.setBlobLength(content.length);
+      blobEntity.setBlobContent(compress(content));
+
+      transaction.begin();
+      entityManager.persist(blobEntity);
+      transaction.commit();
+    } catch (PersistenceException exception) {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+
+      // another writer may have stored the same content concurrently
+      if (!exists(blobHash)) {
+        throw exception;
+      }
+
+      LOG.debug("Blob {} was stored concurrently", blobHash);
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * Gets whether the blob exists, using a fresh entity manager.
+   *
+   * @param blobHash
+   *          the SHA-256 of the content.
+   * @return {@code true} if the blob exists.
+   */
+  private boolean exists(String blobHash) {
+    EntityManager entityManager = entityManagerProvider.get().getEntityManagerFactory().createEntityManager();
+    try {
+      return null != entityManager.find(BlobEntity.class, blobHash);
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /**
+   * GZIP compresses the specified content.
+   *
+   * @param content
+   *          the content.
+   * @return the compressed content.
+   */
+  private static byte[] compress(byte[] content) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+    OutputStream stream = null;
+    try {
+      stream = new GZIPOutputStream(buffer);
+      stream.write(content);
+      stream.close();
+    } catch (IOException exception) {
+      throw new IllegalStateException("Unable to compress blob", exception);
+    } finally {
+      IOUtils.closeQuietly(stream);
+    }
+
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Decompresses the specified GZIP content.
+   *
+   * @param content
+   *          the compressed content.
+   * @return the uncompressed content.
+   */
+  private static byte[] decompress(byte[] content) {
+    InputStream stream = null;
+    try {
+      stream = new GZIPInputStream(new ByteArrayInputStream(content));
+      return IOUtils.toByteArray(stream);
+    } catch (IOException exception) {
+      throw new IllegalStateException("Unable to decompress blob", exception);
+    } finally {
+      IOUtils.closeQuietly(stream);
+    }
+  }
+}
@@ -35,12 +35,32 @@ public class ExecutionCommandDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  @Inject
+  BlobDAO blobDAO;
 
   @RequiresSession
   public ExecutionCommandEntity findByPK(long taskId) {
     return entityManagerProvider.get().find(ExecutionCommandEntity.class, taskId);
   }
 
+  /**
+   * Gets the command of the specified task, resolving it from the blob store
+   * if it was stored there.
+   *
+   * @param taskId the task id
+   * @return the command JSON or {@code null} if the task has no command
+   */
+  @RequiresSession
+  public String findCommandByPK(long taskId) {
+    ExecutionCommandEntity executionCommand = findByPK(taskId);
+    if (executionCommand == null) {
+      return null;
+    }
+
+    byte[] command = blobDAO.resolve(executionCommand.getCommand());
+    return command == null ? null : new String(command);
+  }
+
   @RequiresSession
   public List<ExecutionCommandEntity> findAll() {
     return daoUtils.selectAll(entityManagerProvider.get(), ExecutionCommandEntity.class);
@@ -48,6 +68,7 @@ public class ExecutionCommandDAO {
 
   @Transactional
   public void create(ExecutionCommandEntity executionCommand) {
+    executionCommand.setCommand(blobDAO.store(executionCommand.getCommand()));
     entityManagerProvider.get().persist(executionCommand);
   }
 
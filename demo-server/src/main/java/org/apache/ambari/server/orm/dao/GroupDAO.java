@@ -18,9 +18,12 @@
 package org.apache.ambari.server.orm.dao;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
@@ -35,6 +38,7 @@ import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
 
 import org.apache.ambari.server.orm.entities.PrincipalEntity;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 
 @Singleton
 public class GroupDAO {
@@ -42,6 +46,8 @@ public class GroupDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
 
   @RequiresSession
   public GroupEntity findByPK(Integer groupPK) {
@@ -65,6 +71,60 @@ public class GroupDAO {
     }
   }
 
+  /**
+   * Find the group entities for the given group names.
+   *
+   * @param groupNames  the lower case group names; at most
+   *                    {@link DaoUtils#ORACLE_LIST_LIMIT} is safe on Oracle
+   *
+   * @return the matching group entities
+   */
+  @RequiresSession
+  public List<GroupEntity> findGroupsByNames(Collection<String> groupNames) {
+    if (groupNames == null || groupNames.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final TypedQuery<GroupEntity> query = entityManagerProvider.get().createQuery("SELECT group_entity FROM GroupEntity group_entity WHERE lower(group_entity.groupName) IN :groupNames", GroupEntity.class);
+    query.setParameter("groupNames", groupNames);
+    return daoUtils.selectList(query);
+  }
+
+  /**
+   * Find the LDAP group entities for the given group names. Local groups
+   * which share a name with an LDAP group are not returned.
+   *
+   * @param groupNames  the lower case group names; at most
+   *                    {@link DaoUtils#ORACLE_LIST_LIMIT} is safe on Oracle
+   *
+   * @return the matching LDAP group entities
+   */
+  @RequiresSession
+  public List<GroupEntity> findLdapGroupsByNames(Collection<String> groupNames) {
+    if (groupNames == null || groupNames.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final TypedQuery<GroupEntity> query = entityManagerProvider.get().createQuery("SELECT group_entity FROM GroupEntity group_entity WHERE lower(group_entity.groupName) IN :groupNames AND group_entity.ldapGroup = 1", GroupEntity.class);
+    query.setParameter("groupNames", groupNames);
+    return daoUtils.selectList(query);
+  }
+
+  /**
+   * Find the names of all groups along with their LDAP flag without loading
+   * the group entities.
+   *
+   * @return map of lower case group name to true if the group is an LDAP
+   *         group, ordered by group name
+   */
+  @RequiresSession
+  public Map<String, Boolean> findLdapFlagsByGroupName() {
+    final TypedQuery<Object[]> query = entityManagerProvider.get().createQuery("SELECT group_entity.groupName, group_entity.ldapGroup FROM GroupEntity group_entity ORDER BY group_entity.groupName", Object[].class);
+    final Map<String, Boolean> flags = new LinkedHashMap<String, Boolean>();
+    for (Object[] row : daoUtils.selectList(query)) {
+      flags.put(((String) row[0]).toLowerCase(), ((Number) row[1]).intValue() != 0);
+    }
+    return flags;
+  }
+
   /**
    * Find the group entities for the given list of principals
    *
@@ -102,11 +162,13 @@ public class GroupDAO {
 
   @Transactional
   public void create(GroupEntity group) {
+    permissionsCache.invalidate();
     create(new HashSet<GroupEntity>(Arrays.asList(group)));
   }
 
   @Transactional
   public void create(Set<GroupEntity> groups) {
+    permissionsCache.invalidate();
     for (GroupEntity group: groups) {
       group.setGroupName(group.getGroupName().toLowerCase());
       entityManagerProvider.get().persist(group);
@@ -115,12 +177,14 @@ public class GroupDAO {
 
   @Transactional
   public GroupEntity merge(GroupEntity group) {
+    permissionsCache.invalidate();
     group.setGroupName(group.getGroupName().toLowerCase());
     return entityManagerProvider.get().merge(group);
   }
 
   @Transactional
   public void merge(Set<GroupEntity> groups) {
+    permissionsCache.invalidate();
     for (GroupEntity group: groups) {
       group.setGroupName(group.getGroupName().toLowerCase());
       entityManagerProvider.get().merge(group);
@@ -129,12 +193,14 @@ public class GroupDAO {
 
   @Transactional
   public void remove(GroupEntity group) {
+    permissionsCache.invalidate();
     entityManagerProvider.get().remove(merge(group));
     entityManagerProvider.get().getEntityManagerFactory().getCache().evictAll();
   }
 
   @Transactional
   public void remove(Set<GroupEntity> groups) {
+    permissionsCache.invalidate();
     for (GroupEntity groupEntity: groups) {
       entityManagerProvider.get().remove(entityManagerProvider.get().merge(groupEntity));
     }
@@ -142,6 +208,7 @@ public class GroupDAO {
 
   @Transactional
   public void removeByPK(Integer groupPK) {
+    permissionsCache.invalidate();
     remove(findByPK(groupPK));
   }
 }
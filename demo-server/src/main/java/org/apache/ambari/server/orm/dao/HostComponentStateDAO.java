@@ -19,13 +19,23 @@
 package org.apache.ambari.server.orm.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
 
+import org.apache.ambari.server.api.query.JpaPredicateVisitor;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
+import org.apache.ambari.server.controller.internal.HostComponentResourceProvider;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
 import org.apache.ambari.server.orm.entities.HostComponentStateEntity;
+import org.apache.ambari.server.orm.entities.HostComponentStateEntity_;
 import org.apache.ambari.server.orm.entities.HostEntity;
 
 import com.google.inject.Inject;
@@ -43,6 +53,9 @@ public class HostComponentStateDAO {
   @Inject
   HostDAO hostDAO;
 
+  @Inject
+  ClusterDAO clusterDAO;
+
   @RequiresSession
   public HostComponentStateEntity findById(long id) {
     return entityManagerProvider.get().find(HostComponentStateEntity.class, id);
@@ -182,4 +195,80 @@ public class HostComponentStateDAO {
     hostEntity.removeHostComponentStateEntity(hostComponentStateEntity);
     hostDAO.merge(hostEntity);
   }
+
+  /**
+   * Finds the page of {@link HostComponentStateEntity}s matching the provided predicate,
+   * letting the database filter, sort and page them.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all host components.
+   * @param keyPropertyIds
+   *          the key property ids of the resource.
+   * @return the host components, or {@code null} if the query cannot be fully
+   *         translated into JPA.
+   */
+  @RequiresSession
+  public JpaQueryTranslator.Page<HostComponentStateEntity> findPage(Request request,
+      Predicate predicate, Map<Resource.Type, String> keyPropertyIds) {
+    JpaQueryTranslator<HostComponentStateEntity> translator = new JpaQueryTranslator<HostComponentStateEntity>(
+        entityManagerProvider.get(), new HostComponentStatePredicateVisitor());
+
+    return translator.execute(request, predicate, keyPropertyIds);
+  }
+
+  /**
+   * The {@link HostComponentStatePredicateVisitor} is used to convert an Ambari
+   * {@link Predicate} into a JPA {@link javax.persistence.criteria.Predicate}.
+   */
+  private final class HostComponentStatePredicateVisitor extends
+      JpaPredicateVisitor<HostComponentStateEntity> {
+
+    /**
+     * Constructor.
+     */
+    public HostComponentStatePredicateVisitor() {
+      super(entityManagerProvider.get(), HostComponentStateEntity.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<HostComponentStateEntity> getEntityClass() {
+      return HostComponentStateEntity.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<? extends SingularAttribute<?, ?>> getPredicateMapping(
+        String propertyId) {
+      return HostComponentStateEntity_.getPredicateMapping().get(propertyId);
+    }
+
+    /**
+     * Converts a comparison of the cluster name into a comparison of the
+     * cluster id.
+     */
+    @Override
+    protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+        String propertyId, String operator, Object value) {
+      if (!HostComponentResourceProvider.HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID.equals(propertyId)
+          || !"=".equals(operator) || null == value) {
+        return null;
+      }
+
+      ClusterEntity cluster = clusterDAO.findByName(value.toString());
+      if (null == cluster) {
+        return getCriteriaBuilder().disjunction();
+      }
+
+      return getCriteriaBuilder().equal(
+          getRoot().get(HostComponentStateEntity_.clusterId),
+          cluster.getClusterId());
+    }
+  }
 }
@@ -22,16 +22,26 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
+import org.apache.ambari.server.api.query.JpaPredicateVisitor;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
+import org.apache.ambari.server.controller.internal.HostResourceProvider;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
 import org.apache.ambari.server.orm.entities.HostEntity;
+import org.apache.ambari.server.orm.entities.HostEntity_;
 import org.apache.ambari.server.orm.entities.StageEntity;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class HostDAO {
@@ -39,6 +49,9 @@ public class HostDAO {
   @Inject
   Provider<EntityManager> entityManagerProvider;
 
+  @Inject
+  ClusterDAO clusterDAO;
+
   /**
    * Looks for Host by ID
    * @param hostId ID of Host
@@ -128,4 +141,79 @@ public class HostDAO {
     }
     return hostNames;
   }
+
+  /**
+   * Finds the page of {@link HostEntity}s matching the provided predicate,
+   * letting the database filter, sort and page them.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all hosts.
+   * @param keyPropertyIds
+   *          the key property ids of the resource.
+   * @return the hosts, or {@code null} if the query cannot be fully
+   *         translated into JPA.
+   */
+  @RequiresSession
+  public JpaQueryTranslator.Page<HostEntity> findPage(Request request,
+      Predicate predicate, Map<Resource.Type, String> keyPropertyIds) {
+    JpaQueryTranslator<HostEntity> translator = new JpaQueryTranslator<HostEntity>(
+        entityManagerProvider.get(), new HostPredicateVisitor());
+
+    return translator.execute(request, predicate, keyPropertyIds);
+  }
+
+  /**
+   * The {@link HostPredicateVisitor} is used to convert an Ambari
+   * {@link Predicate} into a JPA {@link javax.persistence.criteria.Predicate}.
+   */
+  private final class HostPredicateVisitor extends
+      JpaPredicateVisitor<HostEntity> {
+
+    /**
+     * Constructor.
+     */
+    public HostPredicateVisitor() {
+      super(entityManagerProvider.get(), HostEntity.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<HostEntity> getEntityClass() {
+      return HostEntity.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<? extends SingularAttribute<?, ?>> getPredicateMapping(
+        String propertyId) {
+      return HostEntity_.getPredicateMapping().get(propertyId);
+    }
+
+    /**
+     * Converts a comparison of the cluster name into a comparison of the
+     * cluster id.
+     */
+    @Override
+    protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+        String propertyId, String operator, Object value) {
+      if (!HostResourceProvider.HOST_CLUSTER_NAME_PROPERTY_ID.equals(propertyId)
+          || !"=".equals(operator) || null == value) {
+        return null;
+      }
+
+      ClusterEntity cluster = clusterDAO.findByName(value.toString());
+      if (null == cluster) {
+        return getCriteriaBuilder().disjunction();
+      }
+
+      return getCriteriaBuilder().isMember(cluster,
+          getRoot().get(HostEntity_.clusterEntities));
+    }
+  }
 }
@@ -31,12 +31,23 @@ import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
 
+import org.apache.ambari.server.actionmanager.ActiveStageIndex;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.api.query.JpaPredicateVisitor;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
+import org.apache.ambari.server.controller.internal.TaskResourceProvider;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
 import org.apache.ambari.server.orm.entities.HostEntity;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity_;
 import org.apache.ambari.server.orm.entities.StageEntity;
+import org.apache.ambari.server.orm.entities.StageEntity_;
 
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
@@ -86,6 +97,18 @@ public class HostRoleCommandDAO {
   @Inject
   DaoUtils daoUtils;
 
+  /**
+   * Tracks the tasks which are in progress for the action scheduler.
+   */
+  @Inject
+  ActiveStageIndex activeStageIndex;
+
+  @Inject
+  ClusterDAO clusterDAO;
+
+  @Inject
+  HostRoleCommandOutputDAO hostRoleCommandOutputDAO;
+
   @RequiresSession
   public HostRoleCommandEntity findByPK(long taskId) {
     return entityManagerProvider.get().find(HostRoleCommandEntity.class, taskId);
@@ -404,11 +427,13 @@ public class HostRoleCommandDAO {
   @Transactional
   public void create(HostRoleCommandEntity stageEntity) {
     entityManagerProvider.get().persist(stageEntity);
+    activeStageIndex.update(stageEntity);
   }
 
   @Transactional
   public HostRoleCommandEntity merge(HostRoleCommandEntity stageEntity) {
     HostRoleCommandEntity entity = entityManagerProvider.get().merge(stageEntity);
+    activeStageIndex.update(entity);
     return entity;
   }
 
@@ -424,14 +449,19 @@ public class HostRoleCommandDAO {
   public List<HostRoleCommandEntity> mergeAll(Collection<HostRoleCommandEntity> entities) {
     List<HostRoleCommandEntity> managedList = new ArrayList<HostRoleCommandEntity>(entities.size());
     for (HostRoleCommandEntity entity : entities) {
-      managedList.add(entityManagerProvider.get().merge(entity));
+      HostRoleCommandEntity managed = entityManagerProvider.get().merge(entity);
+      activeStageIndex.update(managed);
+      managedList.add(managed);
     }
     return managedList;
   }
 
   @Transactional
   public void remove(HostRoleCommandEntity stageEntity) {
-    entityManagerProvider.get().remove(merge(stageEntity));
+    HostRoleCommandEntity entity = merge(stageEntity);
+    hostRoleCommandOutputDAO.removeByTaskId(entity.getTaskId());
+    entityManagerProvider.get().remove(entity);
+    activeStageIndex.remove(entity);
   }
 
   @Transactional
@@ -474,4 +504,92 @@ public class HostRoleCommandDAO {
 
     return map;
   }
+
+  /**
+   * Finds the page of {@link HostRoleCommandEntity}s matching the provided
+   * predicate, letting the database filter, sort and page them.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all tasks.
+   * @param keyPropertyIds
+   *          the key property ids of the task resource.
+   * @return the tasks, or {@code null} if the query cannot be fully
+   *         translated into JPA.
+   */
+  @RequiresSession
+  public JpaQueryTranslator.Page<HostRoleCommandEntity> findPage(
+      Request request, Predicate predicate,
+      Map<Resource.Type, String> keyPropertyIds) {
+    JpaQueryTranslator<HostRoleCommandEntity> translator = new JpaQueryTranslator<HostRoleCommandEntity>(
+        entityManagerProvider.get(), new HostRoleCommandPredicateVisitor());
+
+    return translator.execute(request, predicate, keyPropertyIds);
+  }
+
+  /**
+   * The {@link HostRoleCommandPredicateVisitor} is used to convert an Ambari
+   * {@link Predicate} into a JPA {@link javax.persistence.criteria.Predicate}.
+   */
+  private final class HostRoleCommandPredicateVisitor extends
+      JpaPredicateVisitor<HostRoleCommandEntity> {
+
+    /**
+     * Constructor.
+     */
+    public HostRoleCommandPredicateVisitor() {
+      super(entityManagerProvider.get(), HostRoleCommandEntity.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<HostRoleCommandEntity> getEntityClass() {
+      return HostRoleCommandEntity.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<? extends SingularAttribute<?, ?>> getPredicateMapping(
+        String propertyId) {
+      return HostRoleCommandEntity_.getPredicateMapping().get(propertyId);
+    }
+
+    /**
+     * String comparisons are evaluated in memory since the Ambari predicates
+     * are case sensitive while the default collation of some databases, such
+     * as MySQL, is not.
+     */
+    @Override
+    protected boolean isComparisonSupported(String propertyId, Class<?> attributeType) {
+      return String.class != attributeType;
+    }
+
+    /**
+     * Converts a comparison of the cluster name into a comparison of the
+     * cluster id of the task's stage.
+     */
+    @Override
+    protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+        String propertyId, String operator, Object value) {
+      if (!TaskResourceProvider.TASK_CLUSTER_NAME_PROPERTY_ID.equals(propertyId)
+          || !"=".equals(operator) || null == value) {
+        return null;
+      }
+
+      // the lookup may ignore case, the Ambari predicate does not
+      ClusterEntity cluster = clusterDAO.findByName(value.toString());
+      if (null == cluster || !cluster.getClusterName().equals(value.toString())) {
+        return getCriteriaBuilder().disjunction();
+      }
+
+      return getCriteriaBuilder().equal(
+          getRoot().get(HostRoleCommandEntity_.stage).get(StageEntity_.clusterId),
+          cluster.getClusterId());
+    }
+  }
 }
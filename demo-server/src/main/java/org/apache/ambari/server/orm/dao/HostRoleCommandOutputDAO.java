@@ -0,0 +1,418 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.apache.ambari.server.actionmanager.CommandOutputType;
+import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.HostRoleCommandOutputEntity;
+import org.apache.ambari.server.orm.entities.HostRoleCommandOutputEntityPK;
+import org.apache.commons.lang.ArrayUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
+
+/**
+ * The {@link HostRoleCommandOutputDAO} stores the stdout, stderr and
+ * structured output of tasks as fixed size chunks in the
+ * {@code host_role_command_output} table.
+ * <p/>
+ * Agents report the entire output of a running command on every heartbeat.
+ * Instead of rewriting it each time, the DAO remembers how much of the output
+ * of each running task has been stored (along with a checksum of it) and only
+ * writes the new bytes, extending the last chunk before creating new ones. If
+ * the reported output no longer starts with what was stored, or nothing is
+ * known about the task, the output is rewritten.
+ * <p/>
+ * Tasks written before this store existed keep their output in the legacy
+ * columns of {@code host_role_command}; it is read from there when a task has
+ * no chunks.
+ */
+@Singleton
+public class HostRoleCommandOutputDAO {
+
+  /**
+   * The maximum size of a single chunk.
+   */
+  public static final int CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * The maximum number of tasks whose append state is remembered.
+   */
+  private static final int STATE_CACHE_SIZE = 10000;
+
+  @Inject
+  Provider<EntityManager> entityManagerProvider;
+
+  @Inject
+  DaoUtils daoUtils;
+
+  /**
+   * The append state of the outputs of running tasks. Entries are released
+   * when a task completes; evicted entries only cause the next update to
+   * rewrite the output.
+   */
+  private final Cache<OutputKey, OutputState> m_states = CacheBuilder.newBuilder().maximumSize(
+      STATE_CACHE_SIZE).expireAfterAccess(1, TimeUnit.HOURS).build();
+
+  /**
+   * Stores the latest reported output of a task, writing only what was
+   * appended since the previous update when possible.
+   *
+   * @param taskId
+   *          the task id
+   * @param outputType
+   *          the type of output
+   * @param output
+   *          the entire output reported so far ({@code null} is stored as
+   *          empty)
+   */
+  @Transactional
+  public void update(long taskId, CommandOutputType outputType, byte[] output) {
+    output = ArrayUtils.nullToEmpty(output);
+
+    OutputState state = getState(new OutputKey(taskId, outputType));
+    synchronized (state) {
+      try {
+        if (!isAppendable(state, taskId, outputType, output)) {
+          rewrite(state, taskId, outputType, output);
+        } else if (output.length > state.length) {
+          append(state, taskId, outputType, output, (int) state.length);
+        }
+      } catch (RuntimeException exception) {
+        state.reset(false);
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * Reads a range of the output of a task.
+   *
+   * @param taskId
+   *          the task id
+   * @param outputType
+   *          the type of output
+   * @param offset
+   *          the offset of the first byte to read
+   * @param length
+   *          the maximum number of bytes to read, or a negative value to read
+   *          to the end of the output
+   * @return the bytes read (never {@code null})
+   */
+  @RequiresSession
+  public byte[] read(long taskId, CommandOutputType outputType, long offset, int length) {
+    long startOffset = Math.max(0L, offset);
+    long endOffset = length < 0 ? Long.MAX_VALUE : startOffset + length;
+
+    TypedQuery<HostRoleCommandOutputEntity> query = entityManagerProvider.get().createNamedQuery(
+        "HostRoleCommandOutputEntity.findByRange", HostRoleCommandOutputEntity.class);
+
+    query.setParameter("taskId", taskId);
+    query.setParameter("outputType", outputType);
+    query.setParameter("startOffset", startOffset);
+    query.setParameter("endOffset", endOffset);
+
+    List<HostRoleCommandOutputEntity> chunks = daoUtils.selectList(query);
+    if (chunks.isEmpty()) {
+      if (null != findLastChunkIndex(taskId, outputType)) {
+        return new byte[0];
+      }
+
+      return slice(readLegacy(taskId, outputType), startOffset, endOffset);
+    }
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    for (HostRoleCommandOutputEntity chunk : chunks) {
+      long chunkOffset = chunk.getChunkOffset();
+      int from = (int) (Math.max(startOffset, chunkOffset) - chunkOffset);
+      int to = (int) (Math.min(endOffset, chunkOffset + chunk.getChunkLength()) - chunkOffset);
+      buffer.write(chunk.getChunkData(), from, to - from);
+    }
+
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Reads the entire output of a task.
+   *
+   * @param taskId
+   *          the task id
+   * @param outputType
+   *          the type of output
+   * @return the output (never {@code null})
+   */
+  @RequiresSession
+  public byte[] read(long taskId, CommandOutputType outputType) {
+    return read(taskId, outputType, 0L, -1);
+  }
+
+  /**
+   * Forgets the append state of a task, typically once it has completed.
+   *
+   * @param taskId
+   *          the task id
+   */
+  public void release(long taskId) {
+    for (CommandOutputType outputType : CommandOutputType.values()) {
+      m_states.invalidate(new OutputKey(taskId, outputType));
+    }
+  }
+
+  /**
+   * Removes all of the output of a task.
+   *
+   * @param taskId
+   *          the task id
+   */
+  @Transactional
+  public void removeByTaskId(long taskId) {
+    release(taskId);
+
+    entityManagerProvider.get().createNamedQuery(
+        "HostRoleCommandOutputEntity.removeByTask").setParameter("taskId", taskId).executeUpdate();
+  }
+
+  /**
+   * Gets whether the output can be appended to what was previously stored;
+   * that is, whether the stored chunks are the ones the state describes and
+   * the output starts with the stored bytes.
+   */
+  private boolean isAppendable(OutputState state, long taskId,
+      CommandOutputType outputType, byte[] output) {
+    if (!state.known || output.length < state.length) {
+      return false;
+    }
+
+    if (state.lastIndex >= 0) {
+      HostRoleCommandOutputEntity last = entityManagerProvider.get().find(
+          HostRoleCommandOutputEntity.class,
+          new HostRoleCommandOutputEntityPK(taskId, outputType, state.lastIndex));
+
+      if (null == last || last.getChunkLength() != state.lastChunk.length) {
+        return false;
+      }
+    }
+
+    return checksum(output, (int) state.length) == state.checksum;
+  }
+
+  /**
+   * Replaces the stored output.
+   */
+  private void rewrite(OutputState state, long taskId,
+      CommandOutputType outputType, byte[] output) {
+    if (!state.known || state.lastIndex >= 0) {
+      entityManagerProvider.get().createNamedQuery(
+          "HostRoleCommandOutputEntity.removeByTaskAndType").setParameter("taskId",
+          taskId).setParameter("outputType", outputType).executeUpdate();
+    }
+
+    state.reset(true);
+    append(state, taskId, outputType, output, 0);
+  }
+
+  /**
+   * Stores the bytes of the output following the specified position, first
+   * filling the last chunk.
+   */
+  private void append(OutputState state, long taskId,
+      CommandOutputType outputType, byte[] output, int position) {
+    EntityManager entityManager = entityManagerProvider.get();
+
+    if (null != state.lastChunk && state.lastChunk.length < CHUNK_SIZE
+        && position < output.length) {
+      int count = Math.min(CHUNK_SIZE - state.lastChunk.length, output.length - position);
+      byte[] data = Arrays.copyOf(state.lastChunk, state.lastChunk.length + count);
+      System.arraycopy(output, position, data, state.lastChunk.length, count);
+
+      HostRoleCommandOutputEntity last = entityManager.find(HostRoleCommandOutputEntity.class,
+          new HostRoleCommandOutputEntityPK(taskId, outputType, state.lastIndex));
+
+      last.setChunkData(data);
+      state.lastChunk = data;
+      position += count;
+    }
+
+    while (position < output.length) {
+      int count = Math.min(CHUNK_SIZE, output.length - position);
+      byte[] data = Arrays.copyOfRange(output, position, position + count);
+
+      HostRoleCommandOutputEntity chunk = new HostRoleCommandOutputEntity();
+      chunk.setTaskId(taskId);
+      chunk.setOutputType(outputType);
+      chunk.setChunkIndex(state.lastIndex + 1);
+      chunk.setChunkOffset((long) position);
+      chunk.setChunkData(data);
+      entityManager.persist(chunk);
+
+      state.lastIndex++;
+      state.lastChunk = data;
+      position += count;
+    }
+
+    state.length = output.length;
+    state.checksum = checksum(output, output.length);
+  }
+
+  /**
+   * Gets the index of the last chunk of an output.
+   *
+   * @return the index or {@code null} if the output has no chunks
+   */
+  private Integer findLastChunkIndex(long taskId, CommandOutputType outputType) {
+    TypedQuery<Integer> query = entityManagerProvider.get().createNamedQuery(
+        "HostRoleCommandOutputEntity.findLastChunkIndex", Integer.class);
+
+    query.setParameter("taskId", taskId);
+    query.setParameter("outputType", outputType);
+
+    return daoUtils.selectSingle(query);
+  }
+
+  /**
+   * Reads the output of a task which was stored before the output store
+   * existed.
+   */
+  private byte[] readLegacy(long taskId, CommandOutputType outputType) {
+    String attribute;
+    switch (outputType) {
+      case STDOUT:
+        attribute = "stdOut";
+        break;
+      case STDERR:
+        attribute = "stdError";
+        break;
+      default:
+        attribute = "structuredOut";
+        break;
+    }
+
+    TypedQuery<byte[]> query = entityManagerProvider.get().createQuery(
+        "SELECT command." + attribute
+            + " FROM HostRoleCommandEntity command WHERE command.taskId = :taskId",
+        byte[].class);
+
+    query.setParameter("taskId", taskId);
+
+    return ArrayUtils.nullToEmpty(daoUtils.selectSingle(query));
+  }
+
+  /**
+   * Gets the bytes between the specified offsets.
+   */
+  private static byte[] slice(byte[] bytes, long startOffset, long endOffset) {
+    int from = (int) Math.min(startOffset, bytes.length);
+    int to = (int) Math.min(endOffset, bytes.length);
+    return from == 0 && to == bytes.length ? bytes : Arrays.copyOfRange(bytes, from, to);
+  }
+
+  /**
+   * Gets the CRC-32 of the first bytes of the output.
+   */
+  private static long checksum(byte[] output, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(output, 0, length);
+    return crc.getValue();
+  }
+
+  /**
+   * Gets or creates the append state of an output.
+   */
+  private OutputState getState(OutputKey key) {
+    try {
+      return m_states.get(key, new Callable<OutputState>() {
+        @Override
+        public OutputState call() {
+          return new OutputState();
+        }
+      });
+    } catch (ExecutionException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * Identifies one output of a task.
+   */
+  private static final class OutputKey {
+    private final long m_taskId;
+    private final CommandOutputType m_outputType;
+
+    private OutputKey(long taskId, CommandOutputType outputType) {
+      m_taskId = taskId;
+      m_outputType = outputType;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+
+      if (object == null || getClass() != object.getClass()) {
+        return false;
+      }
+
+      OutputKey that = (OutputKey) object;
+      return m_taskId == that.m_taskId && m_outputType == that.m_outputType;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (int) (m_taskId ^ (m_taskId >>> 32)) + m_outputType.hashCode();
+    }
+  }
+
+  /**
+   * What is known about the stored chunks of one output.
+   */
+  private static final class OutputState {
+    /**
+     * Whether the stored chunks are known; if not, the next update rewrites
+     * the output.
+     */
+    private boolean known = false;
+    private int lastIndex = -1;
+    private byte[] lastChunk = null;
+    private long length = 0L;
+    private long checksum = 0L;
+
+    private void reset(boolean empty) {
+      known = empty;
+      lastIndex = -1;
+      lastChunk = null;
+      length = 0L;
+      checksum = 0L;
+    }
+  }
+}
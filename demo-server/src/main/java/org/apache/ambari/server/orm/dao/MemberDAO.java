@@ -29,6 +29,7 @@ import javax.persistence.TypedQuery;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.entities.MemberEntity;
 import org.apache.ambari.server.orm.entities.UserEntity;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -41,6 +42,8 @@ public class MemberDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
 
   @RequiresSession
   public MemberEntity findByPK(Integer memberPK) {
@@ -72,13 +75,34 @@ public class MemberDAO {
     return daoUtils.selectList(query);
   }
 
+  /**
+   * Find the names of the users belonging to the given group without loading
+   * the member entities.
+   *
+   * @param groupName  the group name
+   *
+   * @return the lower case names of the group members
+   */
+  @RequiresSession
+  public Set<String> findUserNamesByGroupName(String groupName) {
+    final TypedQuery<String> query = entityManagerProvider.get().createQuery("SELECT m.user.userName FROM MemberEntity m WHERE lower(m.group.groupName) = :groupName", String.class);
+    query.setParameter("groupName", groupName.toLowerCase());
+    final Set<String> userNames = new HashSet<String>();
+    for (String userName : daoUtils.selectList(query)) {
+      userNames.add(userName.toLowerCase());
+    }
+    return userNames;
+  }
+
   @Transactional
   public void create(MemberEntity member) {
+    permissionsCache.invalidate();
     create(new HashSet<MemberEntity>(Arrays.asList(member)));
   }
 
   @Transactional
   public void create(Set<MemberEntity> members) {
+    permissionsCache.invalidate();
     for (MemberEntity member: members) {
       entityManagerProvider.get().persist(member);
     }
@@ -86,16 +110,19 @@ public class MemberDAO {
 
   @Transactional
   public MemberEntity merge(MemberEntity member) {
+    permissionsCache.invalidate();
     return entityManagerProvider.get().merge(member);
   }
 
   @Transactional
   public void remove(MemberEntity member) {
+    permissionsCache.invalidate();
     entityManagerProvider.get().remove(merge(member));
   }
 
   @Transactional
   public void remove(Set<MemberEntity> members) {
+    permissionsCache.invalidate();
     for (MemberEntity member: members) {
       entityManagerProvider.get().remove(entityManagerProvider.get().merge(member));
     }
@@ -103,6 +130,7 @@ public class MemberDAO {
 
   @Transactional
   public void removeByPK(Integer memberPK) {
+    permissionsCache.invalidate();
     remove(findByPK(memberPK));
   }
 }
@@ -25,6 +25,7 @@ import javax.persistence.TypedQuery;
 
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.entities.PrincipalEntity;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -43,6 +44,11 @@ public class PrincipalDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  /**
+   * Dropped on every change since the permissions of users depend on it.
+   */
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
 
   /**
    * Find a principal with the given id.
@@ -87,6 +93,7 @@ public class PrincipalDAO {
    */
   @Transactional
   public void create(PrincipalEntity entity) {
+    permissionsCache.invalidate();
     create(Arrays.asList(entity));
   }
 
@@ -97,6 +104,7 @@ public class PrincipalDAO {
    */
   @Transactional
   public void create(List<PrincipalEntity> entities) {
+    permissionsCache.invalidate();
     for (PrincipalEntity entity: entities) {
       entityManagerProvider.get().persist(entity);
     }
@@ -111,6 +119,7 @@ public class PrincipalDAO {
    */
   @Transactional
   public PrincipalEntity merge(PrincipalEntity entity) {
+    permissionsCache.invalidate();
     return entityManagerProvider.get().merge(entity);
   }
 }
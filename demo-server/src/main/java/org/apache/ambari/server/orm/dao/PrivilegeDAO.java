@@ -28,6 +28,7 @@ import org.apache.ambari.server.orm.entities.PermissionEntity;
 import org.apache.ambari.server.orm.entities.PrincipalEntity;
 import org.apache.ambari.server.orm.entities.PrivilegeEntity;
 import org.apache.ambari.server.orm.entities.ResourceEntity;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -47,6 +48,11 @@ public class PrivilegeDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  /**
+   * Dropped on every change since the permissions of users depend on it.
+   */
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
 
   /**
    * Find a privilege with the given id.
@@ -142,6 +148,7 @@ public class PrivilegeDAO {
    */
   @Transactional
   public void create(PrivilegeEntity entity) {
+    permissionsCache.invalidate();
     entityManagerProvider.get().persist(entity);
   }
 
@@ -154,6 +161,7 @@ public class PrivilegeDAO {
    */
   @Transactional
   public PrivilegeEntity merge(PrivilegeEntity entity) {
+    permissionsCache.invalidate();
     return entityManagerProvider.get().merge(entity);
   }
   /**
@@ -163,6 +171,7 @@ public class PrivilegeDAO {
    */
   @Transactional
   public void remove(PrivilegeEntity entity) {
+    permissionsCache.invalidate();
     entityManagerProvider.get().remove(merge(entity));
   }
 }
@@ -22,13 +22,23 @@ import java.text.MessageFormat;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
 
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.api.query.JpaPredicateVisitor;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
+import org.apache.ambari.server.controller.internal.RequestResourceProvider;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
 import org.apache.ambari.server.orm.entities.RequestEntity;
+import org.apache.ambari.server.orm.entities.RequestEntity_;
 import org.apache.ambari.server.orm.entities.RequestResourceFilterEntity;
 import org.eclipse.persistence.config.HintValues;
 import org.eclipse.persistence.config.QueryHints;
@@ -51,6 +61,9 @@ public class RequestDAO {
   @Inject
   DaoUtils daoUtils;
 
+  @Inject
+  ClusterDAO clusterDAO;
+
   @RequiresSession
   public RequestEntity findByPK(Long requestId) {
     return entityManagerProvider.get().find(RequestEntity.class, requestId);
@@ -149,4 +162,79 @@ public class RequestDAO {
   public void removeByPK(Long requestId) {
     remove(findByPK(requestId));
   }
+
+  /**
+   * Finds the page of {@link RequestEntity}s matching the provided predicate,
+   * letting the database filter, sort and page them.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all requests.
+   * @param keyPropertyIds
+   *          the key property ids of the resource.
+   * @return the requests, or {@code null} if the query cannot be fully
+   *         translated into JPA.
+   */
+  @RequiresSession
+  public JpaQueryTranslator.Page<RequestEntity> findPage(Request request,
+      Predicate predicate, Map<Resource.Type, String> keyPropertyIds) {
+    JpaQueryTranslator<RequestEntity> translator = new JpaQueryTranslator<RequestEntity>(
+        entityManagerProvider.get(), new RequestPredicateVisitor());
+
+    return translator.execute(request, predicate, keyPropertyIds);
+  }
+
+  /**
+   * The {@link RequestPredicateVisitor} is used to convert an Ambari
+   * {@link Predicate} into a JPA {@link javax.persistence.criteria.Predicate}.
+   */
+  private final class RequestPredicateVisitor extends
+      JpaPredicateVisitor<RequestEntity> {
+
+    /**
+     * Constructor.
+     */
+    public RequestPredicateVisitor() {
+      super(entityManagerProvider.get(), RequestEntity.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<RequestEntity> getEntityClass() {
+      return RequestEntity.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<? extends SingularAttribute<?, ?>> getPredicateMapping(
+        String propertyId) {
+      return RequestEntity_.getPredicateMapping().get(propertyId);
+    }
+
+    /**
+     * Converts a comparison of the cluster name into a comparison of the
+     * cluster id.
+     */
+    @Override
+    protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+        String propertyId, String operator, Object value) {
+      if (!RequestResourceProvider.REQUEST_CLUSTER_NAME_PROPERTY_ID.equals(propertyId)
+          || !"=".equals(operator) || null == value) {
+        return null;
+      }
+
+      ClusterEntity cluster = clusterDAO.findByName(value.toString());
+      if (null == cluster) {
+        return getCriteriaBuilder().disjunction();
+      }
+
+      return getCriteriaBuilder().equal(getRoot().get(RequestEntity_.clusterId),
+          cluster.getClusterId());
+    }
+  }
 }
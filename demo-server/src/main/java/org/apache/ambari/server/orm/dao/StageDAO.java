@@ -35,12 +35,16 @@ import javax.persistence.metamodel.SingularAttribute;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
 import org.apache.ambari.server.api.query.JpaPredicateVisitor;
+import org.apache.ambari.server.api.query.JpaQueryTranslator;
 import org.apache.ambari.server.api.query.JpaSortBuilder;
 import org.apache.ambari.server.controller.internal.CalculatedStatus;
+import org.apache.ambari.server.controller.internal.StageResourceProvider;
 import org.apache.ambari.server.controller.spi.Predicate;
 import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.utilities.PredicateHelper;
 import org.apache.ambari.server.orm.RequiresSession;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
 import org.apache.ambari.server.orm.entities.StageEntity;
 import org.apache.ambari.server.orm.entities.StageEntityPK;
@@ -89,6 +93,12 @@ public class StageDAO {
   @Inject
   HostRoleCommandDAO hostRoleCommandDao;
 
+  @Inject
+  ClusterDAO clusterDAO;
+
+  @Inject
+  BlobDAO blobDAO;
+
   @RequiresSession
   public StageEntity findByPK(StageEntityPK stageEntityPK) {
     return entityManagerProvider.get().find(StageEntity.class, stageEntityPK);
@@ -190,8 +200,18 @@ public class StageDAO {
     }
   }
 
+  /**
+   * Persists the stage, moving its large parameters into the blob store.
+   * Stages created by the same request usually share these values, so they
+   * are compressed and written only once.
+   *
+   * @param stageEntity the stage to persist
+   */
   @Transactional
   public void create(StageEntity stageEntity) {
+    stageEntity.setClusterHostInfo(blobDAO.store(stageEntity.getClusterHostInfo()));
+    stageEntity.setCommandParamsStage(blobDAO.store(stageEntity.getCommandParamsStage()));
+    stageEntity.setHostParamsStage(blobDAO.store(stageEntity.getHostParamsStage()));
     entityManagerProvider.get().persist(stageEntity);
   }
 
@@ -248,6 +268,31 @@ public class StageDAO {
     return daoUtils.selectList(typedQuery);
   }
 
+  /**
+   * Finds the page of {@link StageEntity}s matching the provided predicate,
+   * letting the database filter, sort and page them.
+   *
+   * @param request
+   *          the read request carrying the sort and page requests.
+   * @param predicate
+   *          the predicate, or {@code null} for all stages.
+   * @param keyPropertyIds
+   *          the key property ids of the stage resource.
+   * @return the stages, or {@code null} if the query cannot be fully
+   *         translated into JPA.
+   */
+  @RequiresSession
+  public JpaQueryTranslator.Page<StageEntity> findPage(Request request,
+      Predicate predicate, Map<Resource.Type, String> keyPropertyIds) {
+    JpaQueryTranslator<StageEntity> translator = new JpaQueryTranslator<StageEntity>(
+        entityManagerProvider.get(), new StagePredicateVisitor());
+
+    // see findAll(Request, Predicate)
+    translator.setHint(QueryHints.REFRESH, HintValues.TRUE);
+
+    return translator.execute(request, predicate, keyPropertyIds);
+  }
+
   /**
    * Update the given stage entity with the desired status.
    *
@@ -336,5 +381,26 @@ public class StageDAO {
         String propertyId) {
       return StageEntity_.getPredicateMapping().get(propertyId);
     }
+
+    /**
+     * Converts a comparison of the cluster name into a comparison of the
+     * cluster id.
+     */
+    @Override
+    protected javax.persistence.criteria.Predicate createUnmappedPredicate(
+        String propertyId, String operator, Object value) {
+      if (!StageResourceProvider.STAGE_CLUSTER_NAME.equals(propertyId)
+          || !"=".equals(operator) || null == value) {
+        return null;
+      }
+
+      ClusterEntity cluster = clusterDAO.findByName(value.toString());
+      if (null == cluster) {
+        return getCriteriaBuilder().disjunction();
+      }
+
+      return getCriteriaBuilder().equal(getRoot().get(StageEntity_.clusterId),
+          cluster.getClusterId());
+    }
   }
 }
@@ -18,9 +18,12 @@
 package org.apache.ambari.server.orm.dao;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
@@ -30,6 +33,7 @@ import javax.persistence.TypedQuery;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.entities.PrincipalEntity;
 import org.apache.ambari.server.orm.entities.UserEntity;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -43,6 +47,8 @@ public class UserDAO {
   Provider<EntityManager> entityManagerProvider;
   @Inject
   DaoUtils daoUtils;
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
 
   @RequiresSession
   public UserEntity findByPK(Integer userPK) {
@@ -88,6 +94,60 @@ public class UserDAO {
     }
   }
 
+  /**
+   * Find the user entities for the given user names.
+   *
+   * @param userNames  the lower case user names; at most
+   *                   {@link DaoUtils#ORACLE_LIST_LIMIT} is safe on Oracle
+   *
+   * @return the matching user entities
+   */
+  @RequiresSession
+  public List<UserEntity> findUsersByNames(Collection<String> userNames) {
+    if (userNames == null || userNames.isEmpty()) {
+      return Collections.emptyList();
+    }
+    TypedQuery<UserEntity> query = entityManagerProvider.get().createQuery("SELECT user_entity FROM UserEntity user_entity WHERE lower(user_entity.userName) IN :userNames", UserEntity.class);
+    query.setParameter("userNames", userNames);
+    return daoUtils.selectList(query);
+  }
+
+  /**
+   * Find the LDAP user entities for the given user names. Local users which
+   * share a name with an LDAP user are not returned.
+   *
+   * @param userNames  the lower case user names; at most
+   *                   {@link DaoUtils#ORACLE_LIST_LIMIT} is safe on Oracle
+   *
+   * @return the matching LDAP user entities
+   */
+  @RequiresSession
+  public List<UserEntity> findLdapUsersByNames(Collection<String> userNames) {
+    if (userNames == null || userNames.isEmpty()) {
+      return Collections.emptyList();
+    }
+    TypedQuery<UserEntity> query = entityManagerProvider.get().createQuery("SELECT user_entity FROM UserEntity user_entity WHERE lower(user_entity.userName) IN :userNames AND user_entity.ldapUser = 1", UserEntity.class);
+    query.setParameter("userNames", userNames);
+    return daoUtils.selectList(query);
+  }
+
+  /**
+   * Find the names of all users along with their LDAP flag without loading
+   * the user entities.
+   *
+   * @return map of lower case user name to true if the user is an LDAP user,
+   *         ordered by user name
+   */
+  @RequiresSession
+  public Map<String, Boolean> findLdapFlagsByUserName() {
+    TypedQuery<Object[]> query = entityManagerProvider.get().createQuery("SELECT user_entity.userName, user_entity.ldapUser FROM UserEntity user_entity ORDER BY user_entity.userName", Object[].class);
+    Map<String, Boolean> flags = new LinkedHashMap<String, Boolean>();
+    for (Object[] row : daoUtils.selectList(query)) {
+      flags.put(((String) row[0]).toLowerCase(), ((Number) row[1]).intValue() != 0);
+    }
+    return flags;
+  }
+
   /**
    * Find the user entities for the given list of admin principal entities.
    *
@@ -125,11 +185,13 @@ public class UserDAO {
 
   @Transactional
   public void create(UserEntity user) {
+    permissionsCache.invalidate();
     create(new HashSet<UserEntity>(Arrays.asList(user)));
   }
 
   @Transactional
   public void create(Set<UserEntity> users) {
+    permissionsCache.invalidate();
     for (UserEntity user: users) {
       user.setUserName(user.getUserName().toLowerCase());
       entityManagerProvider.get().persist(user);
@@ -138,12 +200,14 @@ public class UserDAO {
 
   @Transactional
   public UserEntity merge(UserEntity user) {
+    permissionsCache.invalidate();
     user.setUserName(user.getUserName().toLowerCase());
     return entityManagerProvider.get().merge(user);
   }
 
   @Transactional
   public void merge(Set<UserEntity> users) {
+    permissionsCache.invalidate();
     for (UserEntity user: users) {
       user.setUserName(user.getUserName().toLowerCase());
       entityManagerProvider.get().merge(user);
@@ -152,12 +216,14 @@ public class UserDAO {
 
   @Transactional
   public void remove(UserEntity user) {
+    permissionsCache.invalidate();
     entityManagerProvider.get().remove(merge(user));
     entityManagerProvider.get().getEntityManagerFactory().getCache().evictAll();
   }
 
   @Transactional
   public void remove(Set<UserEntity> users) {
+    permissionsCache.invalidate();
     for (UserEntity userEntity: users) {
       entityManagerProvider.get().remove(entityManagerProvider.get().merge(userEntity));
     }
@@ -165,6 +231,7 @@ public class UserDAO {
 
   @Transactional
   public void removeByPK(Integer userPK) {
+    permissionsCache.invalidate();
     remove(findByPK(userPK));
   }
 }
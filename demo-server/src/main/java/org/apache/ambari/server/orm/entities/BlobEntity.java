@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.entities;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * The {@link BlobEntity} class represents a compressed, content-addressed
+ * payload which is shared by every row that stores the same content. Large
+ * stage parameters and execution commands are written here once and the
+ * owning rows only keep a reference to the hash.
+ * <p/>
+ * Blobs are immutable; the hash is the SHA-256 of the uncompressed content.
+ */
+@Entity
+@Table(name = "blob_store")
+public class BlobEntity {
+
+  @Id
+  @Column(name = "blob_hash", length = 64, nullable = false, updatable = false)
+  private String blobHash;
+
+  @Basic
+  @Column(name = "blob_length", nullable = false, updatable = false)
+  private Integer blobLength;
+
+  @Basic
+  @Lob
+  @Column(name = "blob_content", nullable = false, updatable = false)
+  private byte[] blobContent;
+
+  /**
+   * Gets the SHA-256 of the uncompressed content.
+   *
+   * @return the hash (never {@code null}).
+   */
+  public String getBlobHash() {
+    return blobHash;
+  }
+
+  /**
+   * Sets the SHA-256 of the uncompressed content.
+   *
+   * @param blobHash
+   *          the hash (not {@code null}).
+   */
+  public void setBlobHash(String blobHash) {
+    this.blobHash = blobHash;
+  }
+
+  /**
+   * Gets the length of the uncompressed content.
+   *
+   * @return the length in bytes.
+   */
+  public Integer getBlobLength() {
+    return blobLength;
+  }
+
+  /**
+   * Sets the length of the uncompressed content.
+   *
+   * @param blobLength
+   *          the length in bytes.
+   */
+  public void setBlobLength(Integer blobLength) {
+    this.blobLength = blobLength;
+  }
+
+  /**
+   * Gets the GZIP compressed content.
+   *
+   * @return the compressed content.
+   */
+  public byte[] getBlobContent() {
+    return blobContent;
+  }
+
+  /**
+   * Sets the GZIP compressed content.
+   *
+   * @param blobContent
+   *          the compressed content.
+   */
+  public void setBlobContent(byte[] blobContent) {
+    this.blobContent = blobContent;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+
+    if (object == null || getClass() != object.getClass()) {
+      return false;
+    }
+
+    BlobEntity that = (BlobEntity) object;
+    return blobHash != null ? blobHash.equals(that.blobHash) : that.blobHash == null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    return blobHash != null ? blobHash.hashCode() : 0;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.orm.entities;
+
+import org.apache.ambari.server.controller.internal.HostComponentResourceProvider;
+import org.apache.ambari.server.state.State;
+import org.apache.ambari.server.state.UpgradeState;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link HostComponentStateEntity_} is a strongly typed metamodel for
+ * creating {@link javax.persistence.criteria.CriteriaQuery} for
+ * {@link HostComponentStateEntity}.
+ */
+@StaticMetamodel(HostComponentStateEntity.class)
+public class HostComponentStateEntity_ {
+  public static volatile SingularAttribute<HostComponentStateEntity, Long> id;
+  public static volatile SingularAttribute<HostComponentStateEntity, Long> clusterId;
+  public static volatile SingularAttribute<HostComponentStateEntity, String> serviceName;
+  public static volatile SingularAttribute<HostComponentStateEntity, String> componentName;
+  public static volatile SingularAttribute<HostComponentStateEntity, String> version;
+  public static volatile SingularAttribute<HostComponentStateEntity, State> currentState;
+  public static volatile SingularAttribute<HostComponentStateEntity, UpgradeState> upgradeState;
+
+  public static volatile SingularAttribute<HostComponentStateEntity, HostEntity> hostEntity;
+
+  /**
+   * Gets a mapping of between a resource provider property and the host
+   * component attributes. Desired states and configurations are kept by other
+   * entities or in memory and are not mapped.
+   * <p/>
+   * Multiple {@link SingularAttribute} instances can be chained together in
+   * order to provide an {@code entity.subEntity.field} reference.
+   *
+   * @return a mapping of between a resource provider property
+   */
+  public static Map<String, List<? extends SingularAttribute<?, ?>>> getPredicateMapping() {
+    Map<String, List<? extends SingularAttribute<?, ?>>> mapping = new HashMap<String, List<? extends SingularAttribute<?, ?>>>();
+
+    mapping.put(HostComponentResourceProvider.HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID,
+        Collections.singletonList(serviceName));
+
+    mapping.put(HostComponentResourceProvider.HOST_COMPONENT_COMPONENT_NAME_PROPERTY_ID,
+        Collections.singletonList(componentName));
+
+    mapping.put(HostComponentResourceProvider.HOST_COMPONENT_HOST_NAME_PROPERTY_ID,
+        Arrays.asList(hostEntity, HostEntity_.hostName));
+
+    mapping.put(HostComponentResourceProvider.HOST_COMPONENT_STATE_PROPERTY_ID,
+        Collections.singletonList(currentState));
+
+    mapping.put(HostComponentResourceProvider.HOST_COMPONENT_UPGRADE_STATE_PROPERTY_ID,
+        Collections.singletonList(upgradeState));
+
+    return mapping;
+  }
+}
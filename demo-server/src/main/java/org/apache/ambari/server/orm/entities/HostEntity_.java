@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.orm.entities;
+
+import org.apache.ambari.server.controller.internal.HostResourceProvider;
+
+import javax.persistence.metamodel.CollectionAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link HostEntity_} is a strongly typed metamodel for creating
+ * {@link javax.persistence.criteria.CriteriaQuery} for {@link HostEntity}.
+ */
+@StaticMetamodel(HostEntity.class)
+public class HostEntity_ {
+  public static volatile SingularAttribute<HostEntity, Long> hostId;
+  public static volatile SingularAttribute<HostEntity, String> hostName;
+  public static volatile SingularAttribute<HostEntity, String> ipv4;
+  public static volatile SingularAttribute<HostEntity, String> publicHostName;
+  public static volatile SingularAttribute<HostEntity, Long> totalMem;
+  public static volatile SingularAttribute<HostEntity, Integer> cpuCount;
+  public static volatile SingularAttribute<HostEntity, Integer> phCpuCount;
+  public static volatile SingularAttribute<HostEntity, String> osArch;
+  public static volatile SingularAttribute<HostEntity, String> osType;
+  public static volatile SingularAttribute<HostEntity, String> rackInfo;
+  public static volatile SingularAttribute<HostEntity, Long> lastRegistrationTime;
+
+  public static volatile CollectionAttribute<HostEntity, ClusterEntity> clusterEntities;
+
+  /**
+   * Gets a mapping of between a resource provider property and the host
+   * attributes. Only properties which are read from the {@link HostEntity}
+   * are mapped; the live state of a host is kept in memory.
+   *
+   * @return a mapping of between a resource provider property
+   */
+  public static Map<String, List<? extends SingularAttribute<HostEntity, ?>>> getPredicateMapping() {
+    Map<String, List<? extends SingularAttribute<HostEntity, ?>>> mapping = new HashMap<String, List<? extends SingularAttribute<HostEntity, ?>>>();
+
+    mapping.put(HostResourceProvider.HOST_NAME_PROPERTY_ID,
+        Collections.singletonList(hostName));
+
+    mapping.put(HostResourceProvider.HOST_IP_PROPERTY_ID,
+        Collections.singletonList(ipv4));
+
+    mapping.put(HostResourceProvider.HOST_PUBLIC_NAME_PROPERTY_ID,
+        Collections.singletonList(publicHostName));
+
+    mapping.put(HostResourceProvider.HOST_TOTAL_MEM_PROPERTY_ID,
+        Collections.singletonList(totalMem));
+
+    mapping.put(HostResourceProvider.HOST_CPU_COUNT_PROPERTY_ID,
+        Collections.singletonList(cpuCount));
+
+    mapping.put(HostResourceProvider.HOST_PHYSICAL_CPU_COUNT_PROPERTY_ID,
+        Collections.singletonList(phCpuCount));
+
+    mapping.put(HostResourceProvider.HOST_OS_ARCH_PROPERTY_ID,
+        Collections.singletonList(osArch));
+
+    mapping.put(HostResourceProvider.HOST_OS_TYPE_PROPERTY_ID,
+        Collections.singletonList(osType));
+
+    mapping.put(HostResourceProvider.HOST_RACK_INFO_PROPERTY_ID,
+        Collections.singletonList(rackInfo));
+
+    mapping.put(HostResourceProvider.HOST_LAST_REGISTRATION_TIME_PROPERTY_ID,
+        Collections.singletonList(lastRegistrationTime));
+
+    return mapping;
+  }
+}
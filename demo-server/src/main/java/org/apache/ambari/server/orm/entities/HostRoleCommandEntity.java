@@ -20,8 +20,6 @@ package org.apache.ambari.server.orm.entities;
 
 import static org.apache.commons.lang.StringUtils.defaultString;
 
-import java.util.Arrays;
-
 import javax.persistence.Basic;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -99,14 +97,24 @@ public class HostRoleCommandEntity {
   @Enumerated(EnumType.STRING)
   private HostRoleStatus status;
 
+  /**
+   * Task output is kept in the {@code host_role_command_output} table; this
+   * column only holds the output of tasks written before that table existed.
+   * Lazy load it so that task queries never read it.
+   */
   @Column(name = "std_error")
   @Lob
-  @Basic
+  @Basic(fetch = FetchType.LAZY)
   private byte[] stdError = new byte[0];
 
+  /**
+   * Task output is kept in the {@code host_role_command_output} table; this
+   * column only holds the output of tasks written before that table existed.
+   * Lazy load it so that task queries never read it.
+   */
   @Column(name = "std_out")
   @Lob
-  @Basic
+  @Basic(fetch = FetchType.LAZY)
   private byte[] stdOut = new byte[0];
 
   @Column(name = "output_log")
@@ -118,9 +126,14 @@ public class HostRoleCommandEntity {
   private String errorLog = null;
 
 
+  /**
+   * Task output is kept in the {@code host_role_command_output} table; this
+   * column only holds the output of tasks written before that table existed.
+   * Lazy load it so that task queries never read it.
+   */
   @Column(name = "structured_out")
   @Lob
-  @Basic
+  @Basic(fetch = FetchType.LAZY)
   private byte[] structuredOut = new byte[0];
 
   @Basic
@@ -415,12 +428,6 @@ public class HostRoleCommandEntity {
     if (status != null ? !status.equals(that.status) : that.status != null) {
       return false;
     }
-    if (stdError != null ? !Arrays.equals(stdError, that.stdError) : that.stdError != null) {
-      return false;
-    }
-    if (stdOut != null ? !Arrays.equals(stdOut, that.stdOut) : that.stdOut != null) {
-      return false;
-    }
     if (outputLog != null ? !outputLog.equals(that.outputLog) : that.outputLog != null) {
       return false;
     }
@@ -430,9 +437,6 @@ public class HostRoleCommandEntity {
     if (taskId != null ? !taskId.equals(that.taskId) : that.taskId != null) {
       return false;
     }
-    if (structuredOut != null ? !Arrays.equals(structuredOut, that.structuredOut) : that.structuredOut != null) {
-      return false;
-    }
     if (endTime != null ? !endTime.equals(that.endTime) : that.endTime != null) {
       return false;
     }
@@ -450,15 +454,12 @@ public class HostRoleCommandEntity {
     result = 31 * result + (event != null ? event.hashCode() : 0);
     result = 31 * result + (exitcode != null ? exitcode.hashCode() : 0);
     result = 31 * result + (status != null ? status.hashCode() : 0);
-    result = 31 * result + (stdError != null ? Arrays.hashCode(stdError) : 0);
-    result = 31 * result + (stdOut != null ? Arrays.hashCode(stdOut) : 0);
     result = 31 * result + (outputLog != null ? outputLog.hashCode() : 0);
     result = 31 * result + (errorLog != null ? errorLog.hashCode() : 0);
     result = 31 * result + (startTime != null ? startTime.hashCode() : 0);
     result = 31 * result + (lastAttemptTime != null ? lastAttemptTime.hashCode() : 0);
     result = 31 * result + (attemptCount != null ? attemptCount.hashCode() : 0);
     result = 31 * result + (endTime != null ? endTime.hashCode() : 0);
-    result = 31 * result + (structuredOut != null ? Arrays.hashCode(structuredOut) : 0);
     return result;
   }
 
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.entities;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.ambari.server.actionmanager.CommandOutputType;
+
+/**
+ * The {@link HostRoleCommandOutputEntity} class represents a chunk of the
+ * output of a task. Outputs are split into chunks so that they can be read by
+ * range and appended to without rewriting what was already stored; task
+ * metadata queries never load them.
+ */
+@Entity
+@Table(name = "host_role_command_output")
+@IdClass(HostRoleCommandOutputEntityPK.class)
+@NamedQueries({
+    @NamedQuery(name = "HostRoleCommandOutputEntity.findByTaskAndType", query = "SELECT chunk FROM HostRoleCommandOutputEntity chunk WHERE chunk.taskId = :taskId AND chunk.outputType = :outputType ORDER BY chunk.chunkIndex"),
+    @NamedQuery(name = "HostRoleCommandOutputEntity.findByRange", query = "SELECT chunk FROM HostRoleCommandOutputEntity chunk WHERE chunk.taskId = :taskId AND chunk.outputType = :outputType AND chunk.chunkOffset < :endOffset AND chunk.chunkOffset + chunk.chunkLength > :startOffset ORDER BY chunk.chunkIndex"),
+    @NamedQuery(name = "HostRoleCommandOutputEntity.findLastChunkIndex", query = "SELECT MAX(chunk.chunkIndex) FROM HostRoleCommandOutputEntity chunk WHERE chunk.taskId = :taskId AND chunk.outputType = :outputType"),
+    @NamedQuery(name = "HostRoleCommandOutputEntity.removeByTaskAndType", query = "DELETE FROM HostRoleCommandOutputEntity chunk WHERE chunk.taskId = :taskId AND chunk.outputType = :outputType"),
+    @NamedQuery(name = "HostRoleCommandOutputEntity.removeByTask", query = "DELETE FROM HostRoleCommandOutputEntity chunk WHERE chunk.taskId = :taskId") })
+public class HostRoleCommandOutputEntity {
+
+  @Id
+  @Column(name = "task_id", nullable = false, insertable = true, updatable = false)
+  private Long taskId;
+
+  @Id
+  @Column(name = "output_type", nullable = false, insertable = true, updatable = false, length = 32)
+  @Enumerated(value = EnumType.STRING)
+  private CommandOutputType outputType;
+
+  @Id
+  @Column(name = "chunk_index", nullable = false, insertable = true, updatable = false)
+  private Integer chunkIndex;
+
+  /**
+   * The offset of the first byte of this chunk within the whole output.
+   */
+  @Basic
+  @Column(name = "chunk_offset", nullable = false)
+  private Long chunkOffset;
+
+  @Basic
+  @Column(name = "chunk_length", nullable = false)
+  private Integer chunkLength;
+
+  @Basic
+  @Lob
+  @Column(name = "chunk_data", nullable = false)
+  private byte[] chunkData;
+
+  public Long getTaskId() {
+    return taskId;
+  }
+
+  public void setTaskId(Long taskId) {
+    this.taskId = taskId;
+  }
+
+  public CommandOutputType getOutputType() {
+    return outputType;
+  }
+
+  public void setOutputType(CommandOutputType outputType) {
+    this.outputType = outputType;
+  }
+
+  public Integer getChunkIndex() {
+    return chunkIndex;
+  }
+
+  public void setChunkIndex(Integer chunkIndex) {
+    this.chunkIndex = chunkIndex;
+  }
+
+  public Long getChunkOffset() {
+    return chunkOffset;
+  }
+
+  public void setChunkOffset(Long chunkOffset) {
+    this.chunkOffset = chunkOffset;
+  }
+
+  public Integer getChunkLength() {
+    return chunkLength;
+  }
+
+  public void setChunkLength(Integer chunkLength) {
+    this.chunkLength = chunkLength;
+  }
+
+  public byte[] getChunkData() {
+    return chunkData;
+  }
+
+  /**
+   * Sets the bytes of this chunk and updates its length.
+   *
+   * @param chunkData
+   *          the bytes (not {@code null}).
+   */
+  public void setChunkData(byte[] chunkData) {
+    this.chunkData = chunkData;
+    chunkLength = chunkData.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    HostRoleCommandOutputEntity that = (HostRoleCommandOutputEntity) o;
+
+    if (taskId != null ? !taskId.equals(that.taskId) : that.taskId != null) {
+      return false;
+    }
+
+    if (outputType != that.outputType) {
+      return false;
+    }
+
+    return chunkIndex != null ? chunkIndex.equals(that.chunkIndex) : that.chunkIndex == null;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = taskId != null ? taskId.hashCode() : 0;
+    result = 31 * result + (outputType != null ? outputType.hashCode() : 0);
+    result = 31 * result + (chunkIndex != null ? chunkIndex.hashCode() : 0);
+    return result;
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+
+import org.apache.ambari.server.actionmanager.CommandOutputType;
+
+/**
+ * The primary key of a {@link HostRoleCommandOutputEntity}.
+ */
+@SuppressWarnings("serial")
+public class HostRoleCommandOutputEntityPK implements Serializable {
+
+  @Id
+  @Column(name = "task_id", nullable = false, insertable = true, updatable = false)
+  private Long taskId;
+
+  @Id
+  @Column(name = "output_type", nullable = false, insertable = true, updatable = false, length = 32)
+  @Enumerated(value = EnumType.STRING)
+  private CommandOutputType outputType;
+
+  @Id
+  @Column(name = "chunk_index", nullable = false, insertable = true, updatable = false)
+  private Integer chunkIndex;
+
+  /**
+   * Constructor.
+   */
+  public HostRoleCommandOutputEntityPK() {
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param taskId
+   *          the task id.
+   * @param outputType
+   *          the type of output.
+   * @param chunkIndex
+   *          the index of the chunk.
+   */
+  public HostRoleCommandOutputEntityPK(Long taskId, CommandOutputType outputType,
+      Integer chunkIndex) {
+    this.taskId = taskId;
+    this.outputType = outputType;
+    this.chunkIndex = chunkIndex;
+  }
+
+  public Long getTaskId() {
+    return taskId;
+  }
+
+  public void setTaskId(Long taskId) {
+    this.taskId = taskId;
+  }
+
+  public CommandOutputType getOutputType() {
+    return outputType;
+  }
+
+  public void setOutputType(CommandOutputType outputType) {
+    this.outputType = outputType;
+  }
+
+  public Integer getChunkIndex() {
+    return chunkIndex;
+  }
+
+  public void setChunkIndex(Integer chunkIndex) {
+    this.chunkIndex = chunkIndex;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    HostRoleCommandOutputEntityPK that = (HostRoleCommandOutputEntityPK) o;
+
+    if (taskId != null ? !taskId.equals(that.taskId) : that.taskId != null) {
+      return false;
+    }
+
+    if (outputType != that.outputType) {
+      return false;
+    }
+
+    return chunkIndex != null ? chunkIndex.equals(that.chunkIndex) : that.chunkIndex == null;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = taskId != null ? taskId.hashCode() : 0;
+    result = 31 * result + (outputType != null ? outputType.hashCode() : 0);
+    result = 31 * result + (chunkIndex != null ? chunkIndex.hashCode() : 0);
+    return result;
+  }
+}
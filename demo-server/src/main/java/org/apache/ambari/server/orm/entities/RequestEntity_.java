@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.orm.entities;
+
+import org.apache.ambari.server.actionmanager.RequestType;
+import org.apache.ambari.server.controller.internal.RequestResourceProvider;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link RequestEntity_} is a strongly typed metamodel for creating
+ * {@link javax.persistence.criteria.CriteriaQuery} for {@link RequestEntity}.
+ */
+@StaticMetamodel(RequestEntity.class)
+public class RequestEntity_ {
+  public static volatile SingularAttribute<RequestEntity, Long> requestId;
+  public static volatile SingularAttribute<RequestEntity, Long> clusterId;
+  public static volatile SingularAttribute<RequestEntity, String> requestContext;
+  public static volatile SingularAttribute<RequestEntity, RequestType> requestType;
+  public static volatile SingularAttribute<RequestEntity, Long> createTime;
+  public static volatile SingularAttribute<RequestEntity, Long> startTime;
+  public static volatile SingularAttribute<RequestEntity, Long> endTime;
+
+  /**
+   * Gets a mapping of between a resource provider property and the request
+   * attributes. The status and task counts of a request are calculated from
+   * its tasks and are not mapped.
+   *
+   * @return a mapping of between a resource provider property
+   */
+  public static Map<String, List<? extends SingularAttribute<RequestEntity, ?>>> getPredicateMapping() {
+    Map<String, List<? extends SingularAttribute<RequestEntity, ?>>> mapping = new HashMap<String, List<? extends SingularAttribute<RequestEntity, ?>>>();
+
+    mapping.put(RequestResourceProvider.REQUEST_ID_PROPERTY_ID,
+        Collections.singletonList(requestId));
+
+    mapping.put(RequestResourceProvider.REQUEST_CONTEXT_ID,
+        Collections.singletonList(requestContext));
+
+    mapping.put(RequestResourceProvider.REQUEST_TYPE_ID,
+        Collections.singletonList(requestType));
+
+    mapping.put(RequestResourceProvider.REQUEST_CREATE_TIME_ID,
+        Collections.singletonList(createTime));
+
+    mapping.put(RequestResourceProvider.REQUEST_START_TIME_ID,
+        Collections.singletonList(startTime));
+
+    mapping.put(RequestResourceProvider.REQUEST_END_TIME_ID,
+        Collections.singletonList(endTime));
+
+    return mapping;
+  }
+}
@@ -34,12 +34,10 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.ambari.server.orm.entities.PermissionEntity;
-import org.apache.ambari.server.orm.entities.PrivilegeEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntity.ViewInstanceVersionDTO;
 import org.apache.ambari.server.security.authorization.internal.InternalAuthenticationToken;
 import org.apache.ambari.server.view.ViewRegistry;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -105,59 +103,31 @@ public class AmbariAuthorizationFilter implements Filter {
         }
       }
     } else {
-      boolean authorized = false;
-
-      for (GrantedAuthority grantedAuthority : authentication.getAuthorities()) {
-        if (grantedAuthority instanceof AmbariGrantedAuthority) {
-
-          AmbariGrantedAuthority ambariGrantedAuthority = (AmbariGrantedAuthority) grantedAuthority;
-
-          PrivilegeEntity privilegeEntity = ambariGrantedAuthority.getPrivilegeEntity();
-          Integer permissionId = privilegeEntity.getPermission().getId();
-
-          // admin has full access
-          if (permissionId.equals(PermissionEntity.AMBARI_ADMIN_PERMISSION)) {
-            authorized = true;
-            break;
-          }
-
-          // clusters require permission
-          if (!"GET".equalsIgnoreCase(httpRequest.getMethod()) && requestURI.matches(API_CREDENTIALS_AMBARI_PATTERN)) {
-            // Only the administrator can operate on credentials where the alias starts with "ambari."
-            if (permissionId.equals(PermissionEntity.AMBARI_ADMIN_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          } else if (requestURI.matches(API_CREDENTIALS_ALL_PATTERN)) {
-            if (permissionId.equals(PermissionEntity.CLUSTER_OPERATE_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          } else if (requestURI.matches(API_CLUSTERS_ALL_PATTERN)) {
-            if (permissionId.equals(PermissionEntity.CLUSTER_READ_PERMISSION) ||
-              permissionId.equals(PermissionEntity.CLUSTER_OPERATE_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          } else if (STACK_ADVISOR_REGEX.matcher(requestURI).matches()) {
-            //TODO permissions model doesn't manage stacks api, but we need access to stack advisor to save configs
-            if (permissionId.equals(PermissionEntity.CLUSTER_READ_PERMISSION) ||
-                permissionId.equals(PermissionEntity.CLUSTER_OPERATE_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          } else if (requestURI.matches(API_VIEWS_ALL_PATTERN)) {
-            // views require permission
-            if (permissionId.equals(PermissionEntity.VIEW_USE_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          } else if (requestURI.matches(API_PERSIST_ALL_PATTERN)) {
-            if (permissionId.equals(PermissionEntity.CLUSTER_OPERATE_PERMISSION)) {
-              authorized = true;
-              break;
-            }
-          }
+      // the permissions of the authentication are computed once and then tested as bits
+      PrincipalPermissions permissions = PrincipalPermissions.forAuthorities(authentication.getAuthorities());
+
+      // admin has full access
+      boolean authorized = permissions.isAdmin();
+
+      if (!authorized) {
+        // clusters require permission
+        if (!"GET".equalsIgnoreCase(httpRequest.getMethod()) && requestURI.matches(API_CREDENTIALS_AMBARI_PATTERN)) {
+          // Only the administrator can operate on credentials where the alias starts with "ambari."
+          authorized = false;
+        } else if (requestURI.matches(API_CREDENTIALS_ALL_PATTERN)) {
+          authorized = permissions.hasPermission(PermissionEntity.CLUSTER_OPERATE_PERMISSION);
+        } else if (requestURI.matches(API_CLUSTERS_ALL_PATTERN)) {
+          authorized = permissions.hasPermission(PermissionEntity.CLUSTER_READ_PERMISSION,
+              PermissionEntity.CLUSTER_OPERATE_PERMISSION);
+        } else if (STACK_ADVISOR_REGEX.matcher(requestURI).matches()) {
+          //TODO permissions model doesn't manage stacks api, but we need access to stack advisor to save configs
+          authorized = permissions.hasPermission(PermissionEntity.CLUSTER_READ_PERMISSION,
+              PermissionEntity.CLUSTER_OPERATE_PERMISSION);
+        } else if (requestURI.matches(API_VIEWS_ALL_PATTERN)) {
+          // views require permission
+          authorized = permissions.hasPermission(PermissionEntity.VIEW_USE_PERMISSION);
+        } else if (requestURI.matches(API_PERSIST_ALL_PATTERN)) {
+          authorized = permissions.hasPermission(PermissionEntity.CLUSTER_OPERATE_PERMISSION);
         }
       }
 
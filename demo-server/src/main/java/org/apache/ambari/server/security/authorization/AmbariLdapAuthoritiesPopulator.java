@@ -19,15 +19,8 @@ package org.apache.ambari.server.security.authorization;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
 
-import org.apache.ambari.server.orm.dao.MemberDAO;
-import org.apache.ambari.server.orm.dao.PrivilegeDAO;
 import org.apache.ambari.server.orm.dao.UserDAO;
-import org.apache.ambari.server.orm.entities.MemberEntity;
-import org.apache.ambari.server.orm.entities.PrincipalEntity;
-import org.apache.ambari.server.orm.entities.PrivilegeEntity;
 import org.apache.ambari.server.orm.entities.UserEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,18 +37,13 @@ import com.google.inject.Inject;
 public class AmbariLdapAuthoritiesPopulator implements LdapAuthoritiesPopulator {
   private static final Logger log = LoggerFactory.getLogger(AmbariLdapAuthoritiesPopulator.class);
 
-  private AuthorizationHelper authorizationHelper;
   UserDAO userDAO;
-  MemberDAO memberDAO;
-  PrivilegeDAO privilegeDAO;
+  PrincipalPermissionsCache permissionsCache;
 
   @Inject
-  public AmbariLdapAuthoritiesPopulator(AuthorizationHelper authorizationHelper,
-                                        UserDAO userDAO, MemberDAO memberDAO, PrivilegeDAO privilegeDAO) {
-    this.authorizationHelper = authorizationHelper;
+  public AmbariLdapAuthoritiesPopulator(UserDAO userDAO, PrincipalPermissionsCache permissionsCache) {
     this.userDAO = userDAO;
-    this.memberDAO = memberDAO;
-    this.privilegeDAO = privilegeDAO;
+    this.permissionsCache = permissionsCache;
   }
 
   @Override
@@ -73,19 +61,7 @@ public class AmbariLdapAuthoritiesPopulator implements LdapAuthoritiesPopulator
     if(!user.getActive()){
       throw new DisabledException("User is disabled");
     }
-    // get all of the privileges for the user
-    List<PrincipalEntity> principalEntities = new LinkedList<PrincipalEntity>();
-
-    principalEntities.add(user.getPrincipal());
-
-    List<MemberEntity> memberEntities = memberDAO.findAllMembersByUser(user);
-
-    for (MemberEntity memberEntity : memberEntities) {
-      principalEntities.add(memberEntity.getGroup().getPrincipal());
-    }
-
-    List<PrivilegeEntity> privilegeEntities = privilegeDAO.findAllByPrincipal(principalEntities);
-
-    return authorizationHelper.convertPrivilegesToAuthorities(privilegeEntities);
+    // get all of the privileges for the user and the groups of the user
+    return permissionsCache.getPermissions(user).getAuthorities();
   }
 }
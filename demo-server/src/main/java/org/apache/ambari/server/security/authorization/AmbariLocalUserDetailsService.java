@@ -20,12 +20,7 @@ package org.apache.ambari.server.security.authorization;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import org.apache.ambari.server.configuration.Configuration;
-import org.apache.ambari.server.orm.dao.MemberDAO;
-import org.apache.ambari.server.orm.dao.PrivilegeDAO;
 import org.apache.ambari.server.orm.dao.UserDAO;
-import org.apache.ambari.server.orm.entities.MemberEntity;
-import org.apache.ambari.server.orm.entities.PrincipalEntity;
-import org.apache.ambari.server.orm.entities.PrivilegeEntity;
 import org.apache.ambari.server.orm.entities.UserEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,30 +29,22 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import java.util.LinkedList;
-import java.util.List;
-
 
 public class AmbariLocalUserDetailsService implements UserDetailsService {
   private static final Logger log = LoggerFactory.getLogger(AmbariLocalUserDetailsService.class);
 
   Injector injector;
   Configuration configuration;
-  private AuthorizationHelper authorizationHelper;
   UserDAO userDAO;
-  MemberDAO memberDAO;
-  PrivilegeDAO privilegeDAO;
+  PrincipalPermissionsCache permissionsCache;
 
   @Inject
   public AmbariLocalUserDetailsService(Injector injector, Configuration configuration,
-                                       AuthorizationHelper authorizationHelper, UserDAO userDAO,
-                                       MemberDAO memberDAO, PrivilegeDAO privilegeDAO) {
+                                       UserDAO userDAO, PrincipalPermissionsCache permissionsCache) {
     this.injector = injector;
     this.configuration = configuration;
-    this.authorizationHelper = authorizationHelper;
     this.userDAO = userDAO;
-    this.memberDAO = memberDAO;
-    this.privilegeDAO = privilegeDAO;
+    this.permissionsCache = permissionsCache;
   }
 
   /**
@@ -78,20 +65,10 @@ public class AmbariLocalUserDetailsService implements UserDetailsService {
       throw new UsernameNotFoundException("Username " + username + " not found");
     }
 
-    // get all of the privileges for the user
-    List<PrincipalEntity> principalEntities = new LinkedList<PrincipalEntity>();
-
-    principalEntities.add(user.getPrincipal());
-
-    List<MemberEntity> memberEntities = memberDAO.findAllMembersByUser(user);
-
-    for (MemberEntity memberEntity : memberEntities) {
-      principalEntities.add(memberEntity.getGroup().getPrincipal());
-    }
-
-    List<PrivilegeEntity> privilegeEntities = privilegeDAO.findAllByPrincipal(principalEntities);
+    // get all of the privileges for the user and the groups of the user
+    PrincipalPermissions permissions = permissionsCache.getPermissions(user);
 
     return new User(user.getUserName(), user.getUserPassword(), user.getActive(), 
-        true, true, true, authorizationHelper.convertPrivilegesToAuthorities(privilegeEntities));
+        true, true, true, permissions.getAuthorities());
   }
 }
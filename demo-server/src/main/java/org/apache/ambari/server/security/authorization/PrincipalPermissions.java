@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.security.authorization;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ambari.server.orm.entities.PermissionEntity;
+import org.apache.ambari.server.orm.entities.PrivilegeEntity;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The {@link PrincipalPermissions} is an immutable view of the permissions
+ * granted by a set of {@link AmbariGrantedAuthority}s. The permission ids are
+ * kept in bit sets, one for all resources and one per resource, so that a
+ * permission check is a bit test instead of a walk over the privilege
+ * entities.
+ */
+public final class PrincipalPermissions {
+
+  /**
+   * Permissions of a principal without privileges.
+   */
+  public static final PrincipalPermissions EMPTY =
+      new PrincipalPermissions(Collections.<GrantedAuthority>emptyList());
+
+  /**
+   * The permissions computed for the authorities of an authentication. The
+   * keys are weak and compared by identity, so each authentication's
+   * authorities are converted once and dropped along with the authentication.
+   */
+  private static final Cache<Collection<? extends GrantedAuthority>, PrincipalPermissions> AUTHORITY_PERMISSIONS =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * The granted authorities.
+   */
+  private final Collection<GrantedAuthority> authorities;
+
+  /**
+   * The ids of the permissions granted on any resource.
+   */
+  private final BitSet permissions = new BitSet();
+
+  /**
+   * The ids of the permissions granted per resource id.
+   */
+  private final Map<Long, BitSet> resourcePermissions = new HashMap<Long, BitSet>();
+
+  /**
+   * Constructor.
+   *
+   * @param authorities  the granted authorities
+   */
+  public PrincipalPermissions(Collection<? extends GrantedAuthority> authorities) {
+    List<GrantedAuthority> authorityList = new ArrayList<GrantedAuthority>(authorities);
+    this.authorities = Collections.unmodifiableList(authorityList);
+
+    for (GrantedAuthority grantedAuthority : authorityList) {
+      if (grantedAuthority instanceof AmbariGrantedAuthority) {
+        PrivilegeEntity privilegeEntity = ((AmbariGrantedAuthority) grantedAuthority).getPrivilegeEntity();
+        int permissionId = privilegeEntity.getPermission().getId();
+
+        permissions.set(permissionId);
+
+        if (privilegeEntity.getResource() != null) {
+          Long resourceId = privilegeEntity.getResource().getId();
+          BitSet bits = resourcePermissions.get(resourceId);
+          if (bits == null) {
+            bits = new BitSet();
+            resourcePermissions.put(resourceId, bits);
+          }
+          bits.set(permissionId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the permissions for the given authorities, typically those of the
+   * current authentication. The result is remembered for as long as the given
+   * collection instance is in use.
+   *
+   * @param authorities  the granted authorities
+   *
+   * @return the permissions
+   */
+  public static PrincipalPermissions forAuthorities(Collection<? extends GrantedAuthority> authorities) {
+    if (authorities == null || authorities.isEmpty()) {
+      return EMPTY;
+    }
+    PrincipalPermissions principalPermissions = AUTHORITY_PERMISSIONS.getIfPresent(authorities);
+    if (principalPermissions == null) {
+      principalPermissions = new PrincipalPermissions(authorities);
+      AUTHORITY_PERMISSIONS.put(authorities, principalPermissions);
+    }
+    return principalPermissions;
+  }
+
+  /**
+   * Get the granted authorities.
+   *
+   * @return an unmodifiable collection of the granted authorities
+   */
+  public Collection<GrantedAuthority> getAuthorities() {
+    return authorities;
+  }
+
+  /**
+   * Determine whether or not the Ambari administrator permission is granted.
+   *
+   * @return true if the principal is an Ambari administrator
+   */
+  public boolean isAdmin() {
+    return permissions.get(PermissionEntity.AMBARI_ADMIN_PERMISSION);
+  }
+
+  /**
+   * Determine whether or not any of the given permissions is granted on any
+   * resource.
+   *
+   * @param permissionIds  the permission ids
+   *
+   * @return true if one of the permissions is granted
+   */
+  public boolean hasPermission(int... permissionIds) {
+    for (int permissionId : permissionIds) {
+      if (permissions.get(permissionId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine whether or not the given permission is granted on the given
+   * resource.
+   *
+   * @param resourceId    the resource id
+   * @param permissionId  the permission id
+   *
+   * @return true if the permission is granted on the resource
+   */
+  public boolean hasResourcePermission(Long resourceId, int permissionId) {
+    BitSet bits = resourcePermissions.get(resourceId);
+    return bits != null && bits.get(permissionId);
+  }
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.security.authorization;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.orm.TransactionCallbacks;
+import org.apache.ambari.server.orm.dao.MemberDAO;
+import org.apache.ambari.server.orm.dao.PrivilegeDAO;
+import org.apache.ambari.server.orm.dao.UserDAO;
+import org.apache.ambari.server.orm.entities.MemberEntity;
+import org.apache.ambari.server.orm.entities.PrincipalEntity;
+import org.apache.ambari.server.orm.entities.PrivilegeEntity;
+import org.apache.ambari.server.orm.entities.UserEntity;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * The {@link PrincipalPermissionsCache} holds the permissions of users, that
+ * is the privileges granted to the user and to the groups of the user, so
+ * that authentication and permission checks do not read the members and
+ * privileges of the user on every request.
+ * <p/>
+ * The user, group, member, principal and privilege DAOs call
+ * {@link #invalidate()} on every change. Each invalidation starts a new
+ * generation, and permissions read during an older generation are not kept.
+ * A change is invalidated both when it is written and once its transaction
+ * commits, so permissions read from the database while the change was not
+ * yet visible are never served afterwards. Entries also expire after a
+ * configurable time.
+ */
+@Singleton
+public class PrincipalPermissionsCache {
+
+  /**
+   * The cached permissions by principal id; null if the cache is disabled.
+   */
+  private final Cache<Long, CachedPermissions> m_principalCache;
+
+  /**
+   * The cached permissions by lower case user name; null if the cache is
+   * disabled.
+   */
+  private final Cache<String, CachedPermissions> m_userNameCache;
+
+  /**
+   * Incremented on every invalidation.
+   */
+  private final AtomicLong m_generation = new AtomicLong();
+
+  /**
+   * Data access objects; providers since the DAOs invalidate this cache.
+   */
+  private final Provider<UserDAO> m_userDAO;
+  private final Provider<MemberDAO> m_memberDAO;
+  private final Provider<PrivilegeDAO> m_privilegeDAO;
+
+  /**
+   * Converts privileges to authorities.
+   */
+  private final AuthorizationHelper m_authorizationHelper;
+
+  /**
+   * Constructor.
+   *
+   * @param configuration        used to determine the time to live and size of the cache
+   * @param userDAO              the user data access object
+   * @param memberDAO            the member data access object
+   * @param privilegeDAO         the privilege data access object
+   * @param authorizationHelper  converts privileges to authorities
+   */
+  @Inject
+  public PrincipalPermissionsCache(Configuration configuration, Provider<UserDAO> userDAO,
+                                   Provider<MemberDAO> memberDAO, Provider<PrivilegeDAO> privilegeDAO,
+                                   AuthorizationHelper authorizationHelper) {
+    m_userDAO = userDAO;
+    m_memberDAO = memberDAO;
+    m_privilegeDAO = privilegeDAO;
+    m_authorizationHelper = authorizationHelper;
+
+    long ttl = configuration.getAuthorizationCacheTTL();
+    if (ttl > 0) {
+      int size = configuration.getAuthorizationCacheSize();
+      m_principalCache = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+          .maximumSize(size).build();
+      m_userNameCache = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+          .maximumSize(size).build();
+    } else {
+      m_principalCache = null;
+      m_userNameCache = null;
+    }
+  }
+
+  /**
+   * Get the permissions of the given user.
+   *
+   * @param userEntity  the user entity
+   *
+   * @return the permissions granted to the user and the groups of the user
+   */
+  public PrincipalPermissions getPermissions(UserEntity userEntity) {
+    if (m_principalCache == null) {
+      return load(userEntity);
+    }
+    Long key = userEntity.getPrincipal().getId();
+    long generation = m_generation.get();
+
+    CachedPermissions cached = m_principalCache.getIfPresent(key);
+    if (cached == null || cached.generation != generation) {
+      cached = new CachedPermissions(load(userEntity), generation);
+      store(m_principalCache, key, cached);
+    }
+    return cached.permissions;
+  }
+
+  /**
+   * Get the permissions of the user with the given name.
+   *
+   * @param userName  the user name
+   *
+   * @return the permissions granted to the user and the groups of the user;
+   *         no permissions if the user does not exist
+   */
+  public PrincipalPermissions getPermissions(String userName) {
+    if (m_userNameCache == null) {
+      return load(m_userDAO.get().findUserByName(userName));
+    }
+    String key = userName.toLowerCase();
+    long generation = m_generation.get();
+
+    CachedPermissions cached = m_userNameCache.getIfPresent(key);
+    if (cached == null || cached.generation != generation) {
+      cached = new CachedPermissions(load(m_userDAO.get().findUserByName(userName)), generation);
+      store(m_userNameCache, key, cached);
+    }
+    return cached.permissions;
+  }
+
+  /**
+   * Drop all cached permissions, now and again once the transaction of the
+   * calling thread commits. Called whenever users, groups, members,
+   * principals or privileges change.
+   */
+  public void invalidate() {
+    if (m_principalCache != null) {
+      invalidateAll();
+      TransactionCallbacks.afterCommit(new Runnable() {
+        @Override
+        public void run() {
+          invalidateAll();
+        }
+      });
+    }
+  }
+
+
+  // ----- helper methods ----------------------------------------------------
+
+  // start a new generation and drop the cached permissions
+  private void invalidateAll() {
+    m_generation.incrementAndGet();
+    m_principalCache.invalidateAll();
+    m_userNameCache.invalidateAll();
+  }
+
+  // cache the given permissions unless they were invalidated while being read
+  private <K> void store(Cache<K, CachedPermissions> cache, K key, CachedPermissions cached) {
+    cache.put(key, cached);
+    if (cached.generation != m_generation.get()) {
+      cache.asMap().remove(key, cached);
+    }
+  }
+
+  // read the privileges of the given user and of the groups of the user
+  private PrincipalPermissions load(UserEntity userEntity) {
+    if (userEntity == null) {
+      return PrincipalPermissions.EMPTY;
+    }
+    List<PrincipalEntity> principalEntities = new LinkedList<PrincipalEntity>();
+
+    principalEntities.add(userEntity.getPrincipal());
+
+    for (MemberEntity memberEntity : m_memberDAO.get().findAllMembersByUser(userEntity)) {
+      principalEntities.add(memberEntity.getGroup().getPrincipal());
+    }
+
+    List<PrivilegeEntity> privilegeEntities = m_privilegeDAO.get().findAllByPrincipal(principalEntities);
+
+    return new PrincipalPermissions(m_authorizationHelper.convertPrivilegesToAuthorities(privilegeEntities));
+  }
+
+
+  // ----- inner classes -----------------------------------------------------
+
+  /**
+   * Permissions along with the generation they were read in.
+   */
+  private static final class CachedPermissions {
+    private final PrincipalPermissions permissions;
+    private final long generation;
+
+    private CachedPermissions(PrincipalPermissions permissions, long generation) {
+      this.permissions = permissions;
+      this.generation = generation;
+    }
+  }
+}
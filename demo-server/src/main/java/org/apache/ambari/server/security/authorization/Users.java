@@ -19,11 +19,14 @@ package org.apache.ambari.server.security.authorization;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import javax.persistence.EntityManager;
 
 import org.apache.ambari.server.AmbariException;
@@ -54,6 +57,7 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -67,6 +71,18 @@ public class Users {
 
   private static final Logger LOG = LoggerFactory.getLogger(Users.class);
 
+  /**
+   * Orders LDAP memberships by group name and then by user name.
+   */
+  private static final Comparator<LdapUserGroupMemberDto> MEMBERSHIP_COMPARATOR =
+      new Comparator<LdapUserGroupMemberDto>() {
+        @Override
+        public int compare(LdapUserGroupMemberDto member1, LdapUserGroupMemberDto member2) {
+          int result = member1.getGroupName().compareTo(member2.getGroupName());
+          return result != 0 ? result : member1.getUserName().compareTo(member2.getUserName());
+        }
+      };
+
   @Inject
   Provider<EntityManager> entityManagerProvider;
   @Inject
@@ -359,6 +375,37 @@ public class Users {
     return groups;
   }
 
+  /**
+   * Gets the names of all users along with their LDAP flag. Unlike
+   * {@link #getAllUsers()} this does not load the membership or privileges
+   * of every user.
+   *
+   * @return map of lower case user name to true if the user is an LDAP user
+   */
+  public Map<String, Boolean> getUserLdapFlags() {
+    return userDAO.findLdapFlagsByUserName();
+  }
+
+  /**
+   * Gets the names of all groups along with their LDAP flag. Unlike
+   * {@link #getAllGroups()} this does not load the members of every group.
+   *
+   * @return map of lower case group name to true if the group is an LDAP group
+   */
+  public Map<String, Boolean> getGroupLdapFlags() {
+    return groupDAO.findLdapFlagsByGroupName();
+  }
+
+  /**
+   * Gets the names of all members of a group specified.
+   *
+   * @param groupName group name
+   * @return lower case names of the group members; empty if the group doesn't exist
+   */
+  public Set<String> getGroupMemberNames(String groupName) {
+    return memberDAO.findUserNamesByGroupName(groupName);
+  }
+
   /**
    * Gets all members of a group specified.
    *
@@ -515,22 +562,17 @@ public class Users {
 
   /**
    * Executes batch queries to database to insert large amounts of LDAP data.
+   * <p/>
+   * Every change set is written in chunks of
+   * {@link Configuration#getLdapSyncBatchSize()} entries, each chunk in its
+   * own transaction, so that only the entities of the current chunk are held
+   * in memory and the JDBC batch writer flushes them in a few round trips.
    *
    * @param batchInfo DTO with batch information
    */
   public void processLdapSync(LdapBatchDto batchInfo) {
-    final Map<String, UserEntity> allUsers = new HashMap<String, UserEntity>();
-    final Map<String, GroupEntity> allGroups = new HashMap<String, GroupEntity>();
-
-    // prefetch all user and group data to avoid heavy queries in membership creation
-
-    for (UserEntity userEntity: userDAO.findAll()) {
-      allUsers.put(userEntity.getUserName(), userEntity);
-    }
-
-    for (GroupEntity groupEntity: groupDAO.findAll()) {
-      allGroups.put(groupEntity.getGroupName(), groupEntity);
-    }
+    final int batchSize = Math.max(1, configuration.getLdapSyncBatchSize());
+    final long startTime = System.currentTimeMillis();
 
     final PrincipalTypeEntity userPrincipalType = principalTypeDAO
         .ensurePrincipalTypeCreated(PrincipalTypeEntity.USER_PRINCIPAL_TYPE);
@@ -538,120 +580,199 @@ public class Users {
         .ensurePrincipalTypeCreated(PrincipalTypeEntity.GROUP_PRINCIPAL_TYPE);
 
     // remove users
-    final Set<UserEntity> usersToRemove = new HashSet<UserEntity>();
-    for (String userName: batchInfo.getUsersToBeRemoved()) {
-      UserEntity userEntity = userDAO.findUserByName(userName);
-      if (userEntity == null) {
-        continue;
-      }
-      allUsers.remove(userEntity.getUserName());
-      usersToRemove.add(userEntity);
+    int total = batchInfo.getUsersToBeRemoved().size();
+    int processed = 0;
+    for (List<String> userNames: partition(batchInfo.getUsersToBeRemoved(), batchSize)) {
+      userDAO.remove(new HashSet<UserEntity>(userDAO.findLdapUsersByNames(userNames)));
+      processed += userNames.size();
+      batchInfo.reportProgress("Removed " + processed + " of " + total + " users.");
     }
-    userDAO.remove(usersToRemove);
 
     // remove groups
-    final Set<GroupEntity> groupsToRemove = new HashSet<GroupEntity>();
-    for (String groupName: batchInfo.getGroupsToBeRemoved()) {
-      final GroupEntity groupEntity = groupDAO.findGroupByName(groupName);
-      allGroups.remove(groupEntity.getGroupName());
-      groupsToRemove.add(groupEntity);
+    total = batchInfo.getGroupsToBeRemoved().size();
+    processed = 0;
+    for (List<String> groupNames: partition(batchInfo.getGroupsToBeRemoved(), batchSize)) {
+      groupDAO.remove(new HashSet<GroupEntity>(groupDAO.findLdapGroupsByNames(groupNames)));
+      processed += groupNames.size();
+      batchInfo.reportProgress("Removed " + processed + " of " + total + " groups.");
     }
-    groupDAO.remove(groupsToRemove);
 
     // update users
-    final Set<UserEntity> usersToBecomeLdap = new HashSet<UserEntity>();
-    for (String userName: batchInfo.getUsersToBecomeLdap()) {
-      UserEntity userEntity = userDAO.findLocalUserByName(userName);
-      if (userEntity == null) {
-        userEntity = userDAO.findLdapUserByName(userName);
-        if (userEntity == null) {
-          continue;
+    total = batchInfo.getUsersToBecomeLdap().size();
+    processed = 0;
+    for (List<String> userNames: partition(batchInfo.getUsersToBecomeLdap(), batchSize)) {
+      // prefer the local user if a local and an LDAP user share the name
+      final Map<String, UserEntity> usersToBecomeLdap = new HashMap<String, UserEntity>();
+      for (UserEntity userEntity: userDAO.findUsersByNames(userNames)) {
+        final String userName = userEntity.getUserName().toLowerCase();
+        if (!userEntity.getLdapUser() || !usersToBecomeLdap.containsKey(userName)) {
+          usersToBecomeLdap.put(userName, userEntity);
         }
       }
-      userEntity.setLdapUser(true);
-      allUsers.put(userEntity.getUserName(), userEntity);
-      usersToBecomeLdap.add(userEntity);
+      for (UserEntity userEntity: usersToBecomeLdap.values()) {
+        userEntity.setLdapUser(true);
+      }
+      userDAO.merge(new HashSet<UserEntity>(usersToBecomeLdap.values()));
+      processed += userNames.size();
+      batchInfo.reportProgress("Updated " + processed + " of " + total + " users.");
     }
-    userDAO.merge(usersToBecomeLdap);
 
     // update groups
-    final Set<GroupEntity> groupsToBecomeLdap = new HashSet<GroupEntity>();
-    for (String groupName: batchInfo.getGroupsToBecomeLdap()) {
-      final GroupEntity groupEntity = groupDAO.findGroupByName(groupName);
-      groupEntity.setLdapGroup(true);
-      allGroups.put(groupEntity.getGroupName(), groupEntity);
-      groupsToBecomeLdap.add(groupEntity);
-    }
-    groupDAO.merge(groupsToBecomeLdap);
-
-    // prepare create principals
-    final List<PrincipalEntity> principalsToCreate = new ArrayList<PrincipalEntity>();
-
-    // prepare create users
-    final Set<UserEntity> usersToCreate = new HashSet<UserEntity>();
-    for (String userName: batchInfo.getUsersToBeCreated()) {
-      final PrincipalEntity principalEntity = new PrincipalEntity();
-      principalEntity.setPrincipalType(userPrincipalType);
-      principalsToCreate.add(principalEntity);
-
-      final UserEntity userEntity = new UserEntity();
-      userEntity.setUserName(userName);
-      userEntity.setUserPassword("");
-      userEntity.setPrincipal(principalEntity);
-      userEntity.setLdapUser(true);
-
-      allUsers.put(userEntity.getUserName(), userEntity);
-      usersToCreate.add(userEntity);
-    }
-
-    // prepare create groups
-    final Set<GroupEntity> groupsToCreate = new HashSet<GroupEntity>();
-    for (String groupName: batchInfo.getGroupsToBeCreated()) {
-      final PrincipalEntity principalEntity = new PrincipalEntity();
-      principalEntity.setPrincipalType(groupPrincipalType);
-      principalsToCreate.add(principalEntity);
-
-      final GroupEntity groupEntity = new GroupEntity();
-      groupEntity.setGroupName(groupName);
-      groupEntity.setPrincipal(principalEntity);
-      groupEntity.setLdapGroup(true);
-
-      allGroups.put(groupEntity.getGroupName(), groupEntity);
-      groupsToCreate.add(groupEntity);
-    }
-
-    // create users and groups
-    principalDAO.create(principalsToCreate);
-    userDAO.create(usersToCreate);
-    groupDAO.create(groupsToCreate);
+    total = batchInfo.getGroupsToBecomeLdap().size();
+    processed = 0;
+    for (List<String> groupNames: partition(batchInfo.getGroupsToBecomeLdap(), batchSize)) {
+      final Set<GroupEntity> groupsToBecomeLdap = new HashSet<GroupEntity>();
+      for (GroupEntity groupEntity: groupDAO.findGroupsByNames(groupNames)) {
+        groupEntity.setLdapGroup(true);
+        groupsToBecomeLdap.add(groupEntity);
+      }
+      groupDAO.merge(groupsToBecomeLdap);
+      processed += groupNames.size();
+      batchInfo.reportProgress("Updated " + processed + " of " + total + " groups.");
+    }
+
+    // create users
+    total = batchInfo.getUsersToBeCreated().size();
+    processed = 0;
+    for (List<String> userNames: partition(batchInfo.getUsersToBeCreated(), batchSize)) {
+      final List<PrincipalEntity> principalsToCreate = new ArrayList<PrincipalEntity>(userNames.size());
+      final Set<UserEntity> usersToCreate = new HashSet<UserEntity>();
+      for (String userName: userNames) {
+        final PrincipalEntity principalEntity = new PrincipalEntity();
+        principalEntity.setPrincipalType(userPrincipalType);
+        principalsToCreate.add(principalEntity);
+
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setUserName(userName);
+        userEntity.setUserPassword("");
+        userEntity.setPrincipal(principalEntity);
+        userEntity.setLdapUser(true);
+        usersToCreate.add(userEntity);
+      }
+      principalDAO.create(principalsToCreate);
+      userDAO.create(usersToCreate);
+      processed += userNames.size();
+      batchInfo.reportProgress("Created " + processed + " of " + total + " users.");
+    }
+
+    // create groups
+    total = batchInfo.getGroupsToBeCreated().size();
+    processed = 0;
+    for (List<String> groupNames: partition(batchInfo.getGroupsToBeCreated(), batchSize)) {
+      final List<PrincipalEntity> principalsToCreate = new ArrayList<PrincipalEntity>(groupNames.size());
+      final Set<GroupEntity> groupsToCreate = new HashSet<GroupEntity>();
+      for (String groupName: groupNames) {
+        final PrincipalEntity principalEntity = new PrincipalEntity();
+        principalEntity.setPrincipalType(groupPrincipalType);
+        principalsToCreate.add(principalEntity);
+
+        final GroupEntity groupEntity = new GroupEntity();
+        groupEntity.setGroupName(groupName);
+        groupEntity.setPrincipal(principalEntity);
+        groupEntity.setLdapGroup(true);
+        groupsToCreate.add(groupEntity);
+      }
+      principalDAO.create(principalsToCreate);
+      groupDAO.create(groupsToCreate);
+      processed += groupNames.size();
+      batchInfo.reportProgress("Created " + processed + " of " + total + " groups.");
+    }
+
+    // create membership; sorted by group so that each chunk touches as few groups as possible
+    final List<LdapUserGroupMemberDto> membershipToAdd =
+        new ArrayList<LdapUserGroupMemberDto>(batchInfo.getMembershipToAdd());
+    Collections.sort(membershipToAdd, MEMBERSHIP_COMPARATOR);
+    total = membershipToAdd.size();
+    processed = 0;
+    for (List<LdapUserGroupMemberDto> members: Lists.partition(membershipToAdd, batchSize)) {
+      final Set<String> userNames = new HashSet<String>();
+      final Set<String> groupNames = new HashSet<String>();
+      for (LdapUserGroupMemberDto member: members) {
+        userNames.add(member.getUserName());
+        groupNames.add(member.getGroupName());
+      }
+      final Map<String, UserEntity> usersByName = new HashMap<String, UserEntity>();
+      for (UserEntity userEntity: userDAO.findUsersByNames(userNames)) {
+        usersByName.put(userEntity.getUserName().toLowerCase(), userEntity);
+      }
+      final Map<String, GroupEntity> groupsByName = new HashMap<String, GroupEntity>();
+      for (GroupEntity groupEntity: groupDAO.findGroupsByNames(groupNames)) {
+        groupsByName.put(groupEntity.getGroupName().toLowerCase(), groupEntity);
+      }
 
-    // create membership
-    final Set<MemberEntity> membersToCreate = new HashSet<MemberEntity>();
-    final Set<GroupEntity> groupsToUpdate = new HashSet<GroupEntity>();
-    for (LdapUserGroupMemberDto member: batchInfo.getMembershipToAdd()) {
-      final MemberEntity memberEntity = new MemberEntity();
-      final GroupEntity groupEntity = allGroups.get(member.getGroupName());
-      memberEntity.setGroup(groupEntity);
-      memberEntity.setUser(allUsers.get(member.getUserName()));
-      groupEntity.getMemberEntities().add(memberEntity);
-      groupsToUpdate.add(groupEntity);
-      membersToCreate.add(memberEntity);
+      final Set<MemberEntity> membersToCreate = new HashSet<MemberEntity>();
+      final Set<GroupEntity> groupsToUpdate = new HashSet<GroupEntity>();
+      for (LdapUserGroupMemberDto member: members) {
+        final UserEntity userEntity = usersByName.get(member.getUserName());
+        final GroupEntity groupEntity = groupsByName.get(member.getGroupName());
+        if (userEntity == null || groupEntity == null) {
+          LOG.warn("Skipping membership of user {} in group {} as one of them does not exist",
+              member.getUserName(), member.getGroupName());
+          continue;
+        }
+        final MemberEntity memberEntity = new MemberEntity();
+        memberEntity.setGroup(groupEntity);
+        memberEntity.setUser(userEntity);
+        groupEntity.getMemberEntities().add(memberEntity);
+        groupsToUpdate.add(groupEntity);
+        membersToCreate.add(memberEntity);
+      }
+      memberDAO.create(membersToCreate);
+      groupDAO.merge(groupsToUpdate); // needed for Derby DB as it doesn't fetch newly added members automatically
+      processed += members.size();
+      batchInfo.reportProgress("Created " + processed + " of " + total + " memberships.");
     }
-    memberDAO.create(membersToCreate);
-    groupDAO.merge(groupsToUpdate); // needed for Derby DB as it doesn't fetch newly added members automatically
 
-    // remove membership
-    final Set<MemberEntity> membersToRemove = new HashSet<MemberEntity>();
+    // remove membership; looked up through the members of each affected group
+    final Map<String, Set<String>> membershipToRemove = new TreeMap<String, Set<String>>();
     for (LdapUserGroupMemberDto member: batchInfo.getMembershipToRemove()) {
-      MemberEntity memberEntity = memberDAO.findByUserAndGroup(member.getUserName(), member.getGroupName());
-      if (memberEntity != null) {
-        membersToRemove.add(memberEntity);
+      Set<String> userNames = membershipToRemove.get(member.getGroupName());
+      if (userNames == null) {
+        userNames = new HashSet<String>();
+        membershipToRemove.put(member.getGroupName(), userNames);
+      }
+      userNames.add(member.getUserName());
+    }
+    total = batchInfo.getMembershipToRemove().size();
+    processed = 0;
+    for (Map.Entry<String, Set<String>> entry: membershipToRemove.entrySet()) {
+      final GroupEntity groupEntity = groupDAO.findGroupByName(entry.getKey());
+      if (groupEntity != null) {
+        final Set<MemberEntity> membersToRemove = new HashSet<MemberEntity>();
+        for (MemberEntity memberEntity: groupEntity.getMemberEntities()) {
+          if (entry.getValue().contains(memberEntity.getUser().getUserName().toLowerCase())) {
+            membersToRemove.add(memberEntity);
+          }
+        }
+        memberDAO.remove(membersToRemove);
       }
+      processed += entry.getValue().size();
+      batchInfo.reportProgress("Removed " + processed + " of " + total + " memberships.");
     }
-    memberDAO.remove(membersToRemove);
 
     // clear cached entities
     entityManagerProvider.get().getEntityManagerFactory().getCache().evictAll();
+
+    LOG.info("Applied LDAP sync in {} ms: {} users and {} groups created, {} users and {} groups removed, "
+        + "{} memberships created, {} memberships removed",
+        System.currentTimeMillis() - startTime,
+        batchInfo.getUsersToBeCreated().size(), batchInfo.getGroupsToBeCreated().size(),
+        batchInfo.getUsersToBeRemoved().size(), batchInfo.getGroupsToBeRemoved().size(),
+        batchInfo.getMembershipToAdd().size(), batchInfo.getMembershipToRemove().size());
+  }
+
+  /**
+   * Splits the given names into consecutive chunks of the given size.
+   *
+   * @param names      the names
+   * @param chunkSize  the maximum size of each chunk
+   *
+   * @return the chunks in sorted name order
+   */
+  private static List<List<String>> partition(Collection<String> names, int chunkSize) {
+    final List<String> sortedNames = new ArrayList<String>(names);
+    Collections.sort(sortedNames);
+    return Lists.partition(sortedNames, chunkSize);
   }
 
 }
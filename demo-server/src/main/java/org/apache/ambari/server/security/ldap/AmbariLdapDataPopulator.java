@@ -17,8 +17,6 @@
  */
 package org.apache.ambari.server.security.ldap;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -32,7 +30,6 @@ import javax.naming.directory.SearchControls;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.configuration.Configuration;
-import org.apache.ambari.server.security.authorization.Group;
 import org.apache.ambari.server.security.authorization.LdapServerProperties;
 import org.apache.ambari.server.security.authorization.User;
 import org.apache.ambari.server.security.authorization.Users;
@@ -87,6 +84,7 @@ public class AmbariLdapDataPopulator {
   private static final String UID_ATTRIBUTE          = "uid";
   private static final String OBJECT_CLASS_ATTRIBUTE = "objectClass";
   private static final int USERS_PAGE_SIZE = 500;
+  private static final int GROUPS_PROGRESS_INTERVAL = 100;
 
   /**
    * Construct an AmbariLdapDataPopulator.
@@ -134,27 +132,16 @@ public class AmbariLdapDataPopulator {
   public LdapSyncDto getLdapSyncInfo() {
     final LdapSyncDto syncInfo = new LdapSyncDto();
 
-    final Map<String, Group> internalGroupsMap = getInternalGroups();
+    final Map<String, Boolean> internalGroupsMap = getInternalGroupLdapFlags();
     final Set<LdapGroupDto> externalGroups = getExternalLdapGroupInfo();
     for (LdapGroupDto externalGroup : externalGroups) {
-      if (internalGroupsMap.containsKey(externalGroup.getGroupName())
-          && internalGroupsMap.get(externalGroup.getGroupName()).isLdapGroup()) {
-        externalGroup.setSynced(true);
-      } else {
-        externalGroup.setSynced(false);
-      }
+      externalGroup.setSynced(Boolean.TRUE.equals(internalGroupsMap.get(externalGroup.getGroupName())));
     }
 
-    final Map<String, User> internalUsersMap = getInternalUsers();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
     final Set<LdapUserDto> externalUsers = getExternalLdapUserInfo();
     for (LdapUserDto externalUser : externalUsers) {
-      String userName = externalUser.getUserName();
-      if (internalUsersMap.containsKey(userName)
-          && internalUsersMap.get(userName).isLdapUser()) {
-        externalUser.setSynced(true);
-      } else {
-        externalUser.setSynced(false);
-      }
+      externalUser.setSynced(Boolean.TRUE.equals(internalUsersMap.get(externalUser.getUserName())));
     }
 
     syncInfo.setGroups(externalGroups);
@@ -164,32 +151,38 @@ public class AmbariLdapDataPopulator {
 
   /**
    * Performs synchronization of all groups.
+   * <p/>
+   * Group members are resolved against an index of all LDAP users built with
+   * a single paged search rather than with one search per member.
    *
    * @throws AmbariException if synchronization failed for any reason
    */
   public LdapBatchDto synchronizeAllLdapGroups(LdapBatchDto batchInfo) throws AmbariException {
 
     Set<LdapGroupDto> externalLdapGroupInfo = getExternalLdapGroupInfo();
+    batchInfo.reportProgress("Read " + externalLdapGroupInfo.size() + " groups from LDAP.");
 
-    final Map<String, Group> internalGroupsMap = getInternalGroups();
-    final Map<String, User> internalUsersMap = getInternalUsers();
+    final Map<String, Boolean> internalGroupsMap = getInternalGroupLdapFlags();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
+    final LdapMemberResolver memberResolver = new LdapMemberResolver(getLdapUserIndex(batchInfo));
 
+    int processed = 0;
     for (LdapGroupDto groupDto : externalLdapGroupInfo) {
       String groupName = groupDto.getGroupName();
       if (internalGroupsMap.containsKey(groupName)) {
-        final Group group = internalGroupsMap.get(groupName);
-        if (!group.isLdapGroup()) {
+        if (!internalGroupsMap.get(groupName)) {
           batchInfo.getGroupsToBecomeLdap().add(groupName);
         }
         internalGroupsMap.remove(groupName);
       } else {
         batchInfo.getGroupsToBeCreated().add(groupName);
       }
-      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, null);
+      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, memberResolver, null);
+      reportGroupProgress(batchInfo, ++processed, externalLdapGroupInfo.size());
     }
-    for (Entry<String, Group> internalGroup : internalGroupsMap.entrySet()) {
-      if (internalGroup.getValue().isLdapGroup()) {
-        batchInfo.getGroupsToBeRemoved().add(internalGroup.getValue().getGroupName());
+    for (Entry<String, Boolean> internalGroup : internalGroupsMap.entrySet()) {
+      if (internalGroup.getValue()) {
+        batchInfo.getGroupsToBeRemoved().add(internalGroup.getKey());
       }
     }
 
@@ -198,29 +191,43 @@ public class AmbariLdapDataPopulator {
 
   /**
    * Performs synchronization of given sets of all users.
+   * <p/>
+   * The LDAP users are diffed against the local users page by page as they
+   * are read, so the directory is never held in memory as a whole.
    *
    * @throws AmbariException if synchronization failed for any reason
    */
-  public LdapBatchDto synchronizeAllLdapUsers(LdapBatchDto batchInfo) throws AmbariException {
+  public LdapBatchDto synchronizeAllLdapUsers(final LdapBatchDto batchInfo) throws AmbariException {
 
-    Set<LdapUserDto> externalLdapUserInfo = getExternalLdapUserInfo();
-    Map<String, User> internalUsersMap = getInternalUsers();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
+    final int[] processed = new int[1];
 
-    for (LdapUserDto userDto : externalLdapUserInfo) {
-      String userName = userDto.getUserName();
-      if (internalUsersMap.containsKey(userName)) {
-        final User user = internalUsersMap.get(userName);
-        if (user != null && !user.isLdapUser()) {
-          batchInfo.getUsersToBecomeLdap().add(userName);
+    searchLdapUsers(getUserObjectFilter(), new LdapUserHandler() {
+      @Override
+      public void handle(LdapUserDto userDto) {
+        String userName = userDto.getUserName();
+        if (userName == null) {
+          return;
+        }
+        if (internalUsersMap.containsKey(userName)) {
+          final Boolean ldapUser = internalUsersMap.get(userName);
+          if (ldapUser != null && !ldapUser) {
+            batchInfo.getUsersToBecomeLdap().add(userName);
+          }
+          internalUsersMap.remove(userName);
+        } else {
+          batchInfo.getUsersToBeCreated().add(userName);
+        }
+        if (++processed[0] % USERS_PAGE_SIZE == 0) {
+          batchInfo.reportProgress("Read " + processed[0] + " users from LDAP.");
         }
-        internalUsersMap.remove(userName);
-      } else {
-        batchInfo.getUsersToBeCreated().add(userName);
       }
-    }
-    for (Entry<String, User> internalUser : internalUsersMap.entrySet()) {
-      if (internalUser.getValue().isLdapUser()) {
-        batchInfo.getUsersToBeRemoved().add(internalUser.getValue().getUserName());
+    });
+    batchInfo.reportProgress("Read " + processed[0] + " users from LDAP.");
+
+    for (Entry<String, Boolean> internalUser : internalUsersMap.entrySet()) {
+      if (internalUser.getValue()) {
+        batchInfo.getUsersToBeRemoved().add(internalUser.getKey());
       }
     }
 
@@ -245,21 +252,23 @@ public class AmbariLdapDataPopulator {
       specifiedGroups.addAll(groupDtos);
     }
 
-    final Map<String, Group> internalGroupsMap = getInternalGroups();
-    final Map<String, User> internalUsersMap = getInternalUsers();
+    final Map<String, Boolean> internalGroupsMap = getInternalGroupLdapFlags();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
+    final LdapMemberResolver memberResolver = new LdapMemberResolver(null);
 
+    int processed = 0;
     for (LdapGroupDto groupDto : specifiedGroups) {
       String groupName = groupDto.getGroupName();
       if (internalGroupsMap.containsKey(groupName)) {
-        final Group group = internalGroupsMap.get(groupName);
-        if (!group.isLdapGroup()) {
+        if (!internalGroupsMap.get(groupName)) {
           batchInfo.getGroupsToBecomeLdap().add(groupName);
         }
         internalGroupsMap.remove(groupName);
       } else {
         batchInfo.getGroupsToBeCreated().add(groupName);
       }
-      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, null);
+      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, memberResolver, null);
+      reportGroupProgress(batchInfo, ++processed, specifiedGroups.size());
     }
 
     return batchInfo;
@@ -284,12 +293,12 @@ public class AmbariLdapDataPopulator {
       specifiedUsers.addAll(userDtos);
     }
 
-    final Map<String, User> internalUsersMap = getInternalUsers();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
     for (LdapUserDto userDto : specifiedUsers) {
       String userName = userDto.getUserName();
       if (internalUsersMap.containsKey(userName)) {
-        final User user = internalUsersMap.get(userName);
-        if (user != null && !user.isLdapUser()) {
+        final Boolean ldapUser = internalUsersMap.get(userName);
+        if (ldapUser != null && !ldapUser) {
           batchInfo.getUsersToBecomeLdap().add(userName);
         }
         internalUsersMap.remove(userName);
@@ -307,19 +316,22 @@ public class AmbariLdapDataPopulator {
    * @throws AmbariException if synchronization failed for any reason
    */
   public LdapBatchDto synchronizeExistingLdapGroups(LdapBatchDto batchInfo) throws AmbariException {
-    final Map<String, Group> internalGroupsMap = getInternalGroups();
-    final Map<String, User> internalUsersMap = getInternalUsers();
-
-    for (Group group : internalGroupsMap.values()) {
-      if (group.isLdapGroup()) {
-        Set<LdapGroupDto> groupDtos = getLdapGroups(group.getGroupName());
+    final Map<String, Boolean> internalGroupsMap = getInternalGroupLdapFlags();
+    final Map<String, Boolean> internalUsersMap = getInternalUserLdapFlags();
+    final LdapMemberResolver memberResolver = new LdapMemberResolver(null);
+
+    int processed = 0;
+    for (Entry<String, Boolean> group : internalGroupsMap.entrySet()) {
+      if (group.getValue()) {
+        Set<LdapGroupDto> groupDtos = getLdapGroups(group.getKey());
         if (groupDtos.isEmpty()) {
-          batchInfo.getGroupsToBeRemoved().add(group.getGroupName());
+          batchInfo.getGroupsToBeRemoved().add(group.getKey());
         } else {
           LdapGroupDto groupDto = groupDtos.iterator().next();
-          refreshGroupMembers(batchInfo, groupDto, internalUsersMap, null);
+          refreshGroupMembers(batchInfo, groupDto, internalUsersMap, memberResolver, null);
         }
       }
+      reportGroupProgress(batchInfo, ++processed, internalGroupsMap.size());
     }
 
     return batchInfo;
@@ -327,17 +339,33 @@ public class AmbariLdapDataPopulator {
 
   /**
    * Performs synchronization of existent users and groups.
+   * <p/>
+   * When there are more existing LDAP users than fit in a single page, one
+   * paged search over all LDAP users is cheaper than a search per user.
    *
    * @throws AmbariException if synchronization failed for any reason
    */
   public LdapBatchDto synchronizeExistingLdapUsers(LdapBatchDto batchInfo) throws AmbariException {
-    final Map<String, User> internalUsersMap = getInternalUsers();
+    final Set<String> ldapUserNames = new HashSet<String>();
+    for (Entry<String, Boolean> internalUser : getInternalUserLdapFlags().entrySet()) {
+      if (internalUser.getValue()) {
+        ldapUserNames.add(internalUser.getKey());
+      }
+    }
 
-    for (User user : internalUsersMap.values()) {
-      if (user.isLdapUser()) {
-        Set<LdapUserDto> userDtos = getLdapUsers(user.getUserName());
+    if (ldapUserNames.size() > USERS_PAGE_SIZE) {
+      searchLdapUsers(getUserObjectFilter(), new LdapUserHandler() {
+        @Override
+        public void handle(LdapUserDto userDto) {
+          ldapUserNames.remove(userDto.getUserName());
+        }
+      });
+      batchInfo.getUsersToBeRemoved().addAll(ldapUserNames);
+    } else {
+      for (String userName : ldapUserNames) {
+        Set<LdapUserDto> userDtos = getLdapUsers(userName);
         if (userDtos.isEmpty()) {
-          batchInfo.getUsersToBeRemoved().add(user.getUserName());
+          batchInfo.getUsersToBeRemoved().add(userName);
         }
       }
     }
@@ -350,11 +378,13 @@ public class AmbariLdapDataPopulator {
    *
    * @param batchInfo batch update object
    * @param group ldap group
-   * @param internalUsers map of internal users
+   * @param internalUsers map of internal user names to their LDAP flag
+   * @param memberResolver resolves member attributes to LDAP users and groups
    * @param groupMemberAttributes  set of group member attributes that have already been refreshed
    * @throws AmbariException if group refresh failed
    */
-  protected void refreshGroupMembers(LdapBatchDto batchInfo, LdapGroupDto group, Map<String, User> internalUsers, Set<String> groupMemberAttributes)
+  protected void refreshGroupMembers(LdapBatchDto batchInfo, LdapGroupDto group, Map<String, Boolean> internalUsers,
+                                     LdapMemberResolver memberResolver, Set<String> groupMemberAttributes)
       throws AmbariException {
     Set<String> externalMembers = new HashSet<String>();
 
@@ -363,37 +393,37 @@ public class AmbariLdapDataPopulator {
     }
 
     for (String memberAttributeValue: group.getMemberAttributes()) {
-      LdapUserDto groupMember = getLdapUserByMemberAttr(memberAttributeValue);
-      if (groupMember != null) {
-        externalMembers.add(groupMember.getUserName());
+      String memberName = memberResolver.getUserName(memberAttributeValue);
+      if (memberName != null) {
+        externalMembers.add(memberName);
       } else {
         // if we haven't already processed this group
         if (!groupMemberAttributes.contains(memberAttributeValue)) {
           // if the member is another group then add all of its members
-          LdapGroupDto subGroup = getLdapGroupByMemberAttr(memberAttributeValue);
+          LdapGroupDto subGroup = memberResolver.getGroup(memberAttributeValue);
           if (subGroup != null) {
             groupMemberAttributes.add(memberAttributeValue);
-            refreshGroupMembers(batchInfo, subGroup, internalUsers, groupMemberAttributes);
+            refreshGroupMembers(batchInfo, subGroup, internalUsers, memberResolver, groupMemberAttributes);
           }
         }
       }
     }
     String groupName = group.getGroupName();
-    final Map<String, User> internalMembers = getInternalMembers(groupName);
+    final Set<String> internalMembers = getInternalMemberNames(groupName);
     for (String externalMember: externalMembers) {
       if (internalUsers.containsKey(externalMember)) {
-        final User user = internalUsers.get(externalMember);
-        if (user == null) {
+        final Boolean ldapUser = internalUsers.get(externalMember);
+        if (ldapUser == null) {
           // user is fresh and is already added to batch info
-          if (!internalMembers.containsKey(externalMember)) {
+          if (!internalMembers.contains(externalMember)) {
             batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto(groupName, externalMember));
           }
           continue;
         }
-        if (!user.isLdapUser()) {
+        if (!ldapUser) {
           batchInfo.getUsersToBecomeLdap().add(externalMember);
         }
-        if (!internalMembers.containsKey(externalMember)) {
+        if (!internalMembers.contains(externalMember)) {
           batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto(groupName, externalMember));
         }
         internalMembers.remove(externalMember);
@@ -402,9 +432,8 @@ public class AmbariLdapDataPopulator {
         batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto(groupName, externalMember));
       }
     }
-    for (Entry<String, User> userToBeUnsynced: internalMembers.entrySet()) {
-      final User user = userToBeUnsynced.getValue();
-      batchInfo.getMembershipToRemove().add(new LdapUserGroupMemberDto(groupName, user.getUserName()));
+    for (String userToBeUnsynced: internalMembers) {
+      batchInfo.getMembershipToRemove().add(new LdapUserGroupMemberDto(groupName, userToBeUnsynced));
     }
   }
 
@@ -522,9 +551,7 @@ public class AmbariLdapDataPopulator {
    * @return set of info about LDAP users
    */
   protected Set<LdapUserDto> getExternalLdapUserInfo() {
-    EqualsFilter userObjectFilter = new EqualsFilter(OBJECT_CLASS_ATTRIBUTE,
-        ldapServerProperties.getUserObjectClass());
-    return getFilteredLdapUsers(userObjectFilter);
+    return getFilteredLdapUsers(getUserObjectFilter());
   }
 
   private Set<LdapUserDto> getFilteredLdapUsers(Filter...filters) {
@@ -537,6 +564,23 @@ public class AmbariLdapDataPopulator {
 
   private Set<LdapUserDto> getFilteredLdapUsers(Filter filter) {
     final Set<LdapUserDto> users = new HashSet<LdapUserDto>();
+    searchLdapUsers(filter, new LdapUserHandler() {
+      @Override
+      public void handle(LdapUserDto user) {
+        users.add(user);
+      }
+    });
+    return users;
+  }
+
+  /**
+   * Searches the LDAP users matching the given filter page by page, handing
+   * each user to the given handler as soon as its page has been read.
+   *
+   * @param filter   the search filter
+   * @param handler  receives the users
+   */
+  protected void searchLdapUsers(Filter filter, LdapUserHandler handler) {
     final LdapTemplate ldapTemplate = loadLdapTemplate();
     String baseDn = ldapServerProperties.getBaseDN();
     PagedResultsDirContextProcessor processor = createPagingProcessor();
@@ -551,58 +595,81 @@ public class AmbariLdapDataPopulator {
         ldapTemplate.search(baseDn, encodedFilter, searchControls, ldapUserContextMapper);
       for (Object dto : dtos) {
         if (dto != null) {
-          users.add((LdapUserDto)dto);
+          handler.handle((LdapUserDto) dto);
         }
       }
     } while (configuration.getLdapServerProperties().isPaginationEnabled()
       && processor.getCookie().getCookie() != null);
-    return users;
   }
 
   /**
-   * Creates a map of internal groups.
+   * Builds an index of the member attribute values (DN and uid) of all LDAP
+   * users to their user names with a single paged search.
    *
-   * @return map of GroupName-Group pairs
+   * @param batchInfo  the batch to report the progress to
+   *
+   * @return map of lower case DN or uid to user name
    */
-  protected Map<String, Group> getInternalGroups() {
-    final List<Group> internalGroups = users.getAllGroups();
-    final Map<String, Group> internalGroupsMap = new HashMap<String, Group>();
-    for (Group group : internalGroups) {
-      internalGroupsMap.put(group.getGroupName(), group);
+  protected Map<String, String> getLdapUserIndex(final LdapBatchDto batchInfo) {
+    final Map<String, String> userIndex = new HashMap<String, String>();
+    final int[] processed = new int[1];
+    searchLdapUsers(getUserObjectFilter(), new LdapUserHandler() {
+      @Override
+      public void handle(LdapUserDto user) {
+        if (user.getUserName() != null) {
+          if (user.getDn() != null) {
+            userIndex.put(user.getDn(), user.getUserName());
+          }
+          if (user.getUid() != null) {
+            userIndex.put(user.getUid(), user.getUserName());
+          }
+        }
+        if (++processed[0] % USERS_PAGE_SIZE == 0) {
+          batchInfo.reportProgress("Indexed " + processed[0] + " users from LDAP.");
+        }
+      }
+    });
+    return userIndex;
+  }
+
+  // get a filter matching all LDAP users
+  private Filter getUserObjectFilter() {
+    return new EqualsFilter(OBJECT_CLASS_ATTRIBUTE, ldapServerProperties.getUserObjectClass());
+  }
+
+  // report the group progress every so often
+  private void reportGroupProgress(LdapBatchDto batchInfo, int processed, int total) {
+    if (processed % GROUPS_PROGRESS_INTERVAL == 0 || processed == total) {
+      batchInfo.reportProgress("Processed " + processed + " of " + total + " groups.");
     }
-    return internalGroupsMap;
   }
 
   /**
-   * Creates a map of internal users.
+   * Creates a map of internal group names to their LDAP flag.
    *
-   * @return map of UserName-User pairs
+   * @return map of GroupName-isLdapGroup pairs
    */
-  protected Map<String, User> getInternalUsers() {
-    final List<User> internalUsers = users.getAllUsers();
-    final Map<String, User> internalUsersMap = new HashMap<String, User>();
-    for (User user : internalUsers) {
-      internalUsersMap.put(user.getUserName(), user);
-    }
-    return internalUsersMap;
+  protected Map<String, Boolean> getInternalGroupLdapFlags() {
+    return users.getGroupLdapFlags();
+  }
+
+  /**
+   * Creates a map of internal user names to their LDAP flag.
+   *
+   * @return map of UserName-isLdapUser pairs
+   */
+  protected Map<String, Boolean> getInternalUserLdapFlags() {
+    return users.getUserLdapFlags();
   }
 
   /**
-   * Creates a map of internal users present in specified group.
+   * Creates a set of the names of internal users present in specified group.
    *
    * @param groupName group name
-   * @return map of UserName-User pairs
+   * @return set of user names
    */
-  protected Map<String, User> getInternalMembers(String groupName) {
-    final Collection<User> internalMembers = users.getGroupMembers(groupName);
-    if (internalMembers == null) {
-      return Collections.emptyMap();
-    }
-    final Map<String, User> internalMembersMap = new HashMap<String, User>();
-    for (User user : internalMembers) {
-      internalMembersMap.put(user.getUserName(), user);
-    }
-    return internalMembersMap;
+  protected Set<String> getInternalMemberNames(String groupName) {
+    return users.getGroupMemberNames(groupName);
   }
 
   /**
@@ -734,4 +801,69 @@ public class AmbariLdapDataPopulator {
       return null;
     }
   }
+
+  /**
+   * Receives the users of a paged LDAP search.
+   */
+  protected interface LdapUserHandler {
+    /**
+     * Handle a single LDAP user.
+     *
+     * @param user  the LDAP user
+     */
+    void handle(LdapUserDto user);
+  }
+
+  /**
+   * Resolves group member attribute values to LDAP users and groups. Each
+   * value is searched in LDAP at most once per sync, and not at all if it
+   * is found in the optional index of all LDAP users.
+   */
+  protected class LdapMemberResolver {
+
+    private final Map<String, String> userIndex;
+    private final Map<String, String> userNames = new HashMap<String, String>();
+    private final Map<String, LdapGroupDto> groups = new HashMap<String, LdapGroupDto>();
+
+    /**
+     * Constructor.
+     *
+     * @param userIndex  map of lower case DN or uid to user name; may be null
+     */
+    public LdapMemberResolver(Map<String, String> userIndex) {
+      this.userIndex = userIndex;
+    }
+
+    /**
+     * Get the name of the LDAP user for the given member attribute.
+     *
+     * @param memberAttributeValue  the member attribute value
+     *
+     * @return the user name; null if the member is not a user
+     */
+    public String getUserName(String memberAttributeValue) {
+      if (userIndex != null && userIndex.containsKey(memberAttributeValue)) {
+        return userIndex.get(memberAttributeValue);
+      }
+      if (!userNames.containsKey(memberAttributeValue)) {
+        LdapUserDto user = getLdapUserByMemberAttr(memberAttributeValue);
+        userNames.put(memberAttributeValue, user == null ? null : user.getUserName());
+      }
+      return userNames.get(memberAttributeValue);
+    }
+
+    /**
+     * Get the LDAP group for the given member attribute.
+     *
+     * @param memberAttributeValue  the member attribute value
+     *
+     * @return the group; null if the member is not a group
+     */
+    public LdapGroupDto getGroup(String memberAttributeValue) {
+      if (!groups.containsKey(memberAttributeValue)) {
+        groups.put(memberAttributeValue, getLdapGroupByMemberAttr(memberAttributeValue));
+      }
+      return groups.get(memberAttributeValue);
+    }
+  }
 }
@@ -32,6 +32,20 @@ public class LdapBatchDto {
   private final Set<String> usersToBeRemoved = new HashSet<String>();
   private final Set<LdapUserGroupMemberDto> membershipToAdd = new HashSet<LdapUserGroupMemberDto>();
   private final Set<LdapUserGroupMemberDto> membershipToRemove = new HashSet<LdapUserGroupMemberDto>();
+  private final LdapSyncProgressListener progressListener;
+
+  public LdapBatchDto() {
+    this(null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param progressListener  notified as the sync moves forward; may be null
+   */
+  public LdapBatchDto(LdapSyncProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
 
   public Set<String> getGroupsToBecomeLdap() {
     return groupsToBecomeLdap;
@@ -64,4 +78,15 @@ public class LdapBatchDto {
   public Set<String> getUsersToBeRemoved() {
     return usersToBeRemoved;
   }
+
+  /**
+   * Report the progress of the sync to the listener, if any.
+   *
+   * @param message  human readable description of the current progress
+   */
+  public void reportProgress(String message) {
+    if (progressListener != null) {
+      progressListener.onProgress(message);
+    }
+  }
 }
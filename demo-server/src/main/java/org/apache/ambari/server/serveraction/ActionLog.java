@@ -89,10 +89,9 @@ public class ActionLog {
   private void write(StringBuffer buffer, String message) {
     if (message != null) {
       Date date = new Date();
-      buffer.append(dateFormat.format(date));
-      buffer.append(" - ");
-      buffer.append(message);
-      buffer.append("\n");
+      // append the whole line at once so lines written by concurrent threads
+      // are not interleaved
+      buffer.append(dateFormat.format(date) + " - " + message + "\n");
     }
   }
 
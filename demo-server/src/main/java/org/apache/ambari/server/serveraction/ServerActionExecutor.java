@@ -18,12 +18,19 @@
 
 package org.apache.ambari.server.serveraction;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.Role;
@@ -35,8 +42,10 @@ import org.apache.ambari.server.actionmanager.HostRoleStatus;
 import org.apache.ambari.server.actionmanager.Request;
 import org.apache.ambari.server.agent.CommandReport;
 import org.apache.ambari.server.agent.ExecutionCommand;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.internal.CalculatedStatus;
 import org.apache.ambari.server.utils.StageUtils;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +55,15 @@ import com.google.inject.Injector;
 /**
  * Server Action Executor used to execute server-side actions (or tasks)
  * <p/>
- * The ServerActionExecutor executes in its own thread, polling for AMBARI_SERVER_ACTION
- * HostRoleCommands queued for execution.  It is expected that this thread is managed by the
- * ActionScheduler such that it is started when the ActionScheduler is started and stopped when the
- * ActionScheduler is stopped.
+ * The ServerActionExecutor dispatches AMBARI_SERVER_ACTION HostRoleCommands queued for execution
+ * from its own thread, which is woken by the ActionScheduler when it schedules server actions and
+ * whenever a server action completes; the database is still polled as a fallback.  It is expected
+ * that this thread is managed by the ActionScheduler such that it is started when the
+ * ActionScheduler is started and stopped when the ActionScheduler is stopped.
+ * <p/>
+ * The tasks are executed by a pool of threads.  Tasks of different requests are executed
+ * concurrently, while the tasks of a single request are executed one at a time in the order in
+ * which they were queued.
  */
 @StaticallyInject
 public class ServerActionExecutor {
@@ -64,6 +78,12 @@ public class ServerActionExecutor {
   @Inject
   private static Injector injector;
 
+  /**
+   * Used to determine the number of concurrently executed tasks.
+   */
+  @Inject
+  private static Configuration configuration;
+
   /**
    * Maps request IDs to "blackboards" of shared data.
    * <p/>
@@ -92,6 +112,9 @@ public class ServerActionExecutor {
 
   /**
    * Timeout (in milliseconds) used to throttle polling of database for new action commands.
+   * <p/>
+   * Since the executor is woken whenever server actions are scheduled or completed, polling is
+   * only a fallback and is not done more often than every {@link #POLLING_TIMEOUT_MS}.
    */
   private final long sleepTimeMS;
 
@@ -106,6 +129,30 @@ public class ServerActionExecutor {
    */
   private Thread executorThread = null;
 
+  /**
+   * The pool of threads executing the tasks; null if the tasks are executed by the caller of
+   * {@link #doWork()}
+   */
+  private volatile ExecutorService workerPool = null;
+
+  /**
+   * The IDs of the requests with a task being executed, used to execute the tasks of a request
+   * one at a time.
+   */
+  private final Set<Long> activeRequestIds =
+      Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+  /**
+   * The execution statistics keyed by server action class name.
+   */
+  private final ConcurrentMap<String, ActionStatistics> actionStatistics =
+      new ConcurrentHashMap<String, ActionStatistics>();
+
+  /**
+   * Limits how often the execution statistics are logged.
+   */
+  private final StatisticsLogThrottle statisticsLog = new StatisticsLogThrottle();
+
   /**
    * Statically initialize the Injector
    * <p/>
@@ -121,12 +168,13 @@ public class ServerActionExecutor {
    * Creates a new ServerActionExecutor
    *
    * @param db          the ActionDBAccessor to use to read and update tasks
-   * @param sleepTimeMS the time (in milliseconds) to wait between polling the database for more tasks
+   * @param sleepTimeMS the time (in milliseconds) to wait between polling the database for more
+   *                    tasks if not woken before; at least {@link #POLLING_TIMEOUT_MS}
    */
   public ServerActionExecutor(ActionDBAccessor db, long sleepTimeMS) {
     serverHostName = StageUtils.getHostName();
     this.db = db;
-    this.sleepTimeMS = (sleepTimeMS < 1) ? POLLING_TIMEOUT_MS : sleepTimeMS;
+    this.sleepTimeMS = Math.max(sleepTimeMS, POLLING_TIMEOUT_MS);
   }
 
   /**
@@ -134,6 +182,7 @@ public class ServerActionExecutor {
    */
   public void start() {
     LOG.info("Starting Server Action Executor thread...");
+    workerPool = createWorkerPool();
     executorThread = new Thread(new Runnable() {
 
       @Override
@@ -191,6 +240,11 @@ public class ServerActionExecutor {
       }
     }
 
+    if (workerPool != null) {
+      workerPool.shutdownNow();
+      workerPool = null;
+    }
+
     if (executorThread == null) {
       LOG.info("Server Action Executor thread stopped.");
     } else {
@@ -365,8 +419,11 @@ public class ServerActionExecutor {
   /**
    * Execute the logic to handle each task in the queue in the order in which it was queued.
    * <p/>
-   * A single task is executed at one time, allowing for a specified (ExecutionCommand.KeyNames.COMMAND_TIMEOUT)
-   * or the default timeout for it to complete before considering the task timed out.
+   * Each task is executed by the worker pool, allowing for a specified
+   * (ExecutionCommand.KeyNames.COMMAND_TIMEOUT) or the default timeout for it to complete before
+   * considering the task timed out.  A task is left queued while another task of its request is
+   * being executed; it is dispatched once that task completes.  If the worker pool has not been
+   * started, the tasks are executed one at a time by the calling thread.
    *
    * @throws InterruptedException
    */
@@ -396,36 +453,14 @@ public class ServerActionExecutor {
             ExecutionCommand executionCommand = executionWrapper.getExecutionCommand();
 
             if (executionCommand != null) {
-              // For now, execute only one task at a time. This may change in the future in the
-              // event it is discovered that this is a bottleneck. Since this implementation may
-              // change, it should be noted from outside of this class, that there is no expectation
-              // that tasks will be processed in order or serially.
-              Worker worker = new Worker(task, executionCommand);
-              Thread workerThread = new Thread(worker, String.format("Server Action Executor Worker %s", taskId));
-              Long timeout = determineTimeout(executionCommand);
-
-              updateHostRoleState(task, executionCommand, createInProgressReport());
-
-              LOG.debug("Starting Server Action Executor Worker thread for task #{}.", taskId);
-              workerThread.start();
-
-              try {
-                workerThread.join(timeout);
-              } catch (InterruptedException e) {
-                // Make sure the workerThread is interrupted as well.
-                workerThread.interrupt();
-                throw e;
+              // Tasks of the same request are executed one at a time, in order
+              if (!activeRequestIds.add(task.getRequestId())) {
+                LOG.debug("Task #{} waits for the running task of request {}.", taskId, task.getRequestId());
+                continue;
               }
 
-              if (workerThread.isAlive()) {
-                LOG.debug("Server Action Executor Worker thread for task #{} timed out - it failed to complete within {} ms.",
-                    taskId, timeout);
-                workerThread.interrupt();
-                updateHostRoleState(task, executionCommand, createTimedOutReport());
-              } else {
-                LOG.debug("Server Action Executor Worker thread for task #{} exited on its own.", taskId);
-                updateHostRoleState(task, executionCommand, worker.getCommandReport());
-              }
+              updateHostRoleState(task, executionCommand, createInProgressReport());
+              dispatch(task, executionCommand);
             } else {
               LOG.warn("Task #{} failed to produce an ExecutionCommand, skipping.", taskId);
             }
@@ -442,6 +477,173 @@ public class ServerActionExecutor {
     cleanRequestShareDataContexts();
   }
 
+  /**
+   * Executes a task, which has been set in progress, using the worker pool or, if the pool has not
+   * been started, the calling thread.
+   * <p/>
+   * Once the task completes its request is released and this ServerActionExecutor is woken to
+   * dispatch the next task of the request.
+   *
+   * @param task             the HostRoleCommand for the relevant task
+   * @param executionCommand the ExecutionCommand for the relevant task
+   * @throws InterruptedException if the calling thread is interrupted while executing the task
+   */
+  private void dispatch(final HostRoleCommand task, final ExecutionCommand executionCommand)
+      throws InterruptedException {
+    final long dispatchTime = System.currentTimeMillis();
+    ExecutorService pool = workerPool;
+
+    if (pool == null) {
+      try {
+        executeTask(task, executionCommand, dispatchTime);
+      } finally {
+        activeRequestIds.remove(task.getRequestId());
+      }
+      return;
+    }
+
+    try {
+      pool.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            executeTask(task, executionCommand, dispatchTime);
+          } catch (InterruptedException e) {
+            LOG.warn("Server Action Executor pool thread interrupted while executing task #{}", task.getTaskId());
+            Thread.currentThread().interrupt();
+          } finally {
+            activeRequestIds.remove(task.getRequestId());
+            awake();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the executor is shutting down
+      activeRequestIds.remove(task.getRequestId());
+      LOG.warn("Task #{} was not executed since the Server Action Executor is shutting down.", task.getTaskId());
+    }
+  }
+
+  /**
+   * Executes a task in its own thread, waiting for it to complete or time out, and records the
+   * result and the execution statistics.
+   *
+   * @param task             the HostRoleCommand for the relevant task
+   * @param executionCommand the ExecutionCommand for the relevant task
+   * @param dispatchTime     the time the task was dispatched, used if the task has no start time
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the task
+   */
+  private void executeTask(HostRoleCommand task, ExecutionCommand executionCommand, long dispatchTime)
+      throws InterruptedException {
+    Long taskId = task.getTaskId();
+    Worker worker = new Worker(task, executionCommand);
+    Thread workerThread = new Thread(worker, String.format("Server Action Executor Worker %s", taskId));
+    Long timeout = determineTimeout(executionCommand);
+
+    long startTime = System.currentTimeMillis();
+    long queuedTime = ((task.getStartTime() > 0) && (task.getStartTime() <= startTime))
+        ? task.getStartTime()
+        : dispatchTime;
+
+    LOG.debug("Starting Server Action Executor Worker thread for task #{}.", taskId);
+    workerThread.start();
+
+    try {
+      workerThread.join(timeout);
+    } catch (InterruptedException e) {
+      // Make sure the workerThread is interrupted as well.
+      workerThread.interrupt();
+      throw e;
+    }
+
+    if (workerThread.isAlive()) {
+      LOG.debug("Server Action Executor Worker thread for task #{} timed out - it failed to complete within {} ms.",
+          taskId, timeout);
+      workerThread.interrupt();
+      updateHostRoleState(task, executionCommand, createTimedOutReport());
+    } else {
+      LOG.debug("Server Action Executor Worker thread for task #{} exited on its own.", taskId);
+      updateHostRoleState(task, executionCommand, worker.getCommandReport());
+    }
+
+    Map<String, String> roleParams = executionCommand.getRoleParams();
+    String actionClassname = (roleParams == null) ? null : roleParams.get(ServerAction.ACTION_NAME);
+    long waitTime = startTime - queuedTime;
+    long executionTime = System.currentTimeMillis() - startTime;
+
+    ActionStatistics statistics = actionStatistics.get(String.valueOf(actionClassname));
+    if (statistics == null) {
+      statistics = new ActionStatistics();
+      ActionStatistics existing = actionStatistics.putIfAbsent(String.valueOf(actionClassname), statistics);
+      if (existing != null) {
+        statistics = existing;
+      }
+    }
+    statistics.record(waitTime, executionTime);
+
+    LOG.info("Server action {} of task #{} waited {} ms and executed in {} ms",
+        actionClassname, taskId, waitTime, executionTime);
+
+    if (statisticsLog.isDue()) {
+      LOG.info("Server action statistics: {}", actionStatistics);
+    }
+  }
+
+  /**
+   * Creates the pool of threads executing the tasks.
+   *
+   * @return the worker pool
+   */
+  private static ExecutorService createWorkerPool() {
+    int threads = (configuration == null) ? 1 : Math.max(1, configuration.getServerActionExecutorThreads());
+
+    return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger threadId = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Server Action Executor Pool " + threadId.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * The execution statistics of a server action class.
+   */
+  private static class ActionStatistics {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong totalExecutionTime = new AtomicLong();
+    private final AtomicLong maxExecutionTime = new AtomicLong();
+
+    /**
+     * Records an execution.
+     *
+     * @param waitTime      the time in milliseconds the task waited to be executed
+     * @param executionTime the time in milliseconds the task executed
+     */
+    private void record(long waitTime, long executionTime) {
+      count.incrementAndGet();
+      totalWaitTime.addAndGet(waitTime);
+      totalExecutionTime.addAndGet(executionTime);
+
+      long max = maxExecutionTime.get();
+      while ((executionTime > max) && !maxExecutionTime.compareAndSet(max, executionTime)) {
+        max = maxExecutionTime.get();
+      }
+    }
+
+    @Override
+    public String toString() {
+      long executions = Math.max(1, count.get());
+      return String.format("{count=%d, avgWaitMs=%d, avgExecutionMs=%d, maxExecutionMs=%d}",
+          count.get(), totalWaitTime.get() / executions,
+          totalExecutionTime.get() / executions, maxExecutionTime.get());
+    }
+  }
+
   /**
    * Internal class to execute a unit of work in its own thread
    */
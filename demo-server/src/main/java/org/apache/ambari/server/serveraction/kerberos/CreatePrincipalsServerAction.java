@@ -79,6 +79,16 @@ public class CreatePrincipalsServerAction extends KerberosServerAction {
     return processIdentities(requestSharedDataContext);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Principals are independent of each other, so they may be created concurrently.
+   */
+  @Override
+  protected boolean isConcurrentProcessingSupported() {
+    return true;
+  }
+
 
   /**
    * For each identity, generate a unique password create a new or update an existing principal in
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.serveraction.kerberos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * KAdminSession keeps a single interactive kadmin (or kadmin.local) process open and sends it
+ * queries over STDIN, so that a series of queries does not pay for a process start and an
+ * authentication with the KDC each.
+ * <p/>
+ * The end of the response to a query is detected by sending a second query for a policy with a
+ * unique name directly after it; since kadmin answers the queries in order, the (error) message
+ * naming that policy marks the end of the response. STDERR is merged into STDOUT so that messages
+ * of both streams are read in order.
+ * <p/>
+ * This class is not thread-safe.
+ */
+class KAdminSession {
+
+  private final static Logger LOG = LoggerFactory.getLogger(KAdminSession.class);
+
+  /**
+   * A regular expression pattern matching the kadmin prompts preceding the response lines
+   */
+  private final static Pattern PATTERN_PROMPT = Pattern.compile("^(kadmin(\\.local)?:\\s*)+");
+
+  /**
+   * Queued by the reader thread when the kadmin process closes its output
+   */
+  private final static String END_OF_STREAM = new String("END_OF_STREAM");
+
+  /**
+   * Used to create a unique marker prefix for each session
+   */
+  private final static AtomicLong SESSION_IDS = new AtomicLong();
+
+  /**
+   * The kadmin command and its arguments, without a query
+   */
+  private final List<String> command;
+
+  /**
+   * A temporary keytab file used to authenticate the session; deleted when the session is closed
+   */
+  private final File keytabFile;
+
+  /**
+   * The time in milliseconds to wait for the response to a query
+   */
+  private final long timeout;
+
+  /**
+   * The prefix of the end of response markers of this session
+   */
+  private final String markerPrefix = "ambari_kadmin_marker_" + SESSION_IDS.incrementAndGet() + "_" +
+      Long.toHexString(System.nanoTime());
+
+  /**
+   * The lines read from the kadmin process
+   */
+  private final BlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+
+  private Process process = null;
+
+  private Writer writer = null;
+
+  private long sequence = 0;
+
+  /**
+   * Creates a new (not yet started) KAdminSession
+   *
+   * @param command    the kadmin command and its arguments, without a query
+   * @param keytabFile a temporary keytab file referenced by the command; may be null
+   * @param timeout    the time in milliseconds to wait for the response to a query
+   */
+  KAdminSession(List<String> command, File keytabFile, long timeout) {
+    this.command = new ArrayList<String>(command);
+    this.keytabFile = keytabFile;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Starts the kadmin process and waits until it is ready to answer queries.
+   *
+   * @throws IOException if the process cannot be started or does not answer
+   */
+  void start() throws IOException {
+    ProcessBuilder builder = new ProcessBuilder(command);
+    builder.redirectErrorStream(true);
+    process = builder.start();
+    writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), "UTF-8"));
+
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+    Thread readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            lines.add(line);
+          }
+        } catch (IOException e) {
+          // the process was destroyed
+        } finally {
+          lines.add(END_OF_STREAM);
+        }
+      }
+    }, "ambari-kadmin-session");
+    readerThread.setDaemon(true);
+    readerThread.start();
+
+    // the process is ready once it answered an empty request
+    execute(null);
+  }
+
+  /**
+   * Determines whether the kadmin process is still running.
+   *
+   * @return true if the process is running; false otherwise
+   */
+  boolean isAlive() {
+    if (process == null) {
+      return false;
+    }
+
+    try {
+      process.exitValue();
+      return false;
+    } catch (IllegalThreadStateException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Sends a query to the kadmin process and returns its response.
+   *
+   * @param query the query to send; null to only wait for the process to answer
+   * @return the response lines, without prompts
+   * @throws IOException if the query cannot be sent or the response is not received in time
+   */
+  String execute(String query) throws IOException {
+    if ((query != null) && ((query.indexOf('\n') >= 0) || (query.indexOf('\r') >= 0))) {
+      throw new IOException("A kadmin query may not span multiple lines");
+    }
+
+    String marker = markerPrefix + "_" + (++sequence);
+
+    if (query != null) {
+      writer.write(query);
+      writer.write('\n');
+    }
+    writer.write("get_policy ");
+    writer.write(marker);
+    writer.write('\n');
+    writer.flush();
+
+    StringBuilder response = new StringBuilder();
+    long deadline = System.currentTimeMillis() + timeout;
+
+    while (true) {
+      long remaining = deadline - System.currentTimeMillis();
+      String line;
+
+      try {
+        line = (remaining > 0) ? lines.poll(remaining, TimeUnit.MILLISECONDS) : null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for kadmin");
+      }
+
+      if (line == null) {
+        throw new IOException(String.format("kadmin did not respond within %d ms", timeout));
+      } else if (line == END_OF_STREAM) {
+        throw new EOFException(String.format("kadmin exited unexpectedly: %s", response));
+      }
+
+      line = PATTERN_PROMPT.matcher(line).replaceFirst("");
+      if (line.contains(marker)) {
+        return response.toString();
+      }
+
+      response.append(line).append('\n');
+    }
+  }
+
+  /**
+   * Stops the kadmin process and removes the temporary keytab file.
+   */
+  void close() {
+    if (process != null) {
+      try {
+        if (isAlive()) {
+          writer.write("quit\n");
+          writer.flush();
+        }
+      } catch (IOException e) {
+        LOG.debug("Failed to quit the kadmin session", e);
+      } finally {
+        process.destroy();
+        process = null;
+      }
+    }
+
+    if ((keytabFile != null) && !keytabFile.delete()) {
+      keytabFile.deleteOnExit();
+    }
+  }
+}
@@ -18,11 +18,14 @@
 
 package org.apache.ambari.server.serveraction.kerberos;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Inject;
+import com.google.inject.persist.UnitOfWork;
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
 import org.apache.ambari.server.agent.CommandReport;
 import org.apache.ambari.server.agent.ExecutionCommand;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.KerberosHelper;
 import org.apache.ambari.server.serveraction.AbstractServerAction;
 import org.apache.ambari.server.state.Cluster;
@@ -34,8 +37,22 @@ import static org.apache.ambari.server.serveraction.kerberos.KerberosIdentityDat
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * KerberosServerAction is an abstract class to be implemented by Kerberos-related
@@ -120,6 +137,11 @@ public abstract class KerberosServerAction extends AbstractServerAction {
 
   private static final Logger LOG = LoggerFactory.getLogger(KerberosServerAction.class);
 
+  /**
+   * The rate limiters shared by all actions talking to the same KDC, keyed by KDC type and host
+   */
+  private static final ConcurrentMap<String, RateLimiter> KDC_RATE_LIMITERS = new ConcurrentHashMap<String, RateLimiter>();
+
   /**
    * The Cluster that this ServerAction implementation is executing on
    */
@@ -146,6 +168,18 @@ public abstract class KerberosServerAction extends AbstractServerAction {
   @Inject
   private KerberosHelper kerberosHelper;
 
+  /**
+   * Configuration used to get the number of concurrently processed identities and the KDC rate limit
+   */
+  @Inject
+  private Configuration configuration;
+
+  /**
+   * The UnitOfWork used to scope the database sessions of the identity processing threads
+   */
+  @Inject
+  private UnitOfWork unitOfWork;
+
   /**
    * Given a (command parameter) Map and a property name, attempts to safely retrieve the requested
    * data.
@@ -225,14 +259,7 @@ public abstract class KerberosServerAction extends AbstractServerAction {
     if (requestSharedDataContext == null) {
       return null;
     } else {
-      Object map = requestSharedDataContext.get(PRINCIPAL_PASSWORD_MAP);
-
-      if (map == null) {
-        map = new HashMap<String, String>();
-        requestSharedDataContext.put(PRINCIPAL_PASSWORD_MAP, map);
-      }
-
-      return (Map<String, String>) map;
+      return (Map<String, String>) getSharedMap(requestSharedDataContext, PRINCIPAL_PASSWORD_MAP);
     }
   }
 
@@ -251,15 +278,38 @@ public abstract class KerberosServerAction extends AbstractServerAction {
     if (requestSharedDataContext == null) {
       return null;
     } else {
-      Object map = requestSharedDataContext.get(PRINCIPAL_KEY_NUMBER_MAP);
+      return (Map<String, Integer>) getSharedMap(requestSharedDataContext, PRINCIPAL_KEY_NUMBER_MAP);
+    }
+  }
 
-      if (map == null) {
-        map = new HashMap<String, String>();
-        requestSharedDataContext.put(PRINCIPAL_KEY_NUMBER_MAP, map);
-      }
+  /**
+   * Gets a Map stored in the shared data of the current request, creating and storing it if
+   * necessary.
+   * <p/>
+   * The created Map is thread-safe since identities may be processed concurrently.
+   *
+   * @param requestSharedDataContext a Map to be used a shared data among all ServerActions related
+   *                                 to a given request
+   * @param name                     the name of the shared data entry
+   * @return the shared Map
+   */
+  private static Object getSharedMap(Map<String, Object> requestSharedDataContext, String name) {
+    Object map = requestSharedDataContext.get(name);
 
-      return (Map<String, Integer>) map;
+    if (map == null) {
+      map = new ConcurrentHashMap<Object, Object>();
+
+      if (requestSharedDataContext instanceof ConcurrentMap) {
+        Object existing = ((ConcurrentMap<String, Object>) requestSharedDataContext).putIfAbsent(name, map);
+        if (existing != null) {
+          map = existing;
+        }
+      } else {
+        requestSharedDataContext.put(name, map);
+      }
     }
+
+    return map;
   }
 
   /**
@@ -392,18 +442,56 @@ public abstract class KerberosServerAction extends AbstractServerAction {
               throw new AmbariException(message, e);
             }
 
+            RateLimiter rateLimiter = getRateLimiter(kdcType, kerberosConfiguration);
+
             // Create the data file reader to parse and iterate through the records
             KerberosIdentityDataFileReader reader = null;
+            long startTime = System.currentTimeMillis();
+            int count = 0;
             try {
               reader = kerberosIdentityDataFileReaderFactory.createKerberosIdentityDataFileReader(identityDataFile);
-              for (Map<String, String> record : reader) {
-                // Process the current record
-                commandReport = processRecord(record, defaultRealm, handler, kerberosConfiguration, requestSharedDataContext);
-
-                // If the principal processor returns a CommandReport, than it is time to stop since
-                // an error condition has probably occurred, else all is assumed to be well.
-                if (commandReport != null) {
-                  break;
+
+              int threads = isConcurrentProcessingSupported() ? configuration.getKerberosOperationThreads() : 1;
+              if (threads > 1) {
+                // Group the records by principal so that each principal is processed exactly once,
+                // by a single thread, in the order of its records
+                Map<String, List<Map<String, String>>> principalRecords = new LinkedHashMap<String, List<Map<String, String>>>();
+                for (Map<String, String> record : reader) {
+                  String evaluatedPrincipal = getEvaluatedPrincipal(record, defaultRealm);
+                  if (evaluatedPrincipal != null) {
+                    List<Map<String, String>> records = principalRecords.get(evaluatedPrincipal);
+                    if (records == null) {
+                      records = new ArrayList<Map<String, String>>();
+                      principalRecords.put(evaluatedPrincipal, records);
+                    }
+                    records.add(record);
+                  }
+                }
+
+                // make sure the shared maps exist before they are used by several threads
+                getPrincipalPasswordMap(requestSharedDataContext);
+                getPrincipalKeyNumberMap(requestSharedDataContext);
+
+                AtomicInteger processed = new AtomicInteger();
+                commandReport = processRecordsConcurrently(principalRecords, Math.min(threads, principalRecords.size()),
+                    administratorCredential, defaultRealm, kdcType, handler, rateLimiter, kerberosConfiguration,
+                    requestSharedDataContext, processed);
+                count = processed.get();
+              } else {
+                for (Map<String, String> record : reader) {
+                  if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                  }
+
+                  // Process the current record
+                  commandReport = processRecord(record, defaultRealm, handler, kerberosConfiguration, requestSharedDataContext);
+                  count++;
+
+                  // If the principal processor returns a CommandReport, than it is time to stop since
+                  // an error condition has probably occurred, else all is assumed to be well.
+                  if (commandReport != null) {
+                    break;
+                  }
                 }
               }
             } catch (AmbariException e) {
@@ -435,6 +523,12 @@ public abstract class KerberosServerAction extends AbstractServerAction {
                 // Ignore this...
               }
             }
+
+            long duration = Math.max(1, System.currentTimeMillis() - startTime);
+            String message = String.format("Processed %d identities in %d ms (%.1f identities per second)",
+                count, duration, count * 1000.0 / duration);
+            actionLog.writeStdOut(message);
+            LOG.info(message);
           }
         }
       }
@@ -500,19 +594,242 @@ public abstract class KerberosServerAction extends AbstractServerAction {
       throws AmbariException {
     CommandReport commandReport = null;
 
-    if (record != null) {
-      String principal = record.get(KerberosIdentityDataFileReader.PRINCIPAL);
-      String host = record.get(KerberosIdentityDataFileReader.HOSTNAME);
+    String evaluatedPrincipal = getEvaluatedPrincipal(record, defaultRealm);
+
+    if (evaluatedPrincipal != null) {
+      commandReport = processIdentity(record, evaluatedPrincipal, operationHandler, kerberosConfiguration, requestSharedDataContext);
+    }
+
+    return commandReport;
+  }
+
+  /**
+   * Evaluates the principal "pattern" found in an identity record to generate the "evaluated
+   * principal" by replacing the _HOST and _REALM variables.
+   *
+   * @param record       a Map containing the data for the current identity record
+   * @param defaultRealm a String declaring the default Kerberos realm
+   * @return the evaluated principal or null if the record does not declare a principal
+   */
+  private String getEvaluatedPrincipal(Map<String, String> record, String defaultRealm) {
+    String principal = (record == null) ? null : record.get(KerberosIdentityDataFileReader.PRINCIPAL);
+
+    if (principal == null) {
+      return null;
+    }
+
+    String host = record.get(KerberosIdentityDataFileReader.HOSTNAME);
+    return principal.replace("_HOST", host).replace("_REALM", defaultRealm);
+  }
+
+  /**
+   * Indicates whether the identities handled by this action may be processed concurrently.
+   * <p/>
+   * Implementations returning true must tolerate concurrent calls to
+   * {@link #processIdentity(Map, String, KerberosOperationHandler, Map, Map)} for different
+   * principals; the records of a single principal are always processed by one thread in order.
+   * Actions whose records for different principals share other state, such as the keytab file
+   * several principals are merged into, must not return true.
+   *
+   * @return true if identities may be processed concurrently; false otherwise
+   */
+  protected boolean isConcurrentProcessingSupported() {
+    return false;
+  }
+
+  /**
+   * Processes the grouped identity records using the given number of threads.
+   * <p/>
+   * Each thread uses its own, reused, {@link KerberosOperationHandler} session since the handlers
+   * are not thread-safe; the first thread uses the already opened handler.  Processing stops at
+   * the first error reported by any thread.
+   *
+   * @param principalRecords         the identity records grouped by evaluated principal
+   * @param threads                  the number of threads to use
+   * @param administratorCredential  the KDC administrator credential
+   * @param defaultRealm             a String declaring the default Kerberos realm
+   * @param kdcType                  the KDC type
+   * @param handler                  the opened KerberosOperationHandler
+   * @param rateLimiter              the KDC rate limiter; may be null
+   * @param kerberosConfiguration    a Map of configuration properties from kerberos-env
+   * @param requestSharedDataContext a Map to be used a shared data among all ServerActions related
+   *                                 to a given request
+   * @param processed                counts the records processed by all threads
+   * @return a CommandReport, indicating an error condition; or null, indicating a success condition
+   * @throws AmbariException if an error occurs while processing an identity record
+   */
+  private CommandReport processRecordsConcurrently(Map<String, List<Map<String, String>>> principalRecords,
+                                                   int threads,
+                                                   final KerberosCredential administratorCredential,
+                                                   final String defaultRealm,
+                                                   final KDCType kdcType,
+                                                   final KerberosOperationHandler handler,
+                                                   final RateLimiter rateLimiter,
+                                                   final Map<String, String> kerberosConfiguration,
+                                                   final Map<String, Object> requestSharedDataContext,
+                                                   final AtomicInteger processed)
+      throws AmbariException {
+    final Queue<List<Map<String, String>>> queue = new ConcurrentLinkedQueue<List<Map<String, String>>>(principalRecords.values());
+    final AtomicReference<CommandReport> failure = new AtomicReference<CommandReport>();
+
+    ExecutorService executor = createIdentityExecutor(threads);
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+    try {
+      for (int i = 0; i < threads; i++) {
+        final boolean sharedHandler = (i == 0);
+
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            unitOfWork.begin();
+            try {
+              KerberosOperationHandler operationHandler = sharedHandler ? handler : openHandler(kdcType,
+                  administratorCredential, defaultRealm, kerberosConfiguration);
+              try {
+                List<Map<String, String>> records;
+                while ((failure.get() == null) && ((records = queue.poll()) != null)) {
+                  for (Map<String, String> record : records) {
+                    if (rateLimiter != null) {
+                      rateLimiter.acquire();
+                    }
+
+                    CommandReport commandReport = processRecord(record, defaultRealm, operationHandler,
+                        kerberosConfiguration, requestSharedDataContext);
+                    processed.incrementAndGet();
+
+                    if (commandReport != null) {
+                      failure.compareAndSet(null, commandReport);
+                      break;
+                    }
+                  }
+                }
+              } finally {
+                // the shared handler is closed by the caller
+                if (!sharedHandler) {
+                  try {
+                    operationHandler.close();
+                  } catch (KerberosOperationException e) {
+                    // Ignore this...
+                  }
+                }
+              }
+            } finally {
+              unitOfWork.end();
+            }
+            return null;
+          }
+        }));
+      }
 
-      if (principal != null) {
-        // Evaluate the principal "pattern" found in the record to generate the "evaluated principal"
-        // by replacing the _HOST and _REALM variables.
-        String evaluatedPrincipal = principal.replace("_HOST", host).replace("_REALM", defaultRealm);
+      AmbariException exception = null;
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          // stop the other threads and report the first failure
+          failure.compareAndSet(null, createCommandReport(1, HostRoleStatus.FAILED, "{}", actionLog.getStdOut(),
+              actionLog.getStdErr()));
+          if (exception == null) {
+            Throwable cause = e.getCause();
+            exception = (cause instanceof AmbariException)
+                ? (AmbariException) cause
+                : new AmbariException(String.format("Failed to process the identities: %s", cause.getMessage()), cause);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          failure.compareAndSet(null, createCommandReport(1, HostRoleStatus.FAILED, "{}", actionLog.getStdOut(),
+              actionLog.getStdErr()));
+          throw new AmbariException("Interrupted while processing the identities", e);
+        }
+      }
 
-        commandReport = processIdentity(record, evaluatedPrincipal, operationHandler, kerberosConfiguration, requestSharedDataContext);
+      if (exception != null) {
+        throw exception;
       }
+    } finally {
+      executor.shutdownNow();
     }
 
-    return commandReport;
+    return failure.get();
+  }
+
+  /**
+   * Creates and opens a new KerberosOperationHandler for a processing thread.
+   *
+   * @param kdcType                 the KDC type
+   * @param administratorCredential the KDC administrator credential
+   * @param defaultRealm            a String declaring the default Kerberos realm
+   * @param kerberosConfiguration   a Map of configuration properties from kerberos-env
+   * @return the opened KerberosOperationHandler
+   * @throws AmbariException if the handler cannot be opened
+   */
+  private KerberosOperationHandler openHandler(KDCType kdcType, KerberosCredential administratorCredential,
+                                               String defaultRealm, Map<String, String> kerberosConfiguration)
+      throws AmbariException {
+    KerberosOperationHandler handler = kerberosOperationHandlerFactory.getKerberosOperationHandler(kdcType);
+
+    try {
+      handler.open(administratorCredential, defaultRealm, kerberosConfiguration);
+    } catch (KerberosOperationException e) {
+      String message = String.format("Failed to process the identities, could not properly open the KDC operation handler: %s",
+          e.getMessage());
+      actionLog.writeStdErr(message);
+      LOG.error(message);
+      throw new AmbariException(message, e);
+    }
+
+    return handler;
+  }
+
+  /**
+   * Gets the rate limiter shared by all actions processing identities in the given KDC.
+   *
+   * @param kdcType               the KDC type
+   * @param kerberosConfiguration a Map of configuration properties from kerberos-env
+   * @return the rate limiter or null if the processing rate is not limited
+   */
+  private RateLimiter getRateLimiter(KDCType kdcType, Map<String, String> kerberosConfiguration) {
+    double rate = configuration.getKerberosOperationRate();
+
+    if (rate <= 0) {
+      return null;
+    }
+
+    String kdcHost = (kerberosConfiguration == null) ? null : kerberosConfiguration.get("kdc_host");
+    String key = kdcType.name() + "|" + kdcHost;
+
+    RateLimiter rateLimiter = KDC_RATE_LIMITERS.get(key);
+    if (rateLimiter == null) {
+      rateLimiter = RateLimiter.create(rate);
+      RateLimiter existing = KDC_RATE_LIMITERS.putIfAbsent(key, rateLimiter);
+      if (existing != null) {
+        rateLimiter = existing;
+      }
+    }
+
+    if (rateLimiter.getRate() != rate) {
+      rateLimiter.setRate(rate);
+    }
+
+    return rateLimiter;
+  }
+
+  /**
+   * Creates the executor processing the identities of a single action.
+   *
+   * @param threads the number of threads
+   * @return the executor
+   */
+  private static ExecutorService createIdentityExecutor(int threads) {
+    return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger threadId = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "ambari-kerberos-identity-" + threadId.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
   }
 }
@@ -18,11 +18,14 @@
 
 package org.apache.ambari.server.serveraction.kerberos;
 
+import com.google.inject.Inject;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.utils.ShellCommandUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -38,6 +41,10 @@ import java.util.regex.Pattern;
  * <p/>
  * It is assumed that a MIT Kerberos client is installed and that the kdamin shell command is
  * available
+ * <p/>
+ * By default a new kadmin process is executed for each query.  If enabled in the Ambari properties,
+ * all queries of a handler are sent to a single long-lived kadmin process instead (see
+ * {@link KAdminSession}).
  */
 public class MITKerberosOperationHandler extends KerberosOperationHandler {
 
@@ -66,6 +73,23 @@ public class MITKerberosOperationHandler extends KerberosOperationHandler {
    */
   private String executableKadminLocal = null;
 
+  /**
+   * Configuration used to determine whether a long-lived kadmin session is to be used
+   */
+  @Inject
+  private Configuration configuration;
+
+  /**
+   * The long-lived kadmin session, if session mode is enabled and a session is open
+   */
+  private KAdminSession session = null;
+
+  /**
+   * Set if a kadmin session could not be started, in which case each query is executed by a new
+   * kadmin process for the rest of the life of this handler
+   */
+  private boolean sessionFailed = false;
+
   /**
    * Prepares and creates resources to be used by this KerberosOperationHandler
    * <p/>
@@ -111,7 +135,8 @@ public class MITKerberosOperationHandler extends KerberosOperationHandler {
 
   @Override
   public void close() throws KerberosOperationException {
-    // There is nothing to do here.
+    closeSession();
+    sessionFailed = false;
     setOpen(false);
 
     executableKadmin = null;
@@ -353,6 +378,10 @@ public class MITKerberosOperationHandler extends KerberosOperationHandler {
 
   /**
    * Invokes the kadmin shell command to issue queries
+   * <p/>
+   * If session mode is enabled, the query is sent to a long-lived kadmin session, which is
+   * (re)started as needed.  If the session cannot be started the query is executed by a new kadmin
+   * process, which also reports authentication and connection failures in detail.
    *
    * @param query a String containing the query to send to the kdamin command
    * @return a ShellCommandUtil.Result containing the result of the operation
@@ -368,65 +397,20 @@ public class MITKerberosOperationHandler extends KerberosOperationHandler {
     if ((query == null) || query.isEmpty()) {
       throw new KerberosOperationException("Missing kadmin query");
     }
-    KerberosCredential administratorCredentials = getAdministratorCredentials();
-    String defaultRealm = getDefaultRealm();
+
+    if (isSessionEnabled()) {
+      result = invokeKAdminSession(query);
+
+      if (result != null) {
+        return result;
+      }
+    }
 
     List<String> command = new ArrayList<String>();
     File tempKeytabFile = null;
 
     try {
-      String adminPrincipal = (administratorCredentials == null)
-          ? null
-          : administratorCredentials.getPrincipal();
-
-      if ((adminPrincipal == null) || adminPrincipal.isEmpty()) {
-        // Set the kdamin interface to be kadmin.local
-        if((executableKadminLocal == null) || executableKadminLocal.isEmpty()) {
-          throw new KerberosOperationException("No path for kadmin.local is available - this KerberosOperationHandler may not have been opened.");
-        }
-
-        command.add(executableKadminLocal);
-      } else {
-        if((executableKadmin == null) || executableKadmin.isEmpty()) {
-          throw new KerberosOperationException("No path for kadmin is available - this KerberosOperationHandler may not have been opened.");
-        }
-        char[] adminPassword = administratorCredentials.getPassword();
-        String adminKeyTab = administratorCredentials.getKeytab();
-
-        // Set the kdamin interface to be kadmin
-        command.add(executableKadmin);
-
-        // Add explicit KDC admin host, if available
-        if (getAdminServerHost() != null) {
-          command.add("-s");
-          command.add(getAdminServerHost());
-        }
-
-        // Add the administrative principal
-        command.add("-p");
-        command.add(adminPrincipal);
-
-        if ((adminKeyTab != null) && !adminKeyTab.isEmpty()) {
-          tempKeytabFile = createKeytabFile(adminKeyTab);
-
-          if (tempKeytabFile != null) {
-            // Add keytab file administrative principal
-            command.add("-k");
-            command.add("-t");
-            command.add(tempKeytabFile.getAbsolutePath());
-          }
-        } else if (adminPassword != null) {
-          // Add password for administrative principal
-          command.add("-w");
-          command.add(String.valueOf(adminPassword));
-        }
-      }
-
-      if ((defaultRealm != null) && !defaultRealm.isEmpty()) {
-        // Add default realm clause
-        command.add("-r");
-        command.add(defaultRealm);
-      }
+      tempKeytabFile = addKAdminArguments(command);
 
       // Add kadmin query
       command.add("-q");
@@ -478,6 +462,172 @@ public class MITKerberosOperationHandler extends KerberosOperationHandler {
     return result;
   }
 
+  /**
+   * Sends a query to the long-lived kadmin session, starting the session if necessary.
+   * <p/>
+   * A session is only started if the stdbuf command is available to line buffer the output of
+   * kadmin; otherwise, as when the session cannot be started, null is returned and session mode is
+   * disabled for the rest of the life of this handler.
+   * <p/>
+   * The response of a session does not carry an exit code or separate STDERR data, so the result
+   * holds all response lines as STDOUT data and is always successful; the callers interrogate the
+   * response text.
+   * <p/>
+   * If the session fails while a query that does not modify the KDC is executed, the session is
+   * closed and null is returned so that the query is retried by a new kadmin process.  Any other
+   * query is not retried since it may have been executed; the next query will start a new session.
+   *
+   * @param query a String containing the query to send to the kdamin session
+   * @return a ShellCommandUtil.Result containing the result of the operation or null if the
+   * query is to be executed by a new kadmin process
+   * @throws KerberosOperationException if the session failed while executing a modifying query
+   */
+  private ShellCommandUtil.Result invokeKAdminSession(String query) throws KerberosOperationException {
+    if ((session != null) && !session.isAlive()) {
+      LOG.info("The kadmin session exited, reconnecting");
+      closeSession();
+    }
+
+    if (session == null) {
+      // kadmin buffers STDOUT when it is not a terminal, which would reorder its output relative
+      // to the (unbuffered) STDERR messages used to detect the end of a response; without stdbuf
+      // the responses can not be read reliably
+      String stdbuf = getExecutable("stdbuf");
+      if (!new File(stdbuf).isAbsolute()) {
+        LOG.warn("The stdbuf command was not found, executing kadmin for each query instead of " +
+            "using a kadmin session");
+        sessionFailed = true;
+        return null;
+      }
+
+      List<String> command = new ArrayList<String>();
+      File tempKeytabFile = addKAdminArguments(command);
+      command.add(0, "-oL");
+      command.add(0, stdbuf);
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format("Starting kadmin session: %s", createCleanCommand(command)));
+      }
+
+      KAdminSession newSession = new KAdminSession(command, tempKeytabFile,
+          configuration.getKerberosKadminSessionTimeout());
+      try {
+        newSession.start();
+        session = newSession;
+      } catch (IOException e) {
+        LOG.warn(String.format("Failed to start a kadmin session, executing kadmin for each query: %s",
+            e.getMessage()), e);
+        newSession.close();
+        sessionFailed = true;
+        return null;
+      }
+    }
+
+    try {
+      return new ShellCommandUtil.Result(0, session.execute(query), "");
+    } catch (IOException e) {
+      closeSession();
+
+      if (query.startsWith("get_principal ")) {
+        LOG.warn(String.format("The kadmin session failed, retrying the query with a new kadmin process: %s",
+            e.getMessage()));
+        return null;
+      }
+
+      String message = String.format("The kadmin session failed while executing the query: %s", e.getMessage());
+      LOG.error(message, e);
+      throw new KerberosOperationException(message, e);
+    }
+  }
+
+  /**
+   * Determines whether queries are to be sent to a long-lived kadmin session.
+   *
+   * @return true if session mode is enabled and a session could be started before
+   */
+  private boolean isSessionEnabled() {
+    return !sessionFailed && (configuration != null) && configuration.isKerberosKadminSessionEnabled();
+  }
+
+  /**
+   * Stops the long-lived kadmin session, if one is open.
+   */
+  private void closeSession() {
+    if (session != null) {
+      session.close();
+      session = null;
+    }
+  }
+
+  /**
+   * Adds the kadmin executable and its arguments, except for the query, to the given command.
+   *
+   * @param command a List to add the command items to
+   * @return a temporary keytab file referenced by the command, which is to be removed once the
+   * command completes; or null if no keytab file was created
+   * @throws KerberosOperationException if the kadmin executable is not available
+   */
+  private File addKAdminArguments(List<String> command) throws KerberosOperationException {
+    KerberosCredential administratorCredentials = getAdministratorCredentials();
+    String defaultRealm = getDefaultRealm();
+    File tempKeytabFile = null;
+
+    String adminPrincipal = (administratorCredentials == null)
+        ? null
+        : administratorCredentials.getPrincipal();
+
+    if ((adminPrincipal == null) || adminPrincipal.isEmpty()) {
+      // Set the kdamin interface to be kadmin.local
+      if((executableKadminLocal == null) || executableKadminLocal.isEmpty()) {
+        throw new KerberosOperationException("No path for kadmin.local is available - this KerberosOperationHandler may not have been opened.");
+      }
+
+      command.add(executableKadminLocal);
+    } else {
+      if((executableKadmin == null) || executableKadmin.isEmpty()) {
+        throw new KerberosOperationException("No path for kadmin is available - this KerberosOperationHandler may not have been opened.");
+      }
+      char[] adminPassword = administratorCredentials.getPassword();
+      String adminKeyTab = administratorCredentials.getKeytab();
+
+      // Set the kdamin interface to be kadmin
+      command.add(executableKadmin);
+
+      // Add explicit KDC admin host, if available
+      if (getAdminServerHost() != null) {
+        command.add("-s");
+        command.add(getAdminServerHost());
+      }
+
+      // Add the administrative principal
+      command.add("-p");
+      command.add(adminPrincipal);
+
+      if ((adminKeyTab != null) && !adminKeyTab.isEmpty()) {
+        tempKeytabFile = createKeytabFile(adminKeyTab);
+
+        if (tempKeytabFile != null) {
+          // Add keytab file administrative principal
+          command.add("-k");
+          command.add("-t");
+          command.add(tempKeytabFile.getAbsolutePath());
+        }
+      } else if (adminPassword != null) {
+        // Add password for administrative principal
+        command.add("-w");
+        command.add(String.valueOf(adminPassword));
+      }
+    }
+
+    if ((defaultRealm != null) && !defaultRealm.isEmpty()) {
+      // Add default realm clause
+      command.add("-r");
+      command.add(defaultRealm);
+    }
+
+    return tempKeytabFile;
+  }
+
   /**
    * Build the kadmin command string, replacing administrator password with "********"
    *
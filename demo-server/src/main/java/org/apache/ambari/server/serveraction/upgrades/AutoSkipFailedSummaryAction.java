@@ -17,6 +17,7 @@
  */
 package org.apache.ambari.server.serveraction.upgrades;
 
+import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.List;
@@ -25,11 +26,13 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.actionmanager.CommandOutputType;
 import org.apache.ambari.server.actionmanager.HostRoleCommand;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
 import org.apache.ambari.server.actionmanager.ServiceComponentHostEventWrapper;
 import org.apache.ambari.server.agent.CommandReport;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.apache.ambari.server.orm.dao.HostRoleCommandOutputDAO;
 import org.apache.ambari.server.orm.dao.UpgradeDAO;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
 import org.apache.ambari.server.orm.entities.UpgradeGroupEntity;
@@ -67,6 +70,11 @@ public class AutoSkipFailedSummaryAction extends AbstractServerAction {
    */
   private static final String MIDDLE_ELLIPSIZE_MARKER = "\n\u2026\n";
 
+  /**
+   * The charset of the stored command output.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
   /**
    * Used to lookup the {@link UpgradeGroupEntity}.
    */
@@ -80,6 +88,12 @@ public class AutoSkipFailedSummaryAction extends AbstractServerAction {
   @Inject
   private HostRoleCommandDAO m_hostRoleCommandDAO;
 
+  /**
+   * Used to read the output of the skipped tasks.
+   */
+  @Inject
+  private HostRoleCommandOutputDAO m_hostRoleCommandOutputDAO;
+
   /**
    * Used for writing structured out.
    */
@@ -153,11 +167,11 @@ public class AutoSkipFailedSummaryAction extends AbstractServerAction {
           failures.put("output_log", skippedTask.getOutputLog());
           failures.put("error_log", skippedTask.getErrorLog());
 
-          String stdOut = StringUtils.abbreviateMiddle(new String(skippedTask.getStdOut()),
-              MIDDLE_ELLIPSIZE_MARKER, 1000);
+          String stdOut = StringUtils.abbreviateMiddle(new String(m_hostRoleCommandOutputDAO.read(
+              skippedTask.getTaskId(), CommandOutputType.STDOUT), UTF_8), MIDDLE_ELLIPSIZE_MARKER, 1000);
 
-          String stderr = StringUtils.abbreviateMiddle(new String(skippedTask.getStdError()),
-              MIDDLE_ELLIPSIZE_MARKER, 1000);
+          String stderr = StringUtils.abbreviateMiddle(new String(m_hostRoleCommandOutputDAO.read(
+              skippedTask.getTaskId(), CommandOutputType.STDERR), UTF_8), MIDDLE_ELLIPSIZE_MARKER, 1000);
 
           failures.put("stdout", stdOut);
           failures.put("stderr", stderr);
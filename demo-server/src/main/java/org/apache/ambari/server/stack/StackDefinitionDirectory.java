@@ -21,6 +21,8 @@ package org.apache.ambari.server.stack;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base stack definition directory.
@@ -42,6 +44,12 @@ public abstract class StackDefinitionDirectory {
    */
   protected File directory;
 
+  /**
+   * configuration directories parsed ahead of their use, keyed by directory name
+   */
+  private final ConcurrentMap<String, ConfigurationDirectory> preloadedConfigurationDirectories =
+      new ConcurrentHashMap<String, ConfigurationDirectory>();
+
 
   /**
    * Constructor.
@@ -60,7 +68,11 @@ public abstract class StackDefinitionDirectory {
    * @return ConfigurationDirectory instance for the specified configuration directory name
    */
   public ConfigurationDirectory getConfigurationDirectory(String directoryName) {
-    ConfigurationDirectory configDirectory = null;
+    ConfigurationDirectory configDirectory = preloadedConfigurationDirectories.remove(directoryName);
+    if (configDirectory != null) {
+      return configDirectory;
+    }
+
     File configDirFile = new File(directory.getAbsolutePath() + File.separator + directoryName);
     if (configDirFile.exists() && configDirFile.isDirectory())  {
       configDirectory = new ConfigurationDirectory(configDirFile.getAbsolutePath());
@@ -68,6 +80,21 @@ public abstract class StackDefinitionDirectory {
     return configDirectory;
   }
 
+  /**
+   * Parse the configuration sub-directory for the specified path ahead of its use so that
+   * the files of several directories can be parsed concurrently.  The preloaded instance
+   * is handed out once by {@link #getConfigurationDirectory(String)}.
+   *
+   * @param directoryName  name of the configuration directory
+   */
+  public void preloadConfigurationDirectory(String directoryName) {
+    File configDirFile = new File(directory.getAbsolutePath() + File.separator + directoryName);
+    if (configDirFile.exists() && configDirFile.isDirectory())  {
+      preloadedConfigurationDirectories.put(directoryName,
+          new ConfigurationDirectory(configDirFile.getAbsolutePath()));
+    }
+  }
+
   /**
    * Obtain the path for this directory instance.
    *
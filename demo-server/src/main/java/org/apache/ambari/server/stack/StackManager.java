@@ -19,10 +19,19 @@
 package org.apache.ambari.server.stack;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -78,6 +87,12 @@ public class StackManager {
    */
   private Map<String, StackInfo> stackMap = new HashMap<String, StackInfo>();
 
+  /**
+   * Parses the stack definition files concurrently; only used while the stack
+   * manager is constructed.
+   */
+  private ExecutorService parseExecutor;
+
   /**
    * Constructor. Initialize stack manager.
    *
@@ -112,8 +127,20 @@ public class StackManager {
     stackMap = new HashMap<String, StackInfo>();
     stackContext = new StackContext(metaInfoDAO, actionMetadata, osFamily);
 
-    Map<String, ServiceModule> commonServiceModules = parseCommonServicesDirectory(commonServicesRoot);
-    Map<String, StackModule> stackModules = parseStackDirectory(stackRoot);
+    long startTime = System.currentTimeMillis();
+    Map<String, ServiceModule> commonServiceModules;
+    Map<String, StackModule> stackModules;
+
+    parseExecutor = createParseExecutor();
+    try {
+      commonServiceModules = parseCommonServicesDirectory(commonServicesRoot);
+      stackModules = parseStackDirectory(stackRoot);
+    } finally {
+      parseExecutor.shutdownNow();
+      parseExecutor = null;
+    }
+    LOG.info("Parsed {} stacks and {} common services in {} ms", stackModules.size(),
+        commonServiceModules.size(), System.currentTimeMillis() - startTime);
 
     fullyResolveCommonServices(stackModules, commonServiceModules);
     fullyResolveStacks(stackModules, commonServiceModules);
@@ -290,31 +317,43 @@ public class StackManager {
     Map<String, ServiceModule> commonServiceModules = new HashMap<String, ServiceModule>();
 
     if(commonServicesRoot != null) {
+      // parse the definition files of all common services concurrently
+      List<Future<ServiceDirectory>> serviceDirectories = new ArrayList<Future<ServiceDirectory>>();
       File[] commonServiceFiles = commonServicesRoot.listFiles(AmbariMetaInfo.FILENAME_FILTER);
       for (File commonService : commonServiceFiles) {
         if (commonService.isFile()) {
           continue;
         }
-        for (File serviceFolder : commonService.listFiles(AmbariMetaInfo.FILENAME_FILTER)) {
-          String serviceName = serviceFolder.getParentFile().getName();
-          String serviceVersion = serviceFolder.getName();
-          ServiceDirectory serviceDirectory = new CommonServiceDirectory(serviceFolder.getPath());
-          ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
-          if (metaInfoXml != null) {
-            if (metaInfoXml.isValid()) {
-              for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
-                ServiceModule serviceModule = new ServiceModule(stackContext, serviceInfo, serviceDirectory, true);
-
-                String commonServiceKey = serviceInfo.getName() + StackManager.PATH_DELIMITER + serviceInfo.getVersion();
-                commonServiceModules.put(commonServiceKey, serviceModule);
-              }
-            } else {
-              ServiceModule serviceModule = new ServiceModule(stackContext, new ServiceInfo(), serviceDirectory, true);
-              serviceModule.setValid(false);
-              serviceModule.setErrors(metaInfoXml.getErrors());
-              commonServiceModules.put(metaInfoXml.getSchemaVersion(), serviceModule);
-              metaInfoXml.setSchemaVersion(null);
+        for (final File serviceFolder : commonService.listFiles(AmbariMetaInfo.FILENAME_FILTER)) {
+          serviceDirectories.add(parseExecutor.submit(new Callable<ServiceDirectory>() {
+            @Override
+            public ServiceDirectory call() throws AmbariException {
+              ServiceDirectory serviceDirectory = new CommonServiceDirectory(serviceFolder.getPath());
+              preloadConfigurationDirectories(serviceDirectory);
+              return serviceDirectory;
             }
+          }));
+        }
+      }
+
+      // create the modules in order since they access the database and shared metadata
+      for (Future<ServiceDirectory> future : serviceDirectories) {
+        ServiceDirectory serviceDirectory = getParseResult(future);
+        ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
+        if (metaInfoXml != null) {
+          if (metaInfoXml.isValid()) {
+            for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
+              ServiceModule serviceModule = new ServiceModule(stackContext, serviceInfo, serviceDirectory, true);
+
+              String commonServiceKey = serviceInfo.getName() + StackManager.PATH_DELIMITER + serviceInfo.getVersion();
+              commonServiceModules.put(commonServiceKey, serviceModule);
+            }
+          } else {
+            ServiceModule serviceModule = new ServiceModule(stackContext, new ServiceInfo(), serviceDirectory, true);
+            serviceModule.setValid(false);
+            serviceModule.setErrors(metaInfoXml.getErrors());
+            commonServiceModules.put(metaInfoXml.getSchemaVersion(), serviceModule);
+            metaInfoXml.setSchemaVersion(null);
           }
         }
       }
@@ -332,29 +371,108 @@ public class StackManager {
   private Map<String, StackModule> parseStackDirectory(File stackRoot) throws AmbariException {
     Map<String, StackModule> stackModules = new HashMap<String, StackModule>();
 
+    // parse the definition files of all stacks concurrently
+    List<Future<StackDirectory>> stackDirectories = new ArrayList<Future<StackDirectory>>();
     File[] stackFiles = stackRoot.listFiles(AmbariMetaInfo.FILENAME_FILTER);
     for (File stack : stackFiles) {
       if (stack.isFile()) {
         continue;
       }
-      for (File stackFolder : stack.listFiles(AmbariMetaInfo.FILENAME_FILTER)) {
+      for (final File stackFolder : stack.listFiles(AmbariMetaInfo.FILENAME_FILTER)) {
         if (stackFolder.isFile()) {
           continue;
         }
-        String stackName = stackFolder.getParentFile().getName();
-        String stackVersion = stackFolder.getName();
-
-        StackModule stackModule = new StackModule(new StackDirectory(stackFolder.getPath()), stackContext);
-        String stackKey = stackName + StackManager.PATH_DELIMITER + stackVersion;
-        stackModules.put(stackKey, stackModule);
-        stackMap.put(stackKey, stackModule.getModuleInfo());
+        stackDirectories.add(parseExecutor.submit(new Callable<StackDirectory>() {
+          @Override
+          public StackDirectory call() throws AmbariException {
+            StackDirectory stackDirectory = new StackDirectory(stackFolder.getPath());
+            stackDirectory.preloadConfigurationDirectory(AmbariMetaInfo.SERVICE_CONFIG_FOLDER_NAME);
+            for (ServiceDirectory serviceDirectory : stackDirectory.getServiceDirectories()) {
+              preloadConfigurationDirectories(serviceDirectory);
+            }
+            return stackDirectory;
+          }
+        }));
       }
     }
 
+    // create the modules in order since they access the database and shared metadata
+    for (Future<StackDirectory> future : stackDirectories) {
+      StackDirectory stackDirectory = getParseResult(future);
+      String stackName = stackDirectory.getStackDirName();
+      String stackVersion = stackDirectory.getName();
+
+      StackModule stackModule = new StackModule(stackDirectory, stackContext);
+      String stackKey = stackName + StackManager.PATH_DELIMITER + stackVersion;
+      stackModules.put(stackKey, stackModule);
+      stackMap.put(stackKey, stackModule.getModuleInfo());
+    }
+
     if (stackMap.isEmpty()) {
       throw new AmbariException("Unable to find stack definitions under " +
           "stackRoot = " + stackRoot.getAbsolutePath());
     }
     return stackModules;
   }
+
+  /**
+   * Parse the configuration directories of the services defined in the specified
+   * service directory.
+   *
+   * @param serviceDirectory  the service directory
+   */
+  private static void preloadConfigurationDirectories(ServiceDirectory serviceDirectory) {
+    ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
+    if (metaInfoXml != null && metaInfoXml.getServices() != null) {
+      for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
+        if (serviceInfo.getConfigDir() != null) {
+          serviceDirectory.preloadConfigurationDirectory(serviceInfo.getConfigDir());
+        }
+      }
+    }
+  }
+
+  /**
+   * Wait for a parsed stack definition directory.
+   *
+   * @param future  the pending parse result
+   * @return the parsed directory
+   * @throws AmbariException if unable to parse the directory
+   */
+  private static <T> T getParseResult(Future<T> future) throws AmbariException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AmbariException("Interrupted while parsing the stack definitions", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof AmbariException) {
+        throw (AmbariException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new AmbariException("Unable to parse the stack definitions", cause);
+    }
+  }
+
+  /**
+   * Create the executor parsing the stack definition files.
+   *
+   * @return a fixed thread pool with one daemon thread per processor
+   */
+  private static ExecutorService createParseExecutor() {
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+        new ThreadFactory() {
+          private final AtomicInteger threadId = new AtomicInteger(1);
+
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ambari-stack-parser-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+  }
 }
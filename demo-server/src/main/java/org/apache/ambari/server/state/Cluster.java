@@ -450,6 +450,17 @@ public interface Cluster {
    */
   ReadWriteLock getClusterGlobalLock();
 
+  /**
+   * Get the lock which serializes state changes of the components on a host
+   * with the addition and removal of components on that host. Hosts share
+   * lock stripes, so the lock must not be held while acquiring the cluster
+   * global lock.
+   *
+   * @param hostName the host name
+   * @return the host lock
+   */
+  ReadWriteLock getHostLock(String hostName);
+
   /**
    * Fetch desired configs for list of hosts in cluster
    * @param hostIds
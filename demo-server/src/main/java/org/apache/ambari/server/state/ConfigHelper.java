@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.server.AmbariException;
@@ -44,8 +46,7 @@ import org.apache.ambari.server.upgrade.UpgradeCatalog170;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -63,8 +64,43 @@ public class ConfigHelper {
   private static final String DELETED = "DELETED_";
   public static final String CLUSTER_DEFAULT_TAG = "tag";
   private final boolean STALE_CONFIGS_CACHE_ENABLED;
-  private final int STALE_CONFIGS_CACHE_EXPIRATION_TIME = 300;
-  private final Cache<ServiceComponentHost, Boolean> staleConfigsCache;
+
+  /**
+   * The time after which a calculated stale flag is recalculated even if it
+   * was not invalidated, as a safety net for changes which are not tracked.
+   */
+  private static final long STALE_CONFIGS_CACHE_EXPIRATION_MS = TimeUnit.SECONDS.toMillis(300);
+
+  /**
+   * The stale configs index: the calculated stale flag of each host component.
+   * An invalidation replaces the entry of a host component with a new, empty
+   * one, so that a calculation which raced with it is not stored. Weak keys
+   * drop removed components.
+   */
+  private final ConcurrentMap<ServiceComponentHost, StaleConfigsEntry> staleConfigsCache =
+      new MapMaker().weakKeys().makeMap();
+
+  /**
+   * The host components whose last calculated flag was stale.
+   */
+  private final Set<ServiceComponentHost> staleServiceComponentHosts =
+      Collections.newSetFromMap(new MapMaker().weakKeys().<ServiceComponentHost, Boolean>makeMap());
+
+  /**
+   * The host components invalidated since their flag was last calculated.
+   * Together with {@link #staleServiceComponentHosts} these are the only
+   * components which have to be looked at to find the stale ones.
+   */
+  private final Set<ServiceComponentHost> invalidatedServiceComponentHosts =
+      Collections.newSetFromMap(new MapMaker().weakKeys().<ServiceComponentHost, Boolean>makeMap());
+
+  /**
+   * The time every host component of a cluster was last looked at, keyed by
+   * cluster id. Once {@link #STALE_CONFIGS_CACHE_EXPIRATION_MS} has elapsed,
+   * the next lookup of the stale host components looks at all of them again so
+   * that expired flags are recalculated.
+   */
+  private final ConcurrentMap<Long, Long> staleConfigsFullCheckTimes = new ConcurrentHashMap<Long, Long>();
 
   private static final Logger LOG =
       LoggerFactory.getLogger(ConfigHelper.class);
@@ -90,8 +126,6 @@ public class ConfigHelper {
     ambariMetaInfo = metaInfo;
     this.clusterDAO = clusterDAO;
     STALE_CONFIGS_CACHE_ENABLED = configuration.isStaleConfigCacheEnabled();
-    staleConfigsCache = CacheBuilder.newBuilder().
-        expireAfterWrite(STALE_CONFIGS_CACHE_EXPIRATION_TIME, TimeUnit.SECONDS).build();
   }
 
   /**
@@ -370,15 +404,70 @@ public class ConfigHelper {
    * @return <code>true</code> if the actual configs are stale
    */
   public boolean isStaleConfigs(ServiceComponentHost sch) throws AmbariException {
-    Boolean stale = null;
+    StaleConfigsEntry entry = staleConfigsCache.get(sch);
+    if (entry == null) {
+      entry = new StaleConfigsEntry(null);
+      StaleConfigsEntry existing = staleConfigsCache.putIfAbsent(sch, entry);
+      if (existing != null) {
+        entry = existing;
+      }
+    }
 
-    if (STALE_CONFIGS_CACHE_ENABLED) {
-      stale = staleConfigsCache.getIfPresent(sch);
+    if (STALE_CONFIGS_CACHE_ENABLED && entry.isValid()) {
+      return entry.stale;
     }
 
-    if (stale == null) {
-      stale = calculateIsStaleConfigs(sch);
-      staleConfigsCache.put(sch, stale);
+    invalidatedServiceComponentHosts.remove(sch);
+    boolean stale = calculateIsStaleConfigs(sch);
+
+    if (stale) {
+      staleServiceComponentHosts.add(sch);
+    } else {
+      staleServiceComponentHosts.remove(sch);
+    }
+
+    // only store the flag if the component was not invalidated while it was
+    // calculated; otherwise it has to be looked at again
+    if (!staleConfigsCache.replace(sch, entry, new StaleConfigsEntry(stale))) {
+      invalidatedServiceComponentHosts.add(sch);
+    }
+    return stale;
+  }
+
+  /**
+   * Gets the host components of a cluster whose actual configs are stale.
+   * Only the host components which are stale or were invalidated since
+   * their last calculation are looked at, except for the first call and the
+   * first call after the flags expired, which look at every host component of
+   * the cluster.
+   *
+   * @param cluster
+   *          the cluster.
+   * @return the stale host components (never {@code null}).
+   * @throws AmbariException
+   */
+  public Set<ServiceComponentHost> getStaleConfigsServiceComponentHosts(Cluster cluster)
+      throws AmbariException {
+    Set<ServiceComponentHost> candidates = new HashSet<ServiceComponentHost>(invalidatedServiceComponentHosts);
+    candidates.addAll(staleServiceComponentHosts);
+
+    long now = System.currentTimeMillis();
+    Long fullCheckTime = staleConfigsFullCheckTimes.get(cluster.getClusterId());
+    if (!STALE_CONFIGS_CACHE_ENABLED || fullCheckTime == null
+        || now - fullCheckTime >= STALE_CONFIGS_CACHE_EXPIRATION_MS) {
+      for (Service service : cluster.getServices().values()) {
+        for (ServiceComponent component : service.getServiceComponents().values()) {
+          candidates.addAll(component.getServiceComponentHosts().values());
+        }
+      }
+      staleConfigsFullCheckTimes.put(cluster.getClusterId(), now);
+    }
+
+    Set<ServiceComponentHost> stale = new HashSet<ServiceComponentHost>();
+    for (ServiceComponentHost sch : candidates) {
+      if (sch.getClusterId() == cluster.getClusterId() && isStaleConfigs(sch)) {
+        stale.add(sch);
+      }
     }
     return stale;
   }
@@ -404,7 +493,9 @@ public class ConfigHelper {
    * Invalidates isStale cache
    */
   public void invalidateStaleConfigsCache() {
-    staleConfigsCache.invalidateAll();
+    for (ServiceComponentHost sch : staleConfigsCache.keySet()) {
+      invalidateStaleConfigsCache(sch);
+    }
   }
 
   /**
@@ -413,7 +504,69 @@ public class ConfigHelper {
    * @param sch
    */
   public void invalidateStaleConfigsCache(ServiceComponentHost sch) {
-    staleConfigsCache.invalidate(sch);
+    invalidatedServiceComponentHosts.add(sch);
+    staleConfigsCache.put(sch, new StaleConfigsEntry(null));
+  }
+
+  /**
+   * Invalidates the cached isStale values of the host components whose
+   * service or component depends on any of the specified config types. The
+   * stale flag of other host components can not change when configs of these
+   * types change.
+   *
+   * @param cluster
+   *          the cluster whose desired configs changed.
+   * @param configTypes
+   *          the changed config types.
+   * @param hostNames
+   *          the hosts to limit the invalidation to, or {@code null} for all
+   *          hosts of the cluster.
+   */
+  public void invalidateStaleConfigsCache(Cluster cluster, Collection<String> configTypes,
+      Collection<String> hostNames) {
+    if (null == configTypes || configTypes.isEmpty()) {
+      return;
+    }
+
+    try {
+      StackId stackId = cluster.getDesiredStackVersion();
+      for (Service service : cluster.getServices().values()) {
+        ServiceInfo serviceInfo = ambariMetaInfo.getService(stackId.getStackName(),
+            stackId.getStackVersion(), service.getName());
+
+        for (ServiceComponent component : service.getServiceComponents().values()) {
+          ComponentInfo componentInfo = serviceInfo.getComponentByName(component.getName());
+          if (!dependsOnConfigTypes(serviceInfo, componentInfo, configTypes)) {
+            continue;
+          }
+
+          for (ServiceComponentHost sch : component.getServiceComponentHosts().values()) {
+            if (null == hostNames || hostNames.contains(sch.getHostName())) {
+              invalidateStaleConfigsCache(sch);
+            }
+          }
+        }
+      }
+    } catch (AmbariException e) {
+      LOG.warn("Unable to determine the host components affected by changes of " + configTypes
+          + ", invalidating all stale configs", e);
+      invalidateStaleConfigsCache();
+    }
+  }
+
+  /**
+   * @return {@code true} if the stale flag of a component depends on any of
+   *         the config types.
+   */
+  private boolean dependsOnConfigTypes(ServiceInfo serviceInfo, ComponentInfo componentInfo,
+      Collection<String> configTypes) {
+    for (String type : configTypes) {
+      if (serviceInfo.hasConfigDependency(type)
+          || (componentInfo != null && componentInfo.hasConfigType(type))) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -1166,5 +1319,28 @@ public class ConfigHelper {
     return filename.substring(0, extIndex);
   }
 
+  /**
+   * The calculated stale flag of a host component. Entries are compared by
+   * identity, which makes each one a generation of the flag.
+   */
+  private static final class StaleConfigsEntry {
+    /**
+     * The flag, or {@code null} if it has to be calculated.
+     */
+    private final Boolean stale;
+
+    /**
+     * The time the flag was calculated.
+     */
+    private final long calculatedTime = System.currentTimeMillis();
+
+    private StaleConfigsEntry(Boolean stale) {
+      this.stale = stale;
+    }
 
+    private boolean isValid() {
+      return stale != null
+          && System.currentTimeMillis() - calculatedTime < STALE_CONFIGS_CACHE_EXPIRATION_MS;
+    }
+  }
 }
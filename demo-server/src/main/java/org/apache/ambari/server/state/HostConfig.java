@@ -50,6 +50,28 @@ public class HostConfig {
     return configGroupOverrides;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    HostConfig that = (HostConfig) o;
+    return (defaultVersionTag == null ? that.defaultVersionTag == null
+        : defaultVersionTag.equals(that.defaultVersionTag))
+        && configGroupOverrides.equals(that.configGroupOverrides);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = defaultVersionTag != null ? defaultVersionTag.hashCode() : 0;
+    result = 31 * result + configGroupOverrides.hashCode();
+    return result;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.Resource.InternalType;
+
+import com.google.inject.Singleton;
+
+/**
+ * The {@link ResourceVersionTracker} counts the changes of the cluster,
+ * service, component, host component and host state. The counters are
+ * incremented by the state objects whenever their state changes, which lets
+ * the REST API tell whether the result of a read could have changed without
+ * querying the resources.
+ * <p/>
+ * Only changes which are visible through the resources are counted; the
+ * timestamps an agent reports with every heartbeat are not, since otherwise
+ * the versions would change with every heartbeat of every host.
+ * <p/>
+ * Counters only ever increase and start over with every server start.
+ */
+@Singleton
+public class ResourceVersionTracker {
+
+  /**
+   * The version counters keyed by tracked resource type.
+   */
+  private final Map<InternalType, AtomicLong> m_versions =
+      new EnumMap<InternalType, AtomicLong>(InternalType.class);
+
+  /**
+   * The types whose state the properties of a tracked type are derived from,
+   * including the type itself. For example the state of a service is
+   * calculated from its host components and the health report of a cluster
+   * from its hosts.
+   */
+  private final Map<InternalType, Set<InternalType>> m_dependencies =
+      new EnumMap<InternalType, Set<InternalType>>(InternalType.class);
+
+  /**
+   * Identifies the counters of this server start.
+   */
+  private final long m_epoch = System.currentTimeMillis();
+
+  /**
+   * Constructor.
+   */
+  public ResourceVersionTracker() {
+    m_versions.put(InternalType.Cluster, new AtomicLong());
+    m_versions.put(InternalType.Service, new AtomicLong());
+    m_versions.put(InternalType.Component, new AtomicLong());
+    m_versions.put(InternalType.HostComponent, new AtomicLong());
+    m_versions.put(InternalType.Host, new AtomicLong());
+
+    m_dependencies.put(InternalType.Cluster, EnumSet.copyOf(m_versions.keySet()));
+    m_dependencies.put(InternalType.Service, EnumSet.of(InternalType.Service,
+        InternalType.Component, InternalType.HostComponent, InternalType.Host));
+    m_dependencies.put(InternalType.Component, EnumSet.of(InternalType.Component,
+        InternalType.HostComponent));
+    m_dependencies.put(InternalType.HostComponent, EnumSet.of(InternalType.HostComponent,
+        InternalType.Host));
+    m_dependencies.put(InternalType.Host, EnumSet.of(InternalType.Host,
+        InternalType.HostComponent));
+  }
+
+  /**
+   * Records a change of the resources of the given type.
+   *
+   * @param type
+   *          the tracked resource type
+   */
+  public void changed(InternalType type) {
+    m_versions.get(type).incrementAndGet();
+  }
+
+  /**
+   * Gets whether changes of the given resource type are tracked.
+   *
+   * @param type
+   *          the resource type
+   * @return {@code true} if the type is tracked
+   */
+  public boolean isTracked(Resource.Type type) {
+    return type.isInternalType() && m_versions.containsKey(type.getInternalType());
+  }
+
+  /**
+   * Gets the version of the given resource types. The version only includes
+   * the counters of the given types and of the types their properties are
+   * derived from, so it does not change when unrelated resources change.
+   *
+   * @param types
+   *          the tracked resource types returned by a read
+   * @return a version unique to the current state of the given types
+   */
+  public String getVersion(Collection<Resource.Type> types) {
+    Set<InternalType> versioned = EnumSet.noneOf(InternalType.class);
+    for (Resource.Type type : types) {
+      versioned.addAll(m_dependencies.get(type.getInternalType()));
+    }
+
+    StringBuilder version = new StringBuilder(Long.toString(m_epoch, 36));
+    for (InternalType type : versioned) {
+      version.append('.').append(type.ordinal()).append(':').append(
+          Long.toString(m_versions.get(type).get(), 36));
+    }
+    return version.toString();
+  }
+}
@@ -86,4 +86,11 @@ public interface ServiceComponent {
    * @return cluster-global lock
    */
   ReadWriteLock getClusterGlobalLock();
+
+  /**
+   * Get lock to control access to the components of a host
+   * @param hostName the host name
+   * @return host lock of the cluster
+   */
+  ReadWriteLock getHostLock(String hostName);
 }
@@ -29,6 +29,7 @@ import org.apache.ambari.server.ObjectNotFoundException;
 import org.apache.ambari.server.ServiceComponentHostNotFoundException;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
 import org.apache.ambari.server.controller.ServiceComponentResponse;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.dao.ClusterServiceDAO;
 import org.apache.ambari.server.orm.dao.HostComponentDesiredStateDAO;
 import org.apache.ambari.server.orm.dao.ServiceComponentDesiredStateDAO;
@@ -82,6 +83,12 @@ public class ServiceComponentImpl implements ServiceComponent {
   @Inject
   private StackDAO stackDAO;
 
+  /**
+   * Records changes of the component state for the REST API.
+   */
+  @Inject
+  private ResourceVersionTracker versionTracker;
+
   @AssistedInject
   public ServiceComponentImpl(@Assisted Service service,
                               @Assisted String componentName, Injector injector) throws AmbariException {
@@ -169,6 +176,11 @@ public class ServiceComponentImpl implements ServiceComponent {
     return clusterGlobalLock;
   }
 
+  @Override
+  public ReadWriteLock getHostLock(String hostName) {
+    return service.getCluster().getHostLock(hostName);
+  }
+
   @Override
   public String getName() {
     return desiredStateEntity.getComponentName();
@@ -186,16 +198,11 @@ public class ServiceComponentImpl implements ServiceComponent {
 
   @Override
   public Map<String, ServiceComponentHost> getServiceComponentHosts() {
-    clusterGlobalLock.readLock().lock();
+    readWriteLock.readLock().lock();
     try {
-      readWriteLock.readLock().lock();
-      try {
-        return new HashMap<String, ServiceComponentHost>(hostComponents);
-      } finally {
-        readWriteLock.readLock().unlock();
-      }
+      return new HashMap<String, ServiceComponentHost>(hostComponents);
     } finally {
-      clusterGlobalLock.readLock().unlock();
+      readWriteLock.readLock().unlock();
     }
   }
 
@@ -306,20 +313,15 @@ public class ServiceComponentImpl implements ServiceComponent {
   @Override
   public ServiceComponentHost getServiceComponentHost(String hostname)
       throws AmbariException {
-    clusterGlobalLock.readLock().lock();
+    readWriteLock.readLock().lock();
     try {
-      readWriteLock.readLock().lock();
-      try {
-        if (!hostComponents.containsKey(hostname)) {
-          throw new ServiceComponentHostNotFoundException(getClusterName(),
-              getServiceName(), getName(), hostname);
-        }
-        return hostComponents.get(hostname);
-      } finally {
-        readWriteLock.readLock().unlock();
+      if (!hostComponents.containsKey(hostname)) {
+        throw new ServiceComponentHostNotFoundException(getClusterName(),
+            getServiceName(), getName(), hostname);
       }
+      return hostComponents.get(hostname);
     } finally {
-      clusterGlobalLock.readLock().unlock();
+      readWriteLock.readLock().unlock();
     }
   }
 
@@ -476,6 +478,7 @@ public class ServiceComponentImpl implements ServiceComponent {
           refresh();
           service.refresh();
           persisted = true;
+          versionTracker.changed(Resource.InternalType.Component);
         } else {
           saveIfPersisted();
         }
@@ -530,6 +533,7 @@ public class ServiceComponentImpl implements ServiceComponent {
     if (isPersisted()) {
       serviceComponentDesiredStateDAO.merge(desiredStateEntity);
     }
+    versionTracker.changed(Resource.InternalType.Component);
   }
 
   @Override
@@ -660,6 +664,7 @@ public class ServiceComponentImpl implements ServiceComponent {
         if (persisted) {
           removeEntities();
           persisted = false;
+          versionTracker.changed(Resource.InternalType.Component);
         }
       } finally {
         readWriteLock.writeLock().unlock();
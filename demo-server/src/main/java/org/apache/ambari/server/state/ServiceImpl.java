@@ -28,6 +28,7 @@ import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.ServiceComponentNotFoundException;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
 import org.apache.ambari.server.controller.ServiceResponse;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.events.MaintenanceModeEvent;
 import org.apache.ambari.server.events.ServiceInstalledEvent;
 import org.apache.ambari.server.events.ServiceRemovedEvent;
@@ -95,6 +96,12 @@ public class ServiceImpl implements Service {
   @Inject
   private AmbariEventPublisher eventPublisher;
 
+  /**
+   * Records changes of the service state for the REST API.
+   */
+  @Inject
+  private ResourceVersionTracker versionTracker;
+
   private void init() {
     // TODO load from DB during restart?
   }
@@ -453,6 +460,7 @@ public class ServiceImpl implements Service {
           refresh();
           cluster.refresh();
           persisted = true;
+          versionTracker.changed(Resource.InternalType.Service);
 
           // publish the service installed event
           StackId stackId = cluster.getDesiredStackVersion();
@@ -493,6 +501,7 @@ public class ServiceImpl implements Service {
       clusterServiceDAO.merge(serviceEntity);
       serviceDesiredStateDAO.merge(serviceDesiredStateEntity);
     }
+    versionTracker.changed(Resource.InternalType.Service);
   }
 
   @Override
@@ -641,6 +650,7 @@ public class ServiceImpl implements Service {
         if (persisted) {
           removeEntities();
           persisted = false;
+          versionTracker.changed(Resource.InternalType.Service);
 
           // publish the service removed event
           StackId stackId = cluster.getDesiredStackVersion();
@@ -0,0 +1,451 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state.alert;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ambari.server.events.AlertDefinitionChangedEvent;
+import org.apache.ambari.server.events.AlertDefinitionDeleteEvent;
+import org.apache.ambari.server.events.AlertDefinitionDisabledEvent;
+import org.apache.ambari.server.events.HostRemovedEvent;
+import org.apache.ambari.server.events.ServiceComponentUninstalledEvent;
+import org.apache.ambari.server.events.ServiceRemovedEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.apache.ambari.server.orm.dao.AlertsDAO;
+import org.apache.ambari.server.orm.entities.AlertCurrentEntity;
+import org.apache.ambari.server.orm.entities.AlertDefinitionEntity;
+import org.apache.ambari.server.state.Alert;
+import org.apache.ambari.server.state.AlertState;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The {@link AlertCurrentStateCache} keeps the state of every known current
+ * alert in memory, keyed by cluster, definition and host. Most alerts received
+ * from the agents do not change state and only advance the latest timestamp
+ * and text of their {@link AlertCurrentEntity}; those updates are absorbed by
+ * this cache and written behind by {@link #flush()}, so that they don't cost a
+ * definition lookup, a current alert lookup and a merge per alert.
+ * <p/>
+ * Alerts which are not cached or whose state changed are not absorbed and
+ * must be handled by the caller, which then records the result with
+ * {@link #put(long, AlertDefinitionEntity, Alert, AlertCurrentEntity)}.
+ * <p/>
+ * Entries are invalidated when their definition changes or when services,
+ * components or hosts are removed. Entries whose current alert was removed
+ * by other means are dropped by the next flush.
+ */
+@Singleton
+public class AlertCurrentStateCache {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(AlertCurrentStateCache.class);
+
+  /**
+   * Used to write the absorbed updates.
+   */
+  @Inject
+  private AlertsDAO m_alertsDao;
+
+  /**
+   * The enabled definitions of the cached alerts.
+   */
+  private final ConcurrentMap<DefinitionKey, DefinitionState> m_definitions = new ConcurrentHashMap<DefinitionKey, DefinitionState>();
+
+  /**
+   * The cached current alerts.
+   */
+  private final ConcurrentMap<AlertKey, AlertEntry> m_alerts = new ConcurrentHashMap<AlertKey, AlertEntry>();
+
+  /**
+   * Constructor.
+   *
+   * @param publisher
+   *          the publisher to register with for invalidation events.
+   */
+  @Inject
+  public AlertCurrentStateCache(AmbariEventPublisher publisher) {
+    publisher.register(this);
+  }
+
+  /**
+   * Absorbs an alert if its current alert is cached and the state is
+   * unchanged. An alert with a different state removes the cached entry.
+   *
+   * @param clusterId
+   *          the ID of the cluster of the alert.
+   * @param alert
+   *          the received alert (not {@code null}).
+   * @return {@code true} if the alert was absorbed, {@code false} if it must
+   *         be processed by the caller.
+   */
+  public boolean update(long clusterId, Alert alert) {
+    DefinitionState definition = m_definitions.get(new DefinitionKey(
+        clusterId, alert.getName()));
+
+    if (null == definition) {
+      return false;
+    }
+
+    AlertKey key = new AlertKey(clusterId, alert.getName(),
+        getHostName(definition.hostIgnored, alert));
+
+    AlertEntry entry = m_alerts.get(key);
+    if (null == entry) {
+      return false;
+    }
+
+    synchronized (entry) {
+      if (entry.removed) {
+        return false;
+      }
+
+      if (entry.state != alert.getState()) {
+        entry.removed = true;
+        m_alerts.remove(key, entry);
+        return false;
+      }
+
+      if (null == entry.pending
+          || alert.getTimestamp() >= entry.pending.getTimestamp()) {
+        entry.pending = alert;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Records the state of a current alert which was just written to the
+   * database.
+   *
+   * @param clusterId
+   *          the ID of the cluster of the alert.
+   * @param definition
+   *          the definition of the alert (not {@code null}).
+   * @param alert
+   *          the received alert (not {@code null}).
+   * @param current
+   *          the persisted current alert (not {@code null}).
+   */
+  public void put(long clusterId, AlertDefinitionEntity definition,
+      Alert alert, AlertCurrentEntity current) {
+    if (null == current.getAlertId() || !definition.getEnabled()) {
+      return;
+    }
+
+    m_definitions.put(new DefinitionKey(clusterId, alert.getName()),
+        new DefinitionState(definition.getDefinitionId(),
+            definition.isHostIgnored()));
+
+    AlertKey key = new AlertKey(clusterId, alert.getName(),
+        getHostName(definition.isHostIgnored(), alert));
+
+    AlertEntry previous = m_alerts.put(key,
+        new AlertEntry(current.getAlertId(), alert.getState()));
+
+    if (null != previous) {
+      synchronized (previous) {
+        previous.removed = true;
+      }
+    }
+  }
+
+  /**
+   * Writes the absorbed updates in a single transaction.
+   *
+   * @return the number of current alerts which were written.
+   */
+  public int flush() {
+    Map<Long, Alert> updates = new HashMap<Long, Alert>();
+
+    for (AlertEntry entry : m_alerts.values()) {
+      synchronized (entry) {
+        if (null == entry.pending) {
+          continue;
+        }
+
+        // keep the newest update if entries share a current alert
+        Alert other = updates.get(entry.alertId);
+        if (null == other || entry.pending.getTimestamp() > other.getTimestamp()) {
+          updates.put(entry.alertId, entry.pending);
+        }
+
+        entry.pending = null;
+      }
+    }
+
+    if (updates.isEmpty()) {
+      return 0;
+    }
+
+    Set<Long> missing = m_alertsDao.updateLatest(updates);
+    if (!missing.isEmpty()) {
+      LOG.debug("Removing {} cached alerts which no longer exist", missing.size());
+
+      Iterator<AlertEntry> iterator = m_alerts.values().iterator();
+      while (iterator.hasNext()) {
+        AlertEntry entry = iterator.next();
+        if (missing.contains(entry.alertId)) {
+          synchronized (entry) {
+            entry.removed = true;
+          }
+          iterator.remove();
+        }
+      }
+    }
+
+    return updates.size() - missing.size();
+  }
+
+  /**
+   * @return the number of cached current alerts.
+   */
+  public int size() {
+    return m_alerts.size();
+  }
+
+  /**
+   * Removes the alerts of a changed definition.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(AlertDefinitionChangedEvent event) {
+    invalidate(event.getClusterId(), event.getDefinition().getName());
+  }
+
+  /**
+   * Removes the alerts of a deleted definition.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(AlertDefinitionDeleteEvent event) {
+    invalidate(event.getClusterId(), event.getDefinition().getName());
+  }
+
+  /**
+   * Removes the alerts of a disabled definition.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(AlertDefinitionDisabledEvent event) {
+    for (Map.Entry<DefinitionKey, DefinitionState> entry : m_definitions.entrySet()) {
+      if (entry.getKey().clusterId == event.getClusterId()
+          && entry.getValue().definitionId == event.getDefinitionId()) {
+        invalidate(event.getClusterId(), entry.getKey().definitionName);
+      }
+    }
+  }
+
+  /**
+   * Removes all alerts since the current alerts of the service are removed.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(ServiceRemovedEvent event) {
+    invalidateAll();
+  }
+
+  /**
+   * Removes all alerts since the current alerts of the component are removed.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(ServiceComponentUninstalledEvent event) {
+    invalidateAll();
+  }
+
+  /**
+   * Removes all alerts since the current alerts of the host are removed.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(HostRemovedEvent event) {
+    invalidateAll();
+  }
+
+  /**
+   * Removes the cached alerts of a definition.
+   */
+  private void invalidate(long clusterId, String definitionName) {
+    m_definitions.remove(new DefinitionKey(clusterId, definitionName));
+
+    Iterator<Map.Entry<AlertKey, AlertEntry>> iterator = m_alerts.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<AlertKey, AlertEntry> entry = iterator.next();
+      AlertKey key = entry.getKey();
+      if (key.clusterId == clusterId
+          && key.definitionName.equals(definitionName)) {
+        discard(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes all cached alerts.
+   */
+  private void invalidateAll() {
+    m_definitions.clear();
+
+    Iterator<AlertEntry> iterator = m_alerts.values().iterator();
+    while (iterator.hasNext()) {
+      discard(iterator.next());
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Marks an entry as removed. Its pending update is dropped; the next alert
+   * received for it will be written through.
+   */
+  private void discard(AlertEntry entry) {
+    synchronized (entry) {
+      entry.removed = true;
+      entry.pending = null;
+    }
+  }
+
+  /**
+   * Gets the host name used to look up the current alert, which is
+   * {@code null} for alerts which are not bound to a host.
+   */
+  private static String getHostName(boolean hostIgnored, Alert alert) {
+    if (hostIgnored || StringUtils.isBlank(alert.getHostName())) {
+      return null;
+    }
+
+    return alert.getHostName();
+  }
+
+  /**
+   * Identifies a definition in a cluster.
+   */
+  private static final class DefinitionKey {
+    private final long clusterId;
+    private final String definitionName;
+
+    private DefinitionKey(long clusterId, String definitionName) {
+      this.clusterId = clusterId;
+      this.definitionName = definitionName;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+
+      if (!(object instanceof DefinitionKey)) {
+        return false;
+      }
+
+      DefinitionKey that = (DefinitionKey) object;
+      return clusterId == that.clusterId
+          && StringUtils.equals(definitionName, that.definitionName);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (clusterId ^ (clusterId >>> 32));
+      result = 31 * result + (null != definitionName ? definitionName.hashCode() : 0);
+      return result;
+    }
+  }
+
+  /**
+   * The properties of a definition which determine how its alerts are
+   * stored.
+   */
+  private static final class DefinitionState {
+    private final long definitionId;
+    private final boolean hostIgnored;
+
+    private DefinitionState(long definitionId, boolean hostIgnored) {
+      this.definitionId = definitionId;
+      this.hostIgnored = hostIgnored;
+    }
+  }
+
+  /**
+   * Identifies a current alert.
+   */
+  private static final class AlertKey {
+    private final long clusterId;
+    private final String definitionName;
+    private final String hostName;
+
+    private AlertKey(long clusterId, String definitionName, String hostName) {
+      this.clusterId = clusterId;
+      this.definitionName = definitionName;
+      this.hostName = hostName;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+
+      if (!(object instanceof AlertKey)) {
+        return false;
+      }
+
+      AlertKey that = (AlertKey) object;
+      return clusterId == that.clusterId
+          && StringUtils.equals(definitionName, that.definitionName)
+          && StringUtils.equals(hostName, that.hostName);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (clusterId ^ (clusterId >>> 32));
+      result = 31 * result + (null != definitionName ? definitionName.hashCode() : 0);
+      result = 31 * result + (null != hostName ? hostName.hashCode() : 0);
+      return result;
+    }
+  }
+
+  /**
+   * The cached state of a current alert. Guarded by its own monitor.
+   */
+  private static final class AlertEntry {
+    private final long alertId;
+    private final AlertState state;
+    private Alert pending;
+    private boolean removed;
+
+    private AlertEntry(long alertId, AlertState state) {
+      this.alertId = alertId;
+      this.state = state;
+    }
+  }
+}
@@ -24,12 +24,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ambari.server.AmbariException;
@@ -47,6 +48,7 @@ import org.apache.ambari.server.state.Host;
 import org.apache.ambari.server.state.Service;
 import org.apache.ambari.server.state.ServiceComponent;
 import org.apache.ambari.server.state.ServiceComponentHost;
+import org.apache.ambari.server.utils.StatisticsLogThrottle;
 import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,10 +58,14 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 /**
- * The {@link AlertDefinitionHash} class is used to generate an MD5 hash for a
- * list of {@link AlertDefinitionEntity}s. It is used in order to represent the
+ * The {@link AlertDefinitionHash} class is used to generate a hash for a list
+ * of {@link AlertDefinitionEntity}s. It is used in order to represent the
  * state of a group of definitions by using
  * {@link AlertDefinitionEntity#getHash()}
+ * <p/>
+ * The hash of a host is the XOR of the MD5 digests of its definitions. This
+ * allows a change to a single definition to be applied to the cached hash of
+ * every affected host without reading the other definitions of the host.
  */
 @Singleton
 public class AlertDefinitionHash {
@@ -115,10 +121,29 @@ public class AlertDefinitionHash {
   private ReentrantLock m_actionQueueLock = new ReentrantLock();
 
   /**
-   * The hashes for all hosts for any cluster. The key is the hostname and the
-   * value is a map between cluster name and hash.
+   * The cached hashes of every cluster, keyed by cluster name.
    */
-  private Map<String, Map<String, String>> m_hashes = new HashMap<String, Map<String, String>>();
+  private final ConcurrentMap<String, ClusterHashes> m_hashes = new ConcurrentHashMap<String, ClusterHashes>();
+
+  /**
+   * The number of hashes served from the cache.
+   */
+  private final AtomicLong m_hits = new AtomicLong();
+
+  /**
+   * The number of hashes which had to be calculated from the database.
+   */
+  private final AtomicLong m_misses = new AtomicLong();
+
+  /**
+   * The number of cached hashes updated in place after a definition change.
+   */
+  private final AtomicLong m_incrementalUpdates = new AtomicLong();
+
+  /**
+   * Limits how often the cache statistics are logged.
+   */
+  private final StatisticsLogThrottle m_statisticsLog = new StatisticsLogThrottle();
 
   /**
    * Gets a unique hash value reprssenting all of the alert definitions that
@@ -137,28 +162,40 @@ public class AlertDefinitionHash {
    * @return the unique hash or {@value #NULL_MD5_HASH} if none.
    */
   public String getHash(String clusterName, String hostName) {
-    Map<String, String> clusterMapping = m_hashes.get(hostName);
-    if (null == clusterMapping) {
-      clusterMapping = new ConcurrentHashMap<String, String>();
-      m_hashes.put(hostName, clusterMapping);
+    if (m_statisticsLog.isDue()) {
+      LOG.info("Alert definition hash cache statistics: {}", getStatistics());
     }
 
-    String hash = clusterMapping.get(hostName);
-    if (null != hash) {
-      return hash;
+    ClusterHashes clusterHashes = getClusterHashes(clusterName);
+    HostHash hostHash = clusterHashes.m_hosts.get(hostName);
+    if (null != hostHash) {
+      m_hits.incrementAndGet();
+      return hostHash.getHash();
     }
 
-    hash = hash(clusterName, hostName);
-    clusterMapping.put(clusterName, hash);
+    m_misses.incrementAndGet();
+
+    // a definition change while calculating makes the result stale, in
+    // which case it is returned but not cached
+    long version = clusterHashes.getVersion();
+    hostHash = hash(clusterName, hostName);
+    clusterHashes.put(hostName, hostHash, version);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Calculated the alert definition hash of {} in cluster {}, {}",
+          hostName, clusterName, getStatistics());
+    }
 
-    return hash;
+    return hostHash.getHash();
   }
 
   /**
    * Invalidate all cached hashes causing subsequent lookups to recalculate.
    */
   public void invalidateAll() {
-    m_hashes.clear();
+    for (ClusterHashes clusterHashes : m_hashes.values()) {
+      clusterHashes.clear();
+    }
   }
 
   /**
@@ -169,7 +206,9 @@ public class AlertDefinitionHash {
    *          the host to invalidate the cache for (not {@code null}).
    */
   public void invalidate(String hostName) {
-    m_hashes.remove(hostName);
+    for (ClusterHashes clusterHashes : m_hashes.values()) {
+      clusterHashes.remove(hostName);
+    }
   }
 
   /**
@@ -182,9 +221,9 @@ public class AlertDefinitionHash {
    *          the host to invalidate the cache for (not {@code null}).
    */
   public void invalidate(String clusterName, String hostName) {
-    Map<String, String> clusterMapping = m_hashes.get(hostName);
-    if (null != clusterMapping) {
-      clusterMapping.remove(clusterName);
+    ClusterHashes clusterHashes = m_hashes.get(clusterName);
+    if (null != clusterHashes) {
+      clusterHashes.remove(hostName);
     }
   }
 
@@ -201,12 +240,12 @@ public class AlertDefinitionHash {
       return false;
     }
 
-    Map<String, String> clusterMapping = m_hashes.get(hostName);
-    if (null == clusterMapping) {
+    ClusterHashes clusterHashes = m_hashes.get(clusterName);
+    if (null == clusterHashes) {
       return false;
     }
 
-    return clusterMapping.containsKey(clusterName);
+    return clusterHashes.m_hosts.containsKey(hostName);
   }
 
   /**
@@ -256,7 +295,7 @@ public class AlertDefinitionHash {
    */
   public Set<String> invalidateHosts(AlertDefinitionEntity definition) {
     return invalidateHosts(definition.getClusterId(),
-        definition.getSourceType(),
+        definition.getDefinitionId(), definition.getSourceType(),
         definition.getDefinitionName(), definition.getServiceName(),
         definition.getComponentName());
   }
@@ -274,7 +313,8 @@ public class AlertDefinitionHash {
    */
   public Set<String> invalidateHosts(AlertDefinition definition) {
     return invalidateHosts(definition.getClusterId(),
-        definition.getSource().getType(), definition.getName(),
+        definition.getDefinitionId(), definition.getSource().getType(),
+        definition.getName(),
         definition.getServiceName(), definition.getComponentName());
   }
 
@@ -282,9 +322,15 @@ public class AlertDefinitionHash {
    * Invalidate the hashes of any host that would be affected by the specified
    * definition. If the definition is an {@link SourceType#AGGREGATE}, this will
    * return an empty set since aggregates do not affect hosts.
+   * <p/>
+   * The cached hashes of the affected hosts, and of any host whose cached hash
+   * includes the definition, are updated in place with the current state of
+   * the definition instead of being recalculated.
    *
    * @param clusterId
    *          the cluster ID
+   * @param definitionId
+   *          the definition ID
    * @param definitionSourceType
    *          the type of alert definition
    * @param definitionName
@@ -296,7 +342,7 @@ public class AlertDefinitionHash {
    * @return the hosts that were invalidated, or an empty set (never
    *         {@code null}).
    */
-  private Set<String> invalidateHosts(long clusterId,
+  private Set<String> invalidateHosts(long clusterId, Long definitionId,
       SourceType definitionSourceType, String definitionName,
       String definitionServiceName, String definitionComponentName) {
 
@@ -326,9 +372,33 @@ public class AlertDefinitionHash {
         definitionSourceType, definitionName,
         definitionServiceName, definitionComponentName);
 
-    // invalidate all returned hosts
-    for (String hostName : affectedHosts) {
-      invalidate(clusterName, hostName);
+    ClusterHashes clusterHashes = m_hashes.get(clusterName);
+    if (null == clusterHashes) {
+      return affectedHosts;
+    }
+
+    if (null == definitionId) {
+      for (String hostName : affectedHosts) {
+        clusterHashes.remove(hostName);
+      }
+      return affectedHosts;
+    }
+
+    // the definition is gone if it was removed
+    AlertDefinitionEntity definition = m_definitionDao.findById(definitionId);
+    byte[] digest = null;
+    if (null != definition && !SourceType.AGGREGATE.equals(definition.getSourceType())) {
+      digest = digest(definition);
+    }
+
+    Set<String> cachedHosts = new HashSet<String>(affectedHosts);
+    cachedHosts.addAll(clusterHashes.getHosts(definitionId));
+
+    for (String hostName : cachedHosts) {
+      boolean associated = null != digest && isAssociated(cluster, hostName, definition);
+      if (clusterHashes.update(hostName, definitionId, associated ? digest : null)) {
+        m_incrementalUpdates.incrementAndGet();
+      }
     }
 
     return affectedHosts;
@@ -529,49 +599,121 @@ public class AlertDefinitionHash {
    *          the cluster name (not {@code null}).
    * @param hostName
    *          the host name (not {@code null}).
-   * @return the unique hash or {@value #NULL_MD5_HASH} if none.
+   * @return the hash of the host's definitions.
    */
-  private String hash(String clusterName, String hostName) {
+  private HostHash hash(String clusterName, String hostName) {
     Set<AlertDefinitionEntity> definitions = getAlertDefinitionEntities(
         clusterName,
         hostName);
 
-    // no definitions found for this host, don't bother hashing
-    if( null == definitions || definitions.size() == 0 ) {
-      return NULL_MD5_HASH;
+    HostHash hostHash = new HostHash();
+    for (AlertDefinitionEntity definition : definitions) {
+      if (!SourceType.AGGREGATE.equals(definition.getSourceType())) {
+        hostHash.update(definition.getDefinitionId(), digest(definition));
+      }
     }
 
-    // strip out all AGGREGATE types
-    Iterator<AlertDefinitionEntity> iterator = definitions.iterator();
-    while (iterator.hasNext()) {
-      if (SourceType.AGGREGATE.equals(iterator.next().getSourceType())) {
-        iterator.remove();
+    return hostHash;
+  }
+
+  /**
+   * Gets whether the specified definition is scheduled on a host. This
+   * applies the rules of {@link #getAlertDefinitionEntities(String, String)}
+   * to a single definition without reading the database.
+   *
+   * @param cluster
+   *          the cluster of the definition.
+   * @param hostName
+   *          the host.
+   * @param definition
+   *          the definition.
+   * @return {@code true} if the definition is part of the host's hash.
+   */
+  private boolean isAssociated(Cluster cluster, String hostName,
+      AlertDefinitionEntity definition) {
+    String definitionServiceName = definition.getServiceName();
+    String definitionComponentName = definition.getComponentName();
+
+    // host level alerts run everywhere
+    if (Services.AMBARI.name().equals(definitionServiceName)
+        && Components.AMBARI_AGENT.name().equals(definitionComponentName)) {
+      return true;
+    }
+
+    List<ServiceComponentHost> hostComponents = cluster.getServiceComponentHosts(hostName);
+    if (null == hostComponents || hostComponents.isEmpty()) {
+      return false;
+    }
+
+    for (ServiceComponentHost component : hostComponents) {
+      if (component.getServiceName().equals(definitionServiceName)
+          && component.getServiceComponentName().equals(definitionComponentName)) {
+        return true;
       }
     }
 
-    // build the UUIDs
-    List<String> uuids = new ArrayList<String>(definitions.size());
-    for (AlertDefinitionEntity definition : definitions) {
-      uuids.add(definition.getHash());
+    // service alerts run on the masters of the service
+    if (Scope.SERVICE != definition.getScope() || null != definitionComponentName) {
+      return false;
     }
 
-    // sort the UUIDs so that the digest is created with bytes in the same order
-    Collections.sort(uuids);
+    Service service = cluster.getServices().get(definitionServiceName);
+    if (null == service) {
+      return false;
+    }
 
-    try {
-      MessageDigest digest = MessageDigest.getInstance("MD5");
-      for (String uuid : uuids) {
-        digest.update(uuid.getBytes());
+    for (ServiceComponent component : service.getServiceComponents().values()) {
+      if (component.isMasterComponent()
+          && component.getServiceComponentHosts().containsKey(hostName)) {
+        return true;
       }
+    }
+
+    return false;
+  }
 
-      byte[] hashBytes = digest.digest();
-      return Hex.encodeHexString(hashBytes);
+  /**
+   * Calculates the MD5 digest of the unique hash of a definition.
+   *
+   * @param definition
+   *          the definition (not {@code null}).
+   * @return the digest.
+   */
+  private byte[] digest(AlertDefinitionEntity definition) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      return digest.digest(String.valueOf(definition.getHash()).getBytes());
     } catch (NoSuchAlgorithmException nsae) {
-      LOG.warn("Unable to calculate MD5 alert definition hash", nsae);
-      return NULL_MD5_HASH;
+      throw new IllegalStateException("Unable to calculate MD5 alert definition hash", nsae);
     }
   }
 
+  /**
+   * Gets the cached hashes of a cluster, creating them if needed.
+   */
+  private ClusterHashes getClusterHashes(String clusterName) {
+    ClusterHashes clusterHashes = m_hashes.get(clusterName);
+    if (null == clusterHashes) {
+      clusterHashes = new ClusterHashes();
+      ClusterHashes existing = m_hashes.putIfAbsent(clusterName, clusterHashes);
+      if (null != existing) {
+        clusterHashes = existing;
+      }
+    }
+    return clusterHashes;
+  }
+
+  /**
+   * @return a summary of the cache statistics.
+   */
+  private String getStatistics() {
+    long hits = m_hits.get();
+    long misses = m_misses.get();
+    double hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    return String.format("hits=%d, misses=%d, hitRate=%.2f, incrementalUpdates=%d",
+        hits, misses, hitRate, m_incrementalUpdates.get());
+  }
+
   /**
    * Gets the alert definition entities for the specified host. This will include the
    * following types of alert definitions:
@@ -649,4 +791,141 @@ public class AlertDefinitionHash {
 
     return definitions;
   }
+
+  /**
+   * The cached hashes of the hosts of a cluster along with an index of the
+   * hosts whose hash includes each definition. Changes are synchronized on
+   * the instance; reads of a cached hash are not.
+   */
+  private static final class ClusterHashes {
+    private final ConcurrentMap<String, HostHash> m_hosts = new ConcurrentHashMap<String, HostHash>();
+    private final Map<Long, Set<String>> m_hostsByDefinition = new HashMap<Long, Set<String>>();
+
+    /**
+     * Incremented on every change so that hashes calculated concurrently
+     * with a change are not cached.
+     */
+    private long m_version = 0;
+
+    private synchronized long getVersion() {
+      return m_version;
+    }
+
+    private synchronized void put(String hostName, HostHash hostHash, long version) {
+      if (version != m_version || m_hosts.containsKey(hostName)) {
+        return;
+      }
+
+      m_hosts.put(hostName, hostHash);
+      for (Long definitionId : hostHash.m_digests.keySet()) {
+        index(definitionId, hostName);
+      }
+    }
+
+    private synchronized void remove(String hostName) {
+      m_version++;
+      HostHash hostHash = m_hosts.remove(hostName);
+      if (null != hostHash) {
+        for (Long definitionId : hostHash.m_digests.keySet()) {
+          unindex(definitionId, hostName);
+        }
+      }
+    }
+
+    private synchronized void clear() {
+      m_version++;
+      m_hosts.clear();
+      m_hostsByDefinition.clear();
+    }
+
+    private synchronized Set<String> getHosts(Long definitionId) {
+      Set<String> hosts = m_hostsByDefinition.get(definitionId);
+      return null == hosts ? Collections.<String>emptySet() : new HashSet<String>(hosts);
+    }
+
+    /**
+     * Replaces the digest of a definition in the cached hash of a host.
+     *
+     * @return {@code true} if the host has a cached hash.
+     */
+    private synchronized boolean update(String hostName, Long definitionId, byte[] digest) {
+      m_version++;
+      HostHash hostHash = m_hosts.get(hostName);
+      if (null == hostHash) {
+        return false;
+      }
+
+      hostHash.update(definitionId, digest);
+      if (null == digest) {
+        unindex(definitionId, hostName);
+      } else {
+        index(definitionId, hostName);
+      }
+      return true;
+    }
+
+    private void index(Long definitionId, String hostName) {
+      Set<String> hosts = m_hostsByDefinition.get(definitionId);
+      if (null == hosts) {
+        hosts = new HashSet<String>();
+        m_hostsByDefinition.put(definitionId, hosts);
+      }
+      hosts.add(hostName);
+    }
+
+    private void unindex(Long definitionId, String hostName) {
+      Set<String> hosts = m_hostsByDefinition.get(definitionId);
+      if (null != hosts) {
+        hosts.remove(hostName);
+        if (hosts.isEmpty()) {
+          m_hostsByDefinition.remove(definitionId);
+        }
+      }
+    }
+  }
+
+  /**
+   * The hash of the definitions of a single host, kept as the XOR of the
+   * digests of the definitions so that one definition can be replaced without
+   * the others.
+   */
+  private static final class HostHash {
+    private final Map<Long, byte[]> m_digests = new HashMap<Long, byte[]>();
+    private final byte[] m_combined = new byte[16];
+    private volatile String m_hash = NULL_MD5_HASH;
+
+    private String getHash() {
+      return m_hash;
+    }
+
+    /**
+     * Replaces the digest of a definition.
+     *
+     * @param definitionId
+     *          the definition.
+     * @param digest
+     *          the new digest or {@code null} if the definition no longer
+     *          applies to the host.
+     */
+    private void update(Long definitionId, byte[] digest) {
+      byte[] previous = null == digest ? m_digests.remove(definitionId)
+          : m_digests.put(definitionId, digest);
+
+      if (null != previous) {
+        xor(previous);
+      }
+
+      if (null != digest) {
+        xor(digest);
+      }
+
+      m_hash = m_digests.isEmpty() ? NULL_MD5_HASH : Hex.encodeHexString(m_combined);
+    }
+
+    private void xor(byte[] digest) {
+      for (int i = 0; i < m_combined.length; i++) {
+        m_combined[i] ^= digest[i];
+      }
+    }
+  }
 }
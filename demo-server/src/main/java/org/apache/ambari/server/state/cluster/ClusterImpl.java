@@ -30,6 +30,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -53,6 +55,7 @@ import org.apache.ambari.server.controller.ConfigurationResponse;
 import org.apache.ambari.server.controller.MaintenanceStateHelper;
 import org.apache.ambari.server.controller.RootServiceResponseFactory.Services;
 import org.apache.ambari.server.controller.ServiceConfigVersionResponse;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.cache.HostConfigMapping;
 import org.apache.ambari.server.orm.dao.AlertDefinitionDAO;
@@ -99,6 +102,7 @@ import org.apache.ambari.server.state.HostHealthStatus;
 import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.MaintenanceState;
 import org.apache.ambari.server.state.RepositoryVersionState;
+import org.apache.ambari.server.state.ResourceVersionTracker;
 import org.apache.ambari.server.state.SecurityType;
 import org.apache.ambari.server.state.Service;
 import org.apache.ambari.server.state.ServiceComponent;
@@ -123,6 +127,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.assistedinject.Assisted;
@@ -141,8 +146,18 @@ public class ClusterImpl implements Cluster {
   @Inject
   private Clusters clusters;
 
-  private StackId desiredStackVersion;
+  /**
+   * The number of stripes used for per-host locks.
+   */
+  private static final int HOST_LOCK_STRIPES = 64;
 
+  private volatile StackId desiredStackVersion;
+
+  /**
+   * [ ServiceName -> Service ] This map is never modified once published;
+   * writers replace it with a modified copy while holding the write lock of
+   * {@link #clusterGlobalLock} so that readers need no lock.
+   */
   private volatile Map<String, Service> services = null;
 
   /**
@@ -152,28 +167,45 @@ public class ClusterImpl implements Cluster {
 
   /**
    * [ ServiceName -> [ ServiceComponentName -> [ HostName -> [ ... ] ] ] ]
+   * Every level is concurrent so that lookups do not need the cluster lock;
+   * modifications are still made while holding its write lock.
    */
-  private Map<String, Map<String, Map<String, ServiceComponentHost>>>
+  private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, ServiceComponentHost>>>
     serviceComponentHosts;
 
   /**
-   * [ HostName -> [ ... ] ]
+   * [ HostName -> [ ... ] ] The lists are immutable and are replaced on every
+   * change of the host's components.
    */
-  private Map<String, List<ServiceComponentHost>>
+  private final ConcurrentMap<String, List<ServiceComponentHost>>
     serviceComponentHostsByHost;
 
   /**
    * Map of existing config groups
    */
-  private volatile Map<Long, ConfigGroup> clusterConfigGroups;
+  private volatile ConcurrentMap<Long, ConfigGroup> clusterConfigGroups;
 
   /**
    * Map of Request schedules for this cluster
    */
   private volatile Map<Long, RequestExecution> requestExecutions;
 
+  /**
+   * Guards changes to the cluster structure (services, components, host
+   * components, config groups) and to the cluster configurations. Lookups of
+   * the structure are served from concurrent or copy-on-write maps and do not
+   * acquire it.
+   */
   private final ReadWriteLock clusterGlobalLock = new ReentrantReadWriteLock();
 
+  /**
+   * Per-host locks which serialize host component state transitions against
+   * the addition and removal of components on the same host without blocking
+   * other hosts. Lock ordering is cluster global lock, then service component
+   * lock, then host lock, then the lock of the individual host component.
+   */
+  private final Striped<ReadWriteLock> hostLocks = Striped.readWriteLock(HOST_LOCK_STRIPES);
+
   // This is a lock for operations that do not need to be cluster global
   private final ReentrantReadWriteLock hostTransitionStateLock = new ReentrantReadWriteLock();
   private final Lock hostTransitionStateWriteLock = hostTransitionStateLock.writeLock();
@@ -243,6 +275,12 @@ public class ClusterImpl implements Cluster {
   @Inject
   private AmbariSessionManager sessionManager;
 
+  /**
+   * Records changes of the cluster state for the REST API.
+   */
+  @Inject
+  private ResourceVersionTracker versionTracker;
+
   /**
    * Data access object used for looking up stacks from the database.
    */
@@ -251,6 +289,8 @@ public class ClusterImpl implements Cluster {
 
   private volatile boolean svcHostsLoaded = false;
 
+  private volatile boolean servicesLoaded = false;
+
   private volatile Multimap<String, String> serviceConfigTypes;
 
   @Inject
@@ -259,10 +299,10 @@ public class ClusterImpl implements Cluster {
     injector.injectMembers(this);
     this.clusterEntity = clusterEntity;
 
-    serviceComponentHosts = new HashMap<String,
-      Map<String, Map<String, ServiceComponentHost>>>();
+    serviceComponentHosts = new ConcurrentHashMap<String,
+      ConcurrentMap<String, ConcurrentMap<String, ServiceComponentHost>>>();
 
-    serviceComponentHostsByHost = new HashMap<String,
+    serviceComponentHostsByHost = new ConcurrentHashMap<String,
       List<ServiceComponentHost>>();
 
     desiredStackVersion = new StackId(clusterEntity.getDesiredStack());
@@ -281,6 +321,11 @@ public class ClusterImpl implements Cluster {
     return clusterGlobalLock;
   }
 
+  @Override
+  public ReadWriteLock getHostLock(String hostName) {
+    return hostLocks.get(hostName);
+  }
+
   private void loadServiceConfigTypes() throws AmbariException {
     try {
       serviceConfigTypes = collectServiceConfigTypesMapping();
@@ -335,40 +380,41 @@ public class ClusterImpl implements Cluster {
         return;
       }
       if (services != null) {
+        Map<String, List<ServiceComponentHost>> componentsByHost =
+            new HashMap<String, List<ServiceComponentHost>>();
+
         for (Entry<String, Service> serviceKV : services.entrySet()) {
           /* get all the service component hosts **/
           Service service = serviceKV.getValue();
-          if (!serviceComponentHosts.containsKey(service.getName())) {
-            serviceComponentHosts.put(service.getName(),
-                new HashMap<String, Map<String, ServiceComponentHost>>());
-          }
           for (Entry<String, ServiceComponent> svcComponent : service.getServiceComponents().entrySet()) {
             ServiceComponent comp = svcComponent.getValue();
             String componentName = svcComponent.getKey();
-            if (!serviceComponentHosts.get(service.getName()).containsKey(
-                componentName)) {
-              serviceComponentHosts.get(service.getName()).put(componentName,
-                  new HashMap<String, ServiceComponentHost>());
-            }
+            ConcurrentMap<String, ServiceComponentHost> componentHosts =
+                getOrCreateComponentHosts(service.getName(), componentName);
+
             /** Get Service Host Components **/
             for (Entry<String, ServiceComponentHost> svchost : comp.getServiceComponentHosts().entrySet()) {
               String hostname = svchost.getKey();
               ServiceComponentHost svcHostComponent = svchost.getValue();
-              if (!serviceComponentHostsByHost.containsKey(hostname)) {
-                serviceComponentHostsByHost.put(hostname,
-                    new ArrayList<ServiceComponentHost>());
+              if (!componentsByHost.containsKey(hostname)) {
+                List<ServiceComponentHost> existing = serviceComponentHostsByHost.get(hostname);
+                componentsByHost.put(hostname, null == existing
+                    ? new ArrayList<ServiceComponentHost>()
+                    : new ArrayList<ServiceComponentHost>(existing));
               }
-              List<ServiceComponentHost> compList = serviceComponentHostsByHost.get(hostname);
-              compList.add(svcHostComponent);
+              componentsByHost.get(hostname).add(svcHostComponent);
 
-              if (!serviceComponentHosts.get(service.getName()).get(
-                  componentName).containsKey(hostname)) {
-                serviceComponentHosts.get(service.getName()).get(componentName).put(
-                    hostname, svcHostComponent);
+              if (!componentHosts.containsKey(hostname)) {
+                componentHosts.put(hostname, svcHostComponent);
               }
             }
           }
         }
+
+        for (Entry<String, List<ServiceComponentHost>> entry : componentsByHost.entrySet()) {
+          serviceComponentHostsByHost.put(entry.getKey(),
+              Collections.unmodifiableList(entry.getValue()));
+        }
       }
       svcHostsLoaded = true;
     } finally {
@@ -377,19 +423,20 @@ public class ClusterImpl implements Cluster {
   }
 
   private void loadServices() {
-    if (services == null) {
+    if (!servicesLoaded) {
       clusterGlobalLock.writeLock().lock();
 
       try {
         if (services == null) {
-          services = new TreeMap<String, Service>();
+          Map<String, Service> loadedServices = new TreeMap<String, Service>();
+          services = loadedServices;
           if (!clusterEntity.getClusterServiceEntities().isEmpty()) {
             for (ClusterServiceEntity serviceEntity : clusterEntity.getClusterServiceEntities()) {
               StackId stackId = getCurrentStackVersion();
               try {
                 if (ambariMetaInfo.getService(stackId.getStackName(),
                     stackId.getStackVersion(), serviceEntity.getServiceName()) != null) {
-                  services.put(serviceEntity.getServiceName(),
+                  loadedServices.put(serviceEntity.getServiceName(),
                       serviceFactory.createExisting(this, serviceEntity));
                 }
               } catch (AmbariException e) {
@@ -400,6 +447,9 @@ public class ClusterImpl implements Cluster {
               }
             }
           }
+
+          // lock-free readers must not see the map before it is fully loaded
+          servicesLoaded = true;
         }
       } finally {
         clusterGlobalLock.writeLock().unlock();
@@ -413,13 +463,14 @@ public class ClusterImpl implements Cluster {
 
       try {
         if (clusterConfigGroups == null) {
-          clusterConfigGroups = new HashMap<Long, ConfigGroup>();
+          ConcurrentMap<Long, ConfigGroup> configGroups = new ConcurrentHashMap<Long, ConfigGroup>();
           if (!clusterEntity.getConfigGroupEntities().isEmpty()) {
             for (ConfigGroupEntity configGroupEntity : clusterEntity.getConfigGroupEntities()) {
-              clusterConfigGroups.put(configGroupEntity.getGroupId(),
+              configGroups.put(configGroupEntity.getGroupId(),
                   configGroupFactory.createExisting(this, configGroupEntity));
             }
           }
+          clusterConfigGroups = configGroups;
         }
       } finally {
         clusterGlobalLock.writeLock().unlock();
@@ -463,7 +514,7 @@ public class ClusterImpl implements Cluster {
             + configGroup.getTag());
       } else {
         clusterConfigGroups.put(configGroup.getId(), configGroup);
-        configHelper.invalidateStaleConfigsCache();
+        invalidateStaleConfigsCache(configGroup);
       }
 
     } finally {
@@ -474,12 +525,7 @@ public class ClusterImpl implements Cluster {
   @Override
   public Map<Long, ConfigGroup> getConfigGroups() {
     loadConfigGroups();
-    clusterGlobalLock.readLock().lock();
-    try {
-      return Collections.unmodifiableMap(clusterConfigGroups);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
-    }
+    return Collections.unmodifiableMap(clusterConfigGroups);
   }
 
   @Override
@@ -488,20 +534,15 @@ public class ClusterImpl implements Cluster {
     loadConfigGroups();
     Map<Long, ConfigGroup> configGroups = new HashMap<Long, ConfigGroup>();
 
-    clusterGlobalLock.readLock().lock();
-    try {
-      for (Entry<Long, ConfigGroup> groupEntry : clusterConfigGroups.entrySet()) {
-        Long id = groupEntry.getKey();
-        ConfigGroup group = groupEntry.getValue();
-        for (Host host : group.getHosts().values()) {
-          if (StringUtils.equals(hostname, host.getHostName())) {
-            configGroups.put(id, group);
-            break;
-          }
+    for (Entry<Long, ConfigGroup> groupEntry : clusterConfigGroups.entrySet()) {
+      Long id = groupEntry.getKey();
+      ConfigGroup group = groupEntry.getValue();
+      for (Host host : group.getHosts().values()) {
+        if (StringUtils.equals(hostname, host.getHostName())) {
+          configGroups.put(id, group);
+          break;
         }
       }
-    } finally {
-      clusterGlobalLock.readLock().unlock();
     }
     return configGroups;
   }
@@ -559,6 +600,23 @@ public class ClusterImpl implements Cluster {
     }
   }
 
+  /**
+   * Invalidates the stale configs of the host components on the hosts of a
+   * config group which depend on the config types of the group.
+   *
+   * @param configGroup
+   *          the added or removed config group.
+   */
+  private void invalidateStaleConfigsCache(ConfigGroup configGroup) {
+    Set<String> hostNames = new HashSet<String>();
+    for (Host host : configGroup.getHosts().values()) {
+      hostNames.add(host.getHostName());
+    }
+
+    configHelper.invalidateStaleConfigsCache(this,
+        configGroup.getConfigurations().keySet(), hostNames);
+  }
+
   @Override
   public void deleteConfigGroup(Long id) throws AmbariException {
     loadConfigGroups();
@@ -572,9 +630,9 @@ public class ClusterImpl implements Cluster {
           + ", groupName = " + configGroup.getName() + ", groupId = "
           + configGroup.getId() + ", tag = " + configGroup.getTag());
 
+      invalidateStaleConfigsCache(configGroup);
       configGroup.delete();
       clusterConfigGroups.remove(id);
-      configHelper.invalidateStaleConfigsCache();
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -583,21 +641,22 @@ public class ClusterImpl implements Cluster {
   public ServiceComponentHost getServiceComponentHost(String serviceName,
       String serviceComponentName, String hostname) throws AmbariException {
     loadServiceHostComponents();
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (!serviceComponentHosts.containsKey(serviceName)
-          || !serviceComponentHosts.get(serviceName).containsKey(
-              serviceComponentName)
-          || !serviceComponentHosts.get(serviceName).get(serviceComponentName).containsKey(
-              hostname)) {
-        throw new ServiceComponentHostNotFoundException(getClusterName(),
-            serviceName, serviceComponentName, hostname);
-      }
-      return serviceComponentHosts.get(serviceName).get(serviceComponentName).get(
-          hostname);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+
+    ServiceComponentHost serviceComponentHost = null;
+    Map<String, ? extends Map<String, ServiceComponentHost>> components =
+        serviceComponentHosts.get(serviceName);
+    if (null != components) {
+      Map<String, ServiceComponentHost> hosts = components.get(serviceComponentName);
+      if (null != hosts) {
+        serviceComponentHost = hosts.get(hostname);
+      }
+    }
+
+    if (null == serviceComponentHost) {
+      throw new ServiceComponentHostNotFoundException(getClusterName(),
+          serviceName, serviceComponentName, hostname);
     }
+    return serviceComponentHost;
   }
 
   @Override
@@ -614,6 +673,7 @@ public class ClusterImpl implements Cluster {
 
       // RollbackException possibility if UNIQUE constraint violated
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
       clusters.updateClusterName(oldName, clusterName);
     } finally {
       clusterGlobalLock.writeLock().unlock();
@@ -677,28 +737,15 @@ public class ClusterImpl implements Cluster {
             + ", clusterId=" + getClusterId());
       }
 
-      if (!serviceComponentHosts.containsKey(serviceName)) {
-        serviceComponentHosts.put(serviceName,
-            new HashMap<String, Map<String, ServiceComponentHost>>());
-      }
+      ConcurrentMap<String, ServiceComponentHost> componentHosts =
+          getOrCreateComponentHosts(serviceName, componentName);
 
-      if (!serviceComponentHosts.get(serviceName).containsKey(componentName)) {
-        serviceComponentHosts.get(serviceName).put(componentName,
-            new HashMap<String, ServiceComponentHost>());
-      }
-
-      if (serviceComponentHosts.get(serviceName).get(componentName).containsKey(
-          hostname)) {
+      if (componentHosts.containsKey(hostname)) {
         throw new AmbariException("Duplicate entry for ServiceComponentHost"
             + ", serviceName=" + serviceName + ", serviceComponentName"
             + componentName + ", hostname= " + hostname);
       }
 
-      if (!serviceComponentHostsByHost.containsKey(hostname)) {
-        serviceComponentHostsByHost.put(hostname,
-            new ArrayList<ServiceComponentHost>());
-      }
-
       if (LOG.isDebugEnabled()) {
         LOG.debug("Adding a new ServiceComponentHost" + ", clusterName="
             + getClusterName() + ", clusterId=" + getClusterId()
@@ -706,14 +753,50 @@ public class ClusterImpl implements Cluster {
             + componentName + ", hostname= " + hostname);
       }
 
-      serviceComponentHosts.get(serviceName).get(componentName).put(hostname,
-          svcCompHost);
-      serviceComponentHostsByHost.get(hostname).add(svcCompHost);
+      Lock hostWriteLock = getHostLock(hostname).writeLock();
+      hostWriteLock.lock();
+      try {
+        componentHosts.put(hostname, svcCompHost);
+
+        List<ServiceComponentHost> hostComponents = new ArrayList<ServiceComponentHost>();
+        List<ServiceComponentHost> existing = serviceComponentHostsByHost.get(hostname);
+        if (null != existing) {
+          hostComponents.addAll(existing);
+        }
+        hostComponents.add(svcCompHost);
+        serviceComponentHostsByHost.put(hostname,
+            Collections.unmodifiableList(hostComponents));
+      } finally {
+        hostWriteLock.unlock();
+      }
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
   }
 
+  /**
+   * Gets the [ HostName -> ServiceComponentHost ] map of a component, creating
+   * it and its parent if needed. Must be called while holding the write lock
+   * of {@link #clusterGlobalLock}.
+   */
+  private ConcurrentMap<String, ServiceComponentHost> getOrCreateComponentHosts(
+      String serviceName, String componentName) {
+    ConcurrentMap<String, ConcurrentMap<String, ServiceComponentHost>> components =
+        serviceComponentHosts.get(serviceName);
+    if (null == components) {
+      components = new ConcurrentHashMap<String, ConcurrentMap<String, ServiceComponentHost>>();
+      serviceComponentHosts.put(serviceName, components);
+    }
+
+    ConcurrentMap<String, ServiceComponentHost> componentHosts = components.get(componentName);
+    if (null == componentHosts) {
+      componentHosts = new ConcurrentHashMap<String, ServiceComponentHost>();
+      components.put(componentName, componentHosts);
+    }
+
+    return componentHosts;
+  }
+
   @Override
   public void removeServiceComponentHost(ServiceComponentHost svcCompHost)
     throws AmbariException {
@@ -749,10 +832,12 @@ public class ClusterImpl implements Cluster {
             + ", clusterId=" + getClusterId());
       }
 
-      if (!serviceComponentHosts.containsKey(serviceName)
-          || !serviceComponentHosts.get(serviceName).containsKey(componentName)
-          || !serviceComponentHosts.get(serviceName).get(componentName).containsKey(
-              hostname)) {
+      Map<String, ? extends Map<String, ServiceComponentHost>> components =
+          serviceComponentHosts.get(serviceName);
+      Map<String, ServiceComponentHost> componentHosts =
+          null == components ? null : components.get(componentName);
+
+      if (null == componentHosts || !componentHosts.containsKey(hostname)) {
         throw new AmbariException("Invalid entry for ServiceComponentHost"
             + ", serviceName=" + serviceName + ", serviceComponentName"
             + componentName + ", hostname= " + hostname);
@@ -788,9 +873,19 @@ public class ClusterImpl implements Cluster {
             + componentName + ", hostname= " + hostname);
       }
 
-      serviceComponentHosts.get(serviceName).get(componentName).remove(hostname);
-      if (schToRemove != null) {
-        serviceComponentHostsByHost.get(hostname).remove(schToRemove);
+      Lock hostWriteLock = getHostLock(hostname).writeLock();
+      hostWriteLock.lock();
+      try {
+        componentHosts.remove(hostname);
+        if (schToRemove != null) {
+          List<ServiceComponentHost> hostComponents = new ArrayList<ServiceComponentHost>(
+              serviceComponentHostsByHost.get(hostname));
+          hostComponents.remove(schToRemove);
+          serviceComponentHostsByHost.put(hostname,
+              Collections.unmodifiableList(hostComponents));
+        }
+      } finally {
+        hostWriteLock.unlock();
       }
     } finally {
       clusterGlobalLock.writeLock().unlock();
@@ -806,16 +901,12 @@ public class ClusterImpl implements Cluster {
   public List<ServiceComponentHost> getServiceComponentHosts(
     String hostname) {
     loadServiceHostComponents();
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (serviceComponentHostsByHost.containsKey(hostname)) {
-        return new CopyOnWriteArrayList<ServiceComponentHost>(
-            serviceComponentHostsByHost.get(hostname));
-      }
-      return new ArrayList<ServiceComponentHost>();
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+
+    List<ServiceComponentHost> hostComponents = serviceComponentHostsByHost.get(hostname);
+    if (null != hostComponents) {
+      return new CopyOnWriteArrayList<ServiceComponentHost>(hostComponents);
     }
+    return new ArrayList<ServiceComponentHost>();
   }
 
   @Override
@@ -823,20 +914,19 @@ public class ClusterImpl implements Cluster {
     ArrayList<ServiceComponentHost> foundItems = new ArrayList<ServiceComponentHost>();
 
     loadServiceHostComponents();
-    clusterGlobalLock.readLock().lock();
-    try {
-      Map<String, Map<String, ServiceComponentHost>> foundByService = serviceComponentHosts.get(serviceName);
-      if (foundByService != null) {
-        if (componentName == null) {
-          for(Map<String, ServiceComponentHost> foundByComponent :foundByService.values()) {
-            foundItems.addAll(foundByComponent.values());
-          }
-        } else if (foundByService.containsKey(componentName)) {
-          foundItems.addAll(foundByService.get(componentName).values());
+
+    Map<String, ? extends Map<String, ServiceComponentHost>> foundByService = serviceComponentHosts.get(serviceName);
+    if (foundByService != null) {
+      if (componentName == null) {
+        for(Map<String, ServiceComponentHost> foundByComponent :foundByService.values()) {
+          foundItems.addAll(foundByComponent.values());
+        }
+      } else {
+        Map<String, ServiceComponentHost> foundByComponent = foundByService.get(componentName);
+        if (foundByComponent != null) {
+          foundItems.addAll(foundByComponent.values());
         }
       }
-    } finally {
-      clusterGlobalLock.readLock().unlock();
     }
 
     return foundItems;
@@ -858,7 +948,9 @@ public class ClusterImpl implements Cluster {
             + getClusterName() + ", clusterId=" + getClusterId()
             + ", serviceName=" + service.getName());
       }
-      services.put(service.getName(), service);
+      Map<String, Service> updatedServices = new TreeMap<String, Service>(services);
+      updatedServices.put(service.getName(), service);
+      services = updatedServices;
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -879,7 +971,9 @@ public class ClusterImpl implements Cluster {
             + ", serviceName=" + serviceName);
       }
       Service s = serviceFactory.createNew(this, serviceName);
-      services.put(s.getName(), s);
+      Map<String, Service> updatedServices = new TreeMap<String, Service>(services);
+      updatedServices.put(s.getName(), s);
+      services = updatedServices;
       return s;
     } finally {
       clusterGlobalLock.writeLock().unlock();
@@ -890,36 +984,23 @@ public class ClusterImpl implements Cluster {
   public Service getService(String serviceName)
     throws AmbariException {
     loadServices();
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (!services.containsKey(serviceName)) {
-        throw new ServiceNotFoundException(getClusterName(), serviceName);
-      }
-      return services.get(serviceName);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+
+    Service service = services.get(serviceName);
+    if (null == service) {
+      throw new ServiceNotFoundException(getClusterName(), serviceName);
     }
+    return service;
   }
 
   @Override
   public Map<String, Service> getServices() {
     loadServices();
-    clusterGlobalLock.readLock().lock();
-    try {
-      return new HashMap<String, Service>(services);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
-    }
+    return new HashMap<String, Service>(services);
   }
 
   @Override
   public StackId getDesiredStackVersion() {
-    clusterGlobalLock.readLock().lock();
-    try {
-      return desiredStackVersion;
-    } finally {
-      clusterGlobalLock.readLock().unlock();
-    }
+    return desiredStackVersion;
   }
 
   @Override
@@ -944,6 +1025,7 @@ public class ClusterImpl implements Cluster {
 
       clusterEntity.setDesiredStack(stackEntity);
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       if (cascade) {
         for (Service service : getServices().values()) {
@@ -1004,6 +1086,7 @@ public class ClusterImpl implements Cluster {
     try {
       clusterEntity.setProvisioningState(provisioningState);
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1032,6 +1115,7 @@ public class ClusterImpl implements Cluster {
     try {
       clusterEntity.setSecurityType(securityType);
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1735,10 +1819,12 @@ public class ClusterImpl implements Cluster {
         clusterStateEntity = clusterStateDAO.merge(clusterStateEntity);
         clusterEntity.setClusterStateEntity(clusterStateEntity);
         clusterEntity = clusterDAO.merge(clusterEntity);
+        versionTracker.changed(Resource.InternalType.Cluster);
       } else {
         clusterStateEntity.setCurrentStack(stackEntity);
         clusterStateDAO.merge(clusterStateEntity);
         clusterEntity = clusterDAO.merge(clusterEntity);
+        versionTracker.changed(Resource.InternalType.Cluster);
       }
     } catch (RollbackException e) {
       LOG.warn("Unable to set version " + stackId + " for cluster "
@@ -1885,7 +1971,7 @@ public class ClusterImpl implements Cluster {
         service.delete();
       }
 
-      services.clear();
+      services = new TreeMap<String, Service>();
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1907,7 +1993,9 @@ public class ClusterImpl implements Cluster {
           + ", serviceName=" + service.getName());
       }
       service.delete();
-      services.remove(serviceName);
+      Map<String, Service> updatedServices = new TreeMap<String, Service>(services);
+      updatedServices.remove(serviceName);
+      services = updatedServices;
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1941,6 +2029,7 @@ public class ClusterImpl implements Cluster {
       deleteAllServices();
       removeEntities();
       allConfigs.clear();
+      versionTracker.changed(Resource.InternalType.Cluster);
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1992,7 +2081,12 @@ public class ClusterImpl implements Cluster {
       ServiceConfigVersionResponse serviceConfigVersionResponse = applyConfigs(
           configs, user, serviceConfigVersionNote);
 
-      configHelper.invalidateStaleConfigsCache();
+      Set<String> configTypes = new HashSet<String>();
+      for (Config config : configs) {
+        configTypes.add(config.getType());
+      }
+      configHelper.invalidateStaleConfigsCache(this, configTypes, null);
+      versionTracker.changed(Resource.InternalType.Cluster);
       return serviceConfigVersionResponse;
     } finally {
       clusterGlobalLock.writeLock().unlock();
@@ -2156,7 +2250,8 @@ public class ClusterImpl implements Cluster {
     try {
       ServiceConfigVersionResponse serviceConfigVersionResponse = applyServiceConfigVersion(
           serviceName, version, user, note);
-      configHelper.invalidateStaleConfigsCache();
+      configHelper.invalidateStaleConfigsCache(this,
+          serviceConfigTypes.get(serviceName), null);
       return serviceConfigVersionResponse;
     } finally {
       clusterGlobalLock.writeLock().unlock();
@@ -2304,6 +2399,7 @@ public class ClusterImpl implements Cluster {
         }
       }
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       for (ClusterConfigEntity configEntity : serviceConfigEntity.getClusterConfigEntities()) {
         selectConfig(configEntity.getType(), configEntity.getTag(), user);
@@ -2380,6 +2476,7 @@ public class ClusterImpl implements Cluster {
     entities.add(entity);
 
     clusterEntity = clusterDAO.merge(clusterEntity);
+    versionTracker.changed(Resource.InternalType.Cluster);
   }
 
   @Transactional
@@ -2697,6 +2794,9 @@ public class ClusterImpl implements Cluster {
     int alertStatusHosts = 0;
     int heartbeatLostStateHosts = 0;
 
+    Set<ServiceComponentHost> staleConfigsServiceComponentHosts =
+        configHelper.getStaleConfigsServiceComponentHosts(this);
+
     Collection<Host> hosts = clusterHosts.values();
     Iterator<Host> iterator = hosts.iterator();
     while (iterator.hasNext()) {
@@ -2736,9 +2836,10 @@ public class ClusterImpl implements Cluster {
       boolean staleConfig = false;
       boolean maintenanceState = false;
 
-      if (serviceComponentHostsByHost.containsKey(hostName)) {
-        for (ServiceComponentHost sch : serviceComponentHostsByHost.get(hostName)) {
-          staleConfig = staleConfig || configHelper.isStaleConfigs(sch);
+      List<ServiceComponentHost> hostComponents = serviceComponentHostsByHost.get(hostName);
+      if (null != hostComponents) {
+        for (ServiceComponentHost sch : hostComponents) {
+          staleConfig = staleConfig || staleConfigsServiceComponentHosts.contains(sch);
           maintenanceState = maintenanceState ||
             maintenanceStateHelper.getEffectiveState(sch) != MaintenanceState.OFF;
         }
@@ -2881,8 +2982,10 @@ public class ClusterImpl implements Cluster {
       }
 
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       cacheConfigurations();
+      configHelper.invalidateStaleConfigsCache();
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -2936,6 +3039,7 @@ public class ClusterImpl implements Cluster {
       }
 
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       List<ServiceConfigEntity> serviceConfigs = serviceConfigDAO.getAllServiceConfigsForClusterAndStack(
           clusterId, stackId);
@@ -2948,6 +3052,7 @@ public class ClusterImpl implements Cluster {
       }
 
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       // remove config mappings
       Collection<ClusterConfigMappingEntity> configMappingEntities = clusterEntity.getConfigMappingEntities();
@@ -2970,6 +3075,7 @@ public class ClusterImpl implements Cluster {
       }
 
       clusterEntity = clusterDAO.merge(clusterEntity);
+      versionTracker.changed(Resource.InternalType.Cluster);
 
       cacheConfigurations();
     } finally {
@@ -33,6 +33,7 @@ import org.apache.ambari.server.agent.DiskInfo;
 import org.apache.ambari.server.agent.HostInfo;
 import org.apache.ambari.server.agent.RecoveryReport;
 import org.apache.ambari.server.controller.HostResponse;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.events.MaintenanceModeEvent;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.orm.cache.HostConfigMapping;
@@ -55,6 +56,7 @@ import org.apache.ambari.server.state.Host;
 import org.apache.ambari.server.state.HostConfig;
 import org.apache.ambari.server.state.HostEvent;
 import org.apache.ambari.server.state.HostEventType;
+import org.apache.ambari.server.state.ResourceVersionTracker;
 import org.apache.ambari.server.state.HostHealthStatus;
 import org.apache.ambari.server.state.HostHealthStatus.HealthStatus;
 import org.apache.ambari.server.state.HostState;
@@ -118,6 +120,7 @@ public class HostImpl implements Host {
   private ClusterDAO clusterDAO;
   private Clusters clusters;
   private HostConfigMappingDAO hostConfigMappingDAO;
+  private ResourceVersionTracker versionTracker;
 
   private long lastHeartbeatTime = 0L;
   private AgentEnv lastAgentEnv = null;
@@ -245,6 +248,7 @@ public class HostImpl implements Host {
     clusterDAO = injector.getInstance(ClusterDAO.class);
     clusters = injector.getInstance(Clusters.class);
     hostConfigMappingDAO = injector.getInstance(HostConfigMappingDAO.class);
+    versionTracker = injector.getInstance(ResourceVersionTracker.class);
     //todo: proper static injection
     HostImpl.topologyManager = injector.getInstance(TopologyManager.class);
 
@@ -517,6 +521,7 @@ public class HostImpl implements Host {
   public void setLastAgentEnv(AgentEnv env) {
     writeLock.lock();
     try {
+      changed(lastAgentEnv, env);
       lastAgentEnv = env;
     } finally {
       writeLock.unlock();
@@ -590,6 +595,7 @@ public class HostImpl implements Host {
       writeLock.unlock();
     }
     if (oldState != getState()) {
+      versionTracker.changed(Resource.InternalType.Host);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Host transitioned to a new state"
             + ", host=" + getHostName()
@@ -887,6 +893,7 @@ public class HostImpl implements Host {
   public void setDisksInfo(List<DiskInfo> disksInfo) {
     try {
       writeLock.lock();
+      changed(this.disksInfo, disksInfo);
       this.disksInfo = disksInfo;
     } finally {
       writeLock.unlock();
@@ -907,6 +914,7 @@ public class HostImpl implements Host {
   public void setRecoveryReport(RecoveryReport recoveryReport) {
     try {
       writeLock.lock();
+      changed(this.recoveryReport, recoveryReport);
       this.recoveryReport = recoveryReport;
     } finally {
       writeLock.unlock();
@@ -1117,6 +1125,7 @@ public class HostImpl implements Host {
       try {
         writeLock.lock();
         this.status = status;
+        versionTracker.changed(Resource.InternalType.Host);
       } finally {
         writeLock.unlock();
       }
@@ -1207,6 +1216,7 @@ public class HostImpl implements Host {
       if (!persisted) {
         persistEntities();
         refresh();
+        versionTracker.changed(Resource.InternalType.Host);
         for (ClusterEntity clusterEntity : hostEntity.getClusterEntities()) {
           try {
             clusters.getClusterById(clusterEntity.getClusterId()).refresh();
@@ -1247,12 +1257,28 @@ public class HostImpl implements Host {
     }
   }
 
+  /**
+   * Records a change of the host unless a value reported by the agent is the
+   * same as before. The agents report these values with every heartbeat, so
+   * they are compared by their serialized form since they do not implement
+   * equals.
+   *
+   * @param oldValue the current value
+   * @param newValue the reported value
+   */
+  private void changed(Object oldValue, Object newValue) {
+    if (!gson.toJson(oldValue).equals(gson.toJson(newValue))) {
+      versionTracker.changed(Resource.InternalType.Host);
+    }
+  }
+
   @Transactional
   void saveIfPersisted() {
     if (isPersisted()) {
       hostDAO.merge(hostEntity);
       hostStateDAO.merge(hostStateEntity);
     }
+    versionTracker.changed(Resource.InternalType.Host);
   }
 
   @Override
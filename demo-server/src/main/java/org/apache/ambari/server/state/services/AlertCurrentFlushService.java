@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.AmbariService;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.state.alert.AlertCurrentStateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.inject.Inject;
+
+/**
+ * The {@link AlertCurrentFlushService} periodically writes the alert updates
+ * absorbed by the {@link AlertCurrentStateCache} to the database.
+ */
+@AmbariService
+public class AlertCurrentFlushService extends AbstractScheduledService {
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOG = LoggerFactory.getLogger(AlertCurrentFlushService.class);
+
+  /**
+   * The cache holding the pending updates.
+   */
+  @Inject
+  private AlertCurrentStateCache m_cache;
+
+  /**
+   * Used to determine the flush interval.
+   */
+  @Inject
+  private Configuration m_configuration;
+
+  /**
+   * Constructor.
+   */
+  public AlertCurrentFlushService() {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Scheduler scheduler() {
+    long interval = m_configuration.getAlertsCurrentFlushInterval();
+    return Scheduler.newFixedDelaySchedule(interval, interval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Failures are logged and retried on the next iteration since an exception
+   * would stop the service.
+   */
+  @Override
+  protected void runOneIteration() throws Exception {
+    try {
+      int count = m_cache.flush();
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Flushed {} current alerts, {} cached", count, m_cache.size());
+      }
+    } catch (Exception exception) {
+      LOG.error("Unable to write the latest timestamps of current alerts", exception);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Writes the remaining updates.
+   */
+  @Override
+  protected void shutDown() throws Exception {
+    runOneIteration();
+  }
+}
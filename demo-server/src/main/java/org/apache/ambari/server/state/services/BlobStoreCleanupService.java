@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.AmbariService;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.orm.dao.BlobDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.inject.Inject;
+
+/**
+ * The {@link BlobStoreCleanupService} periodically deletes the blobs which
+ * are no longer referenced by any stage or execution command.
+ */
+@AmbariService
+public class BlobStoreCleanupService extends AbstractScheduledService {
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOG = LoggerFactory.getLogger(BlobStoreCleanupService.class);
+
+  /**
+   * Stores and deletes the blobs.
+   */
+  @Inject
+  private BlobDAO m_blobDAO;
+
+  /**
+   * Used to determine the cleanup interval.
+   */
+  @Inject
+  private Configuration m_configuration;
+
+  /**
+   * Constructor.
+   */
+  public BlobStoreCleanupService() {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Scheduler scheduler() {
+    long interval = m_configuration.getBlobStoreCleanupInterval();
+    return Scheduler.newFixedDelaySchedule(interval, interval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Failures are logged and retried on the next iteration since an exception
+   * would stop the service.
+   */
+  @Override
+  protected void runOneIteration() throws Exception {
+    try {
+      int count = m_blobDAO.removeUnreferenced();
+      if (count > 0) {
+        LOG.info("Deleted {} unreferenced blobs", count);
+      }
+    } catch (Exception exception) {
+      LOG.error("Unable to delete unreferenced blobs", exception);
+    }
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.agent.AlertDefinitionCommand;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
 import org.apache.ambari.server.controller.ServiceComponentHostResponse;
+import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.events.AlertHashInvalidationEvent;
 import org.apache.ambari.server.events.MaintenanceModeEvent;
 import org.apache.ambari.server.events.ServiceComponentInstalledEvent;
@@ -62,6 +63,7 @@ import org.apache.ambari.server.state.HostComponentAdminState;
 import org.apache.ambari.server.state.HostConfig;
 import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.MaintenanceState;
+import org.apache.ambari.server.state.ResourceVersionTracker;
 import org.apache.ambari.server.state.SecurityState;
 import org.apache.ambari.server.state.ServiceComponent;
 import org.apache.ambari.server.state.ServiceComponentHost;
@@ -78,6 +80,7 @@ import org.apache.ambari.server.state.fsm.SingleArcTransition;
 import org.apache.ambari.server.state.fsm.StateMachine;
 import org.apache.ambari.server.state.fsm.StateMachineFactory;
 import org.apache.ambari.server.state.stack.upgrade.RepositoryVersionHelper;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -142,6 +145,12 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   @Inject
   private StackDAO stackDAO;
 
+  /**
+   * Records changes of the host component state for the REST API.
+   */
+  @Inject
+  private ResourceVersionTracker versionTracker;
+
   // TODO : caching the JPA entities here causes issues if they become stale and get re-merged.
   private HostComponentStateEntity stateEntity;
   private HostComponentDesiredStateEntity desiredStateEntity;
@@ -815,6 +824,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setState(State state) {
     writeLock.lock();
     try {
+      changed(stateMachine.getCurrentState(), state);
       stateMachine.setCurrentState(state);
       getStateEntity().setCurrentState(state);
       saveIfPersisted();
@@ -837,6 +847,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setVersion(String version) {
     writeLock.lock();
     try {
+      changed(getStateEntity().getVersion(), version);
       getStateEntity().setVersion(version);
       saveIfPersisted();
     } finally {
@@ -858,6 +869,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setSecurityState(SecurityState securityState) {
     writeLock.lock();
     try {
+      changed(getStateEntity().getSecurityState(), securityState);
       getStateEntity().setSecurityState(securityState);
       saveIfPersisted();
     } finally {
@@ -885,6 +897,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     try {
       getDesiredStateEntity().setSecurityState(securityState);
       saveIfPersisted();
+      versionTracker.changed(Resource.InternalType.HostComponent);
     } finally {
       writeLock.unlock();
     }
@@ -903,6 +916,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setUpgradeState(UpgradeState upgradeState) {
     writeLock.lock();
     try {
+      changed(getStateEntity().getUpgradeState(), upgradeState);
       getStateEntity().setUpgradeState(upgradeState);
       saveIfPersisted();
     } finally {
@@ -919,7 +933,8 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
           + ", event=" + event.toString());
     }
     State oldState = getState();
-    clusterGlobalLock.readLock().lock();
+    Lock hostReadLock = serviceComponent.getHostLock(getHostName()).readLock();
+    hostReadLock.lock();
     try {
       try {
         writeLock.lock();
@@ -942,10 +957,11 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
         writeLock.unlock();
       }
     } finally {
-      clusterGlobalLock.readLock().unlock();
+      hostReadLock.unlock();
     }
 
     if (!oldState.equals(getState())) {
+      versionTracker.changed(Resource.InternalType.HostComponent);
       LOG.info("Host role transitioned to a new state"
                + ", serviceComponentName=" + getServiceComponentName()
                + ", hostName=" + getHostName()
@@ -1083,6 +1099,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 
     writeLock.lock();
     try {
+      changed(getStateEntity().getCurrentStack(), stackEntity);
       getStateEntity().setCurrentStack(stackEntity);
       saveIfPersisted();
     } finally {
@@ -1106,6 +1123,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     try {
       getDesiredStateEntity().setDesiredState(state);
       saveIfPersisted();
+      versionTracker.changed(Resource.InternalType.HostComponent);
     } finally {
       writeLock.unlock();
     }
@@ -1132,6 +1150,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 
       getDesiredStateEntity().setDesiredStack(stackEntity);
       saveIfPersisted();
+      versionTracker.changed(Resource.InternalType.HostComponent);
     } finally {
       writeLock.unlock();
     }
@@ -1158,6 +1177,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     try {
       getDesiredStateEntity().setAdminState(attribute);
       saveIfPersisted();
+      versionTracker.changed(Resource.InternalType.HostComponent);
     } finally {
       writeLock.unlock();
     }
@@ -1263,6 +1283,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
           // as it has no more bearing on the rest of this persist() method
           persistEntities();
           persisted = true;
+          versionTracker.changed(Resource.InternalType.HostComponent);
 
           clusterGlobalLock.writeLock().unlock();
           clusterWriteLockAcquired = false;
@@ -1282,6 +1303,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
           eventPublisher.publish(event);
         } else {
           saveIfPersisted();
+          versionTracker.changed(Resource.InternalType.HostComponent);
         }
       } finally {
         writeLock.unlock();
@@ -1344,9 +1366,24 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     }
   }
 
+  /**
+   * Records a change of the host component unless the new value is the same
+   * as the current one. The agents report their state with every heartbeat,
+   * so only actual changes are counted.
+   *
+   * @param oldValue the current value
+   * @param newValue the new value
+   */
+  private void changed(Object oldValue, Object newValue) {
+    if (!ObjectUtils.equals(oldValue, newValue)) {
+      versionTracker.changed(Resource.InternalType.HostComponent);
+    }
+  }
+
   @Override
   public boolean canBeRemoved() {
-    clusterGlobalLock.readLock().lock();
+    Lock hostReadLock = serviceComponent.getHostLock(getHostName()).readLock();
+    hostReadLock.lock();
     boolean schLockAcquired = false;
     try {
       // if unable to read, then writers are writing; cannot remove SCH
@@ -1358,7 +1395,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
       if (schLockAcquired) {
         readLock.unlock();
       }
-      clusterGlobalLock.readLock().unlock();
+      hostReadLock.unlock();
     }
   }
 
@@ -1368,6 +1405,8 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     boolean fireRemovalEvent = false;
 
     clusterGlobalLock.writeLock().lock();
+    Lock hostWriteLock = serviceComponent.getHostLock(getHostName()).writeLock();
+    hostWriteLock.lock();
     try {
       writeLock.lock();
       try {
@@ -1375,6 +1414,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
           removeEntities();
           persisted = false;
           fireRemovalEvent = true;
+          versionTracker.changed(Resource.InternalType.HostComponent);
         }
 
         clusters.getCluster(getClusterName()).removeServiceComponentHost(this);
@@ -1384,6 +1424,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
         writeLock.unlock();
       }
     } finally {
+      hostWriteLock.unlock();
       clusterGlobalLock.writeLock().unlock();
     }
 
@@ -1441,6 +1482,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     writeLock.lock();
     try {
       LOG.debug("Updating actual config tags: " + configTags);
+      Map<String, HostConfig> previousActualConfigs = actualConfigs;
       actualConfigs = new HashMap<String, HostConfig>();
 
       for (Entry<String, Map<String, String>> entry : configTags.entrySet()) {
@@ -1465,6 +1507,11 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
           }
         }
       }
+
+      if (!actualConfigs.equals(previousActualConfigs)) {
+        helper.invalidateStaleConfigsCache(this);
+        versionTracker.changed(Resource.InternalType.HostComponent);
+      }
     } finally {
       writeLock.unlock();
     }
@@ -1496,6 +1543,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
     try {
       getDesiredStateEntity().setMaintenanceState(state);
       saveIfPersisted();
+      versionTracker.changed(Resource.InternalType.HostComponent);
 
       // broadcast the maintenance mode change
       MaintenanceModeEvent event = new MaintenanceModeEvent(state, this);
@@ -1520,6 +1568,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setProcesses(List<Map<String, String>> procs) {
     writeLock.lock();
     try {
+      changed(processes, procs);
       processes = Collections.unmodifiableList(procs);
     } finally {
       writeLock.unlock();
@@ -1550,6 +1599,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
   public void setRestartRequired(boolean restartRequired) {
     writeLock.lock();
     try {
+      changed(getDesiredStateEntity().isRestartRequired(), restartRequired);
       getDesiredStateEntity().setRestartRequired(restartRequired);
       saveIfPersisted();
       helper.invalidateStaleConfigsCache(this);
@@ -19,6 +19,8 @@
 package org.apache.ambari.server.upgrade;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.orm.DBAccessor.DBColumnInfo;
@@ -36,6 +38,8 @@ import com.google.inject.Injector;
 public class UpgradeCatalog220 extends AbstractUpgradeCatalog {
   private static final String HOST_ROLE_COMMAND_TABLE = "host_role_command";
   private static final String HOST_ID_COL = "host_id";
+  private static final String BLOB_STORE_TABLE = "blob_store";
+  private static final String HOST_ROLE_COMMAND_OUTPUT_TABLE = "host_role_command_output";
 
   @Inject
   DaoUtils daoUtils;
@@ -85,6 +89,44 @@ public class UpgradeCatalog220 extends AbstractUpgradeCatalog {
   protected void executeDDLUpdates() throws AmbariException, SQLException {
 
     dbAccessor.alterColumn(HOST_ROLE_COMMAND_TABLE, new DBColumnInfo(HOST_ID_COL, Long.class, null, null, true));
+
+    createBlobStoreTable();
+    createHostRoleCommandOutputTable();
+  }
+
+  /**
+   * Creates the table holding compressed stage parameters and execution
+   * commands. Existing rows keep their inline values, which continue to be
+   * read as-is; only rows written after the upgrade reference the blob store.
+   *
+   * @throws SQLException
+   */
+  private void createBlobStoreTable() throws SQLException {
+    List<DBColumnInfo> columns = new ArrayList<DBColumnInfo>();
+    columns.add(new DBColumnInfo("blob_hash", String.class, 64, null, false));
+    columns.add(new DBColumnInfo("blob_length", Integer.class, null, null, false));
+    columns.add(new DBColumnInfo("blob_content", byte[].class, null, null, false));
+
+    dbAccessor.createTable(BLOB_STORE_TABLE, columns, "blob_hash");
+  }
+
+  /**
+   * Creates the table holding task output in chunks. The output of existing
+   * tasks stays in the columns of host_role_command and is read from there
+   * for tasks without chunks.
+   *
+   * @throws SQLException
+   */
+  private void createHostRoleCommandOutputTable() throws SQLException {
+    List<DBColumnInfo> columns = new ArrayList<DBColumnInfo>();
+    columns.add(new DBColumnInfo("task_id", Long.class, null, null, false));
+    columns.add(new DBColumnInfo("output_type", String.class, 32, null, false));
+    columns.add(new DBColumnInfo("chunk_index", Integer.class, null, null, false));
+    columns.add(new DBColumnInfo("chunk_offset", Long.class, null, null, false));
+    columns.add(new DBColumnInfo("chunk_length", Integer.class, null, null, false));
+    columns.add(new DBColumnInfo("chunk_data", byte[].class, null, null, false));
+
+    dbAccessor.createTable(HOST_ROLE_COMMAND_OUTPUT_TABLE, columns, "task_id", "output_type", "chunk_index");
   }
 
   @Override
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link StatisticsLogThrottle} decides when a component should log a
+ * summary of its {@link TimingStatistics}. Callers check {@link #isDue()} from
+ * a path that runs regularly, such as a worker loop, and log only when it
+ * returns {@code true}; at most one caller is let through per interval.
+ */
+public class StatisticsLogThrottle {
+
+  /**
+   * The default interval between two statistics summaries.
+   */
+  public static final long DEFAULT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  /**
+   * The interval between two summaries, in nanoseconds.
+   */
+  private final long m_intervalNanos;
+
+  /**
+   * The {@link System#nanoTime()} after which the next summary is due.
+   */
+  private final AtomicLong m_nextNanos;
+
+  /**
+   * Constructor using {@link #DEFAULT_INTERVAL_MS}.
+   */
+  public StatisticsLogThrottle() {
+    this(DEFAULT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param interval
+   *          the interval between two summaries.
+   * @param unit
+   *          the unit of the interval.
+   */
+  public StatisticsLogThrottle(long interval, TimeUnit unit) {
+    m_intervalNanos = unit.toNanos(interval);
+    m_nextNanos = new AtomicLong(System.nanoTime() + m_intervalNanos);
+  }
+
+  /**
+   * Gets whether a summary should be logged now. Returns {@code true} to
+   * exactly one caller once the interval has elapsed.
+   *
+   * @return {@code true} if the caller should log its statistics.
+   */
+  public boolean isDue() {
+    long now = System.nanoTime();
+    long next = m_nextNanos.get();
+    return now - next >= 0 && m_nextNanos.compareAndSet(next, now + m_intervalNanos);
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link TimingStatistics} class is a lock-free accumulator of the number
+ * of times an operation was executed along with the total and maximum time
+ * spent in it. Instances are safe to share between threads and are intended to
+ * be cheap enough to update on hot paths.
+ */
+public class TimingStatistics {
+
+  /**
+   * The name of the operation being measured.
+   */
+  private final String m_name;
+
+  /**
+   * The number of recorded samples.
+   */
+  private final AtomicLong m_count = new AtomicLong();
+
+  /**
+   * The sum of all recorded durations, in nanoseconds.
+   */
+  private final AtomicLong m_totalNanos = new AtomicLong();
+
+  /**
+   * The longest recorded duration, in nanoseconds.
+   */
+  private final AtomicLong m_maxNanos = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param name
+   *          the name of the operation being measured (not {@code null}).
+   */
+  public TimingStatistics(String name) {
+    m_name = name;
+  }
+
+  /**
+   * Gets the name of the measured operation.
+   *
+   * @return the name.
+   */
+  public String getName() {
+    return m_name;
+  }
+
+  /**
+   * Records a sample whose start time was obtained from
+   * {@link System#nanoTime()}.
+   *
+   * @param startNanos
+   *          the start time of the operation.
+   * @return the elapsed time, in nanoseconds.
+   */
+  public long recordSince(long startNanos) {
+    long elapsed = System.nanoTime() - startNanos;
+    record(elapsed);
+    return elapsed;
+  }
+
+  /**
+   * Records a sample.
+   *
+   * @param elapsedNanos
+   *          the duration of the operation, in nanoseconds.
+   */
+  public void record(long elapsedNanos) {
+    m_count.incrementAndGet();
+    m_totalNanos.addAndGet(elapsedNanos);
+
+    long max = m_maxNanos.get();
+    while (elapsedNanos > max && !m_maxNanos.compareAndSet(max, elapsedNanos)) {
+      max = m_maxNanos.get();
+    }
+  }
+
+  /**
+   * @return the number of recorded samples.
+   */
+  public long getCount() {
+    return m_count.get();
+  }
+
+  /**
+   * @return the total time of all samples, in milliseconds.
+   */
+  public long getTotalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(m_totalNanos.get());
+  }
+
+  /**
+   * @return the average time of a sample, in milliseconds, or {@code 0} if
+   *         nothing was recorded yet.
+   */
+  public double getAverageMillis() {
+    long count = m_count.get();
+    if (count == 0) {
+      return 0;
+    }
+
+    return m_totalNanos.get() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * @return the longest sample, in milliseconds.
+   */
+  public long getMaxMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(m_maxNanos.get());
+  }
+
+  /**
+   * Clears all recorded samples.
+   */
+  public void reset() {
+    m_count.set(0);
+    m_totalNanos.set(0);
+    m_maxNanos.set(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return String.format("%s{count=%d, avgMs=%.2f, maxMs=%d}", m_name,
+        getCount(), getAverageMillis(), getMaxMillis());
+  }
+}
@@ -48,14 +48,11 @@ import org.apache.ambari.server.orm.dao.ResourceTypeDAO;
 import org.apache.ambari.server.orm.dao.UserDAO;
 import org.apache.ambari.server.orm.dao.ViewDAO;
 import org.apache.ambari.server.orm.dao.ViewInstanceDAO;
-import org.apache.ambari.server.orm.entities.GroupEntity;
-import org.apache.ambari.server.orm.entities.MemberEntity;
 import org.apache.ambari.server.orm.entities.PermissionEntity;
 import org.apache.ambari.server.orm.entities.PrincipalEntity;
 import org.apache.ambari.server.orm.entities.PrivilegeEntity;
 import org.apache.ambari.server.orm.entities.ResourceEntity;
 import org.apache.ambari.server.orm.entities.ResourceTypeEntity;
-import org.apache.ambari.server.orm.entities.UserEntity;
 import org.apache.ambari.server.orm.entities.ViewEntity;
 import org.apache.ambari.server.orm.entities.ViewEntityEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
@@ -63,7 +60,8 @@ import org.apache.ambari.server.orm.entities.ViewInstanceEntity;
 import org.apache.ambari.server.orm.entities.ViewParameterEntity;
 import org.apache.ambari.server.orm.entities.ViewResourceEntity;
 import org.apache.ambari.server.security.SecurityHelper;
-import org.apache.ambari.server.security.authorization.AmbariGrantedAuthority;
+import org.apache.ambari.server.security.authorization.PrincipalPermissions;
+import org.apache.ambari.server.security.authorization.PrincipalPermissionsCache;
 import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.StackId;
 import org.apache.ambari.server.state.stack.OsFamily;
@@ -91,7 +89,6 @@ import org.apache.ambari.view.events.Event;
 import org.apache.ambari.view.events.Listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.GrantedAuthority;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -208,6 +205,12 @@ public class ViewRegistry {
   @Inject
   SecurityHelper securityHelper;
 
+  /**
+   * The cached permissions of users.
+   */
+  @Inject
+  PrincipalPermissionsCache permissionsCache;
+
   /**
    * Resource data access object.
    */
@@ -699,27 +702,9 @@ public class ViewRegistry {
    */
   public boolean hasPermission(PermissionEntity permissionEntity, ResourceEntity resourceEntity, String userName) {
 
-    UserEntity userEntity = userDAO.findUserByName(userName);
-
-    if (userEntity == null) {
-      return false;
-    }
-
-    if (privilegeDAO.exists(userEntity.getPrincipal(), resourceEntity, permissionEntity)) {
-      return true;
-    }
-
-    List<MemberEntity> memberEntities = memberDAO.findAllMembersByUser(userEntity);
-
-    for (MemberEntity memberEntity : memberEntities) {
-
-      GroupEntity groupEntity = memberEntity.getGroup();
-
-      if (privilegeDAO.exists(groupEntity.getPrincipal(), resourceEntity, permissionEntity)) {
-        return true;
-      }
-    }
-    return false;
+    // the permissions of the user and the groups of the user, cached until they change
+    return permissionsCache.getPermissions(userName)
+        .hasResourcePermission(resourceEntity.getId(), permissionEntity.getId());
   }
 
   /**
@@ -1383,29 +1368,16 @@ public class ViewRegistry {
 
   // check that the current user is authorized to access the given view instance resource
   private boolean checkAuthorization(ResourceEntity resourceEntity) {
-    for (GrantedAuthority grantedAuthority : securityHelper.getCurrentAuthorities()) {
-      if (grantedAuthority instanceof AmbariGrantedAuthority) {
+    PrincipalPermissions permissions = PrincipalPermissions.forAuthorities(securityHelper.getCurrentAuthorities());
 
-        AmbariGrantedAuthority authority       = (AmbariGrantedAuthority) grantedAuthority;
-        PrivilegeEntity        privilegeEntity = authority.getPrivilegeEntity();
-        Integer                permissionId    = privilegeEntity.getPermission().getId();
-
-        // admin has full access
-        if (permissionId.equals(PermissionEntity.AMBARI_ADMIN_PERMISSION)) {
-          return true;
-        }
-        if (resourceEntity != null) {
-          // VIEW.USE for the given view instance resource.
-          if (privilegeEntity.getResource().equals(resourceEntity)) {
-            if (permissionId.equals(PermissionEntity.VIEW_USE_PERMISSION)) {
-              return true;
-            }
-          }
-        }
-      }
+    // admin has full access
+    if (permissions.isAdmin()) {
+      return true;
     }
+    // VIEW.USE for the given view instance resource.
     // TODO : should we log this?
-    return false;
+    return resourceEntity != null &&
+        permissions.hasResourcePermission(resourceEntity.getId(), PermissionEntity.VIEW_USE_PERMISSION);
   }
 
   // fire the onDeploy event.
@@ -220,6 +220,21 @@ CREATE TABLE execution_command (
   command LONGBLOB,
   PRIMARY KEY (task_id));
 
+CREATE TABLE blob_store (
+  blob_hash VARCHAR(64) NOT NULL,
+  blob_length INTEGER NOT NULL,
+  blob_content LONGBLOB NOT NULL,
+  PRIMARY KEY (blob_hash));
+
+CREATE TABLE host_role_command_output (
+  task_id BIGINT NOT NULL,
+  output_type VARCHAR(32) NOT NULL,
+  chunk_index INTEGER NOT NULL,
+  chunk_offset BIGINT NOT NULL,
+  chunk_length INTEGER NOT NULL,
+  chunk_data LONGBLOB NOT NULL,
+  PRIMARY KEY (task_id, output_type, chunk_index));
+
 CREATE TABLE host_role_command (
   task_id BIGINT NOT NULL,
   attempt_count SMALLINT NOT NULL,
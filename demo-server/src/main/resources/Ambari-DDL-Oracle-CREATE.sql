@@ -210,6 +210,21 @@ CREATE TABLE execution_command (
   command BLOB NULL,
   PRIMARY KEY (task_id));
 
+CREATE TABLE blob_store (
+  blob_hash VARCHAR2(64) NOT NULL,
+  blob_length NUMBER(10) NOT NULL,
+  blob_content BLOB NOT NULL,
+  PRIMARY KEY (blob_hash));
+
+CREATE TABLE host_role_command_output (
+  task_id NUMBER(19) NOT NULL,
+  output_type VARCHAR2(32) NOT NULL,
+  chunk_index NUMBER(10) NOT NULL,
+  chunk_offset NUMBER(19) NOT NULL,
+  chunk_length NUMBER(10) NOT NULL,
+  chunk_data BLOB NOT NULL,
+  PRIMARY KEY (task_id, output_type, chunk_index));
+
 CREATE TABLE host_role_command (
   task_id NUMBER(19) NOT NULL,
   attempt_count NUMBER(5) NOT NULL,
@@ -253,6 +253,23 @@ CREATE TABLE ambari.execution_command (
   PRIMARY KEY (task_id));
 GRANT ALL PRIVILEGES ON TABLE ambari.execution_command TO :username;
 
+CREATE TABLE ambari.blob_store (
+  blob_hash VARCHAR(64) NOT NULL,
+  blob_length INTEGER NOT NULL,
+  blob_content BYTEA NOT NULL,
+  PRIMARY KEY (blob_hash));
+GRANT ALL PRIVILEGES ON TABLE ambari.blob_store TO :username;
+
+CREATE TABLE ambari.host_role_command_output (
+  task_id BIGINT NOT NULL,
+  output_type VARCHAR(32) NOT NULL,
+  chunk_index INTEGER NOT NULL,
+  chunk_offset BIGINT NOT NULL,
+  chunk_length INTEGER NOT NULL,
+  chunk_data BYTEA NOT NULL,
+  PRIMARY KEY (task_id, output_type, chunk_index));
+GRANT ALL PRIVILEGES ON TABLE ambari.host_role_command_output TO :username;
+
 CREATE TABLE ambari.host_role_command (
   task_id BIGINT NOT NULL,
   attempt_count SMALLINT NOT NULL,
@@ -209,6 +209,21 @@ CREATE TABLE execution_command (
   command IMAGE,
   PRIMARY KEY (task_id));
 
+CREATE TABLE blob_store (
+  blob_hash VARCHAR(64) NOT NULL,
+  blob_length INTEGER NOT NULL,
+  blob_content IMAGE NOT NULL,
+  PRIMARY KEY (blob_hash));
+
+CREATE TABLE host_role_command_output (
+  task_id NUMERIC(19) NOT NULL,
+  output_type VARCHAR(32) NOT NULL,
+  chunk_index INTEGER NOT NULL,
+  chunk_offset NUMERIC(19) NOT NULL,
+  chunk_length INTEGER NOT NULL,
+  chunk_data IMAGE NOT NULL,
+  PRIMARY KEY (task_id, output_type, chunk_index));
+
 CREATE TABLE host_role_command (
   task_id NUMERIC(19) NOT NULL,
   attempt_count SMALLINT NOT NULL,
@@ -0,0 +1,181 @@
+#!/usr/bin/env python
+
+'''
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+'''
+
+# A stand-in for the MIT kadmin and kadmin.local commands, used to measure the throughput of the
+# Kerberos operations of the Ambari server without a KDC.
+#
+# It answers the queries issued by the MITKerberosOperationHandler (get_principal, add_principal,
+# change_password, delete_principal and get_policy) with the messages of the real commands, both
+# for a single query (-q) and interactively on STDIN.  Principals are kept in a JSON file so that
+# they survive across processes.
+#
+# Usage:
+#   mkdir /tmp/fake-kadmin && ln -s $PWD/fake-kadmin.py /tmp/fake-kadmin/kadmin
+#   and set executable_search_paths in kerberos-env to /tmp/fake-kadmin
+#
+# Environment:
+#   FAKE_KADMIN_DB             the principal database file (default /tmp/fake-kadmin.json)
+#   FAKE_KADMIN_STARTUP_DELAY  seconds spent starting and authenticating (default 0.1)
+#   FAKE_KADMIN_QUERY_DELAY    seconds spent on each query (default 0.005)
+#   FAKE_KADMIN_PASSWORD       if set, the only admin password (-w) accepted
+
+import fcntl
+import json
+import os
+import shlex
+import sys
+import time
+
+DB_FILE = os.environ.get('FAKE_KADMIN_DB', '/tmp/fake-kadmin.json')
+STARTUP_DELAY = float(os.environ.get('FAKE_KADMIN_STARTUP_DELAY', '0.1'))
+QUERY_DELAY = float(os.environ.get('FAKE_KADMIN_QUERY_DELAY', '0.005'))
+ADMIN_PASSWORD = os.environ.get('FAKE_KADMIN_PASSWORD')
+
+
+def parse_arguments(args):
+  options = {}
+  i = 0
+  while i < len(args):
+    arg = args[i]
+    if arg in ('-p', '-w', '-t', '-s', '-r', '-q'):
+      options[arg] = args[i + 1] if i + 1 < len(args) else ''
+      i += 2
+    else:
+      options[arg] = True
+      i += 1
+  return options
+
+
+class Database(object):
+  """The principals and their key numbers, shared through a locked file."""
+
+  def __enter__(self):
+    self.file = open(DB_FILE, 'a+')
+    fcntl.flock(self.file, fcntl.LOCK_EX)
+    self.file.seek(0)
+    content = self.file.read()
+    self.principals = json.loads(content) if content else {}
+    self.modified = False
+    return self
+
+  def __exit__(self, *args):
+    if self.modified:
+      self.file.seek(0)
+      self.file.truncate()
+      self.file.write(json.dumps(self.principals))
+      self.file.flush()
+    fcntl.flock(self.file, fcntl.LOCK_UN)
+    self.file.close()
+
+
+def qualify(principal, realm):
+  if '@' in principal or not realm:
+    return principal
+  return '%s@%s' % (principal, realm)
+
+
+def execute(query, realm):
+  """Executes a query, writing the response as the real kadmin would."""
+  time.sleep(QUERY_DELAY)
+
+  try:
+    words = shlex.split(query)
+  except ValueError as e:
+    sys.stderr.write('%s\n' % e)
+    return
+  if not words:
+    return
+
+  name = words[0]
+  principal = qualify(words[-1], realm) if len(words) > 1 else None
+
+  with Database() as db:
+    if name in ('get_principal', 'getprinc'):
+      if principal in db.principals:
+        sys.stdout.write('Principal: %s\n' % principal)
+        sys.stdout.write('Number of keys: 1\n')
+        sys.stdout.write('Key: vno %d, aes256-cts-hmac-sha1-96\n' % db.principals[principal])
+      else:
+        sys.stderr.write('get_principal: Principal does not exist while retrieving "%s".\n' % principal)
+
+    elif name in ('add_principal', 'addprinc', 'ank'):
+      if principal in db.principals:
+        sys.stderr.write('add_principal: Principal or policy already exists while creating "%s".\n' % principal)
+      else:
+        db.principals[principal] = 1
+        db.modified = True
+        sys.stdout.write('Principal "%s" created.\n' % principal)
+
+    elif name in ('change_password', 'cpw'):
+      if principal in db.principals:
+        db.principals[principal] += 1
+        db.modified = True
+        sys.stdout.write('Password for "%s" changed.\n' % principal)
+      else:
+        sys.stderr.write('change_password: Principal does not exist while changing password for "%s".\n' % principal)
+
+    elif name in ('delete_principal', 'delprinc'):
+      if principal in db.principals:
+        del db.principals[principal]
+        db.modified = True
+        sys.stdout.write('Principal "%s" deleted.\n' % principal)
+      else:
+        sys.stderr.write('delete_principal: Principal does not exist while deleting principal "%s".\n' % principal)
+
+    elif name in ('get_policy', 'getpol'):
+      sys.stderr.write('get_policy: Policy does not exist while retrieving policy "%s".\n' % words[-1])
+
+    else:
+      sys.stderr.write('Unknown request "%s".  Type "?" for a request list.\n' % name)
+
+  sys.stdout.flush()
+  sys.stderr.flush()
+
+
+def main():
+  options = parse_arguments(sys.argv[1:])
+  realm = options.get('-r')
+  local = os.path.basename(sys.argv[0]).startswith('kadmin.local')
+
+  time.sleep(STARTUP_DELAY)
+
+  if ADMIN_PASSWORD is not None and not local and '-k' not in options and options.get('-w') != ADMIN_PASSWORD:
+    sys.stderr.write('kadmin: Incorrect password while initializing kadmin interface\n')
+    return 1
+
+  if '-q' in options:
+    execute(options['-q'], realm)
+    return 0
+
+  prompt = 'kadmin.local:  ' if local else 'kadmin:  '
+  while True:
+    sys.stdout.write(prompt)
+    sys.stdout.flush()
+    line = sys.stdin.readline()
+    if not line:
+      return 0
+    query = line.strip()
+    if query in ('quit', 'exit', 'q'):
+      return 0
+    execute(query, realm)
+
+
+if __name__ == '__main__':
+  sys.exit(main())